@@ -0,0 +1,29 @@
+#!/bin/bash
+
+# Builds the game and the checks, and runs them.
+# With no argument, every check is run. Otherwise the named check (e.g. CommandTableCheck) is run
+# with the remaining options. Exits with a non-zero status if a check fails.
+
+SCRIPT_DIR=$(cd $(dirname $0); pwd)
+ROOT_DIR=$(cd $SCRIPT_DIR/..; pwd)
+BUILD_DIR=$(mktemp -d)
+trap "rm -rf $BUILD_DIR" EXIT
+
+CHECKS="CommandTableCheck AllocationCheck AttackReachCheck"
+
+cd $ROOT_DIR
+
+javac -encoding UTF-8 -nowarn -d $BUILD_DIR -cp "./lib/*:./lib/lwjgl/*" \
+	$(find src benchmark/src -name "*.java") || exit 1
+
+if [ $# -gt 0 ]; then
+	CHECKS=$1
+	shift
+fi
+
+STATUS=0
+for CHECK in $CHECKS; do
+	echo "== $CHECK"
+	java -Xms1g -Xmx1g -cp "$BUILD_DIR:./lib/*:./lib/lwjgl/*" benchmark.$CHECK "$@" || STATUS=1
+done
+exit $STATUS
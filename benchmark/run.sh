@@ -0,0 +1,16 @@
+#!/bin/bash
+
+# Builds the game and the benchmark, and runs the benchmark.
+# Options are passed to benchmark.EngineBenchmark (e.g. --c1 ZEN --c2 LUD --time 10000).
+
+SCRIPT_DIR=$(cd $(dirname $0); pwd)
+ROOT_DIR=$(cd $SCRIPT_DIR/..; pwd)
+BUILD_DIR=$(mktemp -d)
+trap "rm -rf $BUILD_DIR" EXIT
+
+cd $ROOT_DIR
+
+javac -encoding UTF-8 -nowarn -d $BUILD_DIR -cp "./lib/*:./lib/lwjgl/*" \
+	$(find src benchmark/src -name "*.java") || exit 1
+
+java -Xms1g -Xmx1g -cp "$BUILD_DIR:./lib/*:./lib/lwjgl/*" benchmark.EngineBenchmark "$@"
@@ -0,0 +1,103 @@
+package benchmark;
+
+import setting.FlagSetting;
+import setting.GameSetting;
+
+/**
+ * {@link EngineBenchmark}の各項目の1回あたりのメモリ割り当て量が, 項目ごとに定めた上限を超えていないことを確認するプログラム．<br>
+ * 全てのキャラクターの同キャラ対戦について, 乱数で生成したキー入力を用いて計測する．
+ * 上限は現在の割り当て量に余裕を持たせた値であり, 対戦処理やシミュレーションの1フレームごとの処理にコピーやラッパーの生成が
+ * 再び入り込んだ場合に検出することを目的とする．<br>
+ * 上限を超えた項目, 上限が定められていない項目があった場合, 又は割り当て量を計測できないJVMの場合は終了コード1で終了する．
+ * benchmark/check.shでビルド及び実行する．
+ *
+ * <pre>
+ * オプション:
+ *   --warmup MS   各項目のウォームアップ時間(ミリ秒)
+ *   --time MS     各項目の計測時間(ミリ秒)
+ * </pre>
+ */
+public class AllocationCheck {
+
+	/**
+	 * 上限を定める項目の名前．
+	 */
+	private static final String[] NAMES = { "fight.processingFight", "fight.createFrameData", "simulator.simulate",
+			"simulator.simulateSnapshot", "command.interpret", "copy.frameData", "copy.frameSnapshot",
+			"log.outputLog" };
+
+	/**
+	 * 各項目の1回あたりのメモリ割り当て量の上限(バイト)．NAMESと同じ順に並べる．<br>
+	 * fight.processingFightは攻撃の発生時のAttackの生成のみを, シミュレーションの2項目は60フレーム分の処理に加えて
+	 * 開始時の状態の読み込みと結果のコピーを含む．
+	 */
+	private static final int[] BUDGETS = { 32, 2048, 7168, 3584, 8, 2048, 1024, 8 };
+
+	/**
+	 * 確認を実行する．
+	 *
+	 * @param args
+	 *            起動オプション
+	 */
+	public static void main(String[] args) {
+		FlagSetting.headlessFlag = true;
+		FlagSetting.enableWindow = false;
+		FlagSetting.muteFlag = true;
+		System.setProperty("java.awt.headless", "true");
+
+		long warmupMillis = 1000;
+		long measureMillis = 1000;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--warmup":
+				warmupMillis = Long.parseLong(args[++i]);
+				break;
+			case "--time":
+				measureMillis = Long.parseLong(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+
+		EngineBenchmark benchmark = new EngineBenchmark(warmupMillis, measureMillis);
+		int failures = 0;
+		for (String character : GameSetting.CHARACTERS) {
+			String[] pair = { character, character };
+			EngineBenchmark.Fixture fixture = new EngineBenchmark.Fixture(pair,
+					EngineBenchmark.createRandomInputs(EngineBenchmark.FIXTURE_FRAMES, 0));
+
+			for (Measurement measurement : benchmark.measure(fixture)) {
+				int budget = getBudget(measurement.getName());
+				double bytes = measurement.getBytesPerOperation();
+				boolean passed = budget >= 0 && bytes >= 0 && bytes <= budget;
+
+				System.out.println(String.format("%-28s %-14s %12s %12s  %s", measurement.getName(),
+						pair[0] + "-" + pair[1], bytes < 0 ? "n/a" : String.format("%.1f", bytes),
+						budget < 0 ? "-" : String.valueOf(budget), passed ? "ok" : "FAILED"));
+				if (!passed) {
+					failures++;
+				}
+			}
+		}
+
+		System.out.println("failures=" + failures);
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * 指定した項目の1回あたりのメモリ割り当て量の上限を返す．
+	 *
+	 * @param name
+	 *            項目の名前
+	 * @return 上限(バイト)．上限が定められていない場合は-1
+	 */
+	private static int getBudget(String name) {
+		for (int i = 0; i < NAMES.length; i++) {
+			if (NAMES[i].equals(name)) {
+				return BUDGETS[i];
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,241 @@
+package benchmark;
+
+import enumerate.Action;
+import enumerate.State;
+import fighting.Character;
+import fighting.Fighting;
+import input.KeyData;
+import setting.FlagSetting;
+import setting.GameSetting;
+import setting.LaunchSetting;
+import struct.AttackReachTable;
+import struct.CharacterData;
+import struct.GameData;
+
+/**
+ * {@link AttackReachTable#getHitFrame(Action, CharacterData, CharacterData, int)}が攻撃のヒットを見逃さないことを,
+ * 実際の対戦処理と比較して確認するプログラム．<br>
+ * 全てのキャラクターの組み合わせ, 攻撃を持つ全てのアクション及び両方の向きについて, 相手キャラクターを攻撃側の正面に一定の間隔で並べ,
+ * 攻撃側がアクションを開始してから実際に攻撃がヒットしたフレームと表による予測を比較する．
+ * 攻撃側は静止した状態から開始し, 空中のアクションは空中で開始する．相手キャラクターは立ったまま動かない．<br>
+ * 実際にヒットしたにもかかわらず予測がヒットしない, 又は予測が実際より遅い配置があった場合は, その内容を出力して終了コード1で終了する．
+ * 予測のみがヒットする配置や予測が実際より早い配置は, 表が押し合いを大きめに見積もるため許容し, 件数のみを出力する．
+ * benchmark/check.shでビルド及び実行する．
+ *
+ * <pre>
+ * オプション:
+ *   --step PX       相手キャラクターを並べる間隔(ピクセル)
+ *   --distance PX   相手キャラクターを並べる最大の距離(ピクセル)
+ *   --frames N      予測及び対戦処理を行うフレーム数
+ * </pre>
+ */
+public class AttackReachCheck {
+
+	/**
+	 * 空中のアクションを開始する高さ(ピクセル)．地上の立ち状態からの高さで指定する．
+	 */
+	private static final int AIR_HEIGHT = 250;
+
+	/**
+	 * 表の予測と実際のヒットが同じフレームで一致した配置の数．
+	 */
+	private long hits;
+
+	/**
+	 * 表の予測と実際のいずれもヒットしなかった配置の数．
+	 */
+	private long misses;
+
+	/**
+	 * 表の予測のみがヒットした配置の数．
+	 */
+	private long predictedOnly;
+
+	/**
+	 * 表の予測が実際のヒットより早いフレームだった配置の数．
+	 */
+	private long earlier;
+
+	/**
+	 * 実際にヒットした攻撃を表の予測が見逃した, 又は予測が実際のヒットより遅いフレームだった配置の数．
+	 */
+	private long failures;
+
+	/**
+	 * 確認を実行する．
+	 *
+	 * @param args
+	 *            起動オプション
+	 */
+	public static void main(String[] args) {
+		FlagSetting.headlessFlag = true;
+		FlagSetting.enableWindow = false;
+		FlagSetting.muteFlag = true;
+		System.setProperty("java.awt.headless", "true");
+
+		int step = 10;
+		int distance = 600;
+		int frames = 120;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--step":
+				step = Integer.parseInt(args[++i]);
+				break;
+			case "--distance":
+				distance = Integer.parseInt(args[++i]);
+				break;
+			case "--frames":
+				frames = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+
+		AttackReachCheck check = new AttackReachCheck();
+		for (String attacker : GameSetting.CHARACTERS) {
+			for (String opponent : GameSetting.CHARACTERS) {
+				check.checkPair(new String[] { attacker, opponent }, step, distance, frames);
+			}
+		}
+
+		System.out.println("hits=" + check.hits + " misses=" + check.misses + " predictedOnly=" + check.predictedOnly
+				+ " earlier=" + check.earlier + " failures=" + check.failures);
+		System.exit(check.failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * 指定したキャラクターの組み合わせについて, P1が攻撃側となる全ての配置を確認する．
+	 *
+	 * @param characterNames
+	 *            P1とP2のキャラクターの名前
+	 * @param step
+	 *            相手キャラクターを並べる間隔
+	 * @param distance
+	 *            相手キャラクターを並べる最大の距離
+	 * @param frames
+	 *            予測及び対戦処理を行うフレーム数
+	 */
+	private void checkPair(String[] characterNames, int step, int distance, int frames) {
+		ActionFighting fighting = new ActionFighting();
+		fighting.initialize(characterNames);
+		GameData gameData = new GameData(fighting.getCharacters(), characterNames, new String[] { "", "" });
+		AttackReachTable table = gameData.getAttackReachTable(true);
+
+		for (Action action : Action.values()) {
+			if (table.getFirstHitFrame(action) < 0) {
+				continue;
+			}
+
+			for (int front = 0; front < 2; front++) {
+				for (int d = 0; d <= distance; d += step) {
+					fighting.initRound();
+					Character[] characters = fighting.getCharacters();
+					place(characters[0], characters[1], action, front == 0, d);
+
+					int predicted = table.getHitFrame(action, new CharacterData(characters[0]),
+							new CharacterData(characters[1]), frames);
+					int actual = fighting.findHitFrame(action, frames);
+
+					if (actual < 0) {
+						if (predicted < 0) {
+							this.misses++;
+						} else {
+							this.predictedOnly++;
+						}
+					} else if (predicted == actual) {
+						this.hits++;
+					} else if (predicted >= 0 && predicted < actual) {
+						this.earlier++;
+					} else if (this.failures++ < 20) {
+						System.out.println("missed: " + characterNames[0] + "-" + characterNames[1] + " action="
+								+ action + " front=" + (front == 0) + " distance=" + d + " predicted=" + predicted
+								+ " actual=" + actual);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 攻撃側を静止させ, 相手キャラクターを攻撃側の正面に指定した距離だけ離して配置する．<br>
+	 * 空中のアクションを確認する場合は, 攻撃側を空中に配置する．
+	 *
+	 * @param attacker
+	 *            攻撃側のキャラクター
+	 * @param opponent
+	 *            相手キャラクター
+	 * @param action
+	 *            確認するアクション
+	 * @param front
+	 *            攻撃側が右を向く場合は{@code true}
+	 * @param distance
+	 *            攻撃側と相手キャラクターの当たり判定の間の距離
+	 */
+	private static void place(Character attacker, Character opponent, Action action, boolean front, int distance) {
+		attacker.setEnergy(LaunchSetting.maxEnergy[0]);
+		opponent.setEnergy(0);
+		attacker.setFront(front);
+		opponent.setFront(!front);
+
+		// 攻撃側の当たり判定の中心を, 背後のステージの端から幅の1/4の位置に置く
+		int center = front ? GameSetting.STAGE_WIDTH / 4 : GameSetting.STAGE_WIDTH * 3 / 4;
+		attacker.setX(0);
+		attacker.setX(center - attacker.getHitAreaCenterX());
+		opponent.setX(0);
+		if (front) {
+			opponent.setX(attacker.getHitAreaRight() + distance - opponent.getHitAreaLeft());
+		} else {
+			opponent.setX(attacker.getHitAreaLeft() - distance - opponent.getHitAreaRight());
+		}
+
+		if (attacker.getMotion(action).getState() == State.AIR) {
+			attacker.runAction(Action.AIR, true);
+			attacker.setY(attacker.getY() - AIR_HEIGHT);
+		}
+		attacker.setSpeedX(0);
+		attacker.setSpeedY(0);
+	}
+
+	/**
+	 * P1に指定したアクションを開始させる対戦処理．P2には入力を与えない．
+	 */
+	private static class ActionFighting extends Fighting {
+
+		/**
+		 * 最初のフレームでP1に開始させるアクション．
+		 */
+		private Action action;
+
+		/**
+		 * P1に指定したアクションを開始させ, その攻撃がP2に最初にヒットしたフレームを返す．
+		 *
+		 * @param action
+		 *            P1に開始させるアクション
+		 * @param frames
+		 *            対戦処理を行うフレーム数
+		 * @return 攻撃が最初にヒットしたフレーム．ヒットしなかった場合は-1
+		 */
+		private int findHitFrame(Action action, int frames) {
+			this.action = action;
+			Character attacker = getCharacters()[0];
+			int hitCount = attacker.getHitCount();
+			KeyData keyData = new KeyData();
+
+			for (int frame = 0; frame <= frames; frame++) {
+				processingFight(frame, keyData);
+				if (attacker.getHitCount() != hitCount) {
+					return frame;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		protected void processingCommands(int currentFrame, KeyData keyData) {
+			if (currentFrame == 0) {
+				this.playerCharacters[0].runAction(this.action, true);
+			}
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import command.CommandTable;
+import enumerate.Action;
+import enumerate.State;
+import fighting.Character;
+import setting.GameSetting;
+import struct.Key;
+import struct.KeyHistory;
+
+/**
+ * {@link CommandTable#interpretationCommand(Character, KeyHistory)}の変換結果が, キー入力のキューを走査して変換規則を直接評価する
+ * {@link CommandTable#interpretationCommandByScan(Character, java.util.Deque)}と全ての入力で一致することを確認するプログラム．<br>
+ * 以下の2種類の入力について, 全ての状態及び向きで変換結果を比較する．
+ * <ul>
+ * <li>直近4つの方向キー入力の列(9<sup>4</sup>通り)と, 1つ前の入力のボタン, 最新の入力の方向キー及びボタンの全ての組み合わせ</li>
+ * <li>乱数で生成した入力を, 容量を超えた古い入力の破棄や履歴の複製を挟みながら追加した履歴</li>
+ * </ul>
+ * 一致しない入力があった場合は, その内容を出力して終了コード1で終了する．benchmark/check.shでビルド及び実行する．
+ *
+ * <pre>
+ * オプション:
+ *   --seed N     乱数の種
+ *   --trials N   乱数で生成する履歴の数
+ * </pre>
+ */
+public class CommandTableCheck {
+
+	/**
+	 * テンキーの方向(1～9)に対応する方向キーのビットマスク．Index 0は用いない．
+	 */
+	private static final int[] LEVER_BITS = { 0, Key.BIT_D | Key.BIT_L, Key.BIT_D, Key.BIT_D | Key.BIT_R, Key.BIT_L, 0,
+			Key.BIT_R, Key.BIT_U | Key.BIT_L, Key.BIT_U, Key.BIT_U | Key.BIT_R };
+
+	/**
+	 * ボタン入力の全ての組み合わせの数(A, B, Cの各ボタンが押されているかどうか)．
+	 */
+	private static final int BUTTON_COMBINATIONS = 8;
+
+	/**
+	 * 変換結果を比較した回数．
+	 */
+	private long checked;
+
+	/**
+	 * 変換結果が一致しなかった回数．
+	 */
+	private long mismatches;
+
+	/**
+	 * 変換に用いるキャラクター．比較ごとに状態と向きを変更する．
+	 */
+	private Character character;
+
+	/**
+	 * 表を用いて変換するCommandTableのインスタンス．
+	 */
+	private CommandTable commandTable;
+
+	/**
+	 * 確認を実行する．
+	 *
+	 * @param args
+	 *            起動オプション
+	 */
+	public static void main(String[] args) {
+		long seed = 0;
+		int trials = 20000;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--trials":
+				trials = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+
+		CommandTableCheck check = new CommandTableCheck();
+		check.checkAllSequences();
+		check.checkRandomHistories(new Random(seed), trials);
+
+		System.out.println("checked=" + check.checked + " mismatches=" + check.mismatches);
+		System.exit(check.mismatches == 0 ? 0 : 1);
+	}
+
+	/**
+	 * クラスコンストラクタ．
+	 */
+	private CommandTableCheck() {
+		this.character = new Character();
+		this.commandTable = new CommandTable();
+	}
+
+	/**
+	 * 直近4つの方向キー入力の全ての列について, 1つ前の入力のボタン, 最新の入力の方向キー及びボタンの全ての組み合わせを確認する．
+	 */
+	private void checkAllSequences() {
+		int[] levers = new int[4];
+		Deque<Key> keys = new ArrayDeque<Key>();
+
+		for (int sequence = 0; sequence < 9 * 9 * 9 * 9; sequence++) {
+			levers[0] = sequence / (9 * 9 * 9) + 1;
+			levers[1] = sequence / (9 * 9) % 9 + 1;
+			levers[2] = sequence / 9 % 9 + 1;
+			levers[3] = sequence % 9 + 1;
+
+			for (int lastButtons = 0; lastButtons < BUTTON_COMBINATIONS; lastButtons++) {
+				for (int nowLever = 1; nowLever <= 9; nowLever++) {
+					for (int buttons = 0; buttons < BUTTON_COMBINATIONS; buttons++) {
+						KeyHistory history = new KeyHistory();
+						keys.clear();
+
+						// 古い順に追加する．最新の入力の1つ前の入力にボタンを加える
+						for (int i = 3; i >= 0; i--) {
+							int bits = LEVER_BITS[levers[i]] | (i == 0 ? lastButtons : 0);
+							history.add(bits);
+							keys.addLast(new Key(bits));
+						}
+						history.add(LEVER_BITS[nowLever] | buttons);
+						keys.addLast(new Key(LEVER_BITS[nowLever] | buttons));
+
+						compareAllContexts(history, keys);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 乱数で生成した入力を追加しながら, 追加するごとに変換結果を確認する．<br>
+	 * 履歴の容量を超えた入力の破棄, 古い入力の削除及び履歴の複製も行い, 方向キー入力のランの更新を確認する．
+	 *
+	 * @param random
+	 *            乱数生成器
+	 * @param trials
+	 *            生成する履歴の数
+	 */
+	private void checkRandomHistories(Random random, int trials) {
+		for (int trial = 0; trial < trials; trial++) {
+			int capacity = random.nextBoolean() ? GameSetting.INPUT_LIMIT : 1 + random.nextInt(8);
+			KeyHistory history = new KeyHistory(capacity);
+			Deque<Key> keys = new ArrayDeque<Key>();
+
+			int length = 1 + random.nextInt(120);
+			for (int i = 0; i < length; i++) {
+				int bits;
+				switch (random.nextInt(3)) {
+				case 0:
+					bits = random.nextInt(128);
+					break;
+				case 1:
+					// コマンド入力に近い, 方向キーと時々のボタン入力
+					bits = LEVER_BITS[1 + random.nextInt(9)] | (random.nextInt(5) == 0 ? 1 << random.nextInt(3) : 0);
+					break;
+				default:
+					// 同じ入力の連続
+					bits = keys.isEmpty() ? 0 : keys.getLast().toBits();
+					break;
+				}
+
+				history.add(bits);
+				keys.addLast(new Key(bits));
+				if (keys.size() > capacity) {
+					keys.removeFirst();
+				}
+
+				if (random.nextInt(15) == 0 && keys.size() > 1) {
+					history.removeFirst();
+					keys.removeFirst();
+				}
+				if (random.nextInt(100) == 0) {
+					history = random.nextBoolean() ? new KeyHistory(history) : copyByDeque(history, capacity);
+				}
+
+				compareAllContexts(history, keys);
+			}
+		}
+	}
+
+	/**
+	 * 履歴をキーのキューを経由して複製する．
+	 *
+	 * @param history
+	 *            複製する履歴
+	 * @param capacity
+	 *            複製後の履歴の容量
+	 * @return 複製した履歴
+	 */
+	private static KeyHistory copyByDeque(KeyHistory history, int capacity) {
+		KeyHistory copy = new KeyHistory(capacity);
+		copy.addAll(new KeyHistory(history.toDeque()));
+		return copy;
+	}
+
+	/**
+	 * 全ての状態及び向きについて, 表を用いた変換結果と走査による変換結果を比較する．
+	 *
+	 * @param history
+	 *            表を用いた変換に渡す入力の履歴
+	 * @param keys
+	 *            走査による変換に渡す, 履歴と同じ入力を格納したキュー
+	 */
+	private void compareAllContexts(KeyHistory history, Deque<Key> keys) {
+		for (State state : State.values()) {
+			for (int front = 0; front < 2; front++) {
+				this.character.setState(state);
+				this.character.setFront(front == 0);
+
+				Action actual = this.commandTable.interpretationCommand(this.character, history);
+				Action expected = CommandTable.interpretationCommandByScan(this.character, keys);
+				this.checked++;
+
+				if (actual != expected) {
+					if (this.mismatches++ < 20) {
+						System.out.println("mismatch: state=" + state + " front=" + (front == 0) + " keys="
+								+ toString(keys) + " expected=" + expected + " actual=" + actual);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * キューに格納された入力のビットマスクを古い順に並べた文字列を返す．
+	 *
+	 * @param keys
+	 *            入力を格納したキュー
+	 * @return 入力のビットマスクを並べた文字列
+	 */
+	private static String toString(Deque<Key> keys) {
+		StringBuilder builder = new StringBuilder("[");
+		for (Key key : keys) {
+			if (builder.length() > 1) {
+				builder.append(' ');
+			}
+			builder.append(key.toBits());
+		}
+		return builder.append(']').toString();
+	}
+}
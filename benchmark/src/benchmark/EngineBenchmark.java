@@ -0,0 +1,490 @@
+package benchmark;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import command.CommandTable;
+import enumerate.Action;
+import fighting.Character;
+import fighting.Fighting;
+import input.KeyData;
+import setting.FlagSetting;
+import setting.GameSetting;
+import simulator.Simulator;
+import struct.FrameData;
+import struct.FrameSnapshot;
+import struct.GameData;
+import struct.Key;
+import struct.KeyHistory;
+import util.LogWriter;
+import util.ReplayReader;
+import util.ReplayWriter;
+
+/**
+ * 対戦処理，シミュレータ，コマンド解釈，フレームデータのコピー及びリプレイログ出力の処理性能を計測するベンチマーク．<br>
+ * ./data/characters以下のモーションデータ(Motion.csv)を用いて対戦処理を初期化し，
+ * 乱数で生成したキー入力，又は--replayで指定したリプレイファイルのキー入力を用いて計測用の状態を作成する．<br>
+ * ゲーム本体とは別のソースフォルダに置かれ，benchmark/run.shでビルド及び実行する．
+ *
+ * <pre>
+ * オプション:
+ *   --c1 / --c2 NAME   P1, P2のキャラクター(省略時はZEN, GARNET, LUDの同キャラ対戦を順に計測)
+ *   --replay FILE      キー入力を読み込むリプレイファイル(.dat)
+ *   --warmup MS        各項目のウォームアップ時間(ミリ秒)
+ *   --time MS          各項目の計測時間(ミリ秒)
+ *   --filter TEXT      名前にTEXTを含む項目のみを計測する
+ * </pre>
+ */
+public class EngineBenchmark {
+
+	/**
+	 * シミュレーションで進めるフレーム数．
+	 */
+	private static final int SIMULATION_FRAMES = 60;
+
+	/**
+	 * 計測用の状態を作成する際に進めるフレーム数．
+	 */
+	static final int FIXTURE_FRAMES = 3600;
+
+	/**
+	 * 各項目のウォームアップ時間(ミリ秒)．
+	 */
+	private long warmupMillis = 3000;
+
+	/**
+	 * 各項目の計測時間(ミリ秒)．
+	 */
+	private long measureMillis = 5000;
+
+	/**
+	 * 計測する項目を絞り込むための文字列．
+	 */
+	private String filter = "";
+
+	/**
+	 * リプレイファイルのパス．nullの場合は乱数でキー入力を生成する．
+	 */
+	private String replayPath;
+
+	/**
+	 * 計測に用いるキャラクターの組み合わせ．
+	 */
+	private List<String[]> characterPairs = new ArrayList<String[]>();
+
+	/**
+	 * 既定のウォームアップ時間及び計測時間を用いるクラスコンストラクタ．
+	 */
+	EngineBenchmark() {
+	}
+
+	/**
+	 * 引数のウォームアップ時間及び計測時間を用いて全ての項目を計測するクラスコンストラクタ．
+	 *
+	 * @param warmupMillis
+	 *            各項目のウォームアップ時間(ミリ秒)
+	 * @param measureMillis
+	 *            各項目の計測時間(ミリ秒)
+	 */
+	EngineBenchmark(long warmupMillis, long measureMillis) {
+		this.warmupMillis = warmupMillis;
+		this.measureMillis = measureMillis;
+	}
+
+	/**
+	 * ベンチマークを実行する．
+	 *
+	 * @param args
+	 *            起動オプション
+	 * @throws IOException
+	 *             リプレイファイルの読み込みに失敗した場合
+	 */
+	public static void main(String[] args) throws IOException {
+		FlagSetting.headlessFlag = true;
+		FlagSetting.enableWindow = false;
+		FlagSetting.muteFlag = true;
+		System.setProperty("java.awt.headless", "true");
+
+		EngineBenchmark benchmark = new EngineBenchmark();
+		benchmark.parseOptions(args);
+		benchmark.run();
+	}
+
+	/**
+	 * 起動オプションを読み込む．
+	 *
+	 * @param args
+	 *            起動オプション
+	 */
+	private void parseOptions(String[] args) {
+		String[] pair = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--c1":
+			case "--c2":
+				if (pair == null) {
+					pair = new String[] { "ZEN", "ZEN" };
+				}
+				pair[args[i].equals("--c1") ? 0 : 1] = args[++i];
+				break;
+			case "--replay":
+				this.replayPath = args[++i];
+				break;
+			case "--warmup":
+				this.warmupMillis = Long.parseLong(args[++i]);
+				break;
+			case "--time":
+				this.measureMillis = Long.parseLong(args[++i]);
+				break;
+			case "--filter":
+				this.filter = args[++i];
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+
+		if (pair != null) {
+			this.characterPairs.add(pair);
+		} else {
+			for (String character : GameSetting.CHARACTERS) {
+				this.characterPairs.add(new String[] { character, character });
+			}
+		}
+	}
+
+	/**
+	 * 全てのキャラクターの組み合わせについて計測を行い，結果を出力する．
+	 *
+	 * @throws IOException
+	 *             リプレイファイルの読み込みに失敗した場合
+	 */
+	private void run() throws IOException {
+		List<KeyData> replayInputs = null;
+		if (this.replayPath != null) {
+			String[] replayCharacters = new String[2];
+			replayInputs = readReplay(this.replayPath, replayCharacters);
+			this.characterPairs.clear();
+			this.characterPairs.add(replayCharacters);
+		}
+
+		System.out.println(Measurement.header());
+		for (String[] pair : this.characterPairs) {
+			List<KeyData> inputs = replayInputs != null ? replayInputs : createRandomInputs(FIXTURE_FRAMES, 0);
+			Fixture fixture = new Fixture(pair, inputs);
+			String label = pair[0] + "-" + pair[1];
+
+			for (Measurement measurement : measure(fixture)) {
+				System.out.println(measurement.format(label));
+			}
+		}
+	}
+
+	/**
+	 * 1つのキャラクターの組み合わせについて，各項目を計測する．
+	 *
+	 * @param fixture
+	 *            計測に用いる状態
+	 * @return 各項目の計測結果
+	 */
+	List<Measurement> measure(final Fixture fixture) {
+		List<Measurement> measurements = new ArrayList<Measurement>();
+
+		if (accept("fight.processingFight")) {
+			final Fighting fighting = fixture.createFighting();
+			final Character[] characters = fighting.getCharacters();
+			measurements.add(new Measurement("fight.processingFight", 1, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					int frame = index % fixture.inputs.size();
+					if (frame == 0) {
+						fighting.initRound();
+					}
+					fighting.processingFight(frame, fixture.inputs.get(frame));
+					return characters[0].getHp();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("fight.createFrameData")) {
+			final Fighting fighting = fixture.createFighting();
+			measurements.add(new Measurement("fight.createFrameData", 1, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					int frame = index % fixture.inputs.size();
+					if (frame == 0) {
+						fighting.initRound();
+					}
+					fighting.processingFight(frame, fixture.inputs.get(frame));
+					return fighting.createFrameData(frame, 1).getFramesNumber();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("simulator.simulate")) {
+			final Simulator simulator = fixture.gameData.getSimulator();
+			measurements.add(new Measurement("simulator.simulate", SIMULATION_FRAMES, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					FrameData frameData = fixture.states.get(index % fixture.states.size());
+					return simulator.simulate(frameData, true, fixture.myActions.get(index % fixture.myActions.size()),
+							fixture.oppActions.get(index % fixture.oppActions.size()), SIMULATION_FRAMES)
+							.getFramesNumber();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("simulator.simulateSnapshot")) {
+			final Simulator simulator = fixture.gameData.getSimulator();
+			measurements.add(new Measurement("simulator.simulateSnapshot", SIMULATION_FRAMES,
+					new Measurement.Operation() {
+						@Override
+						public int run(int index) {
+							FrameSnapshot snapshot = fixture.snapshots.get(index % fixture.snapshots.size());
+							return simulator.simulate(snapshot, true,
+									fixture.myActions.get(index % fixture.myActions.size()),
+									fixture.oppActions.get(index % fixture.oppActions.size()), SIMULATION_FRAMES)
+									.getFramesNumber();
+						}
+					}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("command.interpret")) {
+			final CommandTable commandTable = new CommandTable();
+			final Character character = fixture.createFighting().getCharacters()[0];
+			final KeyHistory history = new KeyHistory();
+			measurements.add(new Measurement("command.interpret", 0, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					history.add(fixture.inputs.get(index % fixture.inputs.size()).getKeyBits(0));
+					return commandTable.interpretationCommand(character, history).ordinal();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("copy.frameData")) {
+			measurements.add(new Measurement("copy.frameData", 0, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					return new FrameData(fixture.states.get(index % fixture.states.size())).getFramesNumber();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("copy.frameSnapshot")) {
+			measurements.add(new Measurement("copy.frameSnapshot", 0, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					return new FrameSnapshot(fixture.snapshots.get(index % fixture.snapshots.size()))
+							.getFramesNumber();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		if (accept("log.outputLog")) {
+			final Character[] characters = fixture.createFighting().getCharacters();
+			final ByteBuffer record = ByteBuffer.allocate(ReplayWriter.RECORD_SIZE);
+			final DataOutputStream dos = new DataOutputStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			});
+			measurements.add(new Measurement("log.outputLog", 1, new Measurement.Operation() {
+				@Override
+				public int run(int index) {
+					LogWriter.getInstance().outputLog(dos, fixture.inputs.get(index % fixture.inputs.size()),
+							characters, record);
+					return dos.size();
+				}
+			}, this.warmupMillis, this.measureMillis));
+		}
+
+		return measurements;
+	}
+
+	/**
+	 * 指定した項目を計測するかどうかを返す．
+	 *
+	 * @param name
+	 *            項目の名前
+	 * @return {@code true} 計測する，{@code false} otherwise
+	 */
+	private boolean accept(String name) {
+		return name.contains(this.filter);
+	}
+
+	/**
+	 * 乱数を用いてP1, P2のキー入力を作成する．<br>
+	 * 同じ乱数の種からは常に同じ入力が作成される．
+	 *
+	 * @param frames
+	 *            作成するフレーム数
+	 * @param seed
+	 *            乱数の種
+	 * @return 各フレームのキー入力
+	 */
+	static List<KeyData> createRandomInputs(int frames, long seed) {
+		Random random = new Random(seed);
+		List<KeyData> inputs = new ArrayList<KeyData>(frames);
+
+		Key[] keys = { new Key(), new Key() };
+		for (int frame = 0; frame < frames; frame++) {
+			// 人間の入力に近づけるため, 数フレームごとにのみ入力を切り替える
+			if (frame % 4 == 0) {
+				for (Key key : keys) {
+					key.A = random.nextInt(6) == 0;
+					key.B = random.nextInt(8) == 0;
+					key.C = random.nextInt(40) == 0;
+					key.L = random.nextInt(3) == 0;
+					key.R = !key.L && random.nextInt(2) == 0;
+					key.D = random.nextInt(4) == 0;
+					key.U = !key.D && random.nextInt(12) == 0;
+				}
+			}
+			inputs.add(new KeyData(new Key[] { new Key(keys[0]), new Key(keys[1]) }));
+		}
+
+		return inputs;
+	}
+
+	/**
+	 * リプレイファイルからキャラクター名と各フレームのキー入力を読み込む．
+	 *
+	 * @param path
+	 *            リプレイファイルのパス
+	 * @param characterNames
+	 *            読み込んだP1, P2のキャラクター名を格納する配列
+	 * @return 各フレームのキー入力
+	 * @throws IOException
+	 *             リプレイファイルの読み込みに失敗した場合
+	 */
+	private static List<KeyData> readReplay(String path, String[] characterNames) throws IOException {
+		List<KeyData> inputs = new ArrayList<KeyData>();
+
+		ReplayReader reader = new ReplayReader(path);
+		String[] names = reader.getCharacterNames();
+		characterNames[0] = names[0];
+		characterNames[1] = names[1];
+
+		if (reader.isIndexed()) {
+			for (int round = 1; round <= reader.getRoundNumber(); round++) {
+				for (int frame = 0; frame < reader.getFrameNumber(round); frame++) {
+					inputs.add(reader.getKeyData(round, frame));
+				}
+			}
+		} else {
+			for (int i = 0; i < reader.getRecordNumber(); i++) {
+				inputs.add(reader.getKeyData(i));
+			}
+		}
+
+		if (inputs.isEmpty()) {
+			throw new IOException("The replay file has no frame: " + path);
+		}
+		return inputs;
+	}
+
+	/**
+	 * 1つのキャラクターの組み合わせについて，計測に用いる状態を保持するクラス．
+	 */
+	static class Fixture {
+
+		/**
+		 * P1, P2のキャラクター名．
+		 */
+		private String[] characterNames;
+
+		/**
+		 * 各フレームのキー入力．
+		 */
+		private List<KeyData> inputs;
+
+		/**
+		 * キー入力を基に対戦処理を進めた, 各フレームのフレームデータ．
+		 */
+		private List<FrameData> states;
+
+		/**
+		 * statesの各フレームデータのスナップショット．
+		 */
+		private List<FrameSnapshot> snapshots;
+
+		/**
+		 * シミュレーションで用いる自分のアクションの候補．
+		 */
+		private List<Deque<Action>> myActions;
+
+		/**
+		 * シミュレーションで用いる相手のアクションの候補．
+		 */
+		private List<Deque<Action>> oppActions;
+
+		/**
+		 * シミュレータを保持するゲーム情報．
+		 */
+		private GameData gameData;
+
+		/**
+		 * 引数のキー入力で対戦処理を進め，計測に用いる状態を作成するクラスコンストラクタ．
+		 *
+		 * @param characterNames
+		 *            P1, P2のキャラクター名
+		 * @param inputs
+		 *            各フレームのキー入力
+		 */
+		Fixture(String[] characterNames, List<KeyData> inputs) {
+			this.characterNames = characterNames;
+			this.inputs = inputs;
+			this.states = new ArrayList<FrameData>();
+			this.snapshots = new ArrayList<FrameSnapshot>();
+
+			Fighting fighting = createFighting();
+			this.gameData = new GameData(fighting.getCharacters(), characterNames, new String[] { "", "" });
+
+			for (int frame = 0; frame < inputs.size(); frame++) {
+				fighting.processingFight(frame, inputs.get(frame));
+				FrameData frameData = fighting.createFrameData(frame % GameSetting.ROUND_FRAME_NUMBER, 1);
+				this.states.add(frameData);
+				this.snapshots.add(new FrameSnapshot(frameData));
+			}
+
+			Random random = new Random(1);
+			Action[] actions = Action.values();
+			this.myActions = new ArrayList<Deque<Action>>();
+			this.oppActions = new ArrayList<Deque<Action>>();
+			for (int i = 0; i < 64; i++) {
+				Deque<Action> my = new ArrayDeque<Action>();
+				Deque<Action> opp = new ArrayDeque<Action>();
+				for (int j = 0; j < 3; j++) {
+					my.add(actions[random.nextInt(actions.length)]);
+					opp.add(actions[random.nextInt(actions.length)]);
+				}
+				this.myActions.add(my);
+				this.oppActions.add(opp);
+			}
+		}
+
+		/**
+		 * ラウンド開始時の状態の対戦処理を作成する．
+		 *
+		 * @return 対戦処理
+		 */
+		private Fighting createFighting() {
+			Fighting fighting = new Fighting();
+			fighting.initialize(this.characterNames);
+			fighting.initRound();
+			return fighting;
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * 1つのベンチマーク項目の計測を行い，その結果を保持するクラス．<br>
+ * ウォームアップの後，指定時間だけ処理を繰り返し，1秒あたりの処理回数，1回あたりのレイテンシのパーセンタイル及び
+ * 1回あたりのメモリ割り当て量を求める．
+ */
+public class Measurement {
+
+	/**
+	 * ベンチマーク対象の処理を表すインタフェース．
+	 */
+	public interface Operation {
+
+		/**
+		 * 処理を1回実行する．
+		 *
+		 * @param index
+		 *            処理の通し番号
+		 * @return 最適化による処理の除去を防ぐための値
+		 */
+		int run(int index);
+	}
+
+	/**
+	 * スレッドごとのメモリ割り当て量を取得するためのMXBean．<br>
+	 * HotSpot以外のJVMなどで利用できない場合はnull．
+	 */
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN = createThreadBean();
+
+	/**
+	 * 処理の除去を防ぐために，各処理の戻り値を書き込む変数．
+	 */
+	public static volatile int sink;
+
+	/**
+	 * 計測項目の名前．
+	 */
+	private String name;
+
+	/**
+	 * 1回の処理で進むフレーム数．
+	 */
+	private int framesPerOperation;
+
+	/**
+	 * 計測した処理回数．
+	 */
+	private long operations;
+
+	/**
+	 * 計測時間(ナノ秒)．
+	 */
+	private long elapsedNanos;
+
+	/**
+	 * 1回あたりのメモリ割り当て量(バイト)．計測できない場合は-1．
+	 */
+	private double bytesPerOperation;
+
+	/**
+	 * 各処理のレイテンシ(ナノ秒)を昇順に並べた配列．
+	 */
+	private long[] latencies;
+
+	/**
+	 * 引数の処理をウォームアップ後に計測するクラスコンストラクタ．
+	 *
+	 * @param name
+	 *            計測項目の名前
+	 * @param framesPerOperation
+	 *            1回の処理で進むフレーム数
+	 * @param operation
+	 *            計測する処理
+	 * @param warmupMillis
+	 *            ウォームアップ時間(ミリ秒)
+	 * @param measureMillis
+	 *            計測時間(ミリ秒)
+	 */
+	public Measurement(String name, int framesPerOperation, Operation operation, long warmupMillis,
+			long measureMillis) {
+		this.name = name;
+		this.framesPerOperation = framesPerOperation;
+
+		int index = 0;
+		long end = System.nanoTime() + warmupMillis * 1000000L;
+		while (System.nanoTime() < end) {
+			sink += operation.run(index++);
+		}
+
+		long[] samples = new long[1 << 16];
+		int count = 0;
+		long excludedBytes = 0;
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		end = start + measureMillis * 1000000L;
+
+		long now = start;
+		while (now < end) {
+			sink += operation.run(index++);
+			long next = System.nanoTime();
+
+			// レイテンシの記録用の配列の拡張による割り当ては, 処理の割り当て量に含めない
+			if (count == samples.length) {
+				long allocated = getAllocatedBytes();
+				samples = Arrays.copyOf(samples, count * 2);
+				excludedBytes += getAllocatedBytes() - allocated;
+			}
+			samples[count++] = next - now;
+			now = next;
+		}
+
+		long allocatedAfter = getAllocatedBytes();
+		this.elapsedNanos = now - start;
+		this.operations = count;
+		this.bytesPerOperation = allocatedBefore < 0 ? -1
+				: (double) (allocatedAfter - allocatedBefore - excludedBytes) / Math.max(count, 1);
+		this.latencies = Arrays.copyOf(samples, count);
+		Arrays.sort(this.latencies);
+	}
+
+	/**
+	 * 計測項目の名前を返す．
+	 *
+	 * @return 計測項目の名前
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * 1回の処理あたりのメモリ割り当て量を返す．
+	 *
+	 * @return 1回あたりのメモリ割り当て量(バイト)．計測できない場合は-1
+	 */
+	public double getBytesPerOperation() {
+		return this.bytesPerOperation;
+	}
+
+	/**
+	 * 表の見出しを返す．
+	 *
+	 * @return 表の見出し
+	 */
+	public static String header() {
+		return String.format("%-28s %-14s %12s %14s %9s %9s %9s %9s %12s", "benchmark", "characters", "ops/s",
+				"frames/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "bytes/op");
+	}
+
+	/**
+	 * 計測結果を表の1行として返す．
+	 *
+	 * @param characters
+	 *            計測に用いたキャラクターの組み合わせ
+	 * @return 計測結果
+	 */
+	public String format(String characters) {
+		double opsPerSecond = this.operations * 1e9 / Math.max(this.elapsedNanos, 1);
+
+		return String.format("%-28s %-14s %12.0f %14.0f %9.2f %9.2f %9.2f %9.2f %12s", this.name, characters,
+				opsPerSecond, opsPerSecond * this.framesPerOperation, percentile(0.5), percentile(0.9),
+				percentile(0.99), percentile(0.999),
+				this.bytesPerOperation < 0 ? "n/a" : String.format("%.1f", this.bytesPerOperation));
+	}
+
+	/**
+	 * 1回の処理のレイテンシの, 指定したパーセンタイルをマイクロ秒で返す．
+	 *
+	 * @param ratio
+	 *            パーセンタイル(0~1)
+	 * @return レイテンシ(マイクロ秒)
+	 */
+	private double percentile(double ratio) {
+		if (this.latencies.length == 0) {
+			return 0;
+		}
+
+		int index = (int) Math.min(this.latencies.length - 1, Math.ceil(ratio * this.latencies.length) - 1);
+		return this.latencies[Math.max(index, 0)] / 1000.0;
+	}
+
+	/**
+	 * 現在のスレッドがこれまでに割り当てたメモリ量を返す．
+	 *
+	 * @return 割り当てたメモリ量(バイト)．計測できない場合は-1
+	 */
+	private static long getAllocatedBytes() {
+		return THREAD_BEAN == null ? -1 : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * メモリ割り当て量を取得するためのMXBeanを作成する．
+	 *
+	 * @return MXBean．利用できない場合はnull
+	 */
+	private static com.sun.management.ThreadMXBean createThreadBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+			if (threadBean.isThreadAllocatedMemorySupported()) {
+				threadBean.setThreadAllocatedMemoryEnabled(true);
+				return threadBean;
+			}
+		}
+		return null;
+	}
+}
@@ -20,6 +20,10 @@ class KickAI(object):
     # please define this method when you use FightingICE version 4.00 or later
     def getScreenData(self, sd):
     	pass
+
+    # the screen is not read from OpenGL unless an AI uses the pixels
+    def requiresScreenData(self):
+        return False
         
     def initialize(self, gameData, player):
         # Initializng the command center, the simulator and some other things
@@ -0,0 +1,51 @@
+class KickStepAI(object):
+    """
+    The same AI as KickAI, implemented with aiinterface.StepAIInterface.
+    The game calls only step() in each frame, so the game makes a single
+    call into Python per frame instead of four.
+    """
+    def __init__(self, gateway):
+        self.gateway = gateway
+
+    def close(self):
+        pass
+
+    def roundEnd(self, x, y, z):
+        print(x)
+        print(y)
+        print(z)
+
+    def requiresScreenData(self):
+        # The screen is not read from OpenGL unless an AI uses the pixels
+        return False
+
+    def initialize(self, gameData, player):
+        # Initializng the command center and some other things
+        self.inputKey = self.gateway.jvm.struct.Key()
+        self.cc = self.gateway.jvm.aiinterface.CommandCenter()
+
+        self.player = player
+        self.gameData = gameData
+
+        return 0
+
+    def step(self, frameData, isControl, screenData):
+        # Receive the frame, compute the input and return it in one call
+        if frameData.getEmptyFlag() or frameData.getRemainingFramesNumber() <= 0:
+            return self.inputKey
+
+        self.cc.setFrameData(frameData, self.player)
+        if self.cc.getSkillFlag():
+            self.inputKey = self.cc.getSkillKey()
+            return self.inputKey
+
+        self.inputKey.empty()
+        self.cc.skillCancel()
+
+        # Just spam kick
+        self.cc.commandCall("B")
+        return self.inputKey
+
+    # This part is mandatory
+    class Java:
+        implements = ["aiinterface.StepAIInterface"]
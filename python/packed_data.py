@@ -0,0 +1,74 @@
+"""
+Decoders for the packed FrameData and GameData byte arrays.
+
+FrameData.toByteArray() and GameData.getMotionDataAsBytes(player) return the
+whole frame or motion table as little-endian 32-bit integers, so a Python AI
+needs a single py4j call per frame instead of one call per getter:
+
+    frame = decode_frame_data(frameData.toByteArray())
+    if not frame['empty']:
+        hp = frame['P1'][HP]
+
+The layouts are documented in struct.FrameSnapshot#toByteArray() and
+struct.GameData#getMotionDataAsBytes(boolean).
+"""
+import numpy as np
+
+# Character values, relative to the beginning of a character
+FLAGS, HP, ENERGY, X, Y, LEFT, RIGHT, TOP, BOTTOM, SPEED_X, SPEED_Y, STATE, ACTION, REMAINING_FRAME, \
+    GRAPHIC_SIZE_X, GRAPHIC_SIZE_Y, GRAPHIC_ADJUST_X, HIT_COUNT, LAST_HIT_FRAME, ATTACK = range(20)
+
+# Character flag bits
+PLAYER_NUMBER_BIT, FRONT_BIT, CONTROL_BIT, HIT_CONFIRM_BIT, HAS_ATTACK_BIT = 1, 2, 4, 8, 16
+
+# Attack values, relative to the beginning of an attack
+SETTING_HIT_AREA, SETTING_SPEED_X, SETTING_SPEED_Y, CURRENT_HIT_AREA, CURRENT_FRAME, ATTACK_FLAGS, \
+    ATTACK_SPEED_X, ATTACK_SPEED_Y, START_UP, ACTIVE, HIT_DAMAGE, GUARD_DAMAGE, START_ADD_ENERGY, \
+    HIT_ADD_ENERGY, GUARD_ADD_ENERGY, GIVE_ENERGY, IMPACT_X, IMPACT_Y, GIVE_GUARD_RECOV, \
+    ATTACK_TYPE = 0, 4, 5, 6, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25
+
+HEADER_SIZE = 4
+ATTACK_SIZE = 26
+CHARACTER_SIZE = ATTACK + ATTACK_SIZE
+MOTION_DATA_SIZE = 33
+
+# Key bits of the input histories
+KEY_BITS = {'A': 1, 'B': 2, 'C': 4, 'D': 8, 'L': 16, 'R': 32, 'U': 64}
+
+
+def decode_frame_data(data):
+    """
+    Decodes the byte array returned by FrameData.toByteArray().
+    :param data: the bytes received through py4j
+    :return: a dict with the frame number, round, empty flag, the character arrays of P1 and P2
+             (CHARACTER_SIZE values each, the attack starting at ATTACK), the projectile array
+             (one row of ATTACK_SIZE values per projectile) and the four key histories
+    """
+    values = np.frombuffer(bytes(data), dtype='<i4')
+    frame = {'frame_number': int(values[0]), 'round': int(values[1]), 'empty': bool(values[2])}
+    if len(values) == HEADER_SIZE:
+        return frame
+
+    projectile_number = int(values[3])
+    offset = HEADER_SIZE
+    frame['P1'] = values[offset:offset + CHARACTER_SIZE]
+    frame['P2'] = values[offset + CHARACTER_SIZE:offset + CHARACTER_SIZE * 2]
+    offset += CHARACTER_SIZE * 2
+    frame['projectiles'] = values[offset:offset + ATTACK_SIZE * projectile_number].reshape(-1, ATTACK_SIZE)
+    offset += ATTACK_SIZE * projectile_number
+
+    for name in ('P1_input', 'P1_processed', 'P2_input', 'P2_processed'):
+        size = int(values[offset])
+        frame[name] = values[offset + 1:offset + 1 + size]
+        offset += 1 + size
+
+    return frame
+
+
+def decode_motion_data(data):
+    """
+    Decodes the byte array returned by GameData.getMotionDataAsBytes(player).
+    :param data: the bytes received through py4j
+    :return: an array with one row of MOTION_DATA_SIZE values per motion
+    """
+    return np.frombuffer(bytes(data), dtype='<i4').reshape(-1, MOTION_DATA_SIZE)
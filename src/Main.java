@@ -1,5 +1,9 @@
 import core.Game;
+import core.MatchRunner;
 import manager.DisplayManager;
+import manager.HeadlessManager;
+import setting.FlagSetting;
+import setting.LaunchSetting;
 
 /**
  * FightingICEのメインメソッドを持つクラス．
@@ -16,9 +20,19 @@ public class Main {
 	public static void main(String[] options) {
 		Game game = new Game();
 		game.setOptions(options);
-		DisplayManager displayManager = new DisplayManager();
 
 		// ゲームの開始
-		displayManager.start(game);
+		if (FlagSetting.headlessFlag && LaunchSetting.parallelMatchNumber > 1) {
+			MatchRunner matchRunner = new MatchRunner(LaunchSetting.parallelMatchNumber);
+			matchRunner.runAll(MatchRunner.createMatches());
+			matchRunner.close();
+			System.exit(0);
+		} else if (FlagSetting.headlessFlag) {
+			HeadlessManager headlessManager = new HeadlessManager();
+			headlessManager.start(game);
+		} else {
+			DisplayManager displayManager = new DisplayManager();
+			displayManager.start(game);
+		}
 	}
 }
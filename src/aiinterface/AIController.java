@@ -21,6 +21,11 @@ public class AIController extends Thread {
 	 */
 	private AIInterface ai;
 
+	/**
+	 * AIが{@link StepAIInterface}を実装している場合はそのインタフェース, そうでない場合はnull．
+	 */
+	private StepAIInterface stepAI;
+
 	/**
 	 * The character's side flag.<br>
 	 * {@code true} if the character is P1, or {@code false} if P2.
@@ -30,7 +35,13 @@ public class AIController extends Thread {
 	/**
 	 * 対戦が始まっているかどうかを表すフラグ．
 	 */
-	private boolean isFighting;
+	private volatile boolean isFighting;
+
+	/**
+	 * 未処理のフレームデータがセットされているかどうかを表すフラグ．<br>
+	 * waitObjを用いて同期する．
+	 */
+	private boolean frameReady;
 
 	/**
 	 * 入力されたキー．
@@ -57,6 +68,11 @@ public class AIController extends Thread {
 	 */
 	private Object waitObj;
 
+	/**
+	 * AIが画面のピクセル情報を用いるかどうかを表すフラグ．
+	 */
+	private boolean screenDataRequired;
+
 	/**
 	 * 引数に指定されたAIインタフェースをセットし，AIControllerを初期化するクラスコンストラクタ．
 	 *
@@ -66,6 +82,7 @@ public class AIController extends Thread {
 	 */
 	public AIController(AIInterface ai) {
 		this.ai = ai;
+		this.stepAI = ai instanceof StepAIInterface ? (StepAIInterface) ai : null;
 	}
 
 	/**
@@ -92,6 +109,7 @@ public class AIController extends Thread {
 //		while(!isInit)
 //		try{
 			this.ai.initialize(gameData, playerNumber);
+			this.screenDataRequired = requiresScreenData();
 //			isInit = true;
 //		} catch (Py4JException e) {
 //			Logger.getAnonymousLogger().log(Level.SEVERE, "Cannot Initialize AI");
@@ -105,34 +123,82 @@ public class AIController extends Thread {
 		while (isFighting) {
 			synchronized (this.waitObj) {
 				try {
-					this.waitObj.wait();
+					// 待機を始める前にセットされたフレームは, 待機せずに処理する
+					while (this.isFighting && !this.frameReady) {
+						this.waitObj.wait();
+					}
+					this.frameReady = false;
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 				}
 			}
 
-			boolean isControl;
-
-			try{
-				isControl =  this.framesData.getLast().getCharacter(this.playerNumber).isControl();
-			} catch (NullPointerException e) {
-				// while game is not started
-				isControl = false;
+			if (!this.isFighting) {
+				break;
 			}
 
-//			for no delay
-//			this.ai.getInformation(!this.framesData.isEmpty() ? this.framesData.removeFirst() : new FrameData(), isControl, this.framesData.getLast());
-//          for delay
-			this.ai.getInformation(!this.framesData.isEmpty() ? this.framesData.removeFirst() : new FrameData(), isControl);
-			
-			this.ai.getScreenData(this.screenData);
-			this.ai.processing();
-			setInput(this.ai.input());
+			processingFrame();
 			ThreadController.getInstance().notifyEndProcess(this.playerNumber);
 		}
 
 	}
 
+	/**
+	 * 呼び出し元のスレッド上で, AIの1フレーム分の処理を行う．<br>
+	 * 最も古いフレームデータと画面情報をAIに渡し, AIの処理を実行した後にその入力をセットする．<br>
+	 * AIが{@link StepAIInterface}を実装している場合は, これらを1回のstep()の呼び出しで行う．<br>
+	 * スレッドを起動せずにAIを実行する場合は, setFrameData()の後にこのメソッドを呼び出す．
+	 */
+	public void processingFrame() {
+		boolean isControl;
+
+		try {
+			isControl = this.framesData.getLast().getCharacter(this.playerNumber).isControl();
+		} catch (NullPointerException e) {
+			// while game is not started
+			isControl = false;
+		}
+
+//		for no delay
+//		this.ai.getInformation(!this.framesData.isEmpty() ? this.framesData.removeFirst() : new FrameData(), isControl, this.framesData.getLast());
+//		for delay
+		FrameData frameData = !this.framesData.isEmpty() ? this.framesData.removeFirst() : new FrameData();
+
+		if (this.stepAI != null) {
+			setInput(this.stepAI.step(frameData, isControl, this.screenData));
+			return;
+		}
+
+		this.ai.getInformation(frameData, isControl);
+		this.ai.getScreenData(this.screenData);
+		this.ai.processing();
+		setInput(this.ai.input());
+	}
+
+	/**
+	 * AIが画面のピクセル情報を用いるかどうかを返す．
+	 *
+	 * @return {@code true} AIが画面のピクセル情報を用いる場合，{@code false} otherwise
+	 * @see AIInterface#requiresScreenData()
+	 */
+	public boolean isScreenDataRequired() {
+		return this.screenDataRequired;
+	}
+
+	/**
+	 * AIが画面のピクセル情報を用いるかどうかをAIに問い合わせる．<br>
+	 * requiresScreenData()を定義していないPythonのAIの場合は, 従来通り用いるものとみなす．
+	 *
+	 * @return {@code true} AIが画面のピクセル情報を用いる場合，{@code false} otherwise
+	 */
+	private boolean requiresScreenData() {
+		try {
+			return this.ai.requiresScreenData();
+		} catch (Py4JException e) {
+			return true;
+		}
+	}
+
 	/**
 	 * AIからの入力情報を返す．<br>
 	 * 入力情報が無ければ空のキーを返す．
@@ -176,6 +242,10 @@ public class AIController extends Thread {
 		while (this.framesData.size() > DELAY) {
 			this.framesData.removeFirst();
 		}
+
+		synchronized (this.waitObj) {
+			this.frameReady = true;
+		}
 	}
 
 	/**
@@ -101,4 +101,27 @@ public interface AIInterface {
 	default void getScreenData(ScreenData sd) {
 	};
 
+	/**
+	 * Returns whether this AI uses the pixel data of the screen.<br>
+	 * It is called once after {@link #initialize(GameData, boolean)}. The game
+	 * screen is read from OpenGL only while at least one AI returns
+	 * {@code true}; otherwise the ScreenData passed to the AI holds a black
+	 * buffer. <br>
+	 * The default implementation returns {@code true} if the class of the AI
+	 * overrides {@link #getScreenData(ScreenData)}. AIs that receive the
+	 * screen in another way, such as
+	 * {@link StepAIInterface#step(FrameData, boolean, ScreenData)}, should
+	 * override this method.
+	 *
+	 * @return {@code true} if this AI uses the pixel data of the screen,
+	 *         {@code false} otherwise
+	 */
+	default boolean requiresScreenData() {
+		try {
+			return getClass().getMethod("getScreenData", ScreenData.class).getDeclaringClass() != AIInterface.class;
+		} catch (NoSuchMethodException e) {
+			return true;
+		}
+	}
+
 }
@@ -1,21 +1,71 @@
 package aiinterface;
 
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 
+import enumerate.Action;
 import struct.FrameData;
 import struct.Key;
 
 /**
  * The class that converts actions received from AI to keys and manages the keys
- * after conversion.
+ * after conversion.<br>
+ * The keys of every action are built once for both directions when the class
+ * is loaded and shared by all instances as arrays of the bitmasks returned by
+ * {@link Key#toBits()}, so that issuing an action neither parses its command
+ * nor creates any objects.
  */
 public class CommandCenter {
 
 	/**
-	 * The list storing the converted keys.
+	 * An empty key sequence.
 	 */
-	private LinkedList<Key> skillKey;
+	private static final int[] NO_KEYS = new int[0];
+
+	/**
+	 * The key sequences of the actions for a character facing right, indexed by
+	 * the ordinal of the action.
+	 */
+	private static final int[][] FRONT_KEYS;
+
+	/**
+	 * The key sequences of the actions for a character facing left, indexed by
+	 * the ordinal of the action.
+	 */
+	private static final int[][] BACK_KEYS;
+
+	/**
+	 * The map from the action names to the actions.
+	 */
+	private static final HashMap<String, Action> ACTIONS;
+
+	static {
+		Action[] actions = Action.values();
+		FRONT_KEYS = new int[actions.length][];
+		BACK_KEYS = new int[actions.length][];
+		ACTIONS = new HashMap<String, Action>();
+
+		for (Action action : actions) {
+			String command = actionToCommand(action.name());
+			FRONT_KEYS[action.ordinal()] = createKeys(command, true);
+			BACK_KEYS[action.ordinal()] = createKeys(command, false);
+			ACTIONS.put(action.name(), action);
+		}
+	}
+
+	/**
+	 * The sequence of the converted keys. The array may be shared with other
+	 * instances and must not be modified.
+	 */
+	private int[] skillKeys;
+
+	/**
+	 * The index of the next key to be executed in the sequence of the converted
+	 * keys.
+	 */
+	private int skillIndex;
 
 	/**
 	 * The frame data storing the information from the game status.
@@ -28,177 +78,181 @@ public class CommandCenter {
 	 */
 	private boolean playerNumber;
 
+	/**
+	 * The direction the character is facing, used when no frame data is set.
+	 */
+	private boolean front;
+
 	/**
 	 * Class constructor.
 	 */
 	public CommandCenter() {
-		this.skillKey = new LinkedList<Key>();
+		this.skillKeys = NO_KEYS;
+		this.skillIndex = 0;
 		this.frameData = new FrameData();
 		this.playerNumber = true;
 	}
 
 	/**
 	 * Converts the action name entered by AI into Key and stores it in the list of keys waiting to be executed.<br>
-	 * If there are unexecuted keys in the list, this method does nothing.
+	 * If there are unexecuted keys in the list, this method does nothing.<br>
+	 * A string which is not an action name is interpreted as a command such as "6 2 3 _ B".
 	 *
 	 * @param str
 	 *            an action name
 	 */
 	public void commandCall(String str) {
 		// If there is no unexecuted key in the list
-		if (this.skillKey.isEmpty()) {
-			actionToCommand(str);
+		if (!getSkillFlag()) {
+			Action action = ACTIONS.get(str);
+			if (action != null) {
+				setSkillKeys(action);
+			} else {
+				this.skillKeys = createKeys(str, isFront());
+				this.skillIndex = 0;
+			}
+		}
+	}
+
+	/**
+	 * Stores the keys of the action in the list of keys waiting to be executed.<br>
+	 * If there are unexecuted keys in the list, this method does nothing.<br>
+	 * Unlike {@link #commandCall(String)}, this method neither looks up the action name nor creates any objects.
+	 *
+	 * @param action
+	 *            an action
+	 */
+	public void commandCall(Action action) {
+		// If there is no unexecuted key in the list
+		if (!getSkillFlag()) {
+			setSkillKeys(action);
 		}
 	}
 
 	/**
-	 * Converts the action name to a command and creates a key corresponding to the command.
+	 * Sets the pre-built keys of the action as the keys waiting to be executed.
+	 *
+	 * @param action
+	 *            an action
+	 */
+	private void setSkillKeys(Action action) {
+		this.skillKeys = isFront() ? FRONT_KEYS[action.ordinal()] : BACK_KEYS[action.ordinal()];
+		this.skillIndex = 0;
+	}
+
+	/**
+	 * Converts the action name to a command.<br>
+	 * A string which is not an action name with a command is returned as it is.
 	 *
 	 * @param str
 	 *            an action name
+	 *
+	 * @return the command corresponding to the action
 	 */
-	private void actionToCommand(String str) {
+	private static String actionToCommand(String str) {
 		switch (str) {
 		case "FORWARD_WALK":
-			createKeys("6");
-			break;
+			return "6";
 		case "DASH":
-			createKeys("6 5 6");
-			break;
+			return "6 5 6";
 		case "BACK_STEP":
-			createKeys("4 5 4");
-			break;
+			return "4 5 4";
 		case "CROUCH":
-			createKeys("2");
-			break;
+			return "2";
 		case "JUMP":
-			createKeys("8");
-			break;
+			return "8";
 		case "FOR_JUMP":
-			createKeys("9");
-			break;
+			return "9";
 		case "BACK_JUMP":
-			createKeys("7");
-			break;
+			return "7";
 		case "STAND_GUARD":
-			createKeys("4");
-			break;
+			return "4";
 		case "CROUCH_GUARD":
-			createKeys("1");
-			break;
+			return "1";
 		case "AIR_GUARD":
-			createKeys("7");
-			break;
+			return "7";
 		case "THROW_A":
-			createKeys("4 _ A");
-			break;
+			return "4 _ A";
 		case "THROW_B":
-			createKeys("4 _ B");
-			break;
+			return "4 _ B";
 		case "STAND_A":
-			createKeys("A");
-			break;
+			return "A";
 		case "STAND_B":
-			createKeys("B");
-			break;
+			return "B";
 		case "CROUCH_A":
-			createKeys("2 _ A");
-			break;
+			return "2 _ A";
 		case "CROUCH_B":
-			createKeys("2 _ B");
-			break;
+			return "2 _ B";
 		case "AIR_A":
-			createKeys("A");
-			break;
+			return "A";
 		case "AIR_B":
-			createKeys("B");
-			break;
+			return "B";
 		case "AIR_DA":
-			createKeys("2 _ A");
-			break;
+			return "2 _ A";
 		case "AIR_DB":
-			createKeys("2 _ B");
-			break;
+			return "2 _ B";
 		case "STAND_FA":
-			createKeys("6 _ A");
-			break;
+			return "6 _ A";
 		case "STAND_FB":
-			createKeys("6 _ B");
-			break;
+			return "6 _ B";
 		case "CROUCH_FA":
-			createKeys("3 _ A");
-			break;
+			return "3 _ A";
 		case "CROUCH_FB":
-			createKeys("3 _ B");
-			break;
+			return "3 _ B";
 		case "AIR_FA":
-			createKeys("9 _ A");
-			break;
+			return "9 _ A";
 		case "AIR_FB":
-			createKeys("9 _ B");
-			break;
+			return "9 _ B";
 		case "AIR_UA":
-			createKeys("8 _ A");
-			break;
+			return "8 _ A";
 		case "AIR_UB":
-			createKeys("8 _ B");
-			break;
+			return "8 _ B";
 		case "STAND_D_DF_FA":
-			createKeys("2 3 6 _ A");
-			break;
+			return "2 3 6 _ A";
 		case "STAND_D_DF_FB":
-			createKeys("2 3 6 _ B");
-			break;
+			return "2 3 6 _ B";
 		case "STAND_F_D_DFA":
-			createKeys("6 2 3 _ A");
-			break;
+			return "6 2 3 _ A";
 		case "STAND_F_D_DFB":
-			createKeys("6 2 3 _ B");
-			break;
+			return "6 2 3 _ B";
 		case "STAND_D_DB_BA":
-			createKeys("2 1 4 _ A");
-			break;
+			return "2 1 4 _ A";
 		case "STAND_D_DB_BB":
-			createKeys("2 1 4 _ B");
-			break;
+			return "2 1 4 _ B";
 		case "AIR_D_DF_FA":
-			createKeys("2 3 6 _ A");
-			break;
+			return "2 3 6 _ A";
 		case "AIR_D_DF_FB":
-			createKeys("2 3 6 _ B");
-			break;
+			return "2 3 6 _ B";
 		case "AIR_F_D_DFA":
-			createKeys("6 2 3 _ A");
-			break;
+			return "6 2 3 _ A";
 		case "AIR_F_D_DFB":
-			createKeys("6 2 3 _ B");
-			break;
+			return "6 2 3 _ B";
 		case "AIR_D_DB_BA":
-			createKeys("2 1 4 _ A");
-			break;
+			return "2 1 4 _ A";
 		case "AIR_D_DB_BB":
-			createKeys("2 1 4 _ B");
-			break;
+			return "2 1 4 _ B";
 		case "STAND_D_DF_FC":
-			createKeys("2 3 6 _ C");
-			break;
+			return "2 3 6 _ C";
 		default:
-			createKeys(str);
-			break;
+			return str;
 		}
-
 	}
 
 	/**
-	 * Creates a key corresponding to a command name.
+	 * Creates the keys corresponding to a command name.
 	 *
 	 * @param str
 	 *            a command name
+	 * @param front
+	 *            the direction the character is facing. {@code true} if the character is facing right.
+	 *
+	 * @return the bitmasks of the keys
 	 */
-	private void createKeys(String str) {
+	private static int[] createKeys(String str, boolean front) {
 		Key buf;
+		ArrayList<Key> keys = new ArrayList<Key>();
 		String[] commands = str.split(" ");
-		if (!this.frameData.getCharacter(playerNumber).isFront()) {
+		if (!front) {
 			commands = reverseKey(commands);
 		}
 
@@ -237,9 +291,15 @@ public class CommandCenter {
 			} else if (commands[index].equals("C")) {
 				buf.C = true;
 			}
-			skillKey.add(buf);
+			keys.add(buf);
 			index++;
 		}
+
+		int[] bits = new int[keys.size()];
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = keys.get(i).toBits();
+		}
+		return bits;
 	}
 
 	/**
@@ -256,13 +316,39 @@ public class CommandCenter {
 		this.playerNumber = playerNumber;
 	}
 
+	/**
+	 * Sets the direction the character is facing and the boolean variable representing P1 and P2 instead of the
+	 * frame data.<br>
+	 * This method is used by the simulator when it starts from a {@link struct.FrameSnapshot}.
+	 *
+	 * @param front
+	 *            the direction the character is facing. {@code true} if the character is facing right.
+	 * @param playerNumber
+	 *            The character's side flag.<br>
+	 *            {@code true} if the character is P1, or {@code false} if P2.
+	 */
+	public void setFront(boolean front, boolean playerNumber) {
+		this.frameData = null;
+		this.front = front;
+		this.playerNumber = playerNumber;
+	}
+
+	/**
+	 * Returns the direction the character is facing.
+	 *
+	 * @return {@code true} if the character is facing right, {@code false} otherwise.
+	 */
+	private boolean isFront() {
+		return this.frameData != null ? this.frameData.getCharacter(this.playerNumber).isFront() : this.front;
+	}
+
 	/**
 	 * Returns whether there are unexecuted keys in the list of keys waiting to be executed.
 	 *
 	 * @return {@code true} if there are keys not yet executed in the list，{@code false} otherwise.
 	 */
 	public boolean getSkillFlag() {
-		return !this.skillKey.isEmpty();
+		return this.skillIndex < this.skillKeys.length;
 	}
 
 	/**
@@ -272,11 +358,52 @@ public class CommandCenter {
 	 * @return the next key to be executed
 	 */
 	public Key getSkillKey() {
-		if (!this.skillKey.isEmpty()) {
-			return this.skillKey.pollFirst();
+		return new Key(getSkillKeyBits());
+	}
+
+	/**
+	 * Returns the first element from the list of keys waiting to be executed as the bitmask returned by
+	 * {@link Key#toBits()}, or 0 if there are no keys. <br>
+	 * The returned element is deleted from the CommandCenter. Unlike {@link #getSkillKey()}, this method creates no
+	 * objects.
+	 *
+	 * @return the bitmask of the next key to be executed
+	 */
+	public int getSkillKeyBits() {
+		if (getSkillFlag()) {
+			return this.skillKeys[this.skillIndex++];
 		} else {
-			return new Key();
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns the number of keys waiting to be executed.
+	 *
+	 * @return the number of keys not yet executed
+	 */
+	public int getSkillKeyCount() {
+		return this.skillKeys.length - this.skillIndex;
+	}
+
+	/**
+	 * Returns the key waiting to be executed at the specified position as the bitmask returned by
+	 * {@link Key#toBits()}. <br>
+	 * Unlike {@link #getSkillKeyBits()}, the key is not deleted from the CommandCenter, and unlike
+	 * {@link #getSkillKeys()}, this method creates no objects.
+	 *
+	 * @param index
+	 *            the position of the key, where 0 is the next key to be executed
+	 * @return the bitmask of the key
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of range
+	 */
+	public int peekSkillKeyBits(int index) {
+		if (index < 0 || index >= getSkillKeyCount()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getSkillKeyCount());
 		}
+
+		return this.skillKeys[this.skillIndex + index];
 	}
 
 	/**
@@ -285,14 +412,19 @@ public class CommandCenter {
 	 * @return the list of keys waiting to be executed
 	 */
 	public Deque<Key> getSkillKeys() {
-		return new LinkedList<Key>(this.skillKey);
+		Deque<Key> keys = new LinkedList<Key>();
+		for (int i = this.skillIndex; i < this.skillKeys.length; i++) {
+			keys.add(new Key(this.skillKeys[i]));
+		}
+		return keys;
 	}
 
 	/**
 	 * Deletes all the keys from the list of keys waiting to be executed.
 	 */
 	public void skillCancel() {
-		this.skillKey.clear();
+		this.skillKeys = NO_KEYS;
+		this.skillIndex = 0;
 	}
 
 	/**
@@ -312,7 +444,7 @@ public class CommandCenter {
 	 *
 	 * @return an array that contains the command after processing
 	 */
-	private String[] reverseKey(String[] commands) {
+	private static String[] reverseKey(String[] commands) {
 		String[] buffer = new String[commands.length];
 		for (int i = 0; i < commands.length; i++) {
 			if (commands[i].equals("L") || commands[i].equals("4")) {
@@ -0,0 +1,69 @@
+package aiinterface;
+
+import struct.FrameData;
+import struct.Key;
+import struct.ScreenData;
+
+/**
+ * The interface that defines a fused per-frame method for AI.<br>
+ * When an AI implements this interface, {@link AIController} calls only
+ * {@link #step(FrameData, boolean, ScreenData)} in each frame instead of
+ * {@link #getInformation(FrameData, boolean)},
+ * {@link #getScreenData(ScreenData)}, {@link #processing()} and
+ * {@link #input()}. <br>
+ * It is intended for Python AIs connected through the py4j gateway, for which
+ * each of these calls is a separate round trip between the processes. A
+ * Python AI uses this interface by declaring
+ * {@code implements = ["aiinterface.StepAIInterface"]} in its Java class.
+ */
+public interface StepAIInterface extends AIInterface {
+
+	/**
+	 * Receives the information of the current frame and returns the key input
+	 * of AI.<br>
+	 * It is executed in each frame, and is equivalent to calling
+	 * {@link #getInformation(FrameData, boolean)},
+	 * {@link #getScreenData(ScreenData)}, {@link #processing()} and
+	 * {@link #input()} in this order.
+	 *
+	 * @param fd
+	 *            the data that will be changed each frame
+	 * @param isControl
+	 *            whether the character can act. this parameter is not delayed
+	 *            unlike {@link struct.CharacterData#isControl()}
+	 * @param sd
+	 *            the screen information such as the pixel data
+	 * @return the value in the Key type
+	 * @see FrameData
+	 * @see ScreenData
+	 * @see Key
+	 */
+	Key step(FrameData fd, boolean isControl, ScreenData sd);
+
+	/**
+	 * Not called by {@link AIController} for this interface.
+	 *
+	 * @param fd
+	 *            the data that will be changed each frame
+	 */
+	@Override
+	default void getInformation(FrameData fd) {
+	}
+
+	/**
+	 * Not called by {@link AIController} for this interface.
+	 */
+	@Override
+	default void processing() {
+	}
+
+	/**
+	 * Not called by {@link AIController} for this interface.
+	 *
+	 * @return an empty key
+	 */
+	@Override
+	default Key input() {
+		return new Key();
+	}
+}
@@ -37,6 +37,12 @@ public class ThreadController {
 	 */
 	private Object endFrame;
 
+	/**
+	 * 現在のフレームにおいて，両AIが処理を終えたかどうかを表すフラグ．<br>
+	 * endFrameを用いて同期する．Fastmodeのときのみ使用される．
+	 */
+	private boolean endFrameFlag;
+
 	/**
 	 * フィールド変数を初期化するクラスコンストラクタ
 	 */
@@ -45,7 +51,7 @@ public class ThreadController {
 		this.AI2 = new Object();
 		this.endFrame = new Object();
 
-		resetProcessedFlag();
+		resetProcessedFlag(true, true);
 	}
 
 	/**
@@ -95,12 +101,39 @@ public class ThreadController {
 	}
 
 	/**
-	 * 各AIの処理が終わったかどうかを表すフラグを{@code false}にする．<br>
+	 * 新しいフレームの処理を開始する前に，各AIの処理が終わったかどうかを表すフラグを{@code false}にする．<br>
+	 * AIが割り当てられていないキャラクターは，処理を終えているものとして扱う．<br>
+	 * AIにフレームデータを渡す前に呼び出す必要がある．Fastmodeのときのみ使用される．
+	 *
+	 * @param existAI1
+	 *            P1にAIが割り当てられているかどうか
+	 * @param existAI2
+	 *            P2にAIが割り当てられているかどうか
+	 */
+	synchronized public void resetProcessedFlag(boolean existAI1, boolean existAI2) {
+		this.processedAI1 = !existAI1;
+		this.processedAI2 = !existAI2;
+
+		synchronized (this.endFrame) {
+			this.endFrameFlag = this.processedAI1 && this.processedAI2;
+		}
+	}
+
+	/**
+	 * 現在のフレームにおいて，両AIが処理を終えるまで待機する．<br>
+	 * 待機を始める前に処理を終えていた場合は，待機せずに戻る．<br>
 	 * Fastmodeのときのみ使用される．
 	 */
-	private void resetProcessedFlag() {
-		this.processedAI1 = false;
-		this.processedAI2 = false;
+	public void waitEndFrame() {
+		synchronized (this.endFrame) {
+			try {
+				while (!this.endFrameFlag) {
+					this.endFrame.wait();
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
 	}
 
 	/**
@@ -129,10 +162,9 @@ public class ThreadController {
 	private void checkEndFrame() {
 		if (this.processedAI1 && this.processedAI2) {
 			synchronized (this.endFrame) {
+				this.endFrameFlag = true;
 				this.endFrame.notifyAll();
 			}
-			this.processedAI1 = false;
-			this.processedAI2 = false;
 		}
 	}
 
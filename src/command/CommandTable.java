@@ -1,72 +1,158 @@
 package command;
 
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 
 import enumerate.Action;
 import enumerate.State;
 import fighting.Character;
-import input.KeyData;
 import struct.Key;
+import struct.KeyHistory;
 
 /**
- * キー入力データをそれに対応するアクションに変換する処理を行うクラス．
+ * キー入力データをそれに対応するアクションに変換する処理を行うクラス．<br>
+ * 変換規則は{@link #convertKeyToAction(boolean, boolean, boolean, int, int[], State, boolean)}で定義されるが,
+ * 毎フレームこの条件分岐を評価しないよう, クラスの初期化時に全ての入力の組み合わせに対する変換結果を表に展開する．
+ * 直近4つの方向キー入力の列は変換結果が同じものごとにまとめられるため, 表の大きさは数KB程度である．
  */
 public class CommandTable {
 
+	/**
+	 * 方向キー入力の種類の数(テンキーの1～9)．
+	 */
+	private static final int LEVER_NUMBER = 9;
+
+	/**
+	 * 直近4つの方向キー入力の列の組み合わせの数．
+	 */
+	private static final int SEQUENCE_NUMBER = LEVER_NUMBER * LEVER_NUMBER * LEVER_NUMBER * LEVER_NUMBER;
+
+	/**
+	 * ボタン入力の種類の数(なし, A, B, C)．
+	 */
+	private static final int BUTTON_NUMBER = 4;
+
+	/**
+	 * 方向キー入力の列以外の変換に用いる入力(空中かどうか, ボタン入力, 現在の方向キー入力)の組み合わせの数．
+	 */
+	private static final int CONTEXT_NUMBER = 2 * BUTTON_NUMBER * LEVER_NUMBER;
+
+	/**
+	 * 右向きの方向キー入力を左向きのものに変換する配列．
+	 */
+	private static final int[] MIRRORED_LEVERS = { 0, 3, 2, 1, 6, 5, 4, 9, 8, 7 };
+
+	/**
+	 * 各方向キー入力の列が属する分類の番号．変換結果が全ての入力で同じになる列は同じ分類にまとめられる．
+	 */
+	private static final byte[] SEQUENCE_CLASSES = new byte[SEQUENCE_NUMBER];
+
+	/**
+	 * 方向キー入力の列の分類ごとに, 全ての入力の組み合わせに対する変換結果を並べた表．
+	 */
+	private static final Action[] ACTIONS;
+
+	/**
+	 * 地上及び空中でキー入力から変換され得るアクションの集合．<br>
+	 * Index 0 is the ground, index 1 is the air. 各アクションは序数の位置のビットで表される．
+	 */
+	private static final long[] COMMAND_ACTIONS = new long[2];
+
+	/**
+	 * 直近4つの方向キー入力を格納する配列．呼び出しごとに配列を生成しないよう再利用する．
+	 */
+	private int[] commandList;
+
+	static {
+		HashMap<String, Integer> classes = new HashMap<String, Integer>();
+		StringBuilder signature = new StringBuilder(CONTEXT_NUMBER);
+		Action[] row = new Action[CONTEXT_NUMBER];
+		Action[] table = new Action[CONTEXT_NUMBER * 16];
+		int[] commandList = new int[4];
+
+		for (int sequence = 0; sequence < SEQUENCE_NUMBER; sequence++) {
+			commandList[0] = sequence / (LEVER_NUMBER * LEVER_NUMBER * LEVER_NUMBER) + 1;
+			commandList[1] = sequence / (LEVER_NUMBER * LEVER_NUMBER) % LEVER_NUMBER + 1;
+			commandList[2] = sequence / LEVER_NUMBER % LEVER_NUMBER + 1;
+			commandList[3] = sequence % LEVER_NUMBER + 1;
+
+			signature.setLength(0);
+			for (int context = 0; context < CONTEXT_NUMBER; context++) {
+				boolean air = context / (BUTTON_NUMBER * LEVER_NUMBER) == 1;
+				int button = context / LEVER_NUMBER % BUTTON_NUMBER;
+				int nowLever = context % LEVER_NUMBER + 1;
+
+				row[context] = convertKeyToAction(button == 1, button == 2, button == 3, nowLever, commandList,
+						air ? State.AIR : State.STAND, true);
+				signature.append((char) row[context].ordinal());
+			}
+
+			// 変換結果が既存の分類と同じ列は, その分類にまとめる
+			Integer sequenceClass = classes.get(signature.toString());
+			if (sequenceClass == null) {
+				sequenceClass = classes.size();
+				classes.put(signature.toString(), sequenceClass);
+				if (table.length < (sequenceClass + 1) * CONTEXT_NUMBER) {
+					table = Arrays.copyOf(table, table.length * 2);
+				}
+				System.arraycopy(row, 0, table, sequenceClass * CONTEXT_NUMBER, CONTEXT_NUMBER);
+			}
+			SEQUENCE_CLASSES[sequence] = (byte) (int) sequenceClass;
+		}
+
+		ACTIONS = Arrays.copyOf(table, classes.size() * CONTEXT_NUMBER);
+
+		for (int i = 0; i < ACTIONS.length; i++) {
+			COMMAND_ACTIONS[i % CONTEXT_NUMBER / (BUTTON_NUMBER * LEVER_NUMBER)] |= 1L << ACTIONS[i].ordinal();
+		}
+	}
+
 	/**
 	 * クラスコンストラクタ．
 	 */
 	public CommandTable() {
-
+		this.commandList = new int[4];
 	}
 
 	/**
-	 * P1またはP2のキー入力データを対応するアクションに変換する処理を行い，そのアクションを返す．<br>
-	 * P1とP2の判別は，キャラクターデータが持つプレイヤー番号によって行う．
+	 * キャラクターのキー入力の履歴を対応するアクションに変換する処理を行い，そのアクションを返す．<br>
+	 * 直近4つの方向キー入力の列は, 履歴が入力ごとに更新する同じ方向キー入力の連続(ラン)から求めるため, 全ての入力を走査しない．
+	 * 変換結果はクラスの初期化時に作成した表から引くため, 変換の際にオブジェクトの生成や条件分岐の評価を行わない．
 	 *
 	 * @param character
 	 *            キャラクターデータ
 	 * @param input
-	 *            P1とP2両方のキー入力が格納されたキュー
+	 *            キャラクターのキー入力の履歴．最後の要素が最新の入力である
 	 *
 	 * @return キー入力データに対応するアクション
 	 *
-	 * @see KeyData
+	 * @see KeyHistory
 	 */
-	public Action interpretationCommandFromKeyData(Character character, Deque<KeyData> input) {
-		Key nowKeyData;
-		boolean pushA = false;
-		boolean pushB = false;
-		boolean pushC = false;
-		int charIndex = character.isPlayerNumber() ? 0 : 1;
-
-		KeyData temp;
+	public Action interpretationCommand(Character character, KeyHistory input) {
+		boolean isFront = character.isFront();
 
 		// get current key state
-		temp = input.removeLast();
-		nowKeyData = temp.getKeys()[charIndex];
+		int nowKey = input.getLast();
+		int pushed = nowKey;
 
 		// The decision as input only at the moment you press the button. Press
 		// keeps flick.
-		if (!input.isEmpty()) {
-			pushA = nowKeyData.A && !input.getLast().getKeys()[charIndex].A;
-			pushB = nowKeyData.B && !input.getLast().getKeys()[charIndex].B;
-			pushC = nowKeyData.C && !input.getLast().getKeys()[charIndex].C;
-		} else {
-			pushA = nowKeyData.A;
-			pushB = nowKeyData.B;
-			pushC = nowKeyData.C;
+		if (input.size() > 1) {
+			pushed &= ~input.get(input.size() - 2);
 		}
 
-		input.addLast(temp);
-
-		int lever;
-		int[] commandList = { 5, 5, 5, 5 };
+		// 右向きで記録されたランを新しい順に走査し, 方向キー入力の列を求める．
+		// 左右の反転は各方向キー入力の値を入れ替えるだけなので, 列を求めた後に変換する
+		int[] commandList = this.commandList;
+		commandList[0] = 5;
+		commandList[1] = 5;
+		commandList[2] = 5;
+		commandList[3] = 5;
 		int commandLength = 0;
-		for (Iterator<KeyData> i = input.descendingIterator(); i.hasNext() && commandLength < 3;) {
-
-			lever = i.next().getKeys()[charIndex].getLever(character.isFront());
+		for (int i = 0; i < input.getLeverRunCount() && commandLength < 3; i++) {
+			int lever = input.getLeverRun(i);
 
 			if (lever != commandList[commandLength]) {
 				if (commandList[commandLength] != 5)
@@ -75,45 +161,58 @@ public class CommandTable {
 			}
 		}
 
-		return convertKeyToAction(pushA, pushB, pushC, nowKeyData, commandList, character.getState(),
-				character.isFront());
+		int sequence = 0;
+		for (int i = 0; i < 4; i++) {
+			int lever = isFront ? commandList[i] : MIRRORED_LEVERS[commandList[i]];
+			sequence = sequence * LEVER_NUMBER + lever - 1;
+		}
+
+		// 空中ではCボタンは無視され, 地上ではC, B, Aの順に優先される
+		boolean air = character.getState() == State.AIR;
+		int button;
+		if ((pushed & Key.BIT_C) != 0 && !air) {
+			button = 3;
+		} else if ((pushed & Key.BIT_B) != 0) {
+			button = 2;
+		} else if ((pushed & Key.BIT_A) != 0) {
+			button = 1;
+		} else {
+			button = 0;
+		}
+
+		int context = ((air ? BUTTON_NUMBER : 0) + button) * LEVER_NUMBER + Key.getLever(nowKey, isFront) - 1;
+
+		return ACTIONS[SEQUENCE_CLASSES[sequence] * CONTEXT_NUMBER + context];
 	}
 
 	/**
-	 * P1またはP2のキー入力データを対応するアクションに変換する処理を行い，そのアクションを返す．<br>
-	 * このメソッドはシミュレータ内でのみ呼び出される.
+	 * キャラクターのキー入力のキューを新しい順に走査し, 表を用いずに変換規則を直接評価して対応するアクションを返す．<br>
+	 * {@link #interpretationCommand(Character, KeyHistory)}と同じ結果を返す参照実装であり, 表の検証に用いる．
+	 * 呼び出しごとに配列を生成し全ての入力を走査するため, 毎フレームの処理には用いない．
 	 *
 	 * @param character
 	 *            キャラクターデータ
 	 * @param input
-	 *            P1またはP2のキー入力が格納されたキュー
+	 *            キャラクターのキー入力が格納されたキュー．最後の要素が最新の入力である．キューは変更されない
 	 *
 	 * @return キー入力データに対応するアクション
-	 *
-	 * @see Key
 	 */
-	public Action interpretationCommandFromKey(Character character, Deque<Key> input) {
-		boolean pushA = false;
-		boolean pushB = false;
-		boolean pushC = false;
-
-		// get current key state
-		Key nowKey = new Key(input.removeLast());
+	public static Action interpretationCommandByScan(Character character, Deque<Key> input) {
+		Iterator<Key> keys = input.descendingIterator();
+		Key nowKey = keys.next();
+		boolean pushA = nowKey.A;
+		boolean pushB = nowKey.B;
+		boolean pushC = nowKey.C;
 
 		// The decision as input only at the moment you press the button. Press
 		// keeps flick.
-		if (!input.isEmpty()) {
-			pushA = nowKey.A && !input.getLast().A;
-			pushB = nowKey.B && !input.getLast().B;
-			pushC = nowKey.C && !input.getLast().C;
-		} else {
-			pushA = nowKey.A;
-			pushB = nowKey.B;
-			pushC = nowKey.C;
+		if (keys.hasNext()) {
+			Key lastKey = keys.next();
+			pushA = nowKey.A && !lastKey.A;
+			pushB = nowKey.B && !lastKey.B;
+			pushC = nowKey.C && !lastKey.C;
 		}
 
-		input.addLast(nowKey);
-
 		int lever;
 		int[] commandList = { 5, 5, 5, 5 };
 		int commandLength = 0;
@@ -127,7 +226,21 @@ public class CommandTable {
 			}
 		}
 
-		return convertKeyToAction(pushA, pushB, pushC, nowKey, commandList, character.getState(), character.isFront());
+		return convertKeyToAction(pushA, pushB, pushC, nowKey.getLever(character.isFront()), commandList,
+				character.getState(), character.isFront());
+	}
+
+	/**
+	 * 地上または空中でキー入力から変換され得る全てのアクションの集合を返す．<br>
+	 * 各アクションは, {@link Action#ordinal()}の位置のビットが立っているかどうかで表される．
+	 *
+	 * @param air
+	 *            空中のアクションの集合を返す場合はtrue, 地上のアクションの集合を返す場合はfalse
+	 *
+	 * @return キー入力から変換され得るアクションの集合
+	 */
+	public static long getCommandActions(boolean air) {
+		return COMMAND_ACTIONS[air ? 1 : 0];
 	}
 
 	/**
@@ -139,8 +252,8 @@ public class CommandTable {
 	 *            最新のキー入力でBキー(P1: X, P2: Y)が押されているかどうか
 	 * @param pushC
 	 *            最新のキー入力でCキー(P1: C, P2: U)が押されているかどうか
-	 * @param nowKeyData
-	 *            最新のキー入力
+	 * @param nowLever
+	 *            最新のキー入力の方向キー
 	 * @param commandList
 	 *            直近4つの方向キー入力を格納した配列(新しい入力ほどindexが小さい)
 	 * @param state
@@ -150,11 +263,10 @@ public class CommandTable {
 	 *
 	 * @return キー入力情報とキャラクター情報に対応するアクション
 	 *
-	 * @see Key
 	 * @see State
 	 * @see Action
 	 */
-	private Action convertKeyToAction(boolean pushA, boolean pushB, boolean pushC, Key nowKeyData, int[] commandList,
+	private static Action convertKeyToAction(boolean pushA, boolean pushB, boolean pushC, int nowLever, int[] commandList,
 			State state, boolean isFront) {
 		// 789
 		// 456
@@ -174,13 +286,13 @@ public class CommandTable {
 				} else if (commandList[0] == 4 && commandList[1] == 1 && commandList[2] == 2) {
 					return Action.AIR_D_DB_BB;// AIR214B
 
-				} else if (nowKeyData.getLever(isFront) == 2) {
+				} else if (nowLever == 2) {
 					return Action.AIR_DB;// AIR2B
 
-				} else if (nowKeyData.getLever(isFront) == 8) {
+				} else if (nowLever == 8) {
 					return Action.AIR_UB;// AIR8B
 
-				} else if (nowKeyData.getLever(isFront) == 6) {
+				} else if (nowLever == 6) {
 					return Action.AIR_FB;// AIR6B
 
 				} else {
@@ -199,20 +311,20 @@ public class CommandTable {
 				} else if (commandList[0] == 4 && commandList[1] == 1 && commandList[2] == 2) {
 					return Action.AIR_D_DB_BA;// AIR214A
 
-				} else if (nowKeyData.getLever(isFront) == 2) {
+				} else if (nowLever == 2) {
 					return Action.AIR_DA;// AIR2A
 
-				} else if (nowKeyData.getLever(isFront) == 8) {
+				} else if (nowLever == 8) {
 					return Action.AIR_UA;// AIR8A
 
-				} else if (nowKeyData.getLever(isFront) == 6) {
+				} else if (nowLever == 6) {
 					return Action.AIR_FA;// AIR6A
 
 				} else {
 					return Action.AIR_A;// AIR5A
 				}
 
-			} else if (nowKeyData.getLever(isFront) == 4) {
+			} else if (nowLever == 4) {
 				return Action.AIR_GUARD;// AIR4
 
 			} else {
@@ -240,16 +352,16 @@ public class CommandTable {
 					return Action.STAND_D_DB_BB;// STAND214B
 
 					// normal move
-				} else if (nowKeyData.getLever(isFront) == 3) {
+				} else if (nowLever == 3) {
 					return Action.CROUCH_FB;// STAND3B
 
-				} else if (nowKeyData.getLever(isFront) == 2) {
+				} else if (nowLever == 2) {
 					return Action.CROUCH_B;// STAND2B
 
-				} else if (nowKeyData.getLever(isFront) == 4) {
+				} else if (nowLever == 4) {
 					return Action.THROW_B;// STAND4B
 
-				} else if (nowKeyData.getLever(isFront) == 6) {
+				} else if (nowLever == 6) {
 					return Action.STAND_FB;// STAND6B
 
 				} else {
@@ -269,23 +381,23 @@ public class CommandTable {
 					return Action.STAND_D_DB_BA;// STAND214A
 
 					// normal move
-				} else if (nowKeyData.getLever(isFront) == 3) {
+				} else if (nowLever == 3) {
 					return Action.CROUCH_FA;// CROUCH3A
 
-				} else if (nowKeyData.getLever(isFront) == 2) {
+				} else if (nowLever == 2) {
 					return Action.CROUCH_A;// CROUCH2A
 
-				} else if (nowKeyData.getLever(isFront) == 4) {
+				} else if (nowLever == 4) {
 					return Action.THROW_A;// THROW4A
 
-				} else if (nowKeyData.getLever(isFront) == 6) {
+				} else if (nowLever == 6) {
 					return Action.STAND_FA;// STAND6A
 
 				} else {
 					return Action.STAND_A;// STAND5A
 				}
 
-			} else if (nowKeyData.getLever(isFront) == 6) {
+			} else if (nowLever == 6) {
 				if (commandList[1] == 6) {
 					return Action.DASH;// STAND66
 
@@ -293,7 +405,7 @@ public class CommandTable {
 					return Action.FORWARD_WALK;// STAND6
 				}
 
-			} else if (nowKeyData.getLever(isFront) == 4) {
+			} else if (nowLever == 4) {
 				if (commandList[1] == 4) {
 					return Action.BACK_STEP;// STAND44
 
@@ -302,20 +414,20 @@ public class CommandTable {
 				}
 
 			} else {
-				if (nowKeyData.getLever(isFront) == 1) {
+				if (nowLever == 1) {
 					return Action.CROUCH_GUARD;// CROUCH1
 
-				} else if (nowKeyData.getLever(isFront) == 2) {
+				} else if (nowLever == 2) {
 					return Action.CROUCH;// CROUCH2
 
-				} else if (nowKeyData.getLever(isFront) == 7) {
+				} else if (nowLever == 7) {
 					return Action.BACK_JUMP;// STAND7
 
-				} else if (nowKeyData.getLever(isFront) == 9) {
+				} else if (nowLever == 9) {
 					return Action.FOR_JUMP;// STAND9
 				}
 
-				else if (nowKeyData.getLever(isFront) == 8) {
+				else if (nowLever == 8) {
 					return Action.JUMP;// STAND8
 
 				} else {
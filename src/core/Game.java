@@ -110,13 +110,40 @@ public class Game extends GameManager {
 				FlagSetting.muteFlag = true;
 				FlagSetting.automationFlag = true;
 				break;
+			case "--headless":
+				FlagSetting.headlessFlag = true;
+				FlagSetting.enableWindow = false;
+				FlagSetting.muteFlag = true;
+				FlagSetting.automationFlag = true;
+				break;
+			case "--parallel":
+				// --parallel 8 -> runs up to 8 matches at once in headless mode
+				LaunchSetting.parallelMatchNumber = Integer.parseInt(options[++i]);
+				break;
 			case "--fastmode":
 				FlagSetting.fastModeFlag = true;
 				FlagSetting.automationFlag = true;
 				break;
+			case "--lockstep":
+				FlagSetting.lockstepFlag = true;
+				FlagSetting.fastModeFlag = true;
+				FlagSetting.automationFlag = true;
+				break;
+			case "--screen-latency":
+				// --screen-latency 2 -> AIs receive the screen rendered 2 frames before without stalling
+				LaunchSetting.screenLatency = Math.max(0, Integer.parseInt(options[++i]));
+				break;
+			case "--observation-size":
+				// --observation-size 96 64 -> AIs receive the screen rendered at 96x64 on the GPU
+				LaunchSetting.observationSize[0] = Integer.parseInt(options[++i]);
+				LaunchSetting.observationSize[1] = Integer.parseInt(options[++i]);
+				break;
 			case "--json":
 				FlagSetting.jsonFlag = true;
 				break;
+			case "--columnar":
+				FlagSetting.columnarFlag = true;
+				break;
 			case "--limithp":
 				// --limithp P1_HP P2_HP
 				FlagSetting.limitHpFlag = true;
@@ -135,13 +162,21 @@ public class Game extends GameManager {
 			}
 		}
 
+		// 行動回数の出力ファイルは全試合で共有されるため, 並列に実行する試合からは出力できない
+		if (FlagSetting.headlessFlag && LaunchSetting.parallelMatchNumber > 1 && FlagSetting.debugActionFlag) {
+			Logger.getAnonymousLogger().log(Level.SEVERE, "Arguments error: -da cannot be used with --parallel."
+					+ " Run the matches without --parallel to count the actions.");
+			System.exit(1);
+		}
 	}
 
 	@Override
 	public void initialize() {
-		// 使用フォントの初期化
-		Font awtFont = new Font("Times New Roman", Font.BOLD, 24);
-		GraphicManager.getInstance().setLetterFont(new LetterImage(awtFont, true));
+		// 使用フォントの初期化. ヘッドレスモードではテクスチャを生成できないため行わない
+		if (!FlagSetting.headlessFlag) {
+			Font awtFont = new Font("Times New Roman", Font.BOLD, 24);
+			GraphicManager.getInstance().setLetterFont(new LetterImage(awtFont, true));
+		}
 
 		createLogDirectories();
 
@@ -194,9 +229,11 @@ public class Game extends GameManager {
 	}
 
 	/**
-	 * Creates log directories if they do not exist.
+	 * Creates log directories if they do not exist.<br>
+	 * Also called by {@link MatchRunner}, which runs matches without
+	 * initializing the game.
 	 */
-	private void createLogDirectories() {
+	static void createLogDirectories() {
 		new File("log").mkdir();
 		new File("log/replay").mkdir();
 		new File("log/point").mkdir();
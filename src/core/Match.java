@@ -0,0 +1,381 @@
+package core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import aiinterface.AIController;
+import aiinterface.AIInterface;
+import fighting.Fighting;
+import informationcontainer.RoundResult;
+import input.KeyData;
+import loader.ResourceLoader;
+import render.SoftwareRenderer;
+import setting.FlagSetting;
+import setting.GameSetting;
+import setting.LaunchSetting;
+import struct.FrameData;
+import struct.GameData;
+import struct.Key;
+import struct.ScreenData;
+import util.ColumnarLogWriter;
+import util.JsonLogWriter;
+import util.LogWriter;
+import util.ReplayWriter;
+
+/**
+ * 1試合分の対戦を, 他の試合と独立して実行するクラス．<br>
+ * 対戦処理, AIコントローラ, リプレイファイルやJSONファイルの出力クラス及びキャラクター名やAI名は試合ごとに保持し,
+ * InputManagerやThreadControllerといったシングルトンを用いない．<br>
+ * AIはスレッドを起動せず, 試合を実行するスレッド上で1フレームずつ処理される．
+ *
+ * @see MatchRunner
+ */
+public class Match implements Callable<ArrayList<RoundResult>> {
+
+	/**
+	 * 試合を識別するための番号．<br>
+	 * 出力ファイル名が他の試合と重複しないように用いる．
+	 */
+	private int matchNumber;
+
+	/**
+	 * P1, P2のキャラクター名．
+	 */
+	private String[] characterNames;
+
+	/**
+	 * P1, P2のAI名．
+	 */
+	private String[] aiNames;
+
+	/**
+	 * 引数で指定されたP1, P2のAIのインスタンス．<br>
+	 * 要素がnullのプレイヤーはAI名を基にjarファイルから読み込む．
+	 */
+	private AIInterface[] predefinedAIs;
+
+	/**
+	 * 初期化を終えたP1, P2のAIコントローラを格納する配列．
+	 */
+	private AIController[] ais;
+
+	/**
+	 * 対戦処理を行うクラスのインスタンス．
+	 */
+	private Fighting fighting;
+
+	/**
+	 * 次のフレームの対戦処理に用いるP1, P2の入力．
+	 */
+	private Key[] keys;
+
+	/**
+	 * 各ラウンド終了時のP1, P2の残り体力, 経過時間を格納するリスト．
+	 */
+	private ArrayList<RoundResult> roundResults;
+
+	/**
+	 * Replayファイルに出力するためのクラスのインスタンス．
+	 */
+	private ReplayWriter replayWriter;
+
+	/**
+	 * 試合データをJSON形式で出力するためのクラスのインスタンス．
+	 */
+	private JsonLogWriter jsonWriter;
+
+	/**
+	 * 試合データを列指向の形式で出力するためのクラスのインスタンス．
+	 */
+	private ColumnarLogWriter columnarWriter;
+
+	/**
+	 * AIに渡す画面をCPU上で描画するクラスのインスタンス．使用しない場合はnull．
+	 */
+	private SoftwareRenderer softwareRenderer;
+
+	/**
+	 * 出力ファイル名に用いる時間情報．
+	 */
+	private String timeInfo;
+
+	/**
+	 * ./data/ai以下のjarファイルから読み込むAIを用いて試合を作成するクラスコンストラクタ．
+	 *
+	 * @param matchNumber
+	 *            試合を識別するための番号
+	 * @param characterNames
+	 *            P1, P2のキャラクター名
+	 * @param aiNames
+	 *            P1, P2のAI名
+	 */
+	public Match(int matchNumber, String[] characterNames, String[] aiNames) {
+		this(matchNumber, characterNames, aiNames, new AIInterface[2]);
+	}
+
+	/**
+	 * 引数で指定したAIのインスタンスを用いて試合を作成するクラスコンストラクタ．<br>
+	 * 要素がnullのプレイヤーは, AI名を基に./data/ai以下のjarファイルからAIを読み込む．
+	 *
+	 * @param matchNumber
+	 *            試合を識別するための番号
+	 * @param characterNames
+	 *            P1, P2のキャラクター名
+	 * @param aiNames
+	 *            P1, P2のAI名
+	 * @param ais
+	 *            P1, P2のAIのインスタンス
+	 */
+	public Match(int matchNumber, String[] characterNames, String[] aiNames, AIInterface[] ais) {
+		this.matchNumber = matchNumber;
+		this.characterNames = characterNames.clone();
+		this.aiNames = aiNames.clone();
+		this.predefinedAIs = ais.clone();
+		this.ais = new AIController[2];
+	}
+
+	/**
+	 * 試合を最後まで実行し, 各ラウンドの結果を返す．
+	 *
+	 * @return 各ラウンドの結果を格納したリスト
+	 */
+	@Override
+	public ArrayList<RoundResult> call() throws Exception {
+		try {
+			initialize();
+
+			for (int round = 1; round <= GameSetting.ROUND_MAX; round++) {
+				processingRound(round);
+			}
+		} finally {
+			close();
+		}
+
+		LogWriter.getInstance().outputResult(this.roundResults, LogWriter.CSV, this.timeInfo, this.aiNames);
+
+		return this.roundResults;
+	}
+
+	/**
+	 * 対戦処理, AI及び出力ファイルの初期化を行う．
+	 */
+	private void initialize() {
+		this.fighting = new Fighting();
+		this.fighting.initialize(this.characterNames);
+
+		this.keys = new Key[] { new Key(), new Key() };
+		this.roundResults = new ArrayList<RoundResult>();
+		this.timeInfo = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd-HH.mm.ss", Locale.ENGLISH))
+				+ "_" + this.matchNumber;
+
+		if (!FlagSetting.trainingModeFlag) {
+			String fileName = LogWriter.getInstance().createOutputFileName("./log/replay/", this.timeInfo,
+					this.aiNames);
+			DataOutputStream dos = ResourceLoader.getInstance().openDataOutputStream(fileName + ".dat");
+			if (dos != null) {
+				this.replayWriter = new ReplayWriter(dos, this.characterNames);
+			}
+		}
+
+		if (FlagSetting.jsonFlag) {
+			String fileName = LogWriter.getInstance().createOutputFileName("./log/replay/", this.timeInfo,
+					this.aiNames);
+			this.jsonWriter = new JsonLogWriter(fileName + ".json", this.characterNames);
+		}
+
+		if (FlagSetting.columnarFlag) {
+			String fileName = LogWriter.getInstance().createOutputFileName("./log/replay/", this.timeInfo,
+					this.aiNames);
+			try {
+				this.columnarWriter = new ColumnarLogWriter(fileName + ".columns", this.characterNames);
+			} catch (IOException e) {
+				Logger.getAnonymousLogger().log(Level.WARNING, "Fail to create the columnar log: " + e.getMessage());
+			}
+		}
+
+		GameData gameData = new GameData(this.fighting.getCharacters(), this.characterNames, this.aiNames);
+		for (int i = 0; i < 2; i++) {
+			AIController ai = this.predefinedAIs[i] != null ? new AIController(this.predefinedAIs[i])
+					: ResourceLoader.getInstance().loadAI(this.aiNames[i]);
+			if (ai == null) {
+				throw new IllegalStateException("Cannot load AI: " + this.aiNames[i]);
+			}
+
+			ai.initialize(new Object(), gameData, i == 0);
+			this.ais[i] = ai;
+		}
+
+		if (LaunchSetting.observationSize[0] > 0 && LaunchSetting.observationSize[1] > 0
+				&& (this.ais[0].isScreenDataRequired() || this.ais[1].isScreenDataRequired())) {
+			this.softwareRenderer = new SoftwareRenderer(this.characterNames, LaunchSetting.observationSize[0],
+					LaunchSetting.observationSize[1]);
+		}
+	}
+
+	/**
+	 * 1ラウンド分の対戦処理を行う．<br>
+	 * ラウンド前のインターバルの後, 体力が0になるか制限時間が経過するまで対戦処理を行う．
+	 *
+	 * @param round
+	 *            現在のラウンド
+	 */
+	private void processingRound(int round) {
+		this.fighting.initRound();
+		for (AIController ai : this.ais) {
+			ai.clear();
+		}
+
+		// break time
+		for (int i = 0; i < GameSetting.BREAKTIME_FRAME_NUMBER; i++) {
+			processingAI(new FrameData());
+			this.fighting.initRound();
+		}
+
+		for (int nowFrame = 0;; nowFrame++) {
+			KeyData keyData = new KeyData(this.keys);
+			this.fighting.processingFight(nowFrame, keyData);
+			FrameData frameData = this.fighting.createFrameData(nowFrame, round);
+
+			// リプレイログ吐き出し
+			if (this.replayWriter != null) {
+				this.replayWriter.outputFrame(round, keyData, this.fighting);
+			}
+
+			if (this.jsonWriter != null) {
+				this.jsonWriter.update(frameData, keyData);
+			}
+
+			if (this.columnarWriter != null) {
+				try {
+					this.columnarWriter.update(frameData, keyData);
+				} catch (IOException e) {
+					Logger.getAnonymousLogger().log(Level.WARNING,
+							"Fail to write the columnar log: " + e.getMessage());
+					this.columnarWriter = null;
+				}
+			}
+
+			processingAI(frameData);
+
+			// 体力が0orタイムオーバーならラウンド終了処理
+			if (isBeaten(frameData) || isTimeOver(nowFrame)) {
+				this.fighting.processingRoundEnd();
+				RoundResult roundResult = new RoundResult(frameData);
+				this.roundResults.add(roundResult);
+
+				for (AIController ai : this.ais) {
+					ai.informRoundResult(roundResult);
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 引数のフレームデータを各AIに渡して1フレーム分の処理を行わせ, 次のフレームで用いる入力を取得する．
+	 *
+	 * @param frameData
+	 *            フレームデータ
+	 */
+	private void processingAI(FrameData frameData) {
+		ScreenData screenData;
+		if (this.softwareRenderer != null && !frameData.getEmptyFlag()) {
+			this.softwareRenderer.drawScene(this.fighting.getCharacters(), this.fighting.getProjectileDeque());
+			screenData = new ScreenData(this.softwareRenderer.getRGBBytes(), this.softwareRenderer.getWidth(),
+					this.softwareRenderer.getHeight());
+		} else {
+			screenData = new ScreenData();
+		}
+
+		for (int i = 0; i < 2; i++) {
+			this.ais[i].setFrameData(frameData.getEmptyFlag() ? new FrameData() : new FrameData(frameData));
+			this.ais[i].setScreenData(screenData);
+			this.ais[i].processingFrame();
+			this.keys[i] = new Key(this.ais[i].getInput());
+		}
+	}
+
+	/**
+	 * キャラクターが倒されたかどうかを判定する.
+	 *
+	 * @param frameData
+	 *            フレームデータ
+	 * @return {@code true}: P1 or P2が倒された，{@code false}: otherwise
+	 */
+	private boolean isBeaten(FrameData frameData) {
+		return FlagSetting.limitHpFlag
+				&& (frameData.getCharacter(true).getHp() <= 0 || frameData.getCharacter(false).getHp() <= 0);
+	}
+
+	/**
+	 * 1ラウンドの制限時間が経過したかどうかを判定する.<br>
+	 * Training modeのときは, Integerの最大との比較を行う.
+	 *
+	 * @param nowFrame
+	 *            現在のフレーム
+	 * @return {@code true}: 1ラウンドの制限時間が経過した， {@code false}: otherwise
+	 */
+	private boolean isTimeOver(int nowFrame) {
+		if (FlagSetting.trainingModeFlag) {
+			return nowFrame == Integer.MAX_VALUE;
+		} else {
+			return nowFrame >= GameSetting.ROUND_FRAME_NUMBER - 1;
+		}
+	}
+
+	/**
+	 * AIの終了処理を行い, リプレイファイル等の出力ファイルを閉じる．
+	 */
+	private void close() {
+		for (AIController ai : this.ais) {
+			if (ai != null) {
+				ai.gameEnd();
+			}
+		}
+
+		try {
+			if (this.replayWriter != null) {
+				this.replayWriter.close();
+			}
+		} catch (IOException e) {
+			Logger.getAnonymousLogger().log(Level.WARNING, "Fail to close the replay file: " + e.getMessage());
+		}
+
+		if (this.jsonWriter != null) {
+			this.jsonWriter.close();
+		}
+
+		try {
+			if (this.columnarWriter != null) {
+				this.columnarWriter.close();
+			}
+		} catch (IOException e) {
+			Logger.getAnonymousLogger().log(Level.WARNING, "Fail to close the columnar log: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * P1, P2のキャラクター名を返す．
+	 *
+	 * @return P1, P2のキャラクター名
+	 */
+	public String[] getCharacterNames() {
+		return this.characterNames.clone();
+	}
+
+	/**
+	 * P1, P2のAI名を返す．
+	 *
+	 * @return P1, P2のAI名
+	 */
+	public String[] getAiNames() {
+		return this.aiNames.clone();
+	}
+}
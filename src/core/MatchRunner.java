@@ -0,0 +1,136 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import informationcontainer.RoundResult;
+import loader.ResourceLoader;
+import setting.FlagSetting;
+import setting.LaunchSetting;
+
+/**
+ * 複数の試合を1つのJVM内で並列に実行するクラス．<br>
+ * 各試合は{@link Match}として互いに独立したコンテキストを持ち, 指定したスレッド数のスレッドプール上で実行される．<br>
+ * OpenGLのコンテキストを用いないため, ヘッドレスモードでのみ使用できる．<br>
+ * ラウンド数, 1ラウンドのフレーム数, 最大HPなどのゲーム設定は全ての試合で共通である．
+ *
+ * @see Match
+ */
+public class MatchRunner {
+
+	/**
+	 * 試合を実行するスレッドプール．
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * 引数で指定したスレッド数で試合を実行するクラスコンストラクタ．
+	 *
+	 * @param threadNumber
+	 *            同時に実行する試合数の上限
+	 */
+	public MatchRunner(int threadNumber) {
+		if (!FlagSetting.headlessFlag) {
+			throw new IllegalStateException("MatchRunner can only be used in headless mode");
+		}
+
+		// 試合はGame#initialize()を経ずに実行されるため, ログの出力先をここで作成する
+		Game.createLogDirectories();
+		this.executor = Executors.newFixedThreadPool(Math.max(threadNumber, 1));
+	}
+
+	/**
+	 * 試合をスレッドプールに登録する．
+	 *
+	 * @param match
+	 *            実行する試合
+	 * @return 試合の各ラウンドの結果を受け取るためのFuture
+	 */
+	public Future<ArrayList<RoundResult>> submit(Match match) {
+		return this.executor.submit(match);
+	}
+
+	/**
+	 * 全ての試合を並列に実行し, 全試合の終了を待ってその結果を返す．<br>
+	 * 結果は引数のリストと同じ順序で格納される．
+	 * 失敗した試合の結果はnullとなる．
+	 *
+	 * @param matches
+	 *            実行する試合のリスト
+	 * @return 各試合のラウンドの結果を格納したリスト
+	 */
+	public List<ArrayList<RoundResult>> runAll(List<Match> matches) {
+		List<Future<ArrayList<RoundResult>>> futures = new ArrayList<Future<ArrayList<RoundResult>>>(matches.size());
+		for (Match match : matches) {
+			futures.add(submit(match));
+		}
+
+		List<ArrayList<RoundResult>> results = new ArrayList<ArrayList<RoundResult>>(matches.size());
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				results.add(futures.get(i).get());
+			} catch (ExecutionException e) {
+				String[] aiNames = matches.get(i).getAiNames();
+				Logger.getAnonymousLogger().log(Level.SEVERE,
+						"Match " + aiNames[0] + " vs " + aiNames[1] + " failed", e.getCause());
+				results.add(null);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				results.add(null);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * 起動情報を基に, 実行する試合のリストを作成する．<br>
+	 * 総当り対戦(-a)が指定されている場合は./data/ai以下の全AIの組み合わせを, それ以外の場合はP1, P2のAIの試合を,
+	 * それぞれ繰り返し回数分だけ作成する．
+	 *
+	 * @return 試合のリスト
+	 */
+	public static List<Match> createMatches() {
+		List<String[]> aiPairs = new ArrayList<String[]>();
+		if (FlagSetting.allCombinationFlag) {
+			ArrayList<String> aiNames = ResourceLoader.getInstance().loadFileNames("./data/ai", ".jar");
+			for (String p2 : aiNames) {
+				for (String p1 : aiNames) {
+					if (!p1.equals(p2)) {
+						aiPairs.add(new String[] { p1, p2 });
+					}
+				}
+			}
+		} else {
+			aiPairs.add(LaunchSetting.aiNames.clone());
+		}
+
+		List<Match> matches = new ArrayList<Match>();
+		for (String[] aiPair : aiPairs) {
+			for (int i = 0; i < LaunchSetting.repeatNumber; i++) {
+				matches.add(new Match(matches.size(), LaunchSetting.characterNames, aiPair));
+			}
+		}
+
+		return matches;
+	}
+
+	/**
+	 * 実行中の試合の終了を待ち, スレッドプールを終了する．
+	 */
+	public void close() {
+		this.executor.shutdown();
+		try {
+			this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -396,7 +396,23 @@ public class Attack {
 		top = y + this.settingHitArea.getTop();
 		bottom = y + this.settingHitArea.getBottom();
 
-		this.currentHitArea = new HitArea(left, right, top, bottom);
+		// currentHitAreaは外部に公開されずコピーのみが返されるため, 毎フレーム生成せずに値を上書きする
+		this.currentHitArea.set(left, right, top, bottom);
+	}
+
+	/**
+	 * 現在のフレームにおける攻撃の当たり判定領域が，引数のキャラクターの当たり判定領域と重なっているかどうかを返す．<br>
+	 * {@link #getCurrentHitArea()}と異なり，当たり判定領域のコピーを生成しない．
+	 *
+	 * @param character
+	 *            判定に用いるキャラクター
+	 * @return {@code true} 重なっている場合，{@code false} otherwise
+	 */
+	public boolean intersects(Character character) {
+		return character.getHitAreaLeft() <= this.currentHitArea.getRight()
+				&& character.getHitAreaRight() >= this.currentHitArea.getLeft()
+				&& character.getHitAreaTop() <= this.currentHitArea.getBottom()
+				&& character.getHitAreaBottom() >= this.currentHitArea.getTop();
 	}
 
 	/**
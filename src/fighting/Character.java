@@ -1,22 +1,25 @@
 package fighting;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.LinkedList;
 
 import enumerate.Action;
 import enumerate.State;
 import image.Image;
+import loader.CharacterPack;
 import loader.ResourceLoader;
 import manager.SoundManager;
 import setting.FlagSetting;
 import setting.GameSetting;
 import setting.LaunchSetting;
 import struct.CharacterData;
+import struct.FrameSnapshot;
 import struct.HitArea;
 import struct.Key;
+import struct.KeyHistory;
 
 /**
  * ゲームの進行に応じてキャラクターが持つ情報を更新する役割を持つクラス．
@@ -130,16 +133,30 @@ public class Character {
 	private int lastHitFrame;
 
 	/**
-	 * The list storing keys of the action that the character will be executing
-	 * in the simulator.
+	 * The buffer storing the keys of the action that the character will be
+	 * executing in the simulator, each of which is represented as a bitmask.
+	 * <br>
+	 * The keys are stored from {@link #inputFirst}, and the buffer is reused
+	 * every frame so that setting the keys creates no objects.
 	 */
-	private Deque<Key> inputCommands;
+	private int[] inputCommands;
 
 	/**
-	 * The list storing up to 30 keys that the character executed in the
-	 * simulator.
+	 * The index of the next key to be executed in {@link #inputCommands}.
+	 */
+	private int inputFirst;
+
+	/**
+	 * The number of the keys waiting to be executed in
+	 * {@link #inputCommands}.
+	 */
+	private int inputSize;
+
+	/**
+	 * The history storing up to 30 keys that the character executed, each of
+	 * which is represented as a bitmask.
 	 */
-	private Deque<Key> processedCommands;
+	private KeyHistory processedCommands;
 
 	/**
 	 * キャラクターの全モーションを格納するリスト．
@@ -215,8 +232,10 @@ public class Character {
 		this.control = character.isControl();
 		this.attack = character.getAttack();
 		this.remainingFrame = character.getRemainingFrame();
-		this.inputCommands = character.getInputCommand();
-		this.processedCommands = character.getProcessedCommand();
+		for (int i = 0; i < character.getInputCommandSize(); i++) {
+			addInputCommand(character.getInputCommandKey(i));
+		}
+		this.processedCommands = new KeyHistory(character.getProcessedKeyHistory());
 		this.motionList = character.getMotionList();
 		this.lastHitFrame = character.getLastHitFrame();
 		this.hitCount = character.getHitCount();
@@ -237,7 +256,23 @@ public class Character {
 	 */
 	public Character(CharacterData characterData, ArrayList<Motion> motionList) {
 		initializeList();
+		initialize(characterData, motionList);
+	}
 
+	/**
+	 * 引数として渡されたデータを用いて，このインスタンスのキャラクター情報を上書きする．<br>
+	 * シミュレーションごとに新たなインスタンスを生成せず，同じインスタンスを再利用するために用いる．<br>
+	 * このメソッドはシミュレータ内でのみ呼び出される.
+	 *
+	 * @param characterData
+	 *            キャラクター情報を格納したCharacterDataクラスのインスタンス
+	 * @param motionList
+	 *            キャラクターの全モーションが格納されたリスト
+	 *
+	 * @see CharacterData
+	 * @see Motion
+	 */
+	public void initialize(CharacterData characterData, ArrayList<Motion> motionList) {
 		this.playerNumber = characterData.isPlayerNumber();
 		this.hp = characterData.getHp();
 		this.energy = characterData.getEnergy();
@@ -255,14 +290,74 @@ public class Character {
 		this.control = characterData.isControl();
 		this.attack = new Attack(characterData.getAttack());
 		this.remainingFrame = characterData.getRemainingFrame();
-		this.inputCommands = characterData.getInputCommand();
-		this.processedCommands = characterData.getProcessedCommand();
+		setInputCommand(characterData.getInputCommand());
+		this.processedCommands = new KeyHistory(characterData.getProcessedKeyHistory());
 		this.motionList = motionList;
 		this.lastHitFrame = characterData.getLastHitFrame();
 		this.hitCount = characterData.getHitCount();
 		this.isSimulateProcess = true;
 	}
 
+	/**
+	 * 引数として渡されたスナップショットのデータを用いて，このインスタンスのキャラクター情報を上書きする．<br>
+	 * CharacterDataクラスのインスタンスを経由せずに，スナップショットから直接値を読み込む．<br>
+	 * このメソッドはシミュレータ内でのみ呼び出される.
+	 *
+	 * @param snapshot
+	 *            ゲームの状態を格納したスナップショット
+	 * @param playerNumber
+	 *            the character's side flag．{@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @param motionList
+	 *            キャラクターの全モーションが格納されたリスト
+	 *
+	 * @see FrameSnapshot
+	 * @see Motion
+	 */
+	public void initialize(FrameSnapshot snapshot, boolean playerNumber, ArrayList<Motion> motionList) {
+		restore(snapshot, playerNumber);
+		this.attack = new Attack(snapshot.getAttack(playerNumber));
+		this.motionList = motionList;
+		this.isSimulateProcess = true;
+	}
+
+	/**
+	 * 引数として渡されたスナップショットのデータを用いて，このインスタンスのキャラクター情報を上書きする．<br>
+	 * モーションのリストや初期位置の補正値などの, スナップショットに含まれない情報はそのまま保持される．<br>
+	 * リプレイの途中のフレームから対戦処理を再開するために用いる．
+	 *
+	 * @param snapshot
+	 *            ゲームの状態を格納したスナップショット
+	 * @param playerNumber
+	 *            the character's side flag．{@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 *
+	 * @see FrameSnapshot
+	 */
+	public void restore(FrameSnapshot snapshot, boolean playerNumber) {
+		this.playerNumber = snapshot.isPlayerNumber(playerNumber);
+		this.hp = snapshot.getHp(playerNumber);
+		this.energy = snapshot.getEnergy(playerNumber);
+		this.x = snapshot.getX(playerNumber);
+		this.y = snapshot.getY(playerNumber);
+		this.graphicSizeX = snapshot.getGraphicSizeX(playerNumber);
+		this.graphicSizeY = snapshot.getGraphicSizeY(playerNumber);
+		this.graphicAdjustX = snapshot.getGraphicAdjustX(playerNumber);
+		this.speedX = snapshot.getSpeedX(playerNumber);
+		this.speedY = snapshot.getSpeedY(playerNumber);
+		this.state = snapshot.getState(playerNumber);
+		this.action = snapshot.getAction(playerNumber);
+		this.hitConfirm = snapshot.isHitConfirm(playerNumber);
+		this.front = snapshot.isFront(playerNumber);
+		this.control = snapshot.isControl(playerNumber);
+		this.attack = snapshot.hasAttack(playerNumber) ? new Attack(snapshot.getAttack(playerNumber)) : null;
+		this.remainingFrame = snapshot.getRemainingFrame(playerNumber);
+		snapshot.readInputCommand(playerNumber, this);
+		snapshot.readProcessedCommand(playerNumber, this.processedCommands);
+		this.lastHitFrame = snapshot.getLastHitFrame(playerNumber);
+		this.hitCount = snapshot.getHitCount(playerNumber);
+	}
+
 	/**
 	 * 設定ファイル(gSetting.txt)の情報を用いてキャラクターの画像サイズを初期化する．
 	 *
@@ -273,32 +368,33 @@ public class Character {
 	 *            {@code false} if P2.
 	 */
 	public void initialize(String characterName, boolean playerNumber) {
+		this.playerNumber = playerNumber;
+
 		try {
-			BufferedReader br = ResourceLoader.getInstance()
-					.openReadFile("./data/characters/" + characterName + "/gSetting.txt");
-			String[] size = br.readLine().split(",", 0);
-			String[] center = br.readLine().split(",", 0);
+			CharacterPack pack = ResourceLoader.getInstance().loadCharacterPack(characterName);
+			String[] size = pack.getSettingRows()[0];
+			String[] center = pack.getSettingRows()[1];
 
 			this.graphicSizeX = Integer.valueOf(size[0]);
 			this.graphicSizeY = Integer.valueOf(size[1]);
 			this.graphicAdjustX = Integer.valueOf(center[0]);
 			this.graphicAdjustInitialX[0] = Integer.valueOf(center[2]);
 			this.graphicAdjustInitialX[1] = Integer.valueOf(center[3]);
+
+			setMotionList(pack, characterName);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-
-		this.playerNumber = playerNumber;
-
-		setMotionList(characterName);
 	}
 
 	/**
 	 * リストのデータを初期化する．
 	 */
 	public void initializeList() {
-		this.inputCommands = new LinkedList<Key>();
-		this.processedCommands = new LinkedList<Key>();
+		this.inputCommands = new int[GameSetting.INPUT_LIMIT + 1];
+		this.inputFirst = 0;
+		this.inputSize = 0;
+		this.processedCommands = new KeyHistory();
 		this.motionList = new ArrayList<Motion>();
 		this.graphicAdjustInitialX = new int[2];
 	}
@@ -425,14 +521,13 @@ public class Character {
 
 		createAttackInstance();
 
-		if (!this.inputCommands.isEmpty()) {
-			this.processedCommands.addLast(new Key(this.inputCommands.pop()));
-		} else {
-			this.processedCommands.addLast(new Key());
+		// 履歴が上限(INPUT_LIMIT)に達している場合は, 最も古い入力が破棄される
+		int key = 0;
+		if (this.inputSize > 0) {
+			key = this.inputCommands[this.inputFirst++];
+			this.inputSize--;
 		}
-
-		if (this.processedCommands.size() > GameSetting.INPUT_LIMIT)
-			this.processedCommands.removeFirst();
+		this.processedCommands.add(key);
 	}
 
 	/**
@@ -944,6 +1039,18 @@ public class Character {
 		return temp;
 	}
 
+	/**
+	 * 引数のアクションに対応するモーションを返す．<br>
+	 * {@link #getMotionList()}と異なり，リストのコピーを作成しない．
+	 *
+	 * @param action
+	 *            アクション
+	 * @return 引数のアクションに対応するモーション
+	 */
+	public Motion getMotion(Action action) {
+		return this.motionList.get(action.ordinal());
+	}
+
 	/**
 	 * Returns a list storing keys of the action that the character will be
 	 * executing in the simulator
@@ -953,13 +1060,43 @@ public class Character {
 	 */
 	public Deque<Key> getInputCommand() {
 		LinkedList<Key> temp = new LinkedList<Key>();
-		for (Key key : this.inputCommands) {
-			temp.add(key);
+		for (int i = 0; i < this.inputSize; i++) {
+			temp.add(new Key(this.inputCommands[this.inputFirst + i]));
 		}
 
 		return temp;
 	}
 
+	/**
+	 * Returns the number of the keys of the action that the character will be
+	 * executing in the simulator.
+	 *
+	 * @return the number of the keys waiting to be executed
+	 */
+	public int getInputCommandSize() {
+		return this.inputSize;
+	}
+
+	/**
+	 * Returns the key of the action that the character will be executing in
+	 * the simulator as the bitmask returned by {@link Key#toBits()}.<br>
+	 * Unlike {@link #getInputCommand()}, this method creates no objects.
+	 *
+	 * @param index
+	 *            the position of the key, where 0 is the next key to be
+	 *            executed
+	 * @return the bitmask of the key
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of range
+	 */
+	public int getInputCommandKey(int index) {
+		if (index < 0 || index >= this.inputSize) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.inputSize);
+		}
+
+		return this.inputCommands[this.inputFirst + index];
+	}
+
 	/**
 	 * Returns a list storing up to 30 keys that the character executed in the
 	 * simulator
@@ -968,12 +1105,19 @@ public class Character {
 	 *         simulator
 	 */
 	public Deque<Key> getProcessedCommand() {
-		LinkedList<Key> temp = new LinkedList<Key>();
-		for (Key key : this.processedCommands) {
-			temp.add(key);
-		}
+		return this.processedCommands.toDeque();
+	}
 
-		return temp;
+	/**
+	 * Returns the history storing up to 30 keys that the character executed.
+	 * <br>
+	 * The returned history is the one held by this character, so it must not
+	 * be modified.
+	 *
+	 * @return the history storing up to 30 keys that the character executed
+	 */
+	public KeyHistory getProcessedKeyHistory() {
+		return this.processedCommands;
 	}
 
 	/**
@@ -989,6 +1133,18 @@ public class Character {
 		return motion.getImage(Math.abs(this.remainingFrame) % motion.getFrameNumber());
 	}
 
+	/**
+	 * Returns the index of the current image of the character among the
+	 * images of the current action, which {@link #getNowImage()} returns.
+	 *
+	 * @return the index of the current image of the character
+	 */
+	public int getNowImageIndex() {
+		Motion motion = motionList.get(this.action.ordinal());
+
+		return motion.getImageIndex(Math.abs(this.remainingFrame) % motion.getFrameNumber());
+	}
+
 	/**
 	 * 攻撃の連続ヒット回数を返す．
 	 *
@@ -1182,29 +1338,18 @@ public class Character {
 	}
 
 	/**
-	 * Sets all of possible motions of the given character.
+	 * Sets all of possible motions of the given character from the rows of
+	 * Motion.csv stored in the character pack.
 	 *
+	 * @param pack
+	 *            the character pack
 	 * @param characterName
 	 *            the character's name
 	 */
-	private void setMotionList(String characterName) {
-		try {
-			BufferedReader br = ResourceLoader.getInstance()
-					.openReadFile("./data/characters/" + characterName + "/Motion.csv");
-
-			String line;
-			br.readLine(); // ignore header
-
-			while ((line = br.readLine()) != null) {
-				String[] st = line.split(",", 0);
-				Motion motion = new Motion(st, characterName, this.playerNumber ? 0 : 1);
-				this.motionList.add(motion);
-			}
-
-			br.close();
-
-		} catch (IOException e) {
-			e.printStackTrace();
+	private void setMotionList(CharacterPack pack, String characterName) {
+		for (String[] row : pack.getMotionRows()) {
+			Motion motion = new Motion(row, characterName, this.playerNumber ? 0 : 1);
+			this.motionList.add(motion);
 		}
 	}
 
@@ -1237,7 +1382,41 @@ public class Character {
 	 *            executing in the simulator
 	 */
 	public void setInputCommand(Deque<Key> inputCommands) {
-		this.inputCommands = inputCommands;
+		clearInputCommand();
+		for (Key key : inputCommands) {
+			addInputCommand(key != null ? key.toBits() : 0);
+		}
+	}
+
+	/**
+	 * Deletes all the keys of the action that the character will be executing
+	 * in the simulator.
+	 */
+	public void clearInputCommand() {
+		this.inputFirst = 0;
+		this.inputSize = 0;
+	}
+
+	/**
+	 * Adds a key to the end of the keys of the action that the character will
+	 * be executing in the simulator.<br>
+	 * Unlike {@link #setInputCommand(Deque)}, this method creates no objects
+	 * unless the buffer has to be enlarged.
+	 *
+	 * @param bits
+	 *            the bitmask of the key returned by {@link Key#toBits()}
+	 */
+	public void addInputCommand(int bits) {
+		if (this.inputFirst + this.inputSize == this.inputCommands.length) {
+			if (this.inputFirst > 0) {
+				System.arraycopy(this.inputCommands, this.inputFirst, this.inputCommands, 0, this.inputSize);
+				this.inputFirst = 0;
+			} else {
+				this.inputCommands = Arrays.copyOf(this.inputCommands, this.inputCommands.length * 2);
+			}
+		}
+
+		this.inputCommands[this.inputFirst + this.inputSize++] = bits;
 	}
 
 	/**
@@ -1249,7 +1428,7 @@ public class Character {
 	 *            the simulator
 	 */
 	public void setProcessedCommand(Deque<Key> inputCommands) {
-		this.processedCommands = inputCommands;
+		this.processedCommands = new KeyHistory(inputCommands);
 	}
 
 	/**
@@ -90,6 +90,15 @@ public class Effect {
 		return this.hitImages;
 	}
 
+	/**
+	 * Returns the number of frames elapsed since the effect was generated.
+	 *
+	 * @return the number of frames elapsed since the effect was generated
+	 */
+	public int getCurrentFrame() {
+		return this.currentFrame;
+	}
+
 	/**
 	 * Returns the attack related to this effect.
 	 *
@@ -1,8 +1,10 @@
 package fighting;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 
 import command.CommandTable;
 import enumerate.Action;
@@ -16,7 +18,9 @@ import setting.LaunchSetting;
 import struct.AttackData;
 import struct.CharacterData;
 import struct.FrameData;
+import struct.FrameSnapshot;
 import struct.Key;
+import struct.KeyHistory;
 
 /**
  * 対戦処理及びそれに伴う攻撃やキャラクターのパラメータの更新処理を扱うクラス．
@@ -39,11 +43,12 @@ public class Fighting {
 	protected Deque<LoopEffect> projectileDeque;
 
 	/**
-	 * The list of the input information of both characters.
+	 * The input histories of both characters.<br>
+	 * Index 0 is P1, index 1 is P2.
 	 *
-	 * @see KeyData
+	 * @see KeyHistory
 	 */
-	private Deque<KeyData> inputCommands;
+	private KeyHistory[] inputCommands;
 
 	/**
 	 * 攻撃が当たった時に表示するエフェクトや, アッパーのエフェクトの情報を格納するリスト．<br>
@@ -60,6 +65,11 @@ public class Fighting {
 	 */
 	protected CommandTable commandTable;
 
+	/**
+	 * 現在のフレームで各キャラクターの攻撃が相手に当たったかどうかを格納する配列．<br>
+	 * 毎フレーム再利用される．Index 0 is P1, index 1 is P2.
+	 */
+	protected boolean[] isHit;
 
 	/**
 	 * Class constructor．
@@ -67,14 +77,15 @@ public class Fighting {
 	public Fighting() {
 		this.playerCharacters = new Character[2];
 		this.projectileDeque = new LinkedList<LoopEffect>();
-		this.inputCommands = new LinkedList<KeyData>();
+		this.inputCommands = new KeyHistory[] { new KeyHistory(), new KeyHistory() };
 		this.commandTable = new CommandTable();
 		this.hitEffects = new LinkedList<LinkedList<HitEffect>>();
-
+		this.isHit = new boolean[2];
 	}
 	
 	public void processingRoundEnd(){
-		this.inputCommands.clear();
+		this.inputCommands[0].clear();
+		this.inputCommands[1].clear();
 		this.playerCharacters[0].setProcessedCommand(new LinkedList<Key>());
 		this.playerCharacters[1].setProcessedCommand(new LinkedList<Key>());
 		this.playerCharacters[0].setInputCommand(new LinkedList<Key>());
@@ -85,9 +96,19 @@ public class Fighting {
 	 * P1, P2のキャラクター情報とエフェクトを格納するリストの初期化を行う．
 	 */
 	public void initialize() {
+		initialize(LaunchSetting.characterNames);
+	}
+
+	/**
+	 * 引数で指定されたキャラクター名を用いて, P1, P2のキャラクター情報とエフェクトを格納するリストの初期化を行う．
+	 *
+	 * @param characterNames
+	 *            P1, P2のキャラクター名. Index 0 is P1, index 1 is P2.
+	 */
+	public void initialize(String[] characterNames) {
 		for (int i = 0; i < 2; i++) {
 			this.playerCharacters[i] = new Character();
-			this.playerCharacters[i].initialize(LaunchSetting.characterNames[i], i == 0);
+			this.playerCharacters[i].initialize(characterNames[i], i == 0);
 			this.hitEffects.add(new LinkedList<HitEffect>());
 		}
 	}
@@ -130,21 +151,17 @@ public class Fighting {
 	 *            Index 0 is P1, index 1 is P2.
 	 */
 	protected void processingCommands(int currentFrame, KeyData keyData) {
-		this.inputCommands.addLast(keyData);
-
-		// リストのサイズが上限(INPUT_LIMIT)を超えていたら, 最も古いデータを削除する
-		while (this.inputCommands.size() > GameSetting.INPUT_LIMIT) {
-			this.inputCommands.removeFirst();
+		// 履歴は上限(INPUT_LIMIT)に達すると最も古いデータから上書きされるため, 毎フレームのオブジェクト生成は発生しない
+		for (int i = 0; i < 2; i++) {
+			this.inputCommands[i].add(keyData.getKeyBits(i));
 		}
 
 		// アクションの実行
 		for (int i = 0; i < 2; i++) {
-			if (!this.inputCommands.isEmpty()) {
-				Action executeAction = this.commandTable.interpretationCommandFromKeyData(this.playerCharacters[i],
-						this.inputCommands);
-				if (ableAction(this.playerCharacters[i], executeAction)) {
-					this.playerCharacters[i].runAction(executeAction, true);
-				}
+			Action executeAction = this.commandTable.interpretationCommand(this.playerCharacters[i],
+					this.inputCommands[i]);
+			if (ableAction(this.playerCharacters[i], executeAction)) {
+				this.playerCharacters[i].runAction(executeAction, true);
 			}
 		}
 	}
@@ -156,7 +173,8 @@ public class Fighting {
 	 *            現在のフレーム
 	 */
 	protected void calculationHit(int currentFrame) {
-		boolean[] isHit = { false, false };
+		boolean[] isHit = this.isHit;
+		Arrays.fill(isHit, false);
 
 		// 波動拳の処理
 		int dequeSize = this.projectileDeque.size();
@@ -200,7 +218,7 @@ public class Fighting {
 					// アッパーの処理
 					if (playerCharacters[i].getAction() == Action.STAND_F_D_DFB) {
 						Image[] upper = GraphicManager.getInstance().getUpperImageContainer()[i];
-						Motion motion = this.playerCharacters[i].getMotionList().get(Action.STAND_F_D_DFB.ordinal());
+						Motion motion = this.playerCharacters[i].getMotion(Action.STAND_F_D_DFB);
 
 						if (this.playerCharacters[i].startActive(motion)) {
 							this.hitEffects.get(i)
@@ -259,24 +277,8 @@ public class Fighting {
 				if (this.playerCharacters[i].getAttack().isProjectile()) {
 
 					Attack attack = this.playerCharacters[i].getAttack();
-					ArrayList<Image> projectileImage = FlagSetting.enableWindow
-							? GraphicManager.getInstance().getProjectileImageContainer() : null;
-
-					if (this.playerCharacters[i].getAction() == Action.STAND_D_DF_FC) {
-						projectileImage = FlagSetting.enableWindow
-								? GraphicManager.getInstance().getUltimateAttackImageContainer() : null;
-					}
-
-					Image[] temp;
-					if (FlagSetting.enableWindow) {
-						temp = new Image[projectileImage.size()];
-						for (int j = 0; j < temp.length; j++) {
-							temp[j] = projectileImage.get(j);
-						}
-					} else {
-						temp = null;
-					}
-					this.projectileDeque.addLast(new LoopEffect(attack, temp));
+					boolean ultimate = this.playerCharacters[i].getAction() == Action.STAND_D_DF_FC;
+					this.projectileDeque.addLast(new LoopEffect(attack, createProjectileImages(ultimate), ultimate));
 					this.playerCharacters[i].destroyAttackInstance();
 				}
 			}
@@ -395,8 +397,8 @@ public class Fighting {
 	 * @see Action
 	 */
 	protected boolean ableAction(Character character, Action nextAction) {
-		Motion nextMotion = character.getMotionList().get(nextAction.ordinal());
-		Motion nowMotion = character.getMotionList().get(character.getAction().ordinal());
+		Motion nextMotion = character.getMotion(nextAction);
+		Motion nowMotion = character.getMotion(character.getAction());
 
 		if (character.getEnergy() < -nextMotion.getAttackStartAddEnergy()) {
 			return false;
@@ -426,16 +428,103 @@ public class Fighting {
 	protected boolean detectionHit(Character opponent, Attack attack) {
 		if (attack == null || opponent.getState() == State.DOWN) {
 			return false;
-		} else if (opponent.getHitAreaLeft() <= attack.getCurrentHitArea().getRight()
-				&& opponent.getHitAreaRight() >= attack.getCurrentHitArea().getLeft()
-				&& opponent.getHitAreaTop() <= attack.getCurrentHitArea().getBottom()
-				&& opponent.getHitAreaBottom() >= attack.getCurrentHitArea().getTop()) {
+		} else if (attack.intersects(opponent)) {
 			return true;
 		} else {
 			return false;
 		}
 	}
 
+	/**
+	 * 波動拳のエフェクトに用いる画像の配列を作成する．<br>
+	 * ウィンドウを表示しない場合はnullを返す．
+	 *
+	 * @param ultimate
+	 *            必殺技の波動拳かどうか
+	 * @return エフェクトの画像の配列
+	 */
+	private Image[] createProjectileImages(boolean ultimate) {
+		if (!FlagSetting.enableWindow) {
+			return null;
+		}
+
+		ArrayList<Image> projectileImage = ultimate ? GraphicManager.getInstance().getUltimateAttackImageContainer()
+				: GraphicManager.getInstance().getProjectileImageContainer();
+		return projectileImage.toArray(new Image[projectileImage.size()]);
+	}
+
+	/**
+	 * 現在の対戦の状態を格納したスナップショットを作成する．<br>
+	 * 波動拳のエフェクトの表示状態はスナップショットに含まれないため, {@link #getProjectileStates()}で別途取得する．
+	 *
+	 * @param nowFrame
+	 *            現在のフレーム
+	 * @param round
+	 *            現在のラウンド
+	 * @return 現在の対戦の状態を格納したスナップショット
+	 *
+	 * @see FrameSnapshot
+	 */
+	public FrameSnapshot createSnapshot(int nowFrame, int round) {
+		List<KeyHistory> processedCommands = new ArrayList<KeyHistory>(2);
+		for (Character character : this.playerCharacters) {
+			processedCommands.add(character.getProcessedKeyHistory());
+		}
+
+		return new FrameSnapshot(this.playerCharacters, processedCommands, this.projectileDeque, nowFrame, round);
+	}
+
+	/**
+	 * 各波動拳のエフェクトの経過フレームと, 必殺技の波動拳かどうかを1つのint値にまとめた配列を返す．<br>
+	 * 配列の順序は{@link #createSnapshot(int, int)}で作成したスナップショット内の波動拳の順序と同じである．
+	 *
+	 * @return 各波動拳のエフェクトの状態を格納した配列
+	 */
+	public int[] getProjectileStates() {
+		int[] states = new int[this.projectileDeque.size()];
+		int i = 0;
+		for (LoopEffect projectile : this.projectileDeque) {
+			states[i++] = projectile.currentFrame << 1 | (projectile.isUltimate() ? 1 : 0);
+		}
+
+		return states;
+	}
+
+	/**
+	 * 引数のスナップショットなどを用いて, 対戦の状態を復元する．<br>
+	 * 攻撃が当たった時のエフェクトは復元されず, 空になる．
+	 *
+	 * @param snapshot
+	 *            {@link #createSnapshot(int, int)}で作成したスナップショット
+	 * @param projectileStates
+	 *            {@link #getProjectileStates()}で取得した波動拳のエフェクトの状態
+	 * @param inputCommands
+	 *            直近のP1, P2のキー入力. 古い順に格納する
+	 */
+	public void restore(FrameSnapshot snapshot, int[] projectileStates, Deque<KeyData> inputCommands) {
+		for (int i = 0; i < 2; i++) {
+			this.playerCharacters[i].restore(snapshot, i == 0);
+			this.hitEffects.get(i).clear();
+		}
+
+		this.projectileDeque.clear();
+		for (int i = 0; i < snapshot.getProjectileNumber(); i++) {
+			boolean ultimate = (projectileStates[i] & 1) != 0;
+			LoopEffect projectile = new LoopEffect(new Attack(snapshot.getProjectile(i)),
+					createProjectileImages(ultimate), ultimate);
+			projectile.currentFrame = projectileStates[i] >> 1;
+			this.projectileDeque.addLast(projectile);
+		}
+
+		for (int i = 0; i < 2; i++) {
+			this.inputCommands[i].clear();
+			for (KeyData keyData : inputCommands) {
+				Key key = keyData.getKeys()[i];
+				this.inputCommands[i].add(key != null ? key.toBits() : 0);
+			}
+		}
+	}
+
 	/**
 	 * P1, P2のキャラクター情報が格納された配列を返す．
 	 *
@@ -481,7 +570,8 @@ public class Fighting {
 		}
 
 		this.projectileDeque.clear();
-		this.inputCommands.clear();
+		this.inputCommands[0].clear();
+		this.inputCommands[1].clear();
 	}
 
 	/**
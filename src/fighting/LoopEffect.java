@@ -8,6 +8,11 @@ import image.Image;
  */
 public class LoopEffect extends Effect {
 
+	/**
+	 * 必殺技の波動拳かどうか．
+	 */
+	private boolean ultimate;
+
 	/**
 	 * 指定されたデータでLoopEffectのインスタンスを作成するクラスコンストラクタ．
 	 *
@@ -17,7 +22,32 @@ public class LoopEffect extends Effect {
 	 *            攻撃オブジェクトに対応する全てのエフェクト画像
 	 */
 	public LoopEffect(Attack attack, Image[] hitImages) {
+		this(attack, hitImages, false);
+	}
+
+	/**
+	 * 指定されたデータでLoopEffectのインスタンスを作成するクラスコンストラクタ．
+	 *
+	 * @param attack
+	 *            攻撃オブジェクト
+	 * @param hitImages
+	 *            攻撃オブジェクトに対応する全てのエフェクト画像
+	 * @param ultimate
+	 *            必殺技の波動拳かどうか
+	 */
+	public LoopEffect(Attack attack, Image[] hitImages, boolean ultimate) {
 		super(attack, hitImages);
+		this.ultimate = ultimate;
+	}
+
+	/**
+	 * 必殺技の波動拳かどうかを返す．<br>
+	 * ウィンドウを表示せずエフェクト画像が無い場合でも判別できる．
+	 *
+	 * @return {@code true} 必殺技の波動拳の場合，{@code false} otherwise
+	 */
+	public boolean isUltimate() {
+		return this.ultimate;
 	}
 
 	/**
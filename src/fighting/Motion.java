@@ -328,7 +328,10 @@ public class Motion {
 		BandCombineOp invert = new BandCombineOp(matrix, new RenderingHints(null));
 		invert.filter(image.getBufferedImage().getRaster(), temp.getRaster());
 
-		return new Image(image.getTextureId(),temp);
+		Image inverted = new Image(image.getTextureId(), temp);
+		inverted.setTextureCoordinates(image.getMinU(), image.getMinV(), image.getMaxU(), image.getMaxV());
+
+		return inverted;
 	}
 
 	/**
@@ -620,7 +623,18 @@ public class Motion {
 	 * @return the current image of the character
 	 */
 	public Image getImage(int nowFrame) {
-		return imageList.get((frameNumber - nowFrame) % frameNumber);
+		return imageList.get(getImageIndex(nowFrame));
+	}
+
+	/**
+	 * Returns the index of the current image of the character.
+	 *
+	 * @param nowFrame
+	 *            the current frame
+	 * @return the index of the current image of the character
+	 */
+	public int getImageIndex(int nowFrame) {
+		return (frameNumber - nowFrame) % frameNumber;
 	}
 
 	/**
@@ -21,13 +21,17 @@ import manager.GraphicManager;
 import manager.InputManager;
 import manager.SoundManager;
 import py4j.Py4JException;
+import render.SoftwareRenderer;
 import setting.FlagSetting;
 import setting.GameSetting;
+import setting.LaunchSetting;
 import struct.FrameData;
 import struct.GameData;
 import struct.ScreenData;
+import util.ColumnarLogWriter;
 import util.DebugActionData;
 import util.LogWriter;
+import util.ReplayWriter;
 import util.ResourceDrawer;
 
 /**
@@ -81,9 +85,19 @@ public class Play extends GameScene {
 	private ArrayList<RoundResult> roundResults;
 
 	/**
-	 * Replayファイルに出力するための出力ストリーム．
+	 * Replayファイルに出力するためのクラスのインスタンス．
 	 */
-	private DataOutputStream dos;
+	private ReplayWriter replayWriter;
+
+	/**
+	 * 試合データを列指向の形式で出力するためのクラスのインスタンス．
+	 */
+	private ColumnarLogWriter columnarWriter;
+
+	/**
+	 * ヘッドレスモードで, AIに渡す画面をCPU上で描画するクラスのインスタンス．使用しない場合はnull．
+	 */
+	private SoftwareRenderer softwareRenderer;
 
 	/**
 	 * 現在の年月日, 時刻を表す文字列．
@@ -119,7 +133,11 @@ public class Play extends GameScene {
 		this.endFrame = -1;
 
 		this.frameData = new FrameData();
-		this.screenData = new ScreenData();
+		this.screenData = new ScreenData(false);
+		if (FlagSetting.headlessFlag && LaunchSetting.observationSize[0] > 0 && LaunchSetting.observationSize[1] > 0) {
+			this.softwareRenderer = new SoftwareRenderer(LaunchSetting.characterNames,
+					LaunchSetting.observationSize[0], LaunchSetting.observationSize[1]);
+		}
 		this.keyData = new KeyData();
 		this.roundResults = new ArrayList<RoundResult>();
 
@@ -138,6 +156,15 @@ public class Play extends GameScene {
 			LogWriter.getInstance().initJson(jsonName + ".json");
 		}
 
+		if (FlagSetting.columnarFlag) {
+			String columnarName = LogWriter.getInstance().createOutputFileName("./log/replay/", this.timeInfo);
+			try {
+				this.columnarWriter = new ColumnarLogWriter(columnarName + ".columns", LaunchSetting.characterNames);
+			} catch (IOException e) {
+				Logger.getAnonymousLogger().log(Level.WARNING, "Fail to create the columnar log: " + e.getMessage());
+			}
+		}
+
 		GameData gameData = new GameData(this.fighting.getCharacters());
 
 		try {
@@ -189,6 +216,11 @@ public class Play extends GameScene {
 			this.setNextGameScene(result);
 		}
 
+		// ヘッドレスモードではキーボード入力を受け付けない
+		if (FlagSetting.headlessFlag) {
+			return;
+		}
+
 		if (Keyboard.getKeyDown(GLFW_KEY_SPACE)) {
 			System.out.println("P1 x:" + this.frameData.getCharacter(true).getX() + "\n" + "P2 x:"
 					+ this.frameData.getCharacter(false).getX() + "\n" + "P1 Left:"
@@ -229,7 +261,8 @@ public class Play extends GameScene {
 	 */
 	private void processingBreakTime() {
 		// ダミーフレームをAIにセット
-		InputManager.getInstance().setFrameData(new FrameData(), new ScreenData());
+		InputManager.getInstance().setFrameData(new FrameData(),
+				new ScreenData(InputManager.getInstance().isScreenDataRequired()));
 
 		if (FlagSetting.enableWindow) {
 			GraphicManager.getInstance().drawQuad(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, 0, 0, 0, 0);
@@ -264,14 +297,23 @@ public class Play extends GameScene {
 		this.frameData = this.fighting.createFrameData(this.nowFrame, this.currentRound);
 
 		// リプレイログ吐き出し
-		if (!FlagSetting.trainingModeFlag) {
-			LogWriter.getInstance().outputLog(this.dos, this.keyData, this.fighting.getCharacters());
+		if (this.replayWriter != null) {
+			this.replayWriter.outputFrame(this.currentRound, this.keyData, this.fighting);
 		}
 
 		if (FlagSetting.jsonFlag) {
 			LogWriter.getInstance().updateJson(this.frameData, this.keyData);
 		}
 
+		if (this.columnarWriter != null) {
+			try {
+				this.columnarWriter.update(this.frameData, this.keyData);
+			} catch (IOException e) {
+				Logger.getAnonymousLogger().log(Level.WARNING, "Fail to write the columnar log: " + e.getMessage());
+				this.columnarWriter = null;
+			}
+		}
+
 		if (FlagSetting.enableWindow) {
 			// 画面をDrawerクラスで描画
 			ResourceDrawer.getInstance().drawResource(this.fighting.getCharacters(), this.fighting.getProjectileDeque(),
@@ -283,7 +325,14 @@ public class Play extends GameScene {
 			DebugActionData.getInstance().countPlayerAction(this.fighting.getCharacters());
 		}
 
-		this.screenData = new ScreenData();
+		// 画面のピクセル情報を用いるAIがいる場合のみ, 画面を読み込む
+		if (this.softwareRenderer != null && InputManager.getInstance().isScreenDataRequired()) {
+			this.softwareRenderer.drawScene(this.fighting.getCharacters(), this.fighting.getProjectileDeque());
+			this.screenData = new ScreenData(this.softwareRenderer.getRGBBytes(), this.softwareRenderer.getWidth(),
+					this.softwareRenderer.getHeight());
+		} else {
+			this.screenData = new ScreenData(InputManager.getInstance().isScreenDataRequired());
+		}
 
 		// AIにFrameDataをセット
 		InputManager.getInstance().setFrameData(this.frameData, this.screenData);
@@ -369,9 +418,11 @@ public class Play extends GameScene {
 	 */
 	private void openReplayFile() {
 		String fileName = LogWriter.getInstance().createOutputFileName("./log/replay/", this.timeInfo);
-		this.dos = ResourceLoader.getInstance().openDataOutputStream(fileName + ".dat");
+		DataOutputStream dos = ResourceLoader.getInstance().openDataOutputStream(fileName + ".dat");
 
-		LogWriter.getInstance().writeHeader(this.dos);
+		if (dos != null) {
+			this.replayWriter = new ReplayWriter(dos, LaunchSetting.characterNames);
+		}
 	}
 
 	@Override
@@ -389,8 +440,8 @@ public class Play extends GameScene {
 		}
 
 		try {
-			if (this.dos != null) {
-				this.dos.close();
+			if (this.replayWriter != null) {
+				this.replayWriter.close();
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -399,5 +450,13 @@ public class Play extends GameScene {
 		if (FlagSetting.jsonFlag) {
 			LogWriter.getInstance().finalizeJson();
 		}
+
+		try {
+			if (this.columnarWriter != null) {
+				this.columnarWriter.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 }
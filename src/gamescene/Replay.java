@@ -2,10 +2,6 @@ package gamescene;
 
 import static org.lwjgl.glfw.GLFW.*;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -21,8 +17,10 @@ import setting.FlagSetting;
 import setting.GameSetting;
 import setting.LaunchSetting;
 import struct.FrameData;
+import struct.FrameSnapshot;
 import struct.Key;
 import struct.ScreenData;
+import util.ReplayReader;
 import util.ResourceDrawer;
 
 /**
@@ -36,9 +34,14 @@ public class Replay extends GameScene {
 	private Fighting fighting;
 
 	/**
-	 * Replayファイルからログを読み込むための入力ストリーム．
+	 * Replayファイルからログを読み込むためのクラスのインスタンス．
 	 */
-	protected DataInputStream dis;
+	protected ReplayReader reader;
+
+	/**
+	 * インデックスを持たない旧形式のReplayファイルにおける, 次に読み込むフレームの通し番号．
+	 */
+	private int recordIndex;
 
 	/**
 	 * 現在のフレーム．
@@ -104,7 +107,7 @@ public class Replay extends GameScene {
 
 		try {
 			String path = "./log/replay/" + LaunchSetting.replayName + ".dat";
-			this.dis = new DataInputStream(new FileInputStream(new File(path)));
+			this.reader = new ReplayReader(path);
 			readHeader();
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -122,6 +125,7 @@ public class Replay extends GameScene {
 		this.elapsedBreakTime = 0;
 		this.currentRound = 1;
 		this.roundStartFlag = true;
+		this.recordIndex = 0;
 
 		this.frameData = new FrameData();
 		this.screenData = new ScreenData();
@@ -135,7 +139,10 @@ public class Replay extends GameScene {
 
 	@Override
 	public void update() {
-		if (this.currentRound <= GameSetting.ROUND_MAX) {
+		if (this.reader == null) {
+			// Replayファイルを読み込めなかった
+			transitionProcess();
+		} else if (this.currentRound <= GameSetting.ROUND_MAX) {
 			// ラウンド開始時に初期化
 			if (this.roundStartFlag) {
 				initRound();
@@ -192,13 +199,7 @@ public class Replay extends GameScene {
 		this.frameData = null;
 		this.screenData = null;
 		this.keyData = null;
-
-		try {
-			this.dis.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
+		this.reader = null;
 	}
 
 	/**
@@ -263,98 +264,108 @@ public class Replay extends GameScene {
 	}
 
 	/**
-	 * 対戦処理に用いるP1, P2のキー入力データを作成する.<br>
+	 * 対戦処理に用いるP1, P2のキー入力データをReplayファイルから読み込む.<br>
+	 * 記録されたフレームを全て読み込んだ場合は, 再生を終了する．
 	 *
 	 * @return P1, P2のキー入力データ
 	 */
 	private KeyData createKeyData() {
-		Key[] temp = new Key[2];
+		if (this.reader.isIndexed()) {
+			if (this.currentRound <= this.reader.getRoundNumber()
+					&& this.nowFrame < this.reader.getFrameNumber(this.currentRound)) {
+				return this.reader.getKeyData(this.currentRound, this.nowFrame);
+			}
+		} else if (this.recordIndex < this.reader.getRecordNumber()) {
+			return this.reader.getKeyData(this.recordIndex++);
+		}
 
-		for (int i = 0; i < 2; i++) {
-			temp[i] = new Key();
-			byte keyByte = 0;
-
-			try {
-				this.dis.readBoolean(); // front
-				this.dis.readByte(); // remaingFrame
-				this.dis.readByte(); // actionOrdinal
-				this.dis.readInt(); // hp
-				this.dis.readInt(); // energy
-				this.dis.readInt(); // x
-				this.dis.readInt(); // y
-				keyByte = this.dis.readByte();
-			} catch (EOFException e) {
-				Logger.getAnonymousLogger().log(Level.INFO, "The replay file was finished in the middle");
-				try {
-					this.dis.close();
-					this.isFinished = true;
-				} catch (IOException e1) {
-					// TODO 自動生成された catch ブロック
-					e1.printStackTrace();
-				}
-				// BGMを止める
-				SoundManager.getInstance().stop(SoundManager.getInstance().getBackGroundMusic());
-				transitionProcess();
+		Logger.getAnonymousLogger().log(Level.INFO, "The replay file was finished in the middle");
+		this.isFinished = true;
+		// BGMを止める
+		SoundManager.getInstance().stop(SoundManager.getInstance().getBackGroundMusic());
+		transitionProcess();
 
-				break;
-			} catch (IOException e1) {
-				e1.printStackTrace();
-			}
+		return new KeyData();
+	}
 
-			temp[i].U = convertItoB(keyByte / 64);
-			keyByte %= 64;
-			temp[i].R = convertItoB(keyByte / 32);
-			keyByte %= 32;
-			temp[i].L = convertItoB(keyByte / 16);
-			keyByte %= 16;
-			temp[i].D = convertItoB(keyByte / 8);
-			keyByte %= 8;
-			temp[i].C = convertItoB(keyByte / 4);
-			keyByte %= 4;
-			temp[i].B = convertItoB(keyByte / 2);
-			keyByte %= 2;
-			temp[i].A = convertItoB(keyByte / 1);
-			keyByte %= 1;
+	/**
+	 * 引数で指定したラウンドのフレームまで再生位置を移動する．<br>
+	 * 直前のキーフレームから対戦の状態を復元し, 指定したフレームまで対戦処理を行うため,
+	 * 移動先によらず高々キーフレームの間隔分の対戦処理で移動できる．<br>
+	 * 移動後のフレームデータは, 指定したフレームの対戦処理を行った後の状態となる．
+	 * インデックスを持たない旧形式のReplayファイルでは使用できない．
+	 *
+	 * @param round
+	 *            移動先のラウンド(1から始まる)
+	 * @param frame
+	 *            移動先のフレーム(0から始まる)
+	 *
+	 * @see ReplayReader#getKeyFrame(int, int)
+	 */
+	public void seek(int round, int frame) {
+		int start = this.reader.getKeyFrameStart(round, frame);
+		FrameSnapshot snapshot = this.reader.getKeyFrame(round, frame);
+
+		if (snapshot == null) {
+			this.fighting.initRound();
+		} else {
+			this.fighting.restore(snapshot, this.reader.getProjectileStates(round, frame),
+					this.reader.getInputHistory(round, start));
 		}
 
-		return new KeyData(temp);
+		for (int i = start; i <= frame; i++) {
+			this.keyData = this.reader.getKeyData(round, i);
+			this.fighting.processingFight(i, this.keyData);
+		}
+
+		this.currentRound = round;
+		this.nowFrame = frame;
+		this.frameData = this.fighting.createFrameData(frame, round);
+		this.roundStartFlag = false;
+		this.elapsedBreakTime = GameSetting.BREAKTIME_FRAME_NUMBER;
+		this.isFinished = false;
+
+		// 体力が0orタイムオーバーならラウンド終了処理
+		if (isBeaten() || isTimeOver()) {
+			processingRoundEnd();
+		}
+		this.nowFrame++;
 	}
 
 	/**
-	 * int型変数をboolean型に変換する．
+	 * Replayファイルに記録されているラウンド数を返す．
 	 *
-	 * @param i
-	 *            変換したいint型の変数
+	 * @return 記録されているラウンド数
+	 */
+	public int getRoundNumber() {
+		return this.reader.getRoundNumber();
+	}
+
+	/**
+	 * 引数で指定したラウンドについて, Replayファイルに記録されているフレーム数を返す．
 	 *
-	 * @return {@code true} 引数が1のとき, {@code false} otherwise
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @return 記録されているフレーム数
 	 */
-	private boolean convertItoB(int i) {
-		return i == 1 ? true : false;
+	public int getFrameNumber(int round) {
+		return this.reader.getFrameNumber(round);
 	}
 
 	/**
 	 * 使用キャラクターや最大HPといったヘッダ情報を読み込む．
 	 */
 	protected void readHeader() {
+		String[] characterNames = this.reader.getCharacterNames();
+		int[] maxHp = this.reader.getMaxHp();
+
 		for (int i = 0; i < 2; i++) {
-			try {
-				int checkMode = dis.readInt();
-
-				// Checks whether fighting mode is limited HP mode or not
-				// If it is HP mode, checkMode is less than 0 (e.g. -1)
-				if (checkMode < 0) {
-					LaunchSetting.maxHp[i] = dis.readInt();
-					LaunchSetting.characterNames[i] = GameSetting.CHARACTERS[dis.readInt()];
-					FlagSetting.limitHpFlag = true;
-				} else {
-					LaunchSetting.characterNames[i] = GameSetting.CHARACTERS[checkMode];
-					FlagSetting.limitHpFlag = false;
-				}
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+			LaunchSetting.characterNames[i] = characterNames[i];
+			if (this.reader.isLimitHp()) {
+				LaunchSetting.maxHp[i] = maxHp[i];
 			}
 		}
+		FlagSetting.limitHpFlag = this.reader.isLimitHp();
 	}
 
 	/**
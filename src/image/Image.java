@@ -27,6 +27,26 @@ public class Image {
 	 */
 	private BufferedImage bimg;
 
+	/**
+	 * テクスチャ内で画像が占める領域の左端のテクスチャ座標．
+	 */
+	private float minU;
+
+	/**
+	 * テクスチャ内で画像が占める領域の上端のテクスチャ座標．
+	 */
+	private float minV;
+
+	/**
+	 * テクスチャ内で画像が占める領域の右端のテクスチャ座標．
+	 */
+	private float maxU;
+
+	/**
+	 * テクスチャ内で画像が占める領域の下端のテクスチャ座標．
+	 */
+	private float maxV;
+
 	/**
 	 * Imageクラスのインスタンスを生成するためのクラスコンストラクタ．<br>
 	 * 引数が指定されていない場合，画像テクスチャのIDを-1，BufferedImageをnullとして初期化を行う．
@@ -34,11 +54,12 @@ public class Image {
 	public Image() {
 		this.textureId = -1;
 		this.bimg = null;
+		setTextureCoordinates(0.0f, 0.0f, 1.0f, 1.0f);
 	}
 
 	/**
 	 * Imageクラスのインスタンスを生成するためのクラスコンストラクタ．<br>
-	 * 引数として渡されたImageインスタンスのテクスチャIDとBufferedImageを取得し，それを用いて新たなインスタンスの初期化を行う．
+	 * 引数として渡されたImageインスタンスのテクスチャID, テクスチャ座標及びBufferedImageを取得し，それを用いて新たなインスタンスの初期化を行う．
 	 *
 	 * @param image
 	 *            Imageインスタンス
@@ -46,11 +67,13 @@ public class Image {
 	public Image(Image image) {
 		this.textureId = image.getTextureId();
 		this.bimg = image.getBufferedImage();
+		setTextureCoordinates(image.getMinU(), image.getMinV(), image.getMaxU(), image.getMaxV());
 	}
 
 	/**
 	 * 新たな画像クラスのインスタンスを生成するためのコンストラクタ．<br>
-	 * 引数のテクスチャIDとBufferedImageを用いて，新たなインスタンスの初期化を行う．
+	 * 引数のテクスチャIDとBufferedImageを用いて，新たなインスタンスの初期化を行う．<br>
+	 * 画像はテクスチャ全体を占めるものとする．
 	 *
 	 * @param id
 	 *            画像のテクスチャID
@@ -61,6 +84,7 @@ public class Image {
 		this.textureId = id;
 		this.bimg = new BufferedImage(bimg.getWidth(), bimg.getHeight(), bimg.getType());
 		this.bimg.setData(bimg.getData());
+		setTextureCoordinates(0.0f, 0.0f, 1.0f, 1.0f);
 	}
 
 	/**
@@ -93,6 +117,62 @@ public class Image {
 		this.textureId = textureId;
 	}
 
+	/**
+	 * テクスチャ内で画像が占める領域の左端のテクスチャ座標を返す．
+	 *
+	 * @return 領域の左端のテクスチャ座標
+	 */
+	public float getMinU() {
+		return this.minU;
+	}
+
+	/**
+	 * テクスチャ内で画像が占める領域の上端のテクスチャ座標を返す．
+	 *
+	 * @return 領域の上端のテクスチャ座標
+	 */
+	public float getMinV() {
+		return this.minV;
+	}
+
+	/**
+	 * テクスチャ内で画像が占める領域の右端のテクスチャ座標を返す．
+	 *
+	 * @return 領域の右端のテクスチャ座標
+	 */
+	public float getMaxU() {
+		return this.maxU;
+	}
+
+	/**
+	 * テクスチャ内で画像が占める領域の下端のテクスチャ座標を返す．
+	 *
+	 * @return 領域の下端のテクスチャ座標
+	 */
+	public float getMaxV() {
+		return this.maxV;
+	}
+
+	/**
+	 * テクスチャ内で画像が占める領域をテクスチャ座標でセットする．<br>
+	 * 複数の画像を1枚のテクスチャにまとめた場合に, テクスチャ内の画像の位置を指定するために用いる．
+	 *
+	 * @param minU
+	 *            領域の左端のテクスチャ座標
+	 * @param minV
+	 *            領域の上端のテクスチャ座標
+	 * @param maxU
+	 *            領域の右端のテクスチャ座標
+	 * @param maxV
+	 *            領域の下端のテクスチャ座標
+	 */
+	public void setTextureCoordinates(float minU, float minV, float maxU, float maxV) {
+		this.minU = minU;
+		this.minV = minV;
+		this.maxU = maxU;
+		this.maxV = maxV;
+	}
+
 	/**
 	 * 画像のBufferedImageをセットする．
 	 *
@@ -8,7 +8,7 @@ import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 
-import loader.ResourceLoader;
+import loader.TextureAtlasBuilder;
 
 /**
  * 文字の画像を扱うクラス．
@@ -117,11 +117,16 @@ public class LetterImage {
 	 * ASCIIコード表から必要な文字のみを抽出する．
 	 */
 	private void createLetterImage() {
+		// Pack all the letters into one texture so that a string is drawn in a single batch
+		TextureAtlasBuilder atlas = new TextureAtlasBuilder();
+
 		for (int i = 32; i <= 126; i++) {
 			// get 32-126 characters and then custom letters
 			BufferedImage bi = getLetterBufferedImage((char) i);
 
-			this.letterImageMap.put((char) i, ResourceLoader.getInstance().loadTextureFromBufferedImage(bi));
+			this.letterImageMap.put((char) i, atlas.add(bi));
 		}
+
+		atlas.build();
 	}
 }
@@ -68,4 +68,18 @@ public class KeyData {
 	public Key[] getKeys() {
 		return this.keys.clone();
 	}
+
+	/**
+	 * 引数で指定したプレイヤーの入力キーをビットマスクで返す．<br>
+	 * {@link #getKeys()}と異なり配列を複製しないため, フレームごとの処理で用いる．
+	 *
+	 * @param player
+	 *            プレイヤーの番号．Index 0 is P1, index 1 is P2.
+	 * @return 入力キーのビットマスク
+	 *
+	 * @see Key#toBits()
+	 */
+	public int getKeyBits(int player) {
+		return this.keys[player] != null ? this.keys[player].toBits() : 0;
+	}
 }
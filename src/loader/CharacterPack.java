@@ -0,0 +1,597 @@
+package loader;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+import setting.ResourceSetting;
+
+/**
+ * キャラクターの設定ファイル(gSetting.txt, Motion.csv)と画像を1つのファイルにまとめたパックを扱うクラス．<br>
+ * パックには, カンマで分割済みの設定ファイルの各行と, デコード済みの画像の画素が格納される．
+ * 画像の大部分は透明な画素であるため, 値が0でない画素の連続部分のみを保持する．<br>
+ * パックは初回の読み込み時に元のファイルから作成して保存され, 以降はメモリマップして読み込まれる．
+ * 元のファイルの更新日時やサイズが変わった場合は, パックを作り直す．
+ */
+public class CharacterPack {
+
+	/**
+	 * パックファイルの先頭に書き込む識別子("FTGP")．
+	 */
+	private static final int MAGIC = 0x46545047;
+
+	/**
+	 * パックファイルの形式のバージョン．形式を変更した場合は値を増やす．
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * 識別子, バージョン, 元のファイルの指紋及びメタデータの長さからなるヘッダのバイト数．
+	 */
+	private static final int HEADER_SIZE = 20;
+
+	/**
+	 * gSetting.txtの各行をカンマで分割したもの．
+	 */
+	private String[][] settingRows;
+
+	/**
+	 * Motion.csvのヘッダを除く各行をカンマで分割したもの．
+	 */
+	private String[][] motionRows;
+
+	/**
+	 * Motion.csvの各行のアクションについて, 各フレームで用いる画像の番号．画像がない場合は-1．
+	 */
+	private int[][] actionFrames;
+
+	/**
+	 * 各画像の幅．
+	 */
+	private int[] imageWidths;
+
+	/**
+	 * 各画像の高さ．
+	 */
+	private int[] imageHeights;
+
+	/**
+	 * 各画像の画素データの, 画素データ領域内での位置．
+	 */
+	private int[] imageOffsets;
+
+	/**
+	 * 画素データ領域．
+	 */
+	private IntBuffer pixelData;
+
+	/**
+	 * パックのデータからインスタンスを生成するクラスコンストラクタ．
+	 *
+	 * @param buffer
+	 *            パックのデータ
+	 * @throws IOException
+	 *             メタデータを読み込めなかった場合
+	 */
+	private CharacterPack(ByteBuffer buffer) throws IOException {
+		int metadataLength = buffer.getInt(16);
+		byte[] metadata = new byte[metadataLength];
+		ByteBuffer metadataBuffer = buffer.duplicate();
+		metadataBuffer.position(HEADER_SIZE);
+		metadataBuffer.get(metadata);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(metadata));
+		this.settingRows = readRows(in);
+		this.motionRows = readRows(in);
+
+		this.actionFrames = new int[this.motionRows.length][];
+		for (int i = 0; i < this.actionFrames.length; i++) {
+			this.actionFrames[i] = new int[in.readInt()];
+			for (int j = 0; j < this.actionFrames[i].length; j++) {
+				this.actionFrames[i][j] = in.readInt();
+			}
+		}
+
+		int imageNumber = in.readInt();
+		this.imageWidths = new int[imageNumber];
+		this.imageHeights = new int[imageNumber];
+		this.imageOffsets = new int[imageNumber];
+		for (int i = 0; i < imageNumber; i++) {
+			this.imageWidths[i] = in.readInt();
+			this.imageHeights[i] = in.readInt();
+			this.imageOffsets[i] = in.readInt();
+		}
+
+		ByteBuffer pixelBuffer = buffer.duplicate();
+		pixelBuffer.position(getPixelDataPosition(metadataLength));
+		this.pixelData = pixelBuffer.slice().asIntBuffer();
+	}
+
+	/**
+	 * 指定したキャラクターのパックを読み込む．<br>
+	 * パックファイルが存在しないか, 元のファイルから作成されたものでない場合は, 元のファイルからパックを作成して保存する．
+	 * パックファイルを保存できなかった場合も, 作成したパックをそのまま返す．
+	 *
+	 * @param characterName
+	 *            キャラクター名
+	 * @return 読み込んだパック
+	 * @throws IOException
+	 *             パック及び元のファイルを読み込めなかった場合
+	 */
+	public static CharacterPack load(String characterName) throws IOException {
+		File sourceDirectory = new File(ResourceSetting.CHARACTER_DIRECTORY + characterName);
+		File packFile = new File(ResourceSetting.CHARACTER_PACK_DIRECTORY + characterName + ".pack");
+		long fingerprint = computeFingerprint(sourceDirectory);
+
+		if (isValidPack(packFile, fingerprint)) {
+			RandomAccessFile file = new RandomAccessFile(packFile, "r");
+			try {
+				return new CharacterPack(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+			} finally {
+				file.close();
+			}
+		}
+
+		Logger.getAnonymousLogger().log(Level.INFO, "Compiling the character pack of " + characterName);
+		ByteBuffer buffer = compile(sourceDirectory, fingerprint);
+		try {
+			save(buffer, packFile);
+		} catch (IOException e) {
+			Logger.getAnonymousLogger().log(Level.WARNING, "The character pack could not be saved: " + e.getMessage());
+		}
+
+		return new CharacterPack(buffer);
+	}
+
+	/**
+	 * パックファイルのヘッダを読み込み, 現在の形式で指定した指紋の元のファイルから作成されたものかどうかを返す．
+	 *
+	 * @param packFile
+	 *            パックファイル
+	 * @param fingerprint
+	 *            元のファイルの指紋
+	 * @return 有効なパックファイルであればtrue
+	 */
+	private static boolean isValidPack(File packFile, long fingerprint) {
+		if (!packFile.isFile() || packFile.length() < HEADER_SIZE) {
+			return false;
+		}
+
+		try {
+			DataInputStream in = new DataInputStream(new FileInputStream(packFile));
+			try {
+				return in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == fingerprint;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * キャラクターのディレクトリ内の全てのファイルの名前, 更新日時及びサイズから指紋を計算する．
+	 *
+	 * @param file
+	 *            ファイルまたはディレクトリ
+	 * @return 指紋
+	 */
+	private static long computeFingerprint(File file) {
+		long hash = file.getName().hashCode();
+
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			ResourceLoader.getInstance().sortByFileName(files);
+			for (File child : files) {
+				hash = hash * 31 + computeFingerprint(child);
+			}
+		} else {
+			hash = hash * 31 + file.lastModified();
+			hash = hash * 31 + file.length();
+		}
+
+		return hash;
+	}
+
+	/**
+	 * 元のファイルからパックのデータを作成する．画像のデコードは並列に行う．
+	 *
+	 * @param sourceDirectory
+	 *            キャラクターのディレクトリ
+	 * @param fingerprint
+	 *            元のファイルの指紋
+	 * @return パックのデータ
+	 * @throws IOException
+	 *             元のファイルを読み込めなかった場合
+	 */
+	private static ByteBuffer compile(File sourceDirectory, long fingerprint) throws IOException {
+		String[][] settingRows = readCsv(new File(sourceDirectory, "gSetting.txt"), false);
+		String[][] motionRows = readCsv(new File(sourceDirectory, "Motion.csv"), true);
+
+		// 各アクションのフレームと画像を対応付ける. 同じ画像を用いるアクションは画像を共有する
+		final ArrayList<File> imageFiles = new ArrayList<File>();
+		HashMap<String, Integer> imageIndices = new HashMap<String, Integer>();
+		int[][] actionFrames = new int[motionRows.length][];
+
+		for (int i = 0; i < motionRows.length; i++) {
+			int frameNumber = Integer.valueOf(motionRows[i][1]);
+			File[] files = new File(sourceDirectory, "graphics/" + motionRows[i][33]).listFiles();
+			if (files == null) {
+				files = new File[0];
+			}
+			ResourceLoader.getInstance().sortByFileName(files);
+
+			// 画像数がフレーム数よりも少ない場合は, 最初の画像で不足分を補う
+			actionFrames[i] = new int[frameNumber];
+			for (int j = 0; j < frameNumber; j++) {
+				if (j >= files.length) {
+					actionFrames[i][j] = j > 0 ? actionFrames[i][0] : -1;
+					continue;
+				}
+
+				Integer index = imageIndices.get(files[j].getPath());
+				if (index == null) {
+					index = imageFiles.size();
+					imageIndices.put(files[j].getPath(), index);
+					imageFiles.add(files[j]);
+				}
+				actionFrames[i][j] = index;
+			}
+		}
+
+		ArrayList<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+		for (final File imageFile : imageFiles) {
+			tasks.add(new Callable<int[]>() {
+				@Override
+				public int[] call() throws IOException {
+					return encodeImage(imageFile);
+				}
+			});
+		}
+		ArrayList<int[]> images = invokeAll(tasks);
+
+		ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(metadata);
+		writeRows(out, settingRows);
+		writeRows(out, motionRows);
+		for (int[] frames : actionFrames) {
+			out.writeInt(frames.length);
+			for (int frame : frames) {
+				out.writeInt(frame);
+			}
+		}
+
+		out.writeInt(images.size());
+		int pixelDataLength = 0;
+		for (int[] image : images) {
+			out.writeInt(image[0]);
+			out.writeInt(image[1]);
+			out.writeInt(pixelDataLength);
+			pixelDataLength += image.length - 2;
+		}
+		out.close();
+
+		int pixelDataPosition = getPixelDataPosition(metadata.size());
+		ByteBuffer buffer = ByteBuffer.allocate(pixelDataPosition + pixelDataLength * 4);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(fingerprint);
+		buffer.putInt(metadata.size());
+		buffer.put(metadata.toByteArray());
+
+		buffer.position(pixelDataPosition);
+		IntBuffer pixelData = buffer.slice().asIntBuffer();
+		for (int[] image : images) {
+			pixelData.put(image, 2, image.length - 2);
+		}
+		buffer.clear();
+
+		return buffer;
+	}
+
+	/**
+	 * 画像をデコードし, 値が0でない画素の連続部分ごとに, 開始位置, 長さ及び画素を並べた配列に変換する．<br>
+	 * 配列の先頭には画像の幅, 高さ及び連続部分の数を格納する．
+	 *
+	 * @param imageFile
+	 *            画像ファイル
+	 * @return 変換した画像
+	 * @throws IOException
+	 *             画像を読み込めなかった場合
+	 */
+	private static int[] encodeImage(File imageFile) throws IOException {
+		BufferedImage image = ImageIO.read(imageFile);
+		if (image == null) {
+			throw new IOException("Unsupported image: " + imageFile.getPath());
+		}
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+		int[] encoded = new int[3 + pixels.length * 3];
+		int length = 3;
+		int runNumber = 0;
+		for (int i = 0; i < pixels.length;) {
+			if (pixels[i] == 0) {
+				i++;
+				continue;
+			}
+
+			int start = i;
+			while (i < pixels.length && pixels[i] != 0) {
+				i++;
+			}
+			encoded[length++] = start;
+			encoded[length++] = i - start;
+			System.arraycopy(pixels, start, encoded, length, i - start);
+			length += i - start;
+			runNumber++;
+		}
+		encoded[0] = width;
+		encoded[1] = height;
+		encoded[2] = runNumber;
+
+		int[] result = new int[length];
+		System.arraycopy(encoded, 0, result, 0, length);
+		return result;
+	}
+
+	/**
+	 * パックのデータを一時ファイルに書き込んでから, パックファイルに置き換える．<br>
+	 * 複数のプロセスが同時にパックを作成しても, 書き込み途中のファイルが読み込まれないようにするため．
+	 *
+	 * @param buffer
+	 *            パックのデータ
+	 * @param packFile
+	 *            パックファイル
+	 * @throws IOException
+	 *             パックファイルを保存できなかった場合
+	 */
+	private static void save(ByteBuffer buffer, File packFile) throws IOException {
+		File directory = packFile.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create " + directory.getPath());
+		}
+
+		File temporaryFile = File.createTempFile(packFile.getName(), ".tmp", directory);
+		try {
+			FileOutputStream out = new FileOutputStream(temporaryFile);
+			try {
+				out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+			} finally {
+				out.close();
+			}
+
+			try {
+				Files.move(temporaryFile.toPath(), packFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temporaryFile.delete();
+		}
+	}
+
+	/**
+	 * gSetting.txtの各行をカンマで分割したものを返す．
+	 *
+	 * @return gSetting.txtの各行
+	 */
+	public String[][] getSettingRows() {
+		return this.settingRows;
+	}
+
+	/**
+	 * Motion.csvのヘッダを除く各行をカンマで分割したものを返す．
+	 *
+	 * @return Motion.csvの各行
+	 */
+	public String[][] getMotionRows() {
+		return this.motionRows;
+	}
+
+	/**
+	 * Motion.csvの指定した行のアクションについて, 各フレームで用いる画像の番号を返す．<br>
+	 * 画像の番号は{@link #decodeImages()}が返す配列の添え字であり, 画像がない場合は-1となる．
+	 *
+	 * @param motionIndex
+	 *            Motion.csvの行番号(ヘッダを除く)
+	 * @return 各フレームで用いる画像の番号
+	 */
+	public int[] getActionFrames(int motionIndex) {
+		return this.actionFrames[motionIndex];
+	}
+
+	/**
+	 * パックに含まれる全ての画像を並列にデコードする．
+	 *
+	 * @return デコードした画像
+	 * @throws IOException
+	 *             デコードに失敗した場合
+	 */
+	public BufferedImage[] decodeImages() throws IOException {
+		ArrayList<Callable<BufferedImage>> tasks = new ArrayList<Callable<BufferedImage>>();
+		for (int i = 0; i < this.imageOffsets.length; i++) {
+			final int index = i;
+			tasks.add(new Callable<BufferedImage>() {
+				@Override
+				public BufferedImage call() {
+					return decodeImage(index);
+				}
+			});
+		}
+
+		return invokeAll(tasks).toArray(new BufferedImage[0]);
+	}
+
+	/**
+	 * 指定した番号の画像をデコードする．
+	 *
+	 * @param index
+	 *            画像の番号
+	 * @return デコードした画像
+	 */
+	private BufferedImage decodeImage(int index) {
+		int width = this.imageWidths[index];
+		int height = this.imageHeights[index];
+		int[] pixels = new int[width * height];
+
+		// 複数のスレッドから読み込めるよう, 位置を独立させたバッファを用いる
+		IntBuffer data = this.pixelData.duplicate();
+		data.position(this.imageOffsets[index]);
+		int runNumber = data.get();
+		for (int i = 0; i < runNumber; i++) {
+			int start = data.get();
+			int length = data.get();
+			data.get(pixels, start, length);
+		}
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.getRaster().setDataElements(0, 0, width, height, pixels);
+		return image;
+	}
+
+	/**
+	 * 指定したタスクを, 利用可能なプロセッサ数のスレッドで並列に実行する．
+	 *
+	 * @param tasks
+	 *            実行するタスク
+	 * @return 各タスクの結果
+	 * @throws IOException
+	 *             いずれかのタスクが失敗した場合
+	 */
+	private static <T> ArrayList<T> invokeAll(ArrayList<Callable<T>> tasks) throws IOException {
+		ArrayList<T> results = new ArrayList<T>();
+		if (tasks.isEmpty()) {
+			return results;
+		}
+
+		int threadNumber = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threadNumber);
+		try {
+			for (Future<T> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading the character pack", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return results;
+	}
+
+	/**
+	 * メタデータの長さから, 4バイト境界に揃えた画素データ領域の開始位置を返す．
+	 *
+	 * @param metadataLength
+	 *            メタデータのバイト数
+	 * @return 画素データ領域の開始位置
+	 */
+	private static int getPixelDataPosition(int metadataLength) {
+		return HEADER_SIZE + ((metadataLength + 3) & ~3);
+	}
+
+	/**
+	 * CSV形式のファイルを読み込み, 各行をカンマで分割したものを返す．
+	 *
+	 * @param file
+	 *            ファイル
+	 * @param skipHeader
+	 *            先頭行を読み飛ばす場合はtrue
+	 * @return 各行をカンマで分割したもの
+	 * @throws IOException
+	 *             ファイルを読み込めなかった場合
+	 */
+	private static String[][] readCsv(File file, boolean skipHeader) throws IOException {
+		ArrayList<String[]> rows = new ArrayList<String[]>();
+		BufferedReader br = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			if (skipHeader) {
+				br.readLine();
+			}
+			while ((line = br.readLine()) != null) {
+				rows.add(line.split(",", 0));
+			}
+		} finally {
+			br.close();
+		}
+
+		return rows.toArray(new String[0][]);
+	}
+
+	/**
+	 * 文字列の2次元配列を書き込む．
+	 *
+	 * @param out
+	 *            出力先
+	 * @param rows
+	 *            書き込む配列
+	 * @throws IOException
+	 *             書き込みに失敗した場合
+	 */
+	private static void writeRows(DataOutputStream out, String[][] rows) throws IOException {
+		out.writeInt(rows.length);
+		for (String[] row : rows) {
+			out.writeInt(row.length);
+			for (String cell : row) {
+				out.writeUTF(cell);
+			}
+		}
+	}
+
+	/**
+	 * {@link #writeRows(DataOutputStream, String[][])}で書き込んだ文字列の2次元配列を読み込む．
+	 *
+	 * @param in
+	 *            入力元
+	 * @return 読み込んだ配列
+	 * @throws IOException
+	 *             読み込みに失敗した場合
+	 */
+	private static String[][] readRows(DataInputStream in) throws IOException {
+		String[][] rows = new String[in.readInt()][];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new String[in.readInt()];
+			for (int j = 0; j < rows[i].length; j++) {
+				rows[i][j] = in.readUTF();
+			}
+		}
+
+		return rows;
+	}
+}
@@ -11,8 +11,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -22,6 +22,7 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,9 +34,11 @@ import image.CharacterActionImage;
 import image.Image;
 import manager.GraphicManager;
 import manager.SoundManager;
+import render.Sprite;
 import setting.GameSetting;
 import setting.LaunchSetting;
 import setting.ResourceSetting;
+import util.AsyncOutputStream;
 
 /**
  * キャラクターの設定ファイルや画像等のリソースをロードするためのシングルトンパターンクラス．
@@ -47,12 +50,18 @@ public class ResourceLoader {
 	 */
 	private ArrayList<String> loadedResources;
 
+	/**
+	 * 読み込み済みのキャラクターのパック．キーはキャラクター名．
+	 */
+	private HashMap<String, CharacterPack> characterPacks;
+
 	/**
 	 * クラスコンストラクタ．
 	 */
 	private ResourceLoader() {
 		Logger.getAnonymousLogger().log(Level.INFO, "Create instance: " + ResourceLoader.class.getName());
 		this.loadedResources = new ArrayList<String>();
+		this.characterPacks = new HashMap<String, CharacterPack>();
 	}
 
 	/**
@@ -77,12 +86,14 @@ public class ResourceLoader {
 	public void loadResource() {
 		Logger.getAnonymousLogger().log(Level.INFO, "Loading the resources");
 		String graphicPath = "./data/graphics/";
-		String characterGraphicPath = "./data/characters/";
+
+		// エフェクト等の画像は1つのアトラスにまとめてテクスチャを作成する
+		TextureAtlasBuilder effectAtlas = new TextureAtlasBuilder();
 
 		// 波動拳読み込み
 		if (!isLoaded("hadouken")) {
 			loadImages(GraphicManager.getInstance().getProjectileImageContainer(),
-					graphicPath + ResourceSetting.PROJECTILE_DIRECTORY);
+					graphicPath + ResourceSetting.PROJECTILE_DIRECTORY, effectAtlas);
 
 			addLoadedResource("hadouken");
 			Logger.getAnonymousLogger().log(Level.INFO, "Hadouken images have been loaded.");
@@ -91,7 +102,7 @@ public class ResourceLoader {
 		// 必殺技読み込み
 		if (!isLoaded("super")) {
 			loadImages(GraphicManager.getInstance().getUltimateAttackImageContainer(),
-					graphicPath + ResourceSetting.SUPER_DIRECTORY);
+					graphicPath + ResourceSetting.SUPER_DIRECTORY, effectAtlas);
 
 			addLoadedResource("super");
 			Logger.getAnonymousLogger().log(Level.INFO, "Ultimate attack images have been loaded.");
@@ -100,7 +111,7 @@ public class ResourceLoader {
 		// 0~9の文字カウンタ読み込み
 		if (!isLoaded("hitCounter")) {
 			loadImages(GraphicManager.getInstance().getCounterTextImageContainer(),
-					graphicPath + ResourceSetting.COUNTER_DIRECTORY);
+					graphicPath + ResourceSetting.COUNTER_DIRECTORY, effectAtlas);
 
 			addLoadedResource("hitCounter");
 			Logger.getAnonymousLogger().log(Level.INFO, "Hit counter text images have been loaded.");
@@ -109,7 +120,7 @@ public class ResourceLoader {
 		// "Hit"文字読み込み
 		if (!isLoaded("hitText")) {
 			loadImages(GraphicManager.getInstance().getHitTextImageContainer(),
-					graphicPath + ResourceSetting.HIT_TEXT_DIRECTORY);
+					graphicPath + ResourceSetting.HIT_TEXT_DIRECTORY, effectAtlas);
 
 			addLoadedResource("hitText");
 			Logger.getAnonymousLogger().log(Level.INFO, "Hit text image has been loaded.");
@@ -117,7 +128,7 @@ public class ResourceLoader {
 
 		// ヒットエフェクト読み込み
 		if (!isLoaded("hitEffect")) {
-			loadHitEffectImage(graphicPath + ResourceSetting.HIT_DIRECTORY);
+			loadHitEffectImage(graphicPath + ResourceSetting.HIT_DIRECTORY, effectAtlas);
 
 			addLoadedResource("hitEffect");
 			Logger.getAnonymousLogger().log(Level.INFO, "Hit effect images have been loaded.");
@@ -133,11 +144,13 @@ public class ResourceLoader {
 		}
 
 		// アッパー画像読み込み
-		loadUpperImages(graphicPath + ResourceSetting.UPPER_DIRECTORY);
+		loadUpperImages(graphicPath + ResourceSetting.UPPER_DIRECTORY, effectAtlas);
 		Logger.getAnonymousLogger().log(Level.INFO, "Upper attack images have been loaded.");
 
+		effectAtlas.build();
+
 		// キャラクター画像読み込み
-		loadCharacterImages(characterGraphicPath);
+		loadCharacterImages();
 		Logger.getAnonymousLogger().log(Level.INFO, "Character images have been loaded.");
 
 		// サウンドエフェクト読み込み
@@ -178,7 +191,9 @@ public class ResourceLoader {
 	}
 
 	/**
-	 * 読み込みたいファイルを開き，その出力ストリームを返す．
+	 * 読み込みたいファイルを開き，その出力ストリームを返す．<br>
+	 * ファイルへの書き込みは{@link AsyncOutputStream}によりバックグラウンドのスレッドで行われるため,
+	 * 書き込んだ内容は出力ストリームを閉じた時点でファイルに反映される．
 	 *
 	 * @param filePath
 	 *            読み込みたいファイルまでのパス
@@ -188,7 +203,7 @@ public class ResourceLoader {
 	public DataOutputStream openDataOutputStream(String filePath) {
 		try {
 			File file = new File(filePath);
-			return new DataOutputStream(new FileOutputStream(file));
+			return new DataOutputStream(new AsyncOutputStream(new FileOutputStream(file)));
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
@@ -196,7 +211,9 @@ public class ResourceLoader {
 	}
 
 	/**
-	 * 読み込みたいファイルを開き，そのBufferedReaderを返す．
+	 * 読み込みたいファイルを開き，そのBufferedReaderを返す．<br>
+	 * ファイルへの書き込みは{@link AsyncOutputStream}によりバックグラウンドのスレッドで行われるため,
+	 * 書き込んだ内容はPrintWriterを閉じた時点でファイルに反映される．
 	 *
 	 * @param filePath
 	 *            読み込みたいファイルまでのパス
@@ -208,7 +225,8 @@ public class ResourceLoader {
 	public PrintWriter openWriteFile(String filePath, boolean mode) {
 		try {
 			File file = new File(filePath);
-			return new PrintWriter(new BufferedWriter(new FileWriter(file, mode)));
+			return new PrintWriter(
+					new BufferedWriter(new OutputStreamWriter(new AsyncOutputStream(new FileOutputStream(file, mode)))));
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
@@ -285,58 +303,65 @@ public class ResourceLoader {
 	}
 
 	/**
-	 * キャラクターの画像を読み込み、リストに格納する．
+	 * 指定したキャラクターのパックを返す．<br>
+	 * 最初の呼び出し時にパックを読み込み, 以降は読み込んだパックを共有する．
 	 *
-	 * @param path
-	 *            各キャラクターの画像が格納されているディレクトリまでのパス
+	 * @param characterName
+	 *            キャラクター名
+	 * @return キャラクターのパック
+	 * @throws IOException
+	 *             パックを読み込めなかった場合
+	 * @see CharacterPack#load(String)
 	 */
-	public void loadCharacterImages(String path) {
-		for (int i = 0; i < 2; i++) {
-			if (!isLoaded(LaunchSetting.characterNames[i] + "_Graphic") ) {
-				try {
-					BufferedReader br = openReadFile(path + LaunchSetting.characterNames[i] + "/Motion.csv");
+	public synchronized CharacterPack loadCharacterPack(String characterName) throws IOException {
+		CharacterPack pack = this.characterPacks.get(characterName);
+		if (pack == null) {
+			pack = CharacterPack.load(characterName);
+			this.characterPacks.put(characterName, pack);
+		}
 
-					String line;
-					br.readLine(); // ignore header
+		return pack;
+	}
 
-					while ((line = br.readLine()) != null) {
-						String[] data = line.split(",", 0);
-						String actionName = data[0];
-						int frameNumber = Integer.valueOf(data[1]);
-						String imageName = data[33];
+	/**
+	 * キャラクターの画像をキャラクターのパックから読み込み、リストに格納する．<br>
+	 * 各キャラクターの画像はキャラクターごとのアトラスにまとめてテクスチャを作成する．
+	 * 複数の動作が同じ画像を用いる場合, 画像は1度だけ読み込まれる．
+	 *
+	 * @see #loadCharacterPack(String)
+	 */
+	public void loadCharacterImages() {
+		for (int i = 0; i < 2; i++) {
+			if (!isLoaded(LaunchSetting.characterNames[i] + "_Graphic") ) {
+				TextureAtlasBuilder characterAtlas = new TextureAtlasBuilder();
 
-						Image[] actionImage = new Image[frameNumber];
-						String dirPath = path + LaunchSetting.characterNames[i] + "/graphics/" + imageName;
+				try {
+					CharacterPack pack = loadCharacterPack(LaunchSetting.characterNames[i]);
+					BufferedImage[] bimgs = pack.decodeImages();
 
-						// 指定キャラクターのグラフィックが格納されているディレクトリを取得
-						File[] files = new File(dirPath).listFiles();
-						sortByFileName(files);
+					Image[] images = new Image[bimgs.length];
+					for (int j = 0; j < bimgs.length; j++) {
+						images[j] = characterAtlas.add(bimgs[j]);
+					}
 
-						int num = 0;
-						for (int j = 0; j < files.length; j++) {
-							if (j >= frameNumber) {
-								break;
-							}
+					String[][] motionRows = pack.getMotionRows();
+					for (int j = 0; j < motionRows.length; j++) {
+						int[] frames = pack.getActionFrames(j);
 
-							actionImage[j] = loadImage(files[j].getPath());
-							num++;
+						Image[] actionImage = new Image[frames.length];
+						for (int k = 0; k < frames.length; k++) {
+							actionImage[k] = frames[k] < 0 ? null : images[frames[k]];
 						}
 
-						// 画像数がMotion.csvで定められているフレーム数よりも少ない場合、不足分を補う
-						if (num < frameNumber) {
-							for (int j = num; j < frameNumber; j++) {
-								actionImage[j] = actionImage[0];
-							}
-						}
 						CharacterActionImage temp = new CharacterActionImage(LaunchSetting.characterNames[i],
-								actionName, frameNumber, actionImage);
+								motionRows[j][0], frames.length, actionImage);
 						GraphicManager.getInstance().getCharacterImageContainer().add(temp);
 					}
-
-					br.close();
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
+
+				characterAtlas.build();
 			}
 			addLoadedResource(LaunchSetting.characterNames[i] + "_Graphic");
 		}
@@ -382,11 +407,41 @@ public class ResourceLoader {
 	 *         画像を読み込めなかった場合はnullを返す．
 	 */
 	public Image loadImage(String filePath) {
-		BufferedImage bimg = null;
+		BufferedImage bimg = readImage(filePath);
+
+		return bimg == null ? null : loadTextureFromBufferedImage(bimg);
+	}
 
+	/**
+	 * 画像を読み込み，指定したアトラスに登録する．<br>
+	 * 返される画像のテクスチャIDとテクスチャ座標は, {@link TextureAtlasBuilder#build()}を呼び出した時点で設定される．
+	 *
+	 * @param filePath
+	 *            読み込みたい画像までのパス
+	 * @param atlas
+	 *            画像を登録するアトラス
+	 *
+	 * @return 読み込んだ画像の情報<br>
+	 *         画像を読み込めなかった場合はnullを返す．
+	 */
+	public Image loadImage(String filePath, TextureAtlasBuilder atlas) {
+		BufferedImage bimg = readImage(filePath);
+
+		return bimg == null ? null : atlas.add(bimg);
+	}
+
+	/**
+	 * 画像ファイルを読み込む．
+	 *
+	 * @param filePath
+	 *            読み込みたい画像までのパス
+	 *
+	 * @return 読み込んだ画像<br>
+	 *         画像を読み込めなかった場合はnullを返す．
+	 */
+	private BufferedImage readImage(String filePath) {
 		try {
-			bimg = ImageIO.read(new FileInputStream(new File(filePath)));
-			return loadTextureFromBufferedImage(bimg);
+			return ImageIO.read(new FileInputStream(new File(filePath)));
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -466,13 +521,110 @@ public class ResourceLoader {
 		}
 	}
 
+	/**
+	 * 指定したディレクトリから画像を読み込んでアトラスに登録し、リストに格納する．
+	 *
+	 * @param container
+	 *            画像を格納するリスト
+	 * @param path
+	 *            読み込むディレクトリのパス
+	 * @param atlas
+	 *            画像を登録するアトラス
+	 */
+	private void loadImages(ArrayList<Image> container, String path, TextureAtlasBuilder atlas) {
+		File[] files = new File(path).listFiles();
+		sortByFileName(files);
+
+		for (File file : files) {
+			container.add(loadImage(file.getPath(), atlas));
+		}
+	}
+
+	/**
+	 * 画像を, OpenGLのテクスチャに転送せずにソフトウェアレンダラー用の画像として読み込む．
+	 *
+	 * @param filePath
+	 *            読み込みたい画像までのパス
+	 *
+	 * @return 読み込んだ画像<br>
+	 *         画像を読み込めなかった場合はnullを返す．
+	 * @see render.SoftwareRenderer
+	 */
+	public Sprite loadSprite(String filePath) {
+		try {
+			return new Sprite(ImageIO.read(new File(filePath)));
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * 指定したディレクトリの画像を, ファイル名の順にソフトウェアレンダラー用の画像として読み込む．
+	 *
+	 * @param path
+	 *            読み込むディレクトリのパス
+	 * @return 読み込んだ画像の配列
+	 */
+	public Sprite[] loadSprites(String path) {
+		File[] files = new File(path).listFiles();
+		sortByFileName(files);
+
+		Sprite[] sprites = new Sprite[files.length];
+		for (int i = 0; i < files.length; i++) {
+			sprites[i] = loadSprite(files[i].getPath());
+		}
+
+		return sprites;
+	}
+
+	/**
+	 * 指定したキャラクターの画像を, {@link #loadCharacterImages()}と同様にキャラクターのパックからソフトウェアレンダラー用の画像として読み込む．<br>
+	 * 画像数がMotion.csvで定められているフレーム数よりも少ない場合は, 最初の画像で不足分を補う．
+	 *
+	 * @param characterName
+	 *            キャラクター名
+	 * @return アクション名をキー, 各フレームの画像の配列を値とするマップ
+	 */
+	public HashMap<String, Sprite[]> loadCharacterSprites(String characterName) {
+		HashMap<String, Sprite[]> sprites = new HashMap<String, Sprite[]>();
+
+		try {
+			CharacterPack pack = loadCharacterPack(characterName);
+			BufferedImage[] bimgs = pack.decodeImages();
+
+			Sprite[] images = new Sprite[bimgs.length];
+			for (int i = 0; i < bimgs.length; i++) {
+				images[i] = new Sprite(bimgs[i]);
+			}
+
+			String[][] motionRows = pack.getMotionRows();
+			for (int i = 0; i < motionRows.length; i++) {
+				int[] frames = pack.getActionFrames(i);
+
+				Sprite[] actionSprites = new Sprite[frames.length];
+				for (int j = 0; j < frames.length; j++) {
+					actionSprites[j] = frames[j] < 0 ? null : images[frames[j]];
+				}
+				sprites.put(motionRows[i][0], actionSprites);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return sprites;
+	}
+
 	/**
 	 * アッパーの画像を読み込み、2次元配列に格納する．
 	 *
 	 * @param path
 	 *            読み込む画像までのパス
+	 * @param atlas
+	 *            画像を登録するアトラス
 	 */
-	private void loadUpperImages(String path) {
+	private void loadUpperImages(String path, TextureAtlasBuilder atlas) {
 		for (int i = 0; i < 2; i++) {
 			String tempPath = path;
 
@@ -491,7 +643,7 @@ public class ResourceLoader {
 			sortByFileName(files);
 
 			for (int j = 0; j < files.length; j++) {
-				GraphicManager.getInstance().getUpperImageContainer()[i][j] = loadImage(files[j].getPath());
+				GraphicManager.getInstance().getUpperImageContainer()[i][j] = loadImage(files[j].getPath(), atlas);
 			}
 		}
 	}
@@ -501,8 +653,10 @@ public class ResourceLoader {
 	 *
 	 * @param path
 	 *            読み込む画像までのパス
+	 * @param atlas
+	 *            画像を登録するアトラス
 	 */
-	private void loadHitEffectImage(String path) {
+	private void loadHitEffectImage(String path, TextureAtlasBuilder atlas) {
 		File[] dir = new File(path).listFiles();
 		sortByFileName(dir);
 
@@ -511,7 +665,7 @@ public class ResourceLoader {
 			sortByFileName(files);
 
 			for (int j = 0; j < files.length; j++) {
-				GraphicManager.getInstance().getHitEffectImageContaier()[i][j] = loadImage(files[j].getPath());
+				GraphicManager.getInstance().getHitEffectImageContaier()[i][j] = loadImage(files[j].getPath(), atlas);
 			}
 		}
 	}
@@ -0,0 +1,229 @@
+package loader;
+
+import static org.lwjgl.opengl.GL11.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import image.Image;
+
+/**
+ * 複数の画像を少数の大きなテクスチャ(アトラス)にまとめてOpenGLに転送するクラス．<br>
+ * 画像1枚ごとにテクスチャを作成すると, 描画のたびにテクスチャの切り替えが発生し, 連続する描画命令を1つのバッチにまとめられない．
+ * このクラスでは, {@link #add(BufferedImage)}で登録した画像を高さの順に並べて棚詰めで配置し, {@link #build()}で各画像の
+ * {@link Image}にアトラスのテクスチャIDとテクスチャ座標をセットする．<br>
+ * 隣接する画像の色が混ざらないよう, 各画像の周囲には1ピクセルの透明な余白を設ける．
+ */
+public class TextureAtlasBuilder {
+
+	/**
+	 * 1枚のアトラスの幅及び高さの上限．
+	 */
+	private static final int MAX_PAGE_SIZE = 4096;
+
+	/**
+	 * 各画像の周囲に設ける余白のピクセル数．
+	 */
+	private static final int PADDING = 1;
+
+	/**
+	 * 登録された画像．
+	 */
+	private ArrayList<BufferedImage> sources;
+
+	/**
+	 * 登録された画像に対応する, テクスチャIDとテクスチャ座標をセットするImageインスタンス．
+	 */
+	private ArrayList<Image> targets;
+
+	/**
+	 * クラスコンストラクタ．
+	 */
+	public TextureAtlasBuilder() {
+		this.sources = new ArrayList<BufferedImage>();
+		this.targets = new ArrayList<Image>();
+	}
+
+	/**
+	 * 画像をアトラスに登録する．<br>
+	 * 返されるImageインスタンスのテクスチャIDとテクスチャ座標は, {@link #build()}を呼び出すまで設定されない．
+	 *
+	 * @param bimg
+	 *            登録する画像
+	 * @return 登録した画像のImageインスタンス
+	 */
+	public Image add(BufferedImage bimg) {
+		Image image = new Image(-1, bimg);
+		this.sources.add(bimg);
+		this.targets.add(image);
+
+		return image;
+	}
+
+	/**
+	 * 登録された画像を配置してアトラスを作成し, OpenGLに転送する．<br>
+	 * アトラスに収まらない大きさの画像は, 個別のテクスチャとして転送する．
+	 * 転送後, 登録された画像は破棄される．
+	 */
+	public void build() {
+		int maxPageSize = Math.min(MAX_PAGE_SIZE, glGetInteger(GL_MAX_TEXTURE_SIZE));
+
+		// 高さの大きい順に並べることで, 各棚の無駄な領域を少なくする
+		ArrayList<Integer> order = new ArrayList<Integer>();
+		long area = 0;
+		int maxWidth = 0;
+		for (int i = 0; i < this.sources.size(); i++) {
+			BufferedImage bimg = this.sources.get(i);
+			int width = bimg.getWidth() + PADDING * 2;
+			int height = bimg.getHeight() + PADDING * 2;
+
+			if (width > maxPageSize || height > maxPageSize) {
+				Image texture = ResourceLoader.getInstance().loadTextureFromBufferedImage(bimg);
+				this.targets.get(i).setTextureId(texture.getTextureId());
+				continue;
+			}
+
+			order.add(i);
+			area += (long) width * height;
+			maxWidth = Math.max(maxWidth, width);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer index1, Integer index2) {
+				return sources.get(index2).getHeight() - sources.get(index1).getHeight();
+			}
+		});
+
+		// 全ての画像を正方形に近い形で並べられる幅を, 2の累乗に切り上げる
+		int pageWidth = Integer.highestOneBit((int) Math.ceil(Math.sqrt(area)));
+		if (pageWidth < Math.sqrt(area)) {
+			pageWidth <<= 1;
+		}
+		pageWidth = Math.min(Math.max(pageWidth, maxWidth), maxPageSize);
+
+		int[] pages = new int[order.size()];
+		int[] positionsX = new int[order.size()];
+		int[] positionsY = new int[order.size()];
+		ArrayList<Integer> pageHeights = new ArrayList<Integer>();
+
+		int page = 0;
+		int x = 0;
+		int y = 0;
+		int shelfHeight = 0;
+		for (int i = 0; i < order.size(); i++) {
+			BufferedImage bimg = this.sources.get(order.get(i));
+			int width = bimg.getWidth() + PADDING * 2;
+			int height = bimg.getHeight() + PADDING * 2;
+
+			// 現在の棚に収まらない場合は次の棚に, 次の棚も収まらない場合は次のアトラスに移る
+			if (x + width > pageWidth) {
+				x = 0;
+				y += shelfHeight;
+				shelfHeight = 0;
+			}
+			if (y + height > maxPageSize) {
+				pageHeights.add(y);
+				page++;
+				x = 0;
+				y = 0;
+				shelfHeight = 0;
+			}
+
+			pages[i] = page;
+			positionsX[i] = x;
+			positionsY[i] = y;
+			x += width;
+			shelfHeight = Math.max(shelfHeight, height);
+		}
+		if (!order.isEmpty()) {
+			pageHeights.add(y + shelfHeight);
+		}
+
+		int[] textureIds = new int[pageHeights.size()];
+		for (int i = 0; i < textureIds.length; i++) {
+			textureIds[i] = createPage(pageWidth, pageHeights.get(i));
+		}
+
+		ByteBuffer buffer = null;
+		for (int i = 0; i < order.size(); i++) {
+			BufferedImage bimg = this.sources.get(order.get(i));
+			int width = bimg.getWidth();
+			int height = bimg.getHeight();
+			int paddedWidth = width + PADDING * 2;
+			int paddedHeight = height + PADDING * 2;
+
+			if (buffer == null || buffer.capacity() < paddedWidth * paddedHeight * 4) {
+				buffer = ByteBuffer.allocateDirect(paddedWidth * paddedHeight * 4).order(ByteOrder.nativeOrder());
+			}
+			putPaddedPixels(bimg, buffer);
+
+			// 余白を含めて転送することで, 余白の画素も透明で初期化する
+			glBindTexture(GL_TEXTURE_2D, textureIds[pages[i]]);
+			glTexSubImage2D(GL_TEXTURE_2D, 0, positionsX[i], positionsY[i], paddedWidth, paddedHeight, GL_RGBA,
+					GL_UNSIGNED_BYTE, buffer);
+
+			float pageHeight = pageHeights.get(pages[i]);
+			int left = positionsX[i] + PADDING;
+			int top = positionsY[i] + PADDING;
+
+			Image image = this.targets.get(order.get(i));
+			image.setTextureId(textureIds[pages[i]]);
+			image.setTextureCoordinates(left / (float) pageWidth, top / pageHeight, (left + width) / (float) pageWidth,
+					(top + height) / pageHeight);
+		}
+
+		this.sources.clear();
+		this.targets.clear();
+	}
+
+	/**
+	 * 画素が未設定のアトラスのテクスチャを作成する．
+	 *
+	 * @param width
+	 *            アトラスの幅
+	 * @param height
+	 *            アトラスの高さ
+	 * @return 作成したテクスチャのID
+	 */
+	private int createPage(int width, int height) {
+		int textureId = glGenTextures();
+
+		glBindTexture(GL_TEXTURE_2D, textureId);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, (ByteBuffer) null);
+
+		return textureId;
+	}
+
+	/**
+	 * 周囲に透明な余白を加えた画像の画素を, RGBAの順でバッファに書き込む．
+	 *
+	 * @param bimg
+	 *            画像
+	 * @param buffer
+	 *            画素を書き込むバッファ
+	 */
+	private void putPaddedPixels(BufferedImage bimg, ByteBuffer buffer) {
+		int width = bimg.getWidth();
+		int height = bimg.getHeight();
+		int[] pixels = bimg.getRGB(0, 0, width, height, null, 0, width);
+
+		buffer.clear();
+		for (int y = -PADDING; y < height + PADDING; y++) {
+			for (int x = -PADDING; x < width + PADDING; x++) {
+				int pixel = (x >= 0 && x < width && y >= 0 && y < height) ? pixels[y * width + x] : 0;
+
+				buffer.put((byte) ((pixel >> 16) & 0xFF));
+				buffer.put((byte) ((pixel >> 8) & 0xFF));
+				buffer.put((byte) (pixel & 0xFF));
+				buffer.put((byte) ((pixel >> 24) & 0xFF));
+			}
+		}
+		buffer.flip();
+	}
+}
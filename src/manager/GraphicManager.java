@@ -1,25 +1,26 @@
 package manager;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.*;
+import static org.lwjgl.opengl.GL30.*;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import image.CharacterActionImage;
 import image.Image;
 import image.LetterImage;
-import render.ImageTask;
-import render.QuadTask;
-import render.RenderTask;
-import render.StringTask;
+import render.SpriteBatch;
 import setting.GameSetting;
+import setting.LaunchSetting;
 
 /**
  * 画像の描画を管理するマネージャークラス．
@@ -27,9 +28,9 @@ import setting.GameSetting;
 public class GraphicManager {
 
 	/**
-	 * 描画するタスクのリスト．
+	 * 1フレーム分の描画命令を記録してまとめてレンダリングするクラスのインスタンス．
 	 */
-	private LinkedList<RenderTask> renderTaskList;
+	private SpriteBatch spriteBatch;
 
 	/**
 	 * 文字画像．
@@ -83,6 +84,47 @@ public class GraphicManager {
 
 	private Graphics2D screenGraphic;
 
+	/**
+	 * 画面のピクセル情報を非同期に読み込むためのピクセルバッファオブジェクトのIDを格納した配列．<br>
+	 * 要素数は{@link LaunchSetting#screenLatency}と等しい．
+	 */
+	private int[] pixelBuffers;
+
+	/**
+	 * 次に画面を読み込むピクセルバッファオブジェクトのインデックス．<br>
+	 * このピクセルバッファオブジェクトには, 最も古い画面が読み込まれている．
+	 */
+	private int pixelBufferIndex;
+
+	/**
+	 * 画面の読み込みを行ったピクセルバッファオブジェクトの数．
+	 */
+	private int filledPixelBufferNumber;
+
+	/**
+	 * 次のレンダリング後に画面を読み込むかどうかを表すフラグ．
+	 */
+	private boolean pixelReadbackRequested;
+
+	/**
+	 * AIに渡す低解像度の画面を描画するフレームバッファオブジェクトのID．作成していない場合は0．
+	 */
+	private int observationFramebuffer;
+
+	/**
+	 * 低解像度の画面を描画するフレームバッファオブジェクトに割り当てたレンダーバッファのID．
+	 */
+	private int observationRenderbuffer;
+
+	/**
+	 * 低解像度の画面が描画されているかどうかを表すフラグ．
+	 */
+	private boolean observationRendered;
+
+	/**
+	 * 次のレンダリングで低解像度の画面を描画するかどうかを表すフラグ．
+	 */
+	private boolean observationRequested;
 
 	/**
 	 * クラスコンストラクタ．
@@ -90,7 +132,7 @@ public class GraphicManager {
 	private GraphicManager() {
 		Logger.getAnonymousLogger().log(Level.INFO, "Create instance: " + GraphicManager.class.getName());
 
-		this.renderTaskList = new LinkedList<RenderTask>();
+		this.spriteBatch = new SpriteBatch();
 		this.letterImage = new LetterImage();
 
 		this.characterImageContainer = new ArrayList<CharacterActionImage>();
@@ -199,7 +241,7 @@ public class GraphicManager {
 	}
 
 	/**
-	 * レンダリングタスクリストに登録されているタスクを実行し，画像をレンダリングする．<br>
+	 * 記録された描画命令をまとめて実行し，画像をレンダリングする．<br>
 	 *
 	 * @see DisplayManager#gameLoop(GameManager)
 	 */
@@ -210,16 +252,209 @@ public class GraphicManager {
 		// 指定した色でバッファを塗りつぶすことでバッファクリアを行う
 		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-		// レンダリングタスクリストに残っているタスクを実行し，画像をバッファにセット
-		while (!this.renderTaskList.isEmpty()) {
-			this.renderTaskList.removeFirst().render();
+		// 記録した描画命令をまとめて実行し，画像をバッファにセット
+		this.spriteBatch.render();
+
+		// AIが低解像度の画面を用いる場合は, 同じ描画命令をフレームバッファオブジェクトにも描画する
+		if (this.observationRequested) {
+			renderObservation();
+			this.observationRequested = false;
+		} else {
+			this.observationRendered = false;
 		}
+		this.spriteBatch.clear();
+
+		// AIが画面を用いる場合は, 描画した画面のピクセルバッファオブジェクトへの読み込みを開始する
+		if (this.pixelReadbackRequested) {
+			startPixelReadback();
+			this.pixelReadbackRequested = false;
+		} else {
+			this.filledPixelBufferNumber = 0;
+		}
+
 		// バッファの中身を画面にレンダリング
 		glFlush();
 	}
 
 	/**
-	 * 画像をレンダリングするタスクを新たに生成し，タスクリストに追加する．
+	 * 画面のピクセル情報をRGBの順で引数のバッファに読み込み, 読み込んだ画面の遅れフレーム数を返す．<br>
+	 * {@link LaunchSetting#screenLatency}が0の場合は, glReadPixelsで現在のバッファを同期的に読み込む．<br>
+	 * 1以上の場合は, そのフレーム数前のレンダリング後にピクセルバッファオブジェクトへ非同期に読み込んでおいた画面を返すため,
+	 * GPUの処理を待たない．このメソッドを呼び出さなかったフレームの後は, そのフレーム数が経過するまで黒い画面を返す．
+	 *
+	 * @param pixels
+	 *            画面のピクセル情報を読み込むバッファ
+	 * @return 読み込んだ画面の遅れフレーム数．黒い画面を返した場合は0
+	 */
+	public int readScreenPixels(ByteBuffer pixels) {
+		int latency = LaunchSetting.screenLatency;
+		if (latency <= 0) {
+			glReadPixels(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, GL_RGB, GL_UNSIGNED_BYTE, pixels);
+			return 0;
+		}
+
+		if (this.pixelBuffers == null || this.pixelBuffers.length != latency) {
+			createPixelBuffers(latency);
+		}
+		this.pixelReadbackRequested = true;
+
+		if (this.filledPixelBufferNumber < latency) {
+			// まだ読み込みを開始した画面が無い場合
+			while (pixels.hasRemaining()) {
+				pixels.put((byte) 0);
+			}
+			return 0;
+		}
+
+		glBindBuffer(GL_PIXEL_PACK_BUFFER, this.pixelBuffers[this.pixelBufferIndex]);
+		ByteBuffer mapped = glMapBuffer(GL_PIXEL_PACK_BUFFER, GL_READ_ONLY, pixels.remaining(), null);
+		if (mapped != null) {
+			pixels.put(mapped);
+			glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+		}
+		glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+		return latency;
+	}
+
+	/**
+	 * 最も古い画面を読み込んだピクセルバッファオブジェクトに, 現在のバッファの読み込みを開始する．<br>
+	 * 読み込みはGPU上で非同期に行われる．
+	 */
+	private void startPixelReadback() {
+		glBindBuffer(GL_PIXEL_PACK_BUFFER, this.pixelBuffers[this.pixelBufferIndex]);
+		glReadPixels(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, GL_RGB, GL_UNSIGNED_BYTE, 0L);
+		glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+		this.pixelBufferIndex = (this.pixelBufferIndex + 1) % this.pixelBuffers.length;
+		this.filledPixelBufferNumber = Math.min(this.filledPixelBufferNumber + 1, this.pixelBuffers.length);
+	}
+
+	/**
+	 * 引数の数のピクセルバッファオブジェクトを作成する．<br>
+	 * 既に作成したものがある場合は, それらを削除する．
+	 *
+	 * @param number
+	 *            作成するピクセルバッファオブジェクトの数
+	 */
+	private void createPixelBuffers(int number) {
+		deletePixelBuffers();
+
+		this.pixelBuffers = new int[number];
+		for (int i = 0; i < number; i++) {
+			this.pixelBuffers[i] = glGenBuffers();
+			glBindBuffer(GL_PIXEL_PACK_BUFFER, this.pixelBuffers[i]);
+			glBufferData(GL_PIXEL_PACK_BUFFER, 3L * GameSetting.STAGE_WIDTH * GameSetting.STAGE_HEIGHT, GL_STREAM_READ);
+		}
+		glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+		this.pixelBufferIndex = 0;
+		this.filledPixelBufferNumber = 0;
+	}
+
+	/**
+	 * 作成したピクセルバッファオブジェクトを削除する．
+	 */
+	private void deletePixelBuffers() {
+		if (this.pixelBuffers != null) {
+			for (int pixelBuffer : this.pixelBuffers) {
+				glDeleteBuffers(pixelBuffer);
+			}
+			this.pixelBuffers = null;
+		}
+		this.pixelReadbackRequested = false;
+	}
+
+	/**
+	 * 前回のレンダリングで{@link LaunchSetting#observationSize}の大きさのフレームバッファオブジェクトに描画した画面の
+	 * ピクセル情報を, 下の行から順にRGBの順で引数のバッファに読み込む．<br>
+	 * 画面全体を読み込んでCPUで縮小する代わりに, GPU上で指定の大きさに描画した画面のみを読み込むため,
+	 * 読み込むデータ量は縮小率の2乗分の1になる．<br>
+	 * このメソッドを呼び出すと次のレンダリングから低解像度の画面も描画されるため,
+	 * 前回のレンダリングで描画されていない場合は黒い画面を返す．
+	 *
+	 * @param pixels
+	 *            画面のピクセル情報を読み込むバッファ
+	 * @return 読み込んだ画面の遅れフレーム数．前回のレンダリングで描画した画面を読み込むため1,
+	 *         黒い画面を返した場合は0
+	 */
+	public int readObservationPixels(ByteBuffer pixels) {
+		this.observationRequested = true;
+
+		if (!this.observationRendered) {
+			while (pixels.hasRemaining()) {
+				pixels.put((byte) 0);
+			}
+			return 0;
+		}
+
+		glBindFramebuffer(GL_FRAMEBUFFER, this.observationFramebuffer);
+		// 1行のバイト数が4の倍数でない大きさでも行間に詰め物を入れない
+		glPixelStorei(GL_PACK_ALIGNMENT, 1);
+		glReadPixels(0, 0, LaunchSetting.observationSize[0], LaunchSetting.observationSize[1], GL_RGB,
+				GL_UNSIGNED_BYTE, pixels);
+		glPixelStorei(GL_PACK_ALIGNMENT, 4);
+		glBindFramebuffer(GL_FRAMEBUFFER, 0);
+
+		return 1;
+	}
+
+	/**
+	 * 記録した描画命令を, {@link LaunchSetting#observationSize}の大きさのフレームバッファオブジェクトに再度描画する．<br>
+	 * 投影行列はステージの大きさのままビューポートのみを縮小するため, 各描画命令は指定の大きさに縮小して描画される．
+	 */
+	private void renderObservation() {
+		if (this.observationFramebuffer == 0) {
+			createObservationFramebuffer();
+		}
+
+		glBindFramebuffer(GL_FRAMEBUFFER, this.observationFramebuffer);
+		glPushAttrib(GL_VIEWPORT_BIT);
+		glViewport(0, 0, LaunchSetting.observationSize[0], LaunchSetting.observationSize[1]);
+		glClear(GL_COLOR_BUFFER_BIT);
+
+		this.spriteBatch.render();
+
+		glPopAttrib();
+		glBindFramebuffer(GL_FRAMEBUFFER, 0);
+		this.observationRendered = true;
+	}
+
+	/**
+	 * {@link LaunchSetting#observationSize}の大きさのRGBのレンダーバッファを割り当てたフレームバッファオブジェクトを作成する．
+	 */
+	private void createObservationFramebuffer() {
+		this.observationRenderbuffer = glGenRenderbuffers();
+		glBindRenderbuffer(GL_RENDERBUFFER, this.observationRenderbuffer);
+		glRenderbufferStorage(GL_RENDERBUFFER, GL_RGB8, LaunchSetting.observationSize[0],
+				LaunchSetting.observationSize[1]);
+		glBindRenderbuffer(GL_RENDERBUFFER, 0);
+
+		this.observationFramebuffer = glGenFramebuffers();
+		glBindFramebuffer(GL_FRAMEBUFFER, this.observationFramebuffer);
+		glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, this.observationRenderbuffer);
+		if (glCheckFramebufferStatus(GL_FRAMEBUFFER) != GL_FRAMEBUFFER_COMPLETE) {
+			Logger.getAnonymousLogger().log(Level.WARNING, "The framebuffer for the observation is incomplete");
+		}
+		glBindFramebuffer(GL_FRAMEBUFFER, 0);
+	}
+
+	/**
+	 * 作成したフレームバッファオブジェクトを削除する．
+	 */
+	private void deleteObservationFramebuffer() {
+		if (this.observationFramebuffer != 0) {
+			glDeleteFramebuffers(this.observationFramebuffer);
+			glDeleteRenderbuffers(this.observationRenderbuffer);
+			this.observationFramebuffer = 0;
+			this.observationRenderbuffer = 0;
+		}
+		this.observationRendered = false;
+		this.observationRequested = false;
+	}
+
+	/**
+	 * 画像をレンダリングする描画命令を記録する．
 	 *
 	 * @param img
 	 *            画像
@@ -231,13 +466,12 @@ public class GraphicManager {
 	 *            画像の左右の向き(右がtrue)
 	 */
 	public void drawImage(Image img, int x, int y, boolean direction) {
-		ImageTask task = new ImageTask(img, x, y, direction);
-		this.renderTaskList.add(task);
+		this.spriteBatch.addImage(img, x, y, img.getWidth(), img.getHeight(), direction);
 		screenGraphic.drawImage(img.getBufferedImage(), x, y, null);
 	}
 
 	/**
-	 * 画像をレンダリングするタスクを新たに生成し，タスクリストに追加する．
+	 * 画像をレンダリングする描画命令を記録する．
 	 *
 	 * @param img
 	 *            描画する画像
@@ -253,8 +487,7 @@ public class GraphicManager {
 	 *            画像の左右の向き(右がtrue)
 	 */
 	public void drawImage(Image img, int x, int y, int sizeX, int sizeY, boolean direction) {
-		ImageTask task = new ImageTask(img.getTextureId(), x, y, sizeX, sizeY, direction);
-		this.renderTaskList.add(task);
+		this.spriteBatch.addImage(img, x, y, sizeX, sizeY, direction);
 	}
 
 	public void drawImageinScreenData(Image img, int x, int y, int sizeX, int sizeY, boolean direction){
@@ -274,7 +507,7 @@ public class GraphicManager {
 	}
 
 	/**
-	 * 文字画像をレンダリングするタスクを新たに生成し，タスクリストに追加する．
+	 * 文字画像をレンダリングする描画命令を記録する．
 	 *
 	 * @param string
 	 *            描画する文字
@@ -284,12 +517,18 @@ public class GraphicManager {
 	 *            文字画像をレンダリングするy座標
 	 */
 	public void drawString(String string, int x, int y) {
-		StringTask task = new StringTask(letterImage, string, x, y);
-		this.renderTaskList.add(task);
+		int positionX = x;
+
+		// 文字列の各文字を取り出し，文字の大きさ分X軸方向に動かしながら描画する
+		for (int i = 0; i < string.length(); i++) {
+			Image img = this.letterImage.getLetterImage(string.charAt(i));
+			this.spriteBatch.addImage(img, positionX, y, img.getWidth(), img.getHeight(), Image.DIRECTION_RIGHT);
+			positionX += img.getWidth();
+		}
 	}
 
 	/**
-	 * 指定色で塗りつぶされた四角形をレンダリングするタスクを新たに生成し，タスクリストに追加する．<br>
+	 * 指定色で塗りつぶされた四角形をレンダリングする描画命令を記録する．<br>
 	 * 塗りつぶし色は引数で指定することができる．
 	 *
 	 * @param x
@@ -310,12 +549,11 @@ public class GraphicManager {
 	 *            塗りつぶし色の不透明度
 	 */
 	public void drawQuad(int x, int y, int sizeX, int sizeY, float red, float green, float blue, float alpha) {
-		QuadTask task = new QuadTask(QuadTask.FILLED_QUAD, x, y, sizeX, sizeY, red, green, blue, alpha);
-		this.renderTaskList.add(task);
+		this.spriteBatch.addQuad(x, y, sizeX, sizeY, red, green, blue);
 	}
 
 	/**
-	 * 枠線で四角形をレンダリングするタスクを新たに生成し，タスクリストに追加する．<br>
+	 * 枠線で四角形をレンダリングする描画命令を記録する．<br>
 	 * 枠線の色は引数で指定することができる．
 	 *
 	 * @param x
@@ -336,8 +574,7 @@ public class GraphicManager {
 	 *            線の色の不透明度
 	 */
 	public void drawLineQuad(int x, int y, int sizeX, int sizeY, float red, float green, float blue, float alpha) {
-		QuadTask task = new QuadTask(QuadTask.LINE_QUAD, x, y, sizeX, sizeY, red, green, blue, alpha);
-		this.renderTaskList.add(task);
+		this.spriteBatch.addLineQuad(x, y, sizeX, sizeY, red, green, blue);
 	}
 
 	/**
@@ -368,7 +605,7 @@ public class GraphicManager {
 	 * GraphicManagerのフィールド変数をクリアする．
 	 */
 	public void close() {
-		this.renderTaskList.clear();
+		this.spriteBatch.deleteBuffer();
 		this.letterImage = null;
 		this.characterImageContainer.clear();
 		this.projectileImageContainer.clear();
@@ -378,6 +615,8 @@ public class GraphicManager {
 		this.upperImageContainer = null;
 		this.hitEffectImageContainer = null;
 		this.backGroundImage.clear();
+		deletePixelBuffers();
+		deleteObservationFramebuffer();
 	}
 
 }
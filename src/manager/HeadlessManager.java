@@ -0,0 +1,90 @@
+package manager;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import setting.FlagSetting;
+
+/**
+ * ウィンドウ及びOpenGLのコンテキストを生成せずにゲームの進行管理を行うマネージャクラス．<br>
+ * LWJGLのネイティブライブラリを一切読み込まないため，ディスプレイやGPUの無い環境でも対戦を実行できる．
+ *
+ * @see DisplayManager
+ */
+public class HeadlessManager {
+
+	/**
+	 * クラスコンストラクタ．
+	 */
+	public HeadlessManager() {
+
+	}
+
+	/**
+	 * ゲームをスタートさせる．<br>
+	 * 1. ゲームマネージャの初期化を行う．<br>
+	 * 2. ゲームの終了処理命令が来るまで，ゲーム状態の更新を行うメインループ処理を行う．<br>
+	 * 3. ゲームの終了処理を行う．<br>
+	 *
+	 * @param game
+	 *            GameManagerクラスのインスタンス
+	 * @see GameManager
+	 */
+	public void start(GameManager game) {
+		System.setProperty("java.awt.headless", "true");
+		Logger.getAnonymousLogger().log(Level.INFO, "Headless mode");
+
+		// メインループ
+		gameLoop(game);
+
+		// ゲームの終了処理
+		close();
+	}
+
+	/**
+	 * ゲームのメインループの処理を行う．<br>
+	 * 描画処理は行わず，ゲーム状態の更新のみを行う．
+	 *
+	 * @param gm
+	 *            GameManagerクラスのインスタンス
+	 */
+	private void gameLoop(GameManager gm) {
+		// ゲームマネージャ初期化
+		gm.initialize();
+
+		long lastNanos = System.nanoTime();
+		while (true) {
+			// ゲーム終了の場合,リソースを解放してループを抜ける
+			if (gm.isExit()) {
+				gm.close();
+				break;
+			}
+
+			// ゲーム状態の更新
+			gm.update();
+
+			if (!FlagSetting.fastModeFlag) {
+				syncFrameRate(60, lastNanos);
+				lastNanos = System.nanoTime();
+			}
+		}
+	}
+
+	/**
+	 * ゲームの終了処理を行う．
+	 */
+	private void close() {
+		Logger.getAnonymousLogger().log(Level.INFO, "Close FightingICE");
+		System.exit(0);
+	}
+
+	private void syncFrameRate(float fps, long lastNanos) {
+		long targetNanos = lastNanos + (long) (1_000_000_000.0f / fps) - 1_000_000L; // subtract 1 ms to skip the last sleep call
+		try {
+			while (System.nanoTime() < targetNanos) {
+				Thread.sleep(1);
+			}
+		} catch (InterruptedException ignore) {
+		}
+	}
+}
@@ -73,11 +73,6 @@ public class InputManager<Data> {
 	 */
 	private char[] deviceTypes;
 
-	/**
-	 * 1フレーム分のゲームの処理が終わったことを示すオブジェクト．
-	 */
-	private Object endFrame;
-
 	/**
 	 * InputManagerクラスのクラスコンストラクタ．<br>
 	 * デバイスタイプはデフォルトでキーボードを指定する．
@@ -85,7 +80,8 @@ public class InputManager<Data> {
 	private InputManager() {
 		Logger.getAnonymousLogger().log(Level.INFO, "Create instance: " + InputManager.class.getName());
 
-		keyboard = new Keyboard();
+		// ヘッドレスモードではGLFWのコールバックを生成しない
+		keyboard = FlagSetting.headlessFlag ? null : new Keyboard();
 		deviceTypes = new char[DEFAULT_DEVICE_NUMBER];
 		sceneName = GameSceneName.HOME_MENU;
 		this.predifinedAIs = new HashMap<String, AIInterface>();
@@ -93,8 +89,6 @@ public class InputManager<Data> {
 		for (int i = 0; i < this.deviceTypes.length; i++) {
 			this.deviceTypes[i] = DEVICE_TYPE_KEYBOARD;
 		}
-
-		this.endFrame = ThreadController.getInstance().getEndFrame();
 	}
 
 	/**
@@ -167,6 +161,10 @@ public class InputManager<Data> {
 	private Key getKeyFromKeyboard(boolean playerNumber) {
 		Key key = new Key();
 
+		if (this.keyboard == null) {
+			return key;
+		}
+
 		if (playerNumber) {
 			key.A = keyboard.getKeyDown(GLFW_KEY_Z);
 			key.B = keyboard.getKeyDown(GLFW_KEY_X);
@@ -229,7 +227,11 @@ public class InputManager<Data> {
 		for (int i = 0; i < this.deviceTypes.length; i++) {
 			if (this.ais[i] != null) {
 				this.ais[i].initialize(ThreadController.getInstance().getAIsObject(i == 0), gameData, i == 0);
-				this.ais[i].start();// start the thread
+
+				// Lockstepモードではスレッドを起動せず, ゲームのスレッド上でAIを処理する
+				if (!FlagSetting.lockstepFlag) {
+					this.ais[i].start();// start the thread
+				}
 			}
 		}
 	}
@@ -248,6 +250,25 @@ public class InputManager<Data> {
 		this.ais = null;
 	}
 
+	/**
+	 * 画面のピクセル情報を用いるAIが存在するかどうかを返す．
+	 *
+	 * @return {@code true} 画面のピクセル情報を用いるAIが存在する場合，{@code false} otherwise
+	 * @see AIController#isScreenDataRequired()
+	 */
+	public boolean isScreenDataRequired() {
+		if (this.ais == null) {
+			return false;
+		}
+
+		for (AIController ai : this.ais) {
+			if (ai != null && ai.isScreenDataRequired()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * AIのキー入力を取得する．
 	 *
@@ -276,6 +297,10 @@ public class InputManager<Data> {
 	 * @see ScreenData
 	 */
 	public void setFrameData(FrameData frameData, ScreenData screenData) {
+		if (!FlagSetting.lockstepFlag) {
+			ThreadController.getInstance().resetProcessedFlag(this.ais[0] != null, this.ais[1] != null);
+		}
+
 		for (int i = 0; i < this.ais.length; i++) {
 			if (this.ais[i] != null) {
 				if (!frameData.getEmptyFlag()) {
@@ -287,16 +312,17 @@ public class InputManager<Data> {
 			}
 		}
 
-		synchronized (this.endFrame) {
-			try {
-				ThreadController.getInstance().resetAllAIsObj();
-				if (FlagSetting.fastModeFlag) {
-					this.endFrame.wait();
-				} else {
-
+		if (FlagSetting.lockstepFlag) {
+			// AIの処理が終わるまでゲームの処理を進めない
+			for (AIController ai : this.ais) {
+				if (ai != null) {
+					ai.processingFrame();
 				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+			}
+		} else {
+			ThreadController.getInstance().resetAllAIsObj();
+			if (FlagSetting.fastModeFlag) {
+				ThreadController.getInstance().waitEndFrame();
 			}
 		}
 	}
@@ -14,10 +14,11 @@ public class PyReplay implements StateInhibitor {
 	 * NONE: 何もしていない<br>
 	 * INIT: 初期化<br>
 	 * UPDATE: リプレイファイルを再生<br>
+	 * SEEK: 再生位置を移動<br>
 	 * CLOSE: 再生終了
 	 */
 	enum State {
-		NONE, INIT, UPDATE, CLOSE
+		NONE, INIT, UPDATE, SEEK, CLOSE
 	}
 
 	/** リプレイの再生を行うクラス */
@@ -28,10 +29,21 @@ public class PyReplay implements StateInhibitor {
 	 * NONE: 何もしていない<br>
 	 * INIT: 初期化<br>
 	 * UPDATE: リプレイファイルを再生<br>
+	 * SEEK: 再生位置を移動<br>
 	 * CLOSE: 再生終了
 	 */
 	private State state;
 
+	/**
+	 * 再生位置の移動先のラウンド．
+	 */
+	private int seekRound;
+
+	/**
+	 * 再生位置の移動先のフレーム．
+	 */
+	private int seekFrame;
+
 	/**
 	 * Python側と同期を取るためのオブジェクト．
 	 */
@@ -75,6 +87,9 @@ public class PyReplay implements StateInhibitor {
 		case UPDATE:
 			this.replay.update();
 			break;
+		case SEEK:
+			this.replay.seek(this.seekRound, this.seekFrame);
+			break;
 		case CLOSE:
 			this.replay.close();
 			PyManager.python.setStateInhibitor(null);
@@ -126,6 +141,66 @@ public class PyReplay implements StateInhibitor {
 		}
 	}
 
+	/**
+	 * Jumps to the specified frame of the specified round.<br>
+	 * The game state is restored from the nearest key frame stored in the
+	 * replay file, so the cost does not depend on the position of the frame.
+	 * After this method returns, {@link #getFrameData()} returns the frame
+	 * data after the specified frame was processed, and
+	 * {@link #updateState()} continues from the next frame.<br>
+	 * Only indexed replay files (version 3) support this method.
+	 *
+	 * @param round
+	 *            the round, starting from 1
+	 * @param frame
+	 *            the frame in the round, starting from 0
+	 * @throws InterruptedException
+	 *             If the thread is interrupted while waiting
+	 * @throws IllegalArgumentException
+	 *             If the round or the frame is not recorded in the replay
+	 *             file
+	 */
+	public void seek(int round, int frame) throws InterruptedException {
+		if (round < 1 || round > getRoundNumber() || frame < 0 || frame >= getFrameNumber(round)) {
+			throw new IllegalArgumentException("Round " + round + ", frame " + frame + " is not recorded");
+		}
+
+		this.seekRound = round;
+		this.seekFrame = frame;
+		this.state = State.SEEK;
+
+		synchronized (this.waiter) {
+			try {
+				this.waiter.wait();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of the rounds recorded in the replay file.<br>
+	 * Only indexed replay files (version 3) support this method.
+	 *
+	 * @return the number of the recorded rounds
+	 */
+	public int getRoundNumber() {
+		return this.replay.getRoundNumber();
+	}
+
+	/**
+	 * Gets the number of the frames of the specified round recorded in the
+	 * replay file.<br>
+	 * Only indexed replay files (version 3) support this method.
+	 *
+	 * @param round
+	 *            the round, starting from 1
+	 * @return the number of the recorded frames
+	 */
+	public int getFrameNumber(int round) {
+		return this.replay.getFrameNumber(round);
+	}
+
 	/**
 	 * Gets the frame data of the current frame.
 	 *
@@ -1,12 +0,0 @@
-package render;
-
-/**
- * レンダリング処理の抽象メソッドを定義する抽象クラス．
- */
-public abstract class RenderTask {
-
-	/**
-	 * レンダリング処理の抽象メソッド．
-	 */
-	abstract public void render();
-}
@@ -0,0 +1,486 @@
+package render;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import enumerate.Action;
+import enumerate.BackgroundType;
+import fighting.Attack;
+import fighting.Character;
+import fighting.LoopEffect;
+import loader.ResourceLoader;
+import setting.FlagSetting;
+import setting.GameSetting;
+import setting.LaunchSetting;
+import setting.ResourceSetting;
+import struct.HitArea;
+
+/**
+ * OpenGLを用いず, CPU上でint配列のフレームバッファに対戦画面を描画するクラス．<br>
+ * 背景, キャラクター, 波動拳, HP及びエネルギーのゲージを, 任意の解像度に縮小して直接描画する．
+ * 画像はOpenGLのテクスチャを用いない{@link Sprite}として読み込むため, ヘッドレスモードでもAIに画面を渡すことができる．<br>
+ * 文字列とヒットエフェクトは描画しない．
+ *
+ * @see ResourceLoader#loadCharacterSprites(String)
+ */
+public class SoftwareRenderer {
+
+	/**
+	 * 読み込み済みのキャラクターの画像を, キャラクター名をキーとして格納したマップ．<br>
+	 * 画像は変更されないため, 並列に実行される全ての対戦で共有する．
+	 */
+	private static final HashMap<String, HashMap<String, Sprite[]>> characterSpriteCache = new HashMap<String, HashMap<String, Sprite[]>>();
+
+	/**
+	 * 波動拳の画像．
+	 */
+	private static Sprite[] projectileSprites;
+
+	/**
+	 * 必殺技の波動拳の画像．
+	 */
+	private static Sprite[] ultimateSprites;
+
+	/**
+	 * 背景画像．背景が単色の場合はnull．
+	 */
+	private static Sprite backgroundSprite;
+
+	/**
+	 * 1枚の波動拳の画像を表示させるフレーム数．
+	 */
+	private static final int FRAMES_PER_PROJECTILE_IMAGE = 5;
+
+	/**
+	 * フレームバッファの幅．
+	 */
+	private int width;
+
+	/**
+	 * フレームバッファの高さ．
+	 */
+	private int height;
+
+	/**
+	 * 上の行から順にRGB形式で画素を格納したフレームバッファ．
+	 */
+	private int[] frameBuffer;
+
+	/**
+	 * フレームバッファの大きさに縮小した背景の画素．
+	 */
+	private int[] background;
+
+	/**
+	 * P1とP2のキャラクターの画像を, アクション名をキーとして格納したマップのリスト．<br>
+	 * Index 0: P1; Index 1: P2
+	 */
+	private ArrayList<HashMap<String, Sprite[]>> characterSprites;
+
+	/**
+	 * 画像の描画中に, フレームバッファの各列に対応する画像の列を格納する配列．
+	 */
+	private int[] columnTable;
+
+	/**
+	 * 指定したキャラクターと解像度で描画を行うSoftwareRendererのインスタンスを作成するクラスコンストラクタ．<br>
+	 * 必要な画像がまだ読み込まれていない場合は読み込む．
+	 *
+	 * @param characterNames
+	 *            P1とP2のキャラクター名
+	 * @param width
+	 *            フレームバッファの幅
+	 * @param height
+	 *            フレームバッファの高さ
+	 */
+	public SoftwareRenderer(String[] characterNames, int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.frameBuffer = new int[width * height];
+		this.columnTable = new int[width];
+
+		this.characterSprites = new ArrayList<HashMap<String, Sprite[]>>(2);
+		for (int i = 0; i < 2; i++) {
+			// 同じキャラクター同士の対戦では, 指定されたプレイヤーの画像の色を反転させる
+			boolean inverted = characterNames[0].equals(characterNames[1]) && LaunchSetting.invertedPlayer == i + 1;
+			this.characterSprites.add(getCharacterSprites(characterNames[i], inverted));
+		}
+
+		loadSharedSprites();
+		this.background = createBackground();
+	}
+
+	/**
+	 * 指定したキャラクターの画像を取得する．初めて用いる場合は読み込む．
+	 *
+	 * @param characterName
+	 *            キャラクター名
+	 * @param inverted
+	 *            色を反転させた画像を取得するかどうか
+	 * @return アクション名をキー, 各フレームの画像の配列を値とするマップ
+	 */
+	private static synchronized HashMap<String, Sprite[]> getCharacterSprites(String characterName,
+			boolean inverted) {
+		String key = inverted ? characterName + "_Inverted" : characterName;
+
+		HashMap<String, Sprite[]> sprites = characterSpriteCache.get(key);
+		if (sprites == null) {
+			if (inverted) {
+				sprites = new HashMap<String, Sprite[]>();
+				for (Map.Entry<String, Sprite[]> entry : getCharacterSprites(characterName, false)
+						.entrySet()) {
+					Sprite[] frames = new Sprite[entry.getValue().length];
+					for (int i = 0; i < frames.length; i++) {
+						frames[i] = entry.getValue()[i] == null ? null : entry.getValue()[i].invert();
+					}
+					sprites.put(entry.getKey(), frames);
+				}
+			} else {
+				sprites = ResourceLoader.getInstance().loadCharacterSprites(characterName);
+			}
+			characterSpriteCache.put(key, sprites);
+		}
+
+		return sprites;
+	}
+
+	/**
+	 * 全ての対戦で共通の波動拳と背景の画像を, まだ読み込まれていない場合に読み込む．
+	 */
+	private static synchronized void loadSharedSprites() {
+		if (projectileSprites != null) {
+			return;
+		}
+
+		String graphicPath = "./data/graphics/";
+		projectileSprites = ResourceLoader.getInstance().loadSprites(graphicPath + ResourceSetting.PROJECTILE_DIRECTORY);
+		ultimateSprites = ResourceLoader.getInstance().loadSprites(graphicPath + ResourceSetting.SUPER_DIRECTORY);
+		if (LaunchSetting.backgroundType == BackgroundType.IMAGE) {
+			backgroundSprite = ResourceLoader.getInstance()
+					.loadSprites(graphicPath + ResourceSetting.BACKGROUND_DIRECTORY)[0];
+		}
+	}
+
+	/**
+	 * {@link LaunchSetting#backgroundType}に応じた背景を, フレームバッファの大きさで作成する．
+	 *
+	 * @return 背景の画素
+	 */
+	private int[] createBackground() {
+		switch (LaunchSetting.backgroundType) {
+		case BLACK:
+			fillRect(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, 0x000000);
+			break;
+		case GREY:
+			fillRect(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, 0x808080);
+			break;
+		default:
+			fillRect(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, 0x000000);
+			drawSprite(backgroundSprite, 0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, true);
+			break;
+		}
+
+		return this.frameBuffer.clone();
+	}
+
+	/**
+	 * 引数の対戦の状態を, {@link util.ResourceDrawer}と同じ配置でフレームバッファに描画する．
+	 *
+	 * @param characters
+	 *            P1とP2のキャラクターを格納した配列
+	 * @param projectiles
+	 *            波動拳のループエフェクトを格納した両端キュー
+	 */
+	public void drawScene(Character[] characters, Deque<LoopEffect> projectiles) {
+		System.arraycopy(this.background, 0, this.frameBuffer, 0, this.frameBuffer.length);
+
+		for (int i = 0; i < 2; i++) {
+			Sprite sprite = getCharacterSprite(i, characters[i]);
+			if (sprite != null) {
+				drawSprite(sprite, characters[i].getX(), characters[i].getY(), characters[i].getGraphicSizeX(),
+						characters[i].getGraphicSizeY(), characters[i].isFront());
+			}
+		}
+
+		for (LoopEffect projectile : projectiles) {
+			drawProjectile(projectile);
+		}
+
+		if (FlagSetting.limitHpFlag) {
+			drawGauges(characters);
+		}
+	}
+
+	/**
+	 * キャラクターの現在のアクションとフレームに対応する画像を返す．
+	 *
+	 * @param playerIndex
+	 *            P1の場合は0, P2の場合は1
+	 * @param character
+	 *            キャラクター
+	 * @return キャラクターの画像．対応する画像が無い場合はnull
+	 */
+	private Sprite getCharacterSprite(int playerIndex, Character character) {
+		Action action = character.getAction();
+		Sprite[] frames = this.characterSprites.get(playerIndex).get(action.name());
+		if (frames == null || frames.length == 0) {
+			return null;
+		}
+
+		// ウィンドウに描画される画像と同じ順で選ぶ
+		return frames[character.getNowImageIndex()];
+	}
+
+	/**
+	 * 波動拳を描画する．位置は{@link util.ResourceDrawer}と同様に, 攻撃の当たり判定から求める．
+	 *
+	 * @param projectile
+	 *            波動拳のループエフェクト
+	 */
+	private void drawProjectile(LoopEffect projectile) {
+		Attack attack = projectile.getAttack();
+		if (attack.getCurrentFrame() <= attack.getStartUp()) {
+			return;
+		}
+
+		Sprite[] sprites = projectile.isUltimate() ? ultimateSprites : projectileSprites;
+		if (sprites.length == 0) {
+			return;
+		}
+		Sprite sprite = sprites[(projectile.getCurrentFrame() / FRAMES_PER_PROJECTILE_IMAGE) % sprites.length];
+		if (sprite == null) {
+			return;
+		}
+		HitArea area = attack.getCurrentHitArea();
+
+		int positionX;
+		if (attack.getSpeedX() >= 0) {
+			positionX = area.getRight() - (sprite.getWidth() * 5 / 6);
+		} else {
+			positionX = area.getLeft() - (sprite.getWidth() * 1 / 6);
+		}
+		int positionY = area.getTop() - ((sprite.getHeight() - (area.getBottom() - area.getTop())) / 2);
+
+		drawSprite(sprite, positionX, positionY, sprite.getWidth(), sprite.getHeight(), attack.getSpeedX() >= 0);
+	}
+
+	/**
+	 * HPとエネルギーのゲージを, {@link util.ResourceDrawer}と同じ位置と色で描画する．
+	 *
+	 * @param characters
+	 *            P1とP2のキャラクターを格納した配列
+	 */
+	private void drawGauges(Character[] characters) {
+		int p1Hp = (int) ((double) characters[0].getHp() / LaunchSetting.maxHp[0] * 300 * -1);
+		int p2Hp = (int) ((double) characters[1].getHp() / LaunchSetting.maxHp[1] * 300);
+
+		fillRect(480 - 50, 75, -300, 20, 0x333333);
+		fillRect(480 + 50, 75, 300, 20, 0x333333);
+		fillRect(480 - 50, 75, p1Hp, 20, 0x00FF00);
+		fillRect(480 + 50, 75, p2Hp, 20, 0xFFA600);
+
+		int[] energyColors = new int[2];
+		for (int i = 0; i < 2; i++) {
+			int energy = characters[i].getEnergy();
+			if (energy >= LaunchSetting.maxEnergy[i]) {
+				energyColors[i] = 0x0000FF;
+			} else if (energy >= 50) {
+				energyColors[i] = 0xFFFF00;
+			} else {
+				energyColors[i] = 0xFF0000;
+			}
+		}
+
+		int p1Energy = (int) ((float) characters[0].getEnergy() / LaunchSetting.maxEnergy[0] * 300 * -1);
+		int p2Energy = (int) ((float) characters[1].getEnergy() / LaunchSetting.maxEnergy[1] * 300);
+
+		fillRect(480 - 50, 75 + 20, p1Energy, 8, energyColors[0]);
+		fillRect(480 + 50, 75 + 20, p2Energy, 8, energyColors[1]);
+	}
+
+	/**
+	 * ステージ上の座標と大きさで指定した領域に, 画像を最近傍補間で拡大縮小してアルファブレンドで描画する．
+	 *
+	 * @param sprite
+	 *            画像
+	 * @param x
+	 *            画像を描画するステージ上のx座標
+	 * @param y
+	 *            画像を描画するステージ上のy座標
+	 * @param sizeX
+	 *            画像を描画するステージ上の幅
+	 * @param sizeY
+	 *            画像を描画するステージ上の高さ
+	 * @param direction
+	 *            画像の左右の向き(右がtrue)
+	 */
+	public void drawSprite(Sprite sprite, int x, int y, int sizeX, int sizeY, boolean direction) {
+		if (sprite == null || sizeX <= 0 || sizeY <= 0) {
+			return;
+		}
+
+		int left = Math.max(toFrameX(x), 0);
+		int right = Math.min(toFrameX(x + sizeX), this.width);
+		int top = Math.max(toFrameY(y), 0);
+		int bottom = Math.min(toFrameY(y + sizeY), this.height);
+		if (left >= right || top >= bottom) {
+			return;
+		}
+
+		int spriteWidth = sprite.getWidth();
+		int spriteHeight = sprite.getHeight();
+		int[] pixels = sprite.getPixels(direction);
+
+		// フレームバッファの各列の中心に対応する画像の列を求めておく
+		double stepX = (double) GameSetting.STAGE_WIDTH / this.width;
+		for (int column = left; column < right; column++) {
+			int u = (int) (((column + 0.5) * stepX - x) * spriteWidth / sizeX);
+			this.columnTable[column] = Math.min(Math.max(u, 0), spriteWidth - 1);
+		}
+
+		double stepY = (double) GameSetting.STAGE_HEIGHT / this.height;
+		for (int row = top; row < bottom; row++) {
+			int v = (int) (((row + 0.5) * stepY - y) * spriteHeight / sizeY);
+			int source = Math.min(Math.max(v, 0), spriteHeight - 1) * spriteWidth;
+			int destination = row * this.width;
+
+			for (int column = left; column < right; column++) {
+				int argb = pixels[source + this.columnTable[column]];
+				int alpha = argb >>> 24;
+
+				if (alpha == 0xFF) {
+					this.frameBuffer[destination + column] = argb & 0xFFFFFF;
+				} else if (alpha != 0) {
+					this.frameBuffer[destination + column] = blend(this.frameBuffer[destination + column], argb, alpha);
+				}
+			}
+		}
+	}
+
+	/**
+	 * ステージ上の座標と大きさで指定した領域を単色で塗りつぶす．<br>
+	 * 幅や高さが負の場合は, 指定した座標から左又は上に向かって塗りつぶす．
+	 *
+	 * @param x
+	 *            領域のステージ上のx座標
+	 * @param y
+	 *            領域のステージ上のy座標
+	 * @param sizeX
+	 *            領域のステージ上の幅
+	 * @param sizeY
+	 *            領域のステージ上の高さ
+	 * @param rgb
+	 *            RGB形式の色
+	 */
+	public void fillRect(int x, int y, int sizeX, int sizeY, int rgb) {
+		if (sizeX < 0) {
+			x += sizeX;
+			sizeX = -sizeX;
+		}
+		if (sizeY < 0) {
+			y += sizeY;
+			sizeY = -sizeY;
+		}
+
+		int left = Math.max(toFrameX(x), 0);
+		int right = Math.min(toFrameX(x + sizeX), this.width);
+		int top = Math.max(toFrameY(y), 0);
+		int bottom = Math.min(toFrameY(y + sizeY), this.height);
+
+		for (int row = top; row < bottom; row++) {
+			int destination = row * this.width;
+			for (int column = left; column < right; column++) {
+				this.frameBuffer[destination + column] = rgb;
+			}
+		}
+	}
+
+	/**
+	 * 背景の画素に, 透明度を持つ画素をアルファブレンドした画素を返す．
+	 *
+	 * @param rgb
+	 *            背景のRGB形式の画素
+	 * @param argb
+	 *            重ねるARGB形式の画素
+	 * @param alpha
+	 *            重ねる画素の不透明度(0～255)
+	 * @return アルファブレンドしたRGB形式の画素
+	 */
+	private static int blend(int rgb, int argb, int alpha) {
+		int inverse = 255 - alpha;
+		int red = (((argb >> 16) & 0xFF) * alpha + ((rgb >> 16) & 0xFF) * inverse + 127) / 255;
+		int green = (((argb >> 8) & 0xFF) * alpha + ((rgb >> 8) & 0xFF) * inverse + 127) / 255;
+		int blue = ((argb & 0xFF) * alpha + (rgb & 0xFF) * inverse + 127) / 255;
+
+		return (red << 16) | (green << 8) | blue;
+	}
+
+	/**
+	 * ステージ上のx座標を, フレームバッファの列の境界に変換する．
+	 *
+	 * @param x
+	 *            ステージ上のx座標
+	 * @return フレームバッファの列
+	 */
+	private int toFrameX(int x) {
+		return (int) Math.floor((double) x * this.width / GameSetting.STAGE_WIDTH + 0.5);
+	}
+
+	/**
+	 * ステージ上のy座標を, フレームバッファの行の境界に変換する．
+	 *
+	 * @param y
+	 *            ステージ上のy座標
+	 * @return フレームバッファの行
+	 */
+	private int toFrameY(int y) {
+		return (int) Math.floor((double) y * this.height / GameSetting.STAGE_HEIGHT + 0.5);
+	}
+
+	/**
+	 * フレームバッファの画素を, 上の行から順にRGB形式で格納した配列を返す．<br>
+	 * 配列は次の描画で書き換えられる．
+	 *
+	 * @return フレームバッファの画素
+	 */
+	public int[] getPixels() {
+		return this.frameBuffer;
+	}
+
+	/**
+	 * フレームバッファの画素を, 上の行から順に1画素3バイトのRGBの順で格納した新しい配列を返す．
+	 *
+	 * @return フレームバッファの画素
+	 */
+	public byte[] getRGBBytes() {
+		byte[] rgb = new byte[this.frameBuffer.length * 3];
+		for (int i = 0, j = 0; i < this.frameBuffer.length; i++) {
+			int pixel = this.frameBuffer[i];
+			rgb[j++] = (byte) (pixel >> 16);
+			rgb[j++] = (byte) (pixel >> 8);
+			rgb[j++] = (byte) pixel;
+		}
+
+		return rgb;
+	}
+
+	/**
+	 * フレームバッファの幅を返す．
+	 *
+	 * @return フレームバッファの幅
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * フレームバッファの高さを返す．
+	 *
+	 * @return フレームバッファの高さ
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+}
@@ -0,0 +1,128 @@
+package render;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * {@link SoftwareRenderer}で描画する画像の画素を扱うクラス．<br>
+ * OpenGLのテクスチャを用いず, 左右両方の向きの画素をARGB形式のint配列で保持するため,
+ * 描画時に画像を反転させる必要がない．
+ */
+public class Sprite {
+
+	/**
+	 * 画像の幅．
+	 */
+	private int width;
+
+	/**
+	 * 画像の高さ．
+	 */
+	private int height;
+
+	/**
+	 * 右向きの画像の画素．
+	 */
+	private int[] rightPixels;
+
+	/**
+	 * 左右を反転させた左向きの画像の画素．
+	 */
+	private int[] leftPixels;
+
+	/**
+	 * 引数の画像の画素から, 左右両方の向きの画素を作成するクラスコンストラクタ．
+	 *
+	 * @param image
+	 *            画像
+	 */
+	public Sprite(BufferedImage image) {
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.rightPixels = image.getRGB(0, 0, this.width, this.height, null, 0, this.width);
+		this.leftPixels = flip(this.rightPixels, this.width, this.height);
+	}
+
+	/**
+	 * 指定した画素を持つSpriteのインスタンスを作成するクラスコンストラクタ．
+	 *
+	 * @param width
+	 *            画像の幅
+	 * @param height
+	 *            画像の高さ
+	 * @param rightPixels
+	 *            右向きの画像の画素
+	 */
+	private Sprite(int width, int height, int[] rightPixels) {
+		this.width = width;
+		this.height = height;
+		this.rightPixels = rightPixels;
+		this.leftPixels = flip(rightPixels, width, height);
+	}
+
+	/**
+	 * 画素の左右を反転させた配列を返す．
+	 *
+	 * @param pixels
+	 *            画素
+	 * @param width
+	 *            画像の幅
+	 * @param height
+	 *            画像の高さ
+	 * @return 左右を反転させた画素
+	 */
+	private static int[] flip(int[] pixels, int width, int height) {
+		int[] flipped = new int[pixels.length];
+		for (int y = 0; y < height; y++) {
+			int row = y * width;
+			for (int x = 0; x < width; x++) {
+				flipped[row + x] = pixels[row + width - 1 - x];
+			}
+		}
+
+		return flipped;
+	}
+
+	/**
+	 * 透明度を保ったまま色を反転させた画像を返す．<br>
+	 * 同じキャラクター同士の対戦で, 一方のキャラクターの画像を区別するために用いる．
+	 *
+	 * @return 色を反転させた画像
+	 */
+	public Sprite invert() {
+		int[] inverted = new int[this.rightPixels.length];
+		for (int i = 0; i < inverted.length; i++) {
+			inverted[i] = this.rightPixels[i] ^ 0x00FFFFFF;
+		}
+
+		return new Sprite(this.width, this.height, inverted);
+	}
+
+	/**
+	 * 画像の幅を返す．
+	 *
+	 * @return 画像の幅
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * 画像の高さを返す．
+	 *
+	 * @return 画像の高さ
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * 指定した向きの画像の画素を, 上の行から順にARGB形式で返す．
+	 *
+	 * @param direction
+	 *            画像の左右の向き(右がtrue)
+	 * @return 画像の画素
+	 */
+	public int[] getPixels(boolean direction) {
+		return direction ? this.rightPixels : this.leftPixels;
+	}
+}
@@ -0,0 +1,346 @@
+package render;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import org.lwjgl.BufferUtils;
+
+import image.Image;
+
+/**
+ * 1フレーム分の描画命令を記録し, まとめてレンダリングするクラス．<br>
+ * 描画命令ごとにオブジェクトを生成せず, 頂点データをfloat配列に直接書き込む．
+ * 連続する描画命令のテクスチャと図形の種類が同じ場合は1つのバッチにまとめ, 1回のglDrawArraysで描画する．<br>
+ * 半透明の画像を正しく重ねるため, 描画命令の順序は変更しない．
+ * 頂点データは毎フレーム頂点バッファオブジェクトに転送される．
+ */
+public class SpriteBatch {
+
+	/**
+	 * テクスチャを貼り付けた四角形のバッチを表す定数．
+	 */
+	private static final int TEXTURED_QUADS = 0;
+
+	/**
+	 * 塗りつぶされた四角形のバッチを表す定数．
+	 */
+	private static final int FILLED_QUADS = 1;
+
+	/**
+	 * 線分のバッチを表す定数．
+	 */
+	private static final int LINES = 2;
+
+	/**
+	 * 1頂点あたりのfloat値の数．座標(x, y), テクスチャ座標(u, v), 色(r, g, b, a)の順で格納する．
+	 */
+	private static final int VERTEX_SIZE = 8;
+
+	/**
+	 * 1頂点あたりのバイト数．
+	 */
+	private static final int VERTEX_STRIDE = VERTEX_SIZE * 4;
+
+	/**
+	 * 記録した頂点データ．
+	 */
+	private float[] vertices;
+
+	/**
+	 * 記録した頂点データのfloat値の数．
+	 */
+	private int vertexDataLength;
+
+	/**
+	 * 各バッチの図形の種類．
+	 */
+	private int[] batchModes;
+
+	/**
+	 * 各バッチのテクスチャのID．テクスチャを用いない場合は0．
+	 */
+	private int[] batchTextures;
+
+	/**
+	 * 各バッチの最初の頂点のインデックス．
+	 */
+	private int[] batchFirstVertices;
+
+	/**
+	 * 各バッチの頂点数．
+	 */
+	private int[] batchVertexCounts;
+
+	/**
+	 * 記録したバッチの数．
+	 */
+	private int batchNumber;
+
+	/**
+	 * 頂点バッファオブジェクトのID．作成していない場合は0．
+	 */
+	private int vertexBuffer;
+
+	/**
+	 * 頂点バッファオブジェクトへの転送に用いるバッファ．
+	 */
+	private FloatBuffer uploadBuffer;
+
+	/**
+	 * 記録した頂点データが頂点バッファオブジェクトに転送済みかどうか．
+	 */
+	private boolean uploaded;
+
+	/**
+	 * クラスコンストラクタ．
+	 */
+	public SpriteBatch() {
+		this.vertices = new float[VERTEX_SIZE * 4 * 256];
+		this.batchModes = new int[64];
+		this.batchTextures = new int[64];
+		this.batchFirstVertices = new int[64];
+		this.batchVertexCounts = new int[64];
+		clear();
+	}
+
+	/**
+	 * テクスチャを貼り付けた四角形を描画する命令を記録する．<br>
+	 * テクスチャ座標には画像のテクスチャ内の領域を用いるため, 同じアトラスにまとめられた画像の描画命令は1つのバッチになる．
+	 *
+	 * @param image
+	 *            描画する画像
+	 * @param x
+	 *            画像を描画するx座標
+	 * @param y
+	 *            画像を描画するy座標
+	 * @param sizeX
+	 *            画像の幅
+	 * @param sizeY
+	 *            画像の高さ
+	 * @param direction
+	 *            画像の左右の向き(右がtrue)
+	 */
+	public void addImage(Image image, int x, int y, int sizeX, int sizeY, boolean direction) {
+		float left = direction ? image.getMinU() : image.getMaxU();
+		float right = direction ? image.getMaxU() : image.getMinU();
+		float top = image.getMinV();
+		float bottom = image.getMaxV();
+
+		prepareBatch(TEXTURED_QUADS, image.getTextureId(), 4);
+		putVertex(x, y, left, top, 1, 1, 1);
+		putVertex(x + sizeX, y, right, top, 1, 1, 1);
+		putVertex(x + sizeX, y + sizeY, right, bottom, 1, 1, 1);
+		putVertex(x, y + sizeY, left, bottom, 1, 1, 1);
+	}
+
+	/**
+	 * 指定色で塗りつぶされた四角形を描画する命令を記録する．<br>
+	 * 四角形は不透明で描画される．
+	 *
+	 * @param x
+	 *            四角形のX座標
+	 * @param y
+	 *            四角形のY座標
+	 * @param sizeX
+	 *            四角形のX軸サイズ
+	 * @param sizeY
+	 *            四角形のY軸サイズ
+	 * @param red
+	 *            塗りつぶし色の赤み
+	 * @param green
+	 *            塗りつぶし色の緑み
+	 * @param blue
+	 *            塗りつぶし色の青み
+	 */
+	public void addQuad(int x, int y, int sizeX, int sizeY, float red, float green, float blue) {
+		prepareBatch(FILLED_QUADS, 0, 4);
+		putVertex(x, y, 0, 0, red, green, blue);
+		putVertex(x + sizeX, y, 0, 0, red, green, blue);
+		putVertex(x + sizeX, y + sizeY, 0, 0, red, green, blue);
+		putVertex(x, y + sizeY, 0, 0, red, green, blue);
+	}
+
+	/**
+	 * 枠線で四角形を描画する命令を記録する．<br>
+	 * 枠線は4本の線分として記録するため, 連続する枠線をまとめて描画できる．
+	 *
+	 * @param x
+	 *            四角形のX座標
+	 * @param y
+	 *            四角形のY座標
+	 * @param sizeX
+	 *            四角形のX軸サイズ
+	 * @param sizeY
+	 *            四角形のY軸サイズ
+	 * @param red
+	 *            線の赤み
+	 * @param green
+	 *            線の緑み
+	 * @param blue
+	 *            線の青み
+	 */
+	public void addLineQuad(int x, int y, int sizeX, int sizeY, float red, float green, float blue) {
+		prepareBatch(LINES, 0, 8);
+		putVertex(x, y, 0, 0, red, green, blue);
+		putVertex(x + sizeX, y, 0, 0, red, green, blue);
+		putVertex(x + sizeX, y, 0, 0, red, green, blue);
+		putVertex(x + sizeX, y + sizeY, 0, 0, red, green, blue);
+		putVertex(x + sizeX, y + sizeY, 0, 0, red, green, blue);
+		putVertex(x, y + sizeY, 0, 0, red, green, blue);
+		putVertex(x, y + sizeY, 0, 0, red, green, blue);
+		putVertex(x, y, 0, 0, red, green, blue);
+	}
+
+	/**
+	 * 指定した種類とテクスチャの頂点を追加できるようにする．<br>
+	 * 直前のバッチと種類及びテクスチャが同じ場合はそのバッチに追加し, 異なる場合は新しいバッチを開始する．
+	 *
+	 * @param mode
+	 *            図形の種類
+	 * @param textureId
+	 *            テクスチャのID
+	 * @param vertexNumber
+	 *            追加する頂点数
+	 */
+	private void prepareBatch(int mode, int textureId, int vertexNumber) {
+		int required = this.vertexDataLength + vertexNumber * VERTEX_SIZE;
+		if (required > this.vertices.length) {
+			this.vertices = Arrays.copyOf(this.vertices, Math.max(required, this.vertices.length * 2));
+		}
+
+		int last = this.batchNumber - 1;
+		if (last >= 0 && this.batchModes[last] == mode && this.batchTextures[last] == textureId) {
+			this.batchVertexCounts[last] += vertexNumber;
+			return;
+		}
+
+		if (this.batchNumber == this.batchModes.length) {
+			int capacity = this.batchNumber * 2;
+			this.batchModes = Arrays.copyOf(this.batchModes, capacity);
+			this.batchTextures = Arrays.copyOf(this.batchTextures, capacity);
+			this.batchFirstVertices = Arrays.copyOf(this.batchFirstVertices, capacity);
+			this.batchVertexCounts = Arrays.copyOf(this.batchVertexCounts, capacity);
+		}
+
+		this.batchModes[this.batchNumber] = mode;
+		this.batchTextures[this.batchNumber] = textureId;
+		this.batchFirstVertices[this.batchNumber] = this.vertexDataLength / VERTEX_SIZE;
+		this.batchVertexCounts[this.batchNumber] = vertexNumber;
+		this.batchNumber++;
+	}
+
+	/**
+	 * 頂点データを1頂点分書き込む．
+	 *
+	 * @param x
+	 *            頂点のx座標
+	 * @param y
+	 *            頂点のy座標
+	 * @param u
+	 *            テクスチャのx座標
+	 * @param v
+	 *            テクスチャのy座標
+	 * @param red
+	 *            頂点の色の赤み
+	 * @param green
+	 *            頂点の色の緑み
+	 * @param blue
+	 *            頂点の色の青み
+	 */
+	private void putVertex(float x, float y, float u, float v, float red, float green, float blue) {
+		float[] data = this.vertices;
+		int i = this.vertexDataLength;
+		data[i] = x;
+		data[i + 1] = y;
+		data[i + 2] = u;
+		data[i + 3] = v;
+		data[i + 4] = red;
+		data[i + 5] = green;
+		data[i + 6] = blue;
+		data[i + 7] = 1.0f;
+		this.vertexDataLength = i + VERTEX_SIZE;
+	}
+
+	/**
+	 * 記録した描画命令を, 記録した順にレンダリングする．<br>
+	 * 頂点データの転送は最初の呼び出し時のみ行うため, 同じフレーム内で異なる描画先に繰り返しレンダリングすることができる．
+	 */
+	public void render() {
+		if (this.batchNumber == 0) {
+			return;
+		}
+
+		if (this.vertexBuffer == 0) {
+			this.vertexBuffer = glGenBuffers();
+		}
+		glBindBuffer(GL_ARRAY_BUFFER, this.vertexBuffer);
+
+		if (!this.uploaded) {
+			if (this.uploadBuffer == null || this.uploadBuffer.capacity() < this.vertexDataLength) {
+				this.uploadBuffer = BufferUtils.createFloatBuffer(Math.max(this.vertexDataLength, this.vertices.length));
+			}
+			this.uploadBuffer.clear();
+			this.uploadBuffer.put(this.vertices, 0, this.vertexDataLength);
+			this.uploadBuffer.flip();
+
+			// 前のフレームの描画を待たないよう, 毎回新しい領域を確保して転送する
+			glBufferData(GL_ARRAY_BUFFER, this.uploadBuffer, GL_STREAM_DRAW);
+			this.uploaded = true;
+		}
+
+		glEnableClientState(GL_VERTEX_ARRAY);
+		glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+		glEnableClientState(GL_COLOR_ARRAY);
+		glVertexPointer(2, GL_FLOAT, VERTEX_STRIDE, 0L);
+		glTexCoordPointer(2, GL_FLOAT, VERTEX_STRIDE, 2L * 4);
+		glColorPointer(4, GL_FLOAT, VERTEX_STRIDE, 4L * 4);
+
+		for (int i = 0; i < this.batchNumber; i++) {
+			switch (this.batchModes[i]) {
+			case TEXTURED_QUADS:
+				glEnable(GL_TEXTURE_2D);
+				glBindTexture(GL_TEXTURE_2D, this.batchTextures[i]);
+				glDrawArrays(GL_QUADS, this.batchFirstVertices[i], this.batchVertexCounts[i]);
+				glDisable(GL_TEXTURE_2D);
+				break;
+			case FILLED_QUADS:
+				glDrawArrays(GL_QUADS, this.batchFirstVertices[i], this.batchVertexCounts[i]);
+				break;
+			default:
+				glDrawArrays(GL_LINES, this.batchFirstVertices[i], this.batchVertexCounts[i]);
+				break;
+			}
+		}
+
+		glDisableClientState(GL_COLOR_ARRAY);
+		glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+		glDisableClientState(GL_VERTEX_ARRAY);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+		// 色設定をデフォルト値(白)にする
+		glColor3f(1.0f, 1.0f, 1.0f);
+	}
+
+	/**
+	 * 記録した描画命令を全て破棄する．確保した配列は次のフレームで再利用する．
+	 */
+	public void clear() {
+		this.vertexDataLength = 0;
+		this.batchNumber = 0;
+		this.uploaded = false;
+	}
+
+	/**
+	 * 作成した頂点バッファオブジェクトを削除し, 記録した描画命令を破棄する．
+	 */
+	public void deleteBuffer() {
+		if (this.vertexBuffer != 0) {
+			glDeleteBuffers(this.vertexBuffer);
+			this.vertexBuffer = 0;
+		}
+		clear();
+	}
+}
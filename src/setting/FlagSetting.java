@@ -55,6 +55,13 @@ public class FlagSetting {
 	 */
 	public static boolean jsonFlag = false;
 
+	/**
+	 * 列指向のバイナリ形式で試合データを出力するかどうかのフラグ．
+	 *
+	 * @see util.ColumnarLogWriter
+	 */
+	public static boolean columnarFlag = false;
+
 	/**
 	 * エラーログを出力するかどうかのフラグ．
 	 */
@@ -65,11 +72,23 @@ public class FlagSetting {
 	 */
 	public static boolean fastModeFlag = false;
 
+	/**
+	 * AIのスレッドを起動せず, ゲームのスレッド上で毎フレームAIを処理するかどうかのフラグ．<br>
+	 * {@code true}のときはFastmodeと同様に, AIの処理が終わるまで次のフレームに進まない．
+	 */
+	public static boolean lockstepFlag = false;
+
 	/**
 	 * ゲームウィンドウを生成するかどうかのフラグ．
 	 */
 	public static boolean enableWindow = true;
 
+	/**
+	 * GLFWのウィンドウ及びOpenGLのコンテキストを一切生成せずに起動するかどうかのフラグ．<br>
+	 * {@code true}のときはLWJGLのネイティブライブラリを読み込まないヘッドレスモードで動作する．
+	 */
+	public static boolean headlessFlag = false;
+
 	/**
 	 * ラウンド終了時にスローモーションを発生させるかどうかのフラグ
 	 */
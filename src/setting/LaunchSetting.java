@@ -45,6 +45,26 @@ public final class LaunchSetting {
 	 */
 	public static int repeatNumber = 1;
 
+	/**
+	 * ヘッドレスモードで同時に実行する試合数．<br>
+	 * 2以上のときは, 各試合を1つのJVM内で並列に実行する．
+	 */
+	public static int parallelMatchNumber = 1;
+
+	/**
+	 * AIに渡す画面のピクセル情報の遅れフレーム数．<br>
+	 * 1以上のときは, ピクセルバッファオブジェクトを用いて, 指定したフレーム数前に描画された画面をGPUの処理を待たずに読み込む．<br>
+	 * 0のときは, glReadPixelsで画面を同期的に読み込む．
+	 */
+	public static int screenLatency = 1;
+
+	/**
+	 * AIに渡す低解像度の画面の幅と高さ．<br>
+	 * 0より大きいときは, 画面全体を読み込む代わりに, この大きさのフレームバッファオブジェクトにGPU上で描画した画面のみを読み込む．<br>
+	 * ヘッドレスモードでは, この大きさの画面を{@link render.SoftwareRenderer}でCPU上で描画する．
+	 */
+	public static int[] observationSize = { 0, 0 };
+
 	/**
 	 * 画素を反転させるプレイヤーの番号．
 	 */
@@ -40,6 +40,16 @@ public class ResourceSetting {
 	 */
 	public static final String BACKGROUND_DIRECTORY = "background/";
 
+	/**
+	 * 各キャラクターの設定ファイルと画像が格納されているディレクトリ．
+	 */
+	public static final String CHARACTER_DIRECTORY = "./data/characters/";
+
+	/**
+	 * キャラクターの設定ファイルと画像をまとめたパックファイルを格納するディレクトリ．
+	 */
+	public static final String CHARACTER_PACK_DIRECTORY = "./data/cache/";
+
 	/**
 	 * BGMファイル名．
 	 */
@@ -1,6 +1,8 @@
 package simulator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.LinkedList;
 
@@ -16,7 +18,8 @@ import setting.GameSetting;
 import struct.AttackData;
 import struct.CharacterData;
 import struct.FrameData;
-import struct.Key;
+import struct.FrameSnapshot;
+import struct.KeyHistory;
 
 /**
  * シミュレーション中の対戦処理やキャラクター情報の更新を行うクラス．
@@ -24,9 +27,10 @@ import struct.Key;
 public class SimFighting extends Fighting {
 
 	/**
-	 * キー入力．
+	 * キー入力の履歴．<br>
+	 * 1フレームに2つのキー入力が追加される場合があるため, 容量はINPUT_LIMIT+1とし, シミュレーションのたびに再利用される．
 	 */
-	private ArrayList<Deque<Key>> inputKeys;
+	private KeyHistory[] inputKeys;
 
 	/**
 	 * 入力されたアクション．
@@ -38,6 +42,12 @@ public class SimFighting extends Fighting {
 	 */
 	private CommandCenter[] commandCenter;
 
+	/**
+	 * シミュレーション開始時に渡されたP1とP2のアクションのコピーを格納するキュー．<br>
+	 * シミュレーションのたびに再利用される．
+	 */
+	private ArrayList<Deque<Action>> actionBuffers;
+
 	/**
 	 * クラスコンストラクタ．
 	 */
@@ -46,9 +56,95 @@ public class SimFighting extends Fighting {
 		this.projectileDeque = new LinkedList<LoopEffect>();
 		this.commandTable = new CommandTable();
 
-		this.inputKeys = new ArrayList<Deque<Key>>(2);
+		this.inputKeys = new KeyHistory[] { new KeyHistory(GameSetting.INPUT_LIMIT + 1),
+				new KeyHistory(GameSetting.INPUT_LIMIT + 1) };
 		this.inputActions = new ArrayList<Deque<Action>>(2);
 		this.commandCenter = new CommandCenter[2];
+		this.actionBuffers = new ArrayList<Deque<Action>>(2);
+		this.actionBuffers.add(new ArrayDeque<Action>());
+		this.actionBuffers.add(new ArrayDeque<Action>());
+	}
+
+	/**
+	 * 引数のアクションをコピーしたうえで初期化処理を行う．<br>
+	 * 同じインスタンスに対して繰り返し呼び出すことができ，キャラクターなどのインスタンスは再生成せずに上書きされる．
+	 *
+	 * @param motionList
+	 *            P1とP2のモーションを格納したリスト
+	 * @param p1Act
+	 *            P1のアクション．nullの場合はアクションを行わない
+	 * @param p2Act
+	 *            P2のアクション．nullの場合はアクションを行わない
+	 * @param frameData
+	 *            frame data at the start of simulation
+	 * @param playerNumber
+	 *            boolean value which identifies P1/P2. {@code true} if the
+	 *            player is P1, or {@code false} if P2.
+	 */
+	public void initialize(ArrayList<ArrayList<Motion>> motionList, Deque<Action> p1Act, Deque<Action> p2Act,
+			FrameData frameData, boolean playerNumber) {
+		initialize(motionList, copyActions(p1Act, 0), copyActions(p2Act, 1), frameData);
+	}
+
+	/**
+	 * 引数のスナップショットを基に，引数のアクションをコピーしたうえで初期化処理を行う．<br>
+	 * FrameDataを経由せず，キャラクターや波動拳の情報をスナップショットから直接読み込む．
+	 *
+	 * @param motionList
+	 *            P1とP2のモーションを格納したリスト
+	 * @param p1Act
+	 *            P1のアクション．nullの場合はアクションを行わない
+	 * @param p2Act
+	 *            P2のアクション．nullの場合はアクションを行わない
+	 * @param snapshot
+	 *            シミュレーション開始時のゲームの状態を格納したスナップショット
+	 */
+	public void initialize(ArrayList<ArrayList<Motion>> motionList, Deque<Action> p1Act, Deque<Action> p2Act,
+			FrameSnapshot snapshot) {
+		this.inputActions.clear();
+		this.projectileDeque.clear();
+
+		for (int i = 0; i < 2; i++) {
+			if (this.playerCharacters[i] == null) {
+				this.playerCharacters[i] = new Character();
+			}
+			this.playerCharacters[i].initialize(snapshot, i == 0, motionList.get(i));
+
+			this.inputKeys[i].clear();
+			this.inputKeys[i].addAll(this.playerCharacters[i].getProcessedKeyHistory());
+			this.inputActions.add(copyActions(i == 0 ? p1Act : p2Act, i));
+
+			if (this.commandCenter[i] == null) {
+				this.commandCenter[i] = new CommandCenter();
+			} else {
+				this.commandCenter[i].skillCancel();
+			}
+			this.commandCenter[i].setFront(snapshot.isFront(i == 0), i == 0);
+		}
+
+		for (int i = 0; i < snapshot.getProjectileNumber(); i++) {
+			this.projectileDeque.addLast(new LoopEffect(new Attack(snapshot.getProjectile(i)), null));
+		}
+	}
+
+	/**
+	 * 引数のアクションを，指定したプレイヤーのアクション格納用のキューにコピーする．
+	 *
+	 * @param actions
+	 *            コピーするアクション
+	 * @param index
+	 *            プレイヤーのインデックス(P1: 0, P2: 1)
+	 * @return コピーしたアクションを格納したキュー．引数がnullの場合はnull
+	 */
+	private Deque<Action> copyActions(Deque<Action> actions, int index) {
+		Deque<Action> buffer = this.actionBuffers.get(index);
+		buffer.clear();
+		if (actions == null) {
+			return null;
+		}
+
+		buffer.addAll(actions);
+		return buffer;
 	}
 
 	/**
@@ -66,15 +162,45 @@ public class SimFighting extends Fighting {
 	 */
 	public void initialize(ArrayList<ArrayList<Motion>> motionList, ArrayList<Deque<Action>> actionList,
 			FrameData frameData, boolean playerNumber) {
+		initialize(motionList, actionList.get(0), actionList.get(1), frameData);
+	}
+
+	/**
+	 * キャラクター，キー入力，アクション及び波動拳の情報を，引数のフレームデータの状態に戻す．<br>
+	 * 2回目以降の呼び出しでは，前回のシミュレーションで用いたインスタンスを再利用する．
+	 *
+	 * @param motionList
+	 *            P1とP2のモーションを格納したリスト
+	 * @param p1Act
+	 *            P1のアクション
+	 * @param p2Act
+	 *            P2のアクション
+	 * @param frameData
+	 *            frame data at the start of simulation
+	 */
+	private void initialize(ArrayList<ArrayList<Motion>> motionList, Deque<Action> p1Act, Deque<Action> p2Act,
+			FrameData frameData) {
+		this.inputActions.clear();
+		this.projectileDeque.clear();
 
 		for (int i = 0; i < 2; i++) {
-			this.playerCharacters[i] = new Character(frameData.getCharacter(i == 0), motionList.get(i));
+			if (this.playerCharacters[i] == null) {
+				this.playerCharacters[i] = new Character(frameData.getCharacter(i == 0), motionList.get(i));
+			} else {
+				this.playerCharacters[i].initialize(frameData.getCharacter(i == 0), motionList.get(i));
+			}
 
-			this.inputKeys.add(this.playerCharacters[i].getProcessedCommand());
-			this.inputActions.add(actionList.get(i));
+			this.inputKeys[i].clear();
+			this.inputKeys[i].addAll(this.playerCharacters[i].getProcessedKeyHistory());
+			this.inputActions.add(i == 0 ? p1Act : p2Act);
 
-			this.commandCenter[i] = new CommandCenter();
-			this.commandCenter[i].setFrameData(frameData, i == 0);
+			if (this.commandCenter[i] == null) {
+				this.commandCenter[i] = new CommandCenter();
+			} else {
+				this.commandCenter[i].skillCancel();
+			}
+			// 向きはシミュレーション開始時のものを用いる. FrameData#getCharacterはコピーを生成するため, 初期化したキャラクターから読み込む
+			this.commandCenter[i].setFront(this.playerCharacters[i].isFront(), i == 0);
 		}
 
 		Deque<AttackData> projectiles = frameData.getProjectiles();
@@ -113,20 +239,24 @@ public class SimFighting extends Fighting {
 	public void processingCommands() {
 
 		for (int i = 0; i < 2; i++) {
-			Deque<Key> keyList = this.inputKeys.get(i);
+			KeyHistory keyList = this.inputKeys[i];
 			Deque<Action> actList = this.inputActions.get(i);
 
 			if (keyList.size() > GameSetting.INPUT_LIMIT-1) {
 				keyList.removeFirst();
 			}
 
-			if (!this.playerCharacters[i].getInputCommand().isEmpty()) {
-				Deque<Key> temp = this.playerCharacters[i].getProcessedCommand();
-				keyList.addLast(temp.removeFirst());
-				this.playerCharacters[i].setInputCommand(temp);
-				keyList.add(new Key(this.playerCharacters[i].getInputCommand().getFirst()));
+			if (this.playerCharacters[i].getInputCommandSize() > 0) {
+				// 実行済みのキー入力の履歴のうち, 最も古いものを除いた残りを実行待ちのキー入力とする
+				KeyHistory processed = this.playerCharacters[i].getProcessedKeyHistory();
+				keyList.add(processed.get(0));
+				this.playerCharacters[i].clearInputCommand();
+				for (int j = 1; j < processed.size(); j++) {
+					this.playerCharacters[i].addInputCommand(processed.get(j));
+				}
+				keyList.add(this.playerCharacters[i].getInputCommandKey(0));
 
-				Action act = this.commandTable.interpretationCommandFromKey(this.playerCharacters[i], keyList);
+				Action act = this.commandTable.interpretationCommand(this.playerCharacters[i], keyList);
 				if (ableAction(this.playerCharacters[i], act)) {
 					this.playerCharacters[i].runAction(act, true);
 				}
@@ -135,16 +265,19 @@ public class SimFighting extends Fighting {
 				if (!actList.isEmpty()) {
 
 					if (ableAction(this.playerCharacters[i], actList.getFirst()) && !commandCenter[i].getSkillFlag()) {
-						this.commandCenter[i].commandCall(actList.removeFirst().name());
+						this.commandCenter[i].commandCall(actList.removeFirst());
 
 					} else if (this.playerCharacters[i].isControl() && !this.commandCenter[i].getSkillFlag()) {
 						actList.removeFirst();
 					}
 				}
 
-				this.inputKeys.get(i).add(this.commandCenter[i].getSkillKey());
-				Action act = this.commandTable.interpretationCommandFromKey(this.playerCharacters[i], keyList);
-				this.playerCharacters[i].setInputCommand(this.commandCenter[i].getSkillKeys());
+				keyList.add(this.commandCenter[i].getSkillKeyBits());
+				Action act = this.commandTable.interpretationCommand(this.playerCharacters[i], keyList);
+				this.playerCharacters[i].clearInputCommand();
+				for (int j = 0; j < this.commandCenter[i].getSkillKeyCount(); j++) {
+					this.playerCharacters[i].addInputCommand(this.commandCenter[i].peekSkillKeyBits(j));
+				}
 
 				if (ableAction(this.playerCharacters[i], act)) {
 					this.playerCharacters[i].runAction(act, true);
@@ -155,7 +288,8 @@ public class SimFighting extends Fighting {
 
 	@Override
 	protected void calculationHit(int currentFrame) {
-		boolean[] isHit = { false, false };
+		boolean[] isHit = this.isHit;
+		Arrays.fill(isHit, false);
 
 		// 波動拳の処理
 		int dequeSize = this.projectileDeque.size();
@@ -255,7 +389,7 @@ public class SimFighting extends Fighting {
 		CharacterData[] characterData = new CharacterData[2];
 		for (int i = 0; i < 2; i++) {
 			characterData[i] = new CharacterData(this.playerCharacters[i]);
-			characterData[i].setProcessedCommand(this.inputKeys.get(i));
+			characterData[i].setProcessedCommand(this.inputKeys[i]);
 		}
 
 		Deque<AttackData> newAttackDeque = new LinkedList<AttackData>();
@@ -266,4 +400,18 @@ public class SimFighting extends Fighting {
 		return new FrameData(characterData, nowFrame, round, newAttackDeque);
 	}
 
+	/**
+	 * シミュレーション中のキャラクター及び波動拳の情報を，スナップショットとして返す．
+	 *
+	 * @param nowFrame
+	 *            現在のフレーム
+	 * @param round
+	 *            現在のラウンド
+	 * @return 現在のゲームの状態を格納したスナップショット
+	 */
+	@Override
+	public FrameSnapshot createSnapshot(int nowFrame, int round) {
+		return new FrameSnapshot(this.playerCharacters, Arrays.asList(this.inputKeys), this.projectileDeque, nowFrame, round);
+	}
+
 }
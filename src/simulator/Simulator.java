@@ -1,16 +1,24 @@
 package simulator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import enumerate.Action;
 import fighting.Motion;
 import struct.FrameData;
+import struct.FrameSnapshot;
 import struct.GameData;
 
 /**
- * The class of the simulator.
+ * The class of the simulator.<br>
+ * The motions of both characters are built only once per instance, and the
+ * state used during a simulation is kept per thread and reset in place on
+ * every call, so repeated calls of
+ * {@link #simulate(FrameData, boolean, Deque, Deque, int)} do not rebuild it.
  */
 public class Simulator {
 
@@ -19,6 +27,23 @@ public class Simulator {
 	 */
 	private GameData gameData;
 
+	/**
+	 * The motions of P1 and P2, which are built from the game data on the
+	 * first simulation.
+	 */
+	private volatile ArrayList<ArrayList<Motion>> motionList;
+
+	/**
+	 * The fighting state reused by every simulation executed on the same
+	 * thread.
+	 */
+	private final ThreadLocal<SimFighting> simFighting = new ThreadLocal<SimFighting>() {
+		@Override
+		protected SimFighting initialValue() {
+			return new SimFighting();
+		}
+	};
+
 	/**
 	 * The class constructor that creates an instance of the Simulator class by
 	 * using an instance of the GameData class.
@@ -70,27 +95,12 @@ public class Simulator {
 	public FrameData simulate(FrameData frameData, boolean playerNumber, Deque<Action> myAct, Deque<Action> oppAct,
 			int simulationLimit) {
 
-		// Creates deep copy of each action's list
-		ArrayList<Deque<Action>> tempActionList = new ArrayList<Deque<Action>>(2);
-		Deque<Action> tempP1Act = ((playerNumber ? myAct : oppAct) == null) ? null
-				: new LinkedList<Action>(playerNumber ? myAct : oppAct);
-		Deque<Action> tempP2Act = ((!playerNumber ? myAct : oppAct) == null) ? null
-				: new LinkedList<Action>(!playerNumber ? myAct : oppAct);
-		tempActionList.add(tempP1Act);
-		tempActionList.add(tempP2Act);
-
-		ArrayList<ArrayList<Motion>> tempMotionList = new ArrayList<ArrayList<Motion>>(2);
-//		ArrayList<Motion> p1MotionData = this.gameData.getMotion(playerNumber ? true : false);
-//		ArrayList<Motion> p2MotionData = this.gameData.getMotion(!playerNumber ? true : false);
-		ArrayList<Motion> p1MotionData = this.gameData.getMotion(true);
-		ArrayList<Motion> p2MotionData = this.gameData.getMotion(false);
-		tempMotionList.add(p1MotionData);
-		tempMotionList.add(p2MotionData);
-
 		int nowFrame = frameData.getFramesNumber();
 
-		SimFighting simFighting = new SimFighting();
-		simFighting.initialize(tempMotionList, tempActionList, new FrameData(frameData), playerNumber);
+		// The action lists are copied into buffers owned by the SimFighting
+		SimFighting simFighting = this.simFighting.get();
+		simFighting.initialize(getMotionList(), playerNumber ? myAct : oppAct, playerNumber ? oppAct : myAct,
+				frameData, playerNumber);
 
 		for (int i = 0; i < simulationLimit; i++) {
 			simFighting.processingFight(nowFrame);
@@ -100,4 +110,251 @@ public class Simulator {
 		return simFighting.createFrameData(nowFrame, frameData.getRound());
 	}
 
+	/**
+	 * Simulates the progression of a fight starting from a given
+	 * {@link FrameSnapshot} instance and executing specified actions for both
+	 * players.<br>
+	 * This method behaves in the same way as
+	 * {@link #simulate(FrameData, boolean, Deque, Deque, int)}, but reads the
+	 * initial state from the snapshot directly and returns the resulting state
+	 * as a new snapshot, which can be copied cheaply by search AIs.
+	 *
+	 * @param snapshot
+	 *            the game state at the start of simulation
+	 * @param playerNumber
+	 *            boolean value which identifies P1/P2. {@code true} if the
+	 *            player is P1, or {@code false} if P2.
+	 * @param myAct
+	 *            actions to be performed by the player identified by the
+	 *            parameter `player`
+	 * @param oppAct
+	 *            actions to be performed by the opponent of the player
+	 *            identified by the parameter `player`
+	 * @param simulationLimit
+	 *            the number of frames to be simulated
+	 *
+	 * @return the game state after the simulation
+	 *
+	 * @see #simulate(FrameData, boolean, Deque, Deque, int)
+	 */
+	public FrameSnapshot simulate(FrameSnapshot snapshot, boolean playerNumber, Deque<Action> myAct,
+			Deque<Action> oppAct, int simulationLimit) {
+		SimFighting simFighting = simulateFight(snapshot, playerNumber, myAct, oppAct, simulationLimit);
+
+		return simFighting.createSnapshot(snapshot.getFramesNumber() + simulationLimit, snapshot.getRound());
+	}
+
+	/**
+	 * Simulates the progression of a fight from a given {@link FrameData}
+	 * instance for each pair of candidate action sequences, using the common
+	 * fork-join pool.<br>
+	 * This method is equivalent to calling
+	 * {@link #simulate(FrameData, boolean, Deque, Deque, int)} for each
+	 * candidate, but the start state is prepared only once and the candidates
+	 * are simulated in parallel.
+	 *
+	 * @param frameData
+	 *            frame data at the start of simulation
+	 * @param playerNumber
+	 *            boolean value which identifies P1/P2. {@code true} if the
+	 *            player is P1, or {@code false} if P2.
+	 * @param myActs
+	 *            the candidate action sequences of the player identified by
+	 *            the parameter `player`
+	 * @param oppActs
+	 *            the action sequences of the opponent, where the i-th element
+	 *            is used together with the i-th element of `myActs`. If null,
+	 *            the opponent performs no action in any simulation.
+	 * @param simulationLimit
+	 *            the number of frames to be simulated
+	 *
+	 * @return the list of the frame data after each simulation, in the same
+	 *         order as `myActs`
+	 *
+	 * @see #simulate(FrameData, boolean, Deque, Deque, int)
+	 */
+	public List<FrameData> simulateBatch(FrameData frameData, boolean playerNumber, List<Deque<Action>> myActs,
+			List<Deque<Action>> oppActs, int simulationLimit) {
+		return simulateBatch(frameData, playerNumber, myActs, oppActs, simulationLimit, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Simulates the progression of a fight from a given {@link FrameData}
+	 * instance for each pair of candidate action sequences, using the
+	 * specified fork-join pool.
+	 *
+	 * @param frameData
+	 *            frame data at the start of simulation
+	 * @param playerNumber
+	 *            boolean value which identifies P1/P2. {@code true} if the
+	 *            player is P1, or {@code false} if P2.
+	 * @param myActs
+	 *            the candidate action sequences of the player identified by
+	 *            the parameter `player`
+	 * @param oppActs
+	 *            the action sequences of the opponent, where the i-th element
+	 *            is used together with the i-th element of `myActs`. If null,
+	 *            the opponent performs no action in any simulation.
+	 * @param simulationLimit
+	 *            the number of frames to be simulated
+	 * @param pool
+	 *            the fork-join pool which executes the simulations
+	 *
+	 * @return the list of the frame data after each simulation, in the same
+	 *         order as `myActs`
+	 *
+	 * @see #simulateBatch(FrameData, boolean, List, List, int)
+	 */
+	public List<FrameData> simulateBatch(FrameData frameData, boolean playerNumber, List<Deque<Action>> myActs,
+			List<Deque<Action>> oppActs, int simulationLimit, ForkJoinPool pool) {
+		if (oppActs != null && oppActs.size() != myActs.size()) {
+			throw new IllegalArgumentException("The number of the opponent's action sequences (" + oppActs.size()
+					+ ") differs from that of the player's (" + myActs.size() + ")");
+		}
+
+		FrameData[] results = new FrameData[myActs.size()];
+		if (results.length > 0) {
+			BatchTask task = new BatchTask(new FrameSnapshot(frameData), playerNumber, myActs, oppActs,
+					simulationLimit, results, 0, results.length);
+			pool.invoke(task);
+		}
+
+		return new ArrayList<FrameData>(Arrays.asList(results));
+	}
+
+	/**
+	 * Runs a simulation with the fighting state of the current thread, and
+	 * returns the state after the simulation.
+	 *
+	 * @param snapshot
+	 *            the game state at the start of simulation
+	 * @param playerNumber
+	 *            boolean value which identifies P1/P2
+	 * @param myAct
+	 *            actions to be performed by the player
+	 * @param oppAct
+	 *            actions to be performed by the opponent
+	 * @param simulationLimit
+	 *            the number of frames to be simulated
+	 *
+	 * @return the fighting state of the current thread after the simulation
+	 */
+	private SimFighting simulateFight(FrameSnapshot snapshot, boolean playerNumber, Deque<Action> myAct,
+			Deque<Action> oppAct, int simulationLimit) {
+		int nowFrame = snapshot.getFramesNumber();
+
+		SimFighting simFighting = this.simFighting.get();
+		simFighting.initialize(getMotionList(), playerNumber ? myAct : oppAct, playerNumber ? oppAct : myAct,
+				snapshot);
+
+		for (int i = 0; i < simulationLimit; i++) {
+			simFighting.processingFight(nowFrame);
+			nowFrame++;
+		}
+
+		return simFighting;
+	}
+
+	/**
+	 * The task which simulates a range of the candidates of
+	 * {@link Simulator#simulateBatch(FrameData, boolean, List, List, int)},
+	 * splitting the range in half until each task has one candidate.
+	 */
+	@SuppressWarnings("serial")
+	private class BatchTask extends RecursiveAction {
+
+		/**
+		 * The game state at the start of simulation, shared by all tasks.
+		 */
+		private final FrameSnapshot snapshot;
+
+		/**
+		 * The player's side flag.
+		 */
+		private final boolean playerNumber;
+
+		/**
+		 * The candidate action sequences of the player.
+		 */
+		private final List<Deque<Action>> myActs;
+
+		/**
+		 * The action sequences of the opponent, or null.
+		 */
+		private final List<Deque<Action>> oppActs;
+
+		/**
+		 * The number of frames to be simulated.
+		 */
+		private final int simulationLimit;
+
+		/**
+		 * The array storing the result of each candidate.
+		 */
+		private final FrameData[] results;
+
+		/**
+		 * The first index of the range (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The last index of the range (exclusive).
+		 */
+		private final int to;
+
+		private BatchTask(FrameSnapshot snapshot, boolean playerNumber, List<Deque<Action>> myActs,
+				List<Deque<Action>> oppActs, int simulationLimit, FrameData[] results, int from, int to) {
+			this.snapshot = snapshot;
+			this.playerNumber = playerNumber;
+			this.myActs = myActs;
+			this.oppActs = oppActs;
+			this.simulationLimit = simulationLimit;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from == 1) {
+				SimFighting simFighting = simulateFight(this.snapshot, this.playerNumber, this.myActs.get(this.from),
+						this.oppActs == null ? null : this.oppActs.get(this.from), this.simulationLimit);
+				this.results[this.from] = simFighting.createFrameData(
+						this.snapshot.getFramesNumber() + this.simulationLimit, this.snapshot.getRound());
+			} else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new BatchTask(this.snapshot, this.playerNumber, this.myActs, this.oppActs,
+						this.simulationLimit, this.results, this.from, middle),
+						new BatchTask(this.snapshot, this.playerNumber, this.myActs, this.oppActs,
+								this.simulationLimit, this.results, middle, this.to));
+			}
+		}
+	}
+
+	/**
+	 * Returns the motions of P1 and P2, building them from the game data if
+	 * they have not been built yet.<br>
+	 * The motions are only read during simulations, so they are shared by all
+	 * threads.
+	 *
+	 * @return the list storing the motions of P1 and P2
+	 */
+	private ArrayList<ArrayList<Motion>> getMotionList() {
+		ArrayList<ArrayList<Motion>> motions = this.motionList;
+		if (motions == null) {
+			synchronized (this) {
+				motions = this.motionList;
+				if (motions == null) {
+					motions = new ArrayList<ArrayList<Motion>>(2);
+					motions.add(this.gameData.getMotion(true));
+					motions.add(this.gameData.getMotion(false));
+					this.motionList = motions;
+				}
+			}
+		}
+
+		return motions;
+	}
+
 }
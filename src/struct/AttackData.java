@@ -487,6 +487,17 @@ public class AttackData {
 		this.settingHitArea = settingHitArea;
 	}
 
+	/**
+	 * Sets HitArea's information of this attack hit box in the current frame.
+	 *
+	 * @param currentHitArea
+	 *            HitArea's information of this attack hit box in the current
+	 *            frame
+	 */
+	public void setCurrentHitArea(HitArea currentHitArea) {
+		this.currentHitArea = currentHitArea;
+	}
+
 	/**
 	 * Sets the absolute value of the horizontal speed of the attack hit box
 	 * (zero means the attack hit box will track the character).
@@ -0,0 +1,593 @@
+package struct;
+
+import java.util.Arrays;
+import java.util.List;
+
+import enumerate.Action;
+import enumerate.State;
+import setting.GameSetting;
+
+/**
+ * The class that tells whether an action started now can hit the opponent
+ * within a given number of frames, without running the simulator.<br>
+ * When the instance is created, each action of the character is played once
+ * with the same movement, friction, gravity and attack update rules as the
+ * game, and the hit area of its attack or projectile is recorded for every
+ * frame in which the game checks it against the opponent. A query then only
+ * compares the opponent's hit area with the recorded hit areas.<br>
+ * The hit areas are stored relative to the graphic position of the attacker
+ * at the start of the action, with the x-axis pointing to the front of the
+ * attacker, which is how the game mirrors the hit areas of a character facing
+ * left. An aerial action is played without the ground, and the recorded hit
+ * areas are discarded in a query if the attacker would have landed before
+ * them.<br>
+ * The characters push each other apart once their hit areas touch, and a
+ * character is pushed back inside the stage at its edges. The hit areas of
+ * the attacker's body are recorded for every frame as well, and from the first
+ * frame in which they can touch the opponent or leave the stage, each hit area
+ * of the attack is widened horizontally by the farthest the pushing can have
+ * moved the two characters apart or together since then. A query therefore
+ * never misses a frame in which the attack hits, but may report a hit which
+ * the pushing prevents, or report it earlier than it happens.<br>
+ * The tables assume that the attacker starts at rest and does not turn around
+ * or get hit, and that the opponent does not move by itself. They are meant
+ * for discarding actions which cannot hit before simulating the remaining
+ * ones.
+ *
+ * @see GameData#getAttackReachTable(boolean)
+ */
+public class AttackReachTable {
+
+	/**
+	 * The maximum number of frames recorded for an action.
+	 */
+	private static final int MAX_FRAME_NUMBER = 600;
+
+	/**
+	 * The distance each character is moved in a frame when the hit areas of
+	 * the characters overlap.
+	 *
+	 * @see fighting.Fighting#detectionFusion()
+	 */
+	private static final int FUSION_DISTANCE = 2;
+
+	/**
+	 * The index of the first recorded hit area of each action, indexed by the
+	 * ordinal of the action. The hit areas of an action end at the index of
+	 * the next action.
+	 */
+	private int[] areaStarts;
+
+	/**
+	 * The frame in which each recorded hit area is checked against the
+	 * opponent, counted from the frame in which the action is started.
+	 */
+	private int[] areaFrames;
+
+	/**
+	 * The left edges of the recorded hit areas.
+	 */
+	private int[] areaLefts;
+
+	/**
+	 * The right edges of the recorded hit areas.
+	 */
+	private int[] areaRights;
+
+	/**
+	 * The top edges of the recorded hit areas.
+	 */
+	private int[] areaTops;
+
+	/**
+	 * The bottom edges of the recorded hit areas.
+	 */
+	private int[] areaBottoms;
+
+	/**
+	 * The lowest position of the bottom of the attacker's hit area in an
+	 * aerial action before each recorded hit area, which ends the attack if it
+	 * reaches the ground first. {@code Integer.MIN_VALUE} if the attack does
+	 * not end on landing.
+	 */
+	private int[] areaDrops;
+
+	/**
+	 * The center of the hit area of the attacker's body at the start of each
+	 * action, indexed by the ordinal of the action.
+	 */
+	private int[] originXs;
+
+	/**
+	 * The bottom of the hit area of the attacker's body at the start of each
+	 * action, indexed by the ordinal of the action.
+	 */
+	private int[] originYs;
+
+	/**
+	 * The index of the first recorded frame of the attacker's body of each
+	 * action, indexed by the ordinal of the action. The frames of an action
+	 * end at the index of the next action, and the n-th one is the frame
+	 * counted from the frame in which the action is started.
+	 */
+	private int[] stepStarts;
+
+	/**
+	 * The left edge of the hit area of the attacker's body after each frame,
+	 * against which the opponent is pushed. {@code Integer.MIN_VALUE} if the
+	 * action has ended and the hit area is unknown.
+	 */
+	private int[] stepLefts;
+
+	/**
+	 * The right edge of the hit area of the attacker's body after each frame.
+	 * {@code Integer.MAX_VALUE} if the action has ended and the hit area is
+	 * unknown.
+	 */
+	private int[] stepRights;
+
+	/**
+	 * The farthest the pushing can have moved the characters relative to each
+	 * other in all the frames before each frame.
+	 */
+	private int[] stepShifts;
+
+	/**
+	 * The number of the hit areas recorded so far.
+	 */
+	private int areaNumber;
+
+	/**
+	 * The number of the frames of the attacker's body recorded so far.
+	 */
+	private int stepNumber;
+
+	/**
+	 * The class constructor that creates the table of a character from the
+	 * motion data of the character.
+	 *
+	 * @param motions
+	 *            the motion data of the character in the order of
+	 *            {@link Action#values()}
+	 *
+	 * @see GameData#getMotionData(boolean)
+	 */
+	public AttackReachTable(List<MotionData> motions) {
+		this.areaStarts = new int[motions.size() + 1];
+		this.areaFrames = new int[64];
+		this.areaLefts = new int[64];
+		this.areaRights = new int[64];
+		this.areaTops = new int[64];
+		this.areaBottoms = new int[64];
+		this.areaDrops = new int[64];
+		this.originXs = new int[motions.size()];
+		this.originYs = new int[motions.size()];
+		this.stepStarts = new int[motions.size() + 1];
+		this.stepLefts = new int[64];
+		this.stepRights = new int[64];
+		this.stepShifts = new int[64];
+
+		for (int i = 0; i < motions.size(); i++) {
+			HitArea body = motions.get(i).getCharacterHitArea();
+			this.originXs[i] = (body.getLeft() + body.getRight()) / 2;
+			this.originYs[i] = body.getBottom();
+			this.areaStarts[i] = this.areaNumber;
+			this.stepStarts[i] = this.stepNumber;
+			recordAttack(motions.get(i));
+		}
+		this.areaStarts[motions.size()] = this.areaNumber;
+		this.stepStarts[motions.size()] = this.stepNumber;
+
+		this.areaFrames = Arrays.copyOf(this.areaFrames, this.areaNumber);
+		this.areaLefts = Arrays.copyOf(this.areaLefts, this.areaNumber);
+		this.areaRights = Arrays.copyOf(this.areaRights, this.areaNumber);
+		this.areaTops = Arrays.copyOf(this.areaTops, this.areaNumber);
+		this.areaBottoms = Arrays.copyOf(this.areaBottoms, this.areaNumber);
+		this.areaDrops = Arrays.copyOf(this.areaDrops, this.areaNumber);
+		this.stepLefts = Arrays.copyOf(this.stepLefts, this.stepNumber);
+		this.stepRights = Arrays.copyOf(this.stepRights, this.stepNumber);
+		this.stepShifts = Arrays.copyOf(this.stepShifts, this.stepNumber);
+	}
+
+	/**
+	 * Plays the motion from the start and records the hit areas of its attack
+	 * in the frames in which they are checked against the opponent, together
+	 * with the hit area of the attacker's body after every frame.
+	 *
+	 * @param motion
+	 *            the motion data of the action
+	 */
+	private void recordAttack(MotionData motion) {
+		int startUp = motion.getAttackStartUp();
+		int active = motion.getAttackActive();
+		if (startUp <= 0 || active <= 0) {
+			return;
+		}
+
+		HitArea body = motion.getCharacterHitArea();
+		HitArea attackArea = motion.getAttackHitArea();
+		boolean projectile = motion.getAttackSpeedX() + motion.getAttackSpeedY() != 0;
+
+		// an aerial action is played without the ground and the ceiling from
+		// the graphic position (0, 0), and the other actions from the ground
+		boolean grounded = motion.getState() != State.AIR;
+		int groundY = GameSetting.STAGE_HEIGHT - body.getBottom();
+		int originY = grounded ? groundY : 0;
+		int x = 0;
+		int y = originY;
+		int speedX = motion.getSpeedX();
+		int speedY = motion.getSpeedY();
+		int remainingFrame = motion.getFrameNumber();
+		boolean acting = true;
+		boolean landing = !grounded && motion.isLandingFlag();
+		int maxDrop = y + body.getBottom();
+		int shift = 0;
+
+		boolean attacking = false;
+		int attackDrop = 0;
+		int attackFrame = 0;
+		int left = 0;
+		int right = 0;
+		int top = 0;
+		int bottom = 0;
+
+		for (int frame = 0; frame < MAX_FRAME_NUMBER && (acting || attacking); frame++) {
+			// the hit detection uses the hit area updated in the previous frame
+			if (attacking) {
+				int drop = landing ? (projectile ? attackDrop : maxDrop) : Integer.MIN_VALUE;
+				addArea(frame, left, right, top - originY, bottom - originY, drop);
+			}
+
+			// the update of the attack
+			if (attacking) {
+				if (projectile) {
+					left += motion.getAttackSpeedX();
+					right += motion.getAttackSpeedX();
+					top += motion.getAttackSpeedY();
+					bottom += motion.getAttackSpeedY();
+				} else {
+					left = x + attackArea.getLeft();
+					right = x + attackArea.getRight();
+					top = y + attackArea.getTop();
+					bottom = y + attackArea.getBottom();
+				}
+				attacking = ++attackFrame <= active;
+			}
+
+			// the character keeps its speed after the action ends
+			int moveSpeed = Math.abs(speedX);
+
+			// the update of the character
+			if (acting) {
+				x += speedX;
+				y += speedY;
+				maxDrop = Math.max(maxDrop, y + body.getBottom());
+
+				boolean onGround = grounded && y >= groundY;
+				if (onGround) {
+					speedX -= Integer.signum(speedX) * GameSetting.FRICTION;
+					speedY = 0;
+				} else if (grounded && y + body.getTop() <= 0) {
+					speedY = GameSetting.GRAVITY;
+				} else {
+					speedY += GameSetting.GRAVITY;
+				}
+
+				if (onGround) {
+					// landing changes the action, which removes the attack
+					if (motion.isLandingFlag()) {
+						acting = false;
+					}
+					y = groundY;
+				}
+
+				if (acting && --remainingFrame <= 0) {
+					acting = false;
+				}
+
+				if (!acting) {
+					attacking = attacking && projectile;
+				} else if (remainingFrame == motion.getFrameNumber() - startUp) {
+					attacking = true;
+					attackFrame = 0;
+					attackDrop = maxDrop;
+					left = x + attackArea.getLeft();
+					right = x + attackArea.getRight();
+					top = y + attackArea.getTop();
+					bottom = y + attackArea.getBottom();
+				}
+			}
+
+			// the characters are pushed after the update, when the attacker
+			// has taken the next action if this one has ended
+			if (acting) {
+				addStep(x + body.getLeft(), x + body.getRight(), shift);
+			} else {
+				addStep(Integer.MIN_VALUE, Integer.MAX_VALUE, shift);
+			}
+
+			// in a frame, the opponent is carried along by the attacker or
+			// pushed back to a stage edge, and the attacker is stopped at a
+			// stage edge, while both are pushed apart when they overlap
+			shift += 2 * (moveSpeed + FUSION_DISTANCE);
+		}
+	}
+
+	/**
+	 * Adds a hit area to the table, expanding the arrays if necessary.
+	 *
+	 * @param frame
+	 *            the frame in which the hit area is checked
+	 * @param left
+	 *            the left edge of the hit area
+	 * @param right
+	 *            the right edge of the hit area
+	 * @param top
+	 *            the top edge of the hit area
+	 * @param bottom
+	 *            the bottom edge of the hit area
+	 * @param drop
+	 *            the lowest position of the bottom of the attacker's hit area
+	 *            before the hit area, or {@code Integer.MIN_VALUE} if landing
+	 *            does not end the attack
+	 */
+	private void addArea(int frame, int left, int right, int top, int bottom, int drop) {
+		if (this.areaNumber == this.areaFrames.length) {
+			int capacity = this.areaNumber * 2;
+			this.areaFrames = Arrays.copyOf(this.areaFrames, capacity);
+			this.areaLefts = Arrays.copyOf(this.areaLefts, capacity);
+			this.areaRights = Arrays.copyOf(this.areaRights, capacity);
+			this.areaTops = Arrays.copyOf(this.areaTops, capacity);
+			this.areaBottoms = Arrays.copyOf(this.areaBottoms, capacity);
+			this.areaDrops = Arrays.copyOf(this.areaDrops, capacity);
+		}
+
+		this.areaFrames[this.areaNumber] = frame;
+		this.areaLefts[this.areaNumber] = left;
+		this.areaRights[this.areaNumber] = right;
+		this.areaTops[this.areaNumber] = top;
+		this.areaBottoms[this.areaNumber] = bottom;
+		this.areaDrops[this.areaNumber] = drop;
+		this.areaNumber++;
+	}
+
+	/**
+	 * Adds the hit area of the attacker's body after a frame to the table,
+	 * expanding the arrays if necessary.
+	 *
+	 * @param left
+	 *            the left edge of the hit area
+	 * @param right
+	 *            the right edge of the hit area
+	 * @param shift
+	 *            the farthest the pushing can have moved the characters
+	 *            relative to each other before the frame
+	 */
+	private void addStep(int left, int right, int shift) {
+		if (this.stepNumber == this.stepLefts.length) {
+			int capacity = this.stepNumber * 2;
+			this.stepLefts = Arrays.copyOf(this.stepLefts, capacity);
+			this.stepRights = Arrays.copyOf(this.stepRights, capacity);
+			this.stepShifts = Arrays.copyOf(this.stepShifts, capacity);
+		}
+
+		this.stepLefts[this.stepNumber] = left;
+		this.stepRights[this.stepNumber] = right;
+		this.stepShifts[this.stepNumber] = shift;
+		this.stepNumber++;
+	}
+
+	/**
+	 * Returns the first frame in which the action started now by the attacker
+	 * can hit the opponent, within the specified number of frames.<br>
+	 * Frames are counted from the frame in which the action is started.
+	 *
+	 * @param action
+	 *            the action started by the attacker
+	 * @param attacker
+	 *            the state of the character starting the action
+	 * @param opponent
+	 *            the state of the opponent
+	 * @param frames
+	 *            the number of frames to look ahead
+	 * @return the first frame in which the attack can hit the opponent, or -1
+	 *         if it cannot hit within the frames
+	 */
+	public int getHitFrame(Action action, CharacterData attacker, CharacterData opponent, int frames) {
+		if (opponent.getState() == State.DOWN) {
+			return -1;
+		}
+
+		// the game places the hit areas from the graphic position, which the
+		// center and the bottom of the current action's hit area do not give
+		@SuppressWarnings("deprecation")
+		int x = attacker.getX();
+		@SuppressWarnings("deprecation")
+		int y = attacker.getY();
+
+		int top = opponent.getTop() - y;
+		int bottom = opponent.getBottom() - y;
+		int height = GameSetting.STAGE_HEIGHT - y;
+		if (attacker.isFront()) {
+			return findHitFrame(action.ordinal(), opponent.getLeft() - x, opponent.getRight() - x, top, bottom, height,
+					-x, GameSetting.STAGE_WIDTH - x, frames);
+		} else {
+			int anchor = x + attacker.getGraphicSizeX();
+			return findHitFrame(action.ordinal(), anchor - opponent.getRight(), anchor - opponent.getLeft(), top,
+					bottom, height, anchor - GameSetting.STAGE_WIDTH, anchor, frames);
+		}
+	}
+
+	/**
+	 * Returns the first frame in which the action started now can hit an
+	 * opponent at the specified distance, within the specified number of
+	 * frames.<br>
+	 * Since the height of the attacker and the stage edges are not given, an
+	 * aerial action is assumed not to land before its attack ends, and the
+	 * attacker is assumed to stay inside the stage.
+	 *
+	 * @param action
+	 *            the action started by the attacker
+	 * @param dx
+	 *            the horizontal distance from the center of the attacker's hit
+	 *            area to the center of the opponent's hit area, positive in
+	 *            front of the attacker
+	 * @param dy
+	 *            the vertical distance from the bottom of the attacker's hit
+	 *            area to the bottom of the opponent's hit area, positive
+	 *            downwards
+	 * @param width
+	 *            the width of the opponent's hit area
+	 * @param height
+	 *            the height of the opponent's hit area
+	 * @param frames
+	 *            the number of frames to look ahead
+	 * @return the first frame in which the attack can hit the opponent, or -1
+	 *         if it cannot hit within the frames
+	 */
+	public int getHitFrame(Action action, int dx, int dy, int width, int height, int frames) {
+		int ordinal = action.ordinal();
+		int left = this.originXs[ordinal] + dx - width / 2;
+		int bottom = this.originYs[ordinal] + dy;
+		return findHitFrame(ordinal, left, left + width, bottom - height, bottom, Integer.MAX_VALUE,
+				Integer.MIN_VALUE, Integer.MAX_VALUE, frames);
+	}
+
+	/**
+	 * Returns whether the action started now by the attacker can hit the
+	 * opponent within the specified number of frames.
+	 *
+	 * @param action
+	 *            the action started by the attacker
+	 * @param attacker
+	 *            the state of the character starting the action
+	 * @param opponent
+	 *            the state of the opponent
+	 * @param frames
+	 *            the number of frames to look ahead
+	 * @return {@code true} if the attack can hit the opponent, {@code false}
+	 *         otherwise
+	 */
+	public boolean canHit(Action action, CharacterData attacker, CharacterData opponent, int frames) {
+		return getHitFrame(action, attacker, opponent, frames) >= 0;
+	}
+
+	/**
+	 * Returns the set of the actions which can hit the opponent within the
+	 * specified number of frames if the attacker starts them now, as a
+	 * bitmask in the same format as {@link LegalActionTable}.<br>
+	 * Combined with {@link LegalActionTable#getLegalActions(CharacterData)},
+	 * it tells which actions threaten the opponent in the current state.
+	 *
+	 * @param attacker
+	 *            the state of the character starting the actions
+	 * @param opponent
+	 *            the state of the opponent
+	 * @param frames
+	 *            the number of frames to look ahead
+	 * @return the bitmask of the actions which can hit the opponent
+	 */
+	public long getHitActions(CharacterData attacker, CharacterData opponent, int frames) {
+		long actions = 0;
+		Action[] values = Action.values();
+		for (int i = 0; i < this.areaStarts.length - 1; i++) {
+			if (this.areaStarts[i] != this.areaStarts[i + 1] && canHit(values[i], attacker, opponent, frames)) {
+				actions |= 1L << i;
+			}
+		}
+		return actions;
+	}
+
+	/**
+	 * Returns the farthest distance in front of the center of the attacker's
+	 * hit area that the attack of the action reaches.
+	 *
+	 * @param action
+	 *            the action
+	 * @return the reach of the attack, or {@code Integer.MIN_VALUE} if the
+	 *         action has no attack
+	 */
+	public int getReach(Action action) {
+		int ordinal = action.ordinal();
+		int reach = Integer.MIN_VALUE;
+		for (int i = this.areaStarts[ordinal]; i < this.areaStarts[ordinal + 1]; i++) {
+			reach = Math.max(reach, this.areaRights[i] - this.originXs[ordinal]);
+		}
+		return reach;
+	}
+
+	/**
+	 * Returns the first frame in which the attack of the action is checked
+	 * against the opponent, counted from the frame in which the action is
+	 * started.
+	 *
+	 * @param action
+	 *            the action
+	 * @return the first frame of the attack, or -1 if the action has no attack
+	 */
+	public int getFirstHitFrame(Action action) {
+		int index = this.areaStarts[action.ordinal()];
+		return index < this.areaStarts[action.ordinal() + 1] ? this.areaFrames[index] : -1;
+	}
+
+	/**
+	 * Returns the first frame in which a recorded hit area of the action,
+	 * widened by the pushing since the first frame in which the attacker's
+	 * body can touch the opponent or leave the stage, overlaps the specified
+	 * area of the opponent.<br>
+	 * The positions are relative to the graphic position of the attacker at
+	 * the start of the action, with the x-axis pointing to its front.
+	 *
+	 * @param ordinal
+	 *            the ordinal of the action
+	 * @param left
+	 *            the left edge of the opponent's hit area
+	 * @param right
+	 *            the right edge of the opponent's hit area
+	 * @param top
+	 *            the top edge of the opponent's hit area
+	 * @param bottom
+	 *            the bottom edge of the opponent's hit area
+	 * @param height
+	 *            the position of the ground
+	 * @param backLimit
+	 *            the position of the stage edge behind the attacker
+	 * @param frontLimit
+	 *            the position of the stage edge in front of the attacker
+	 * @param frames
+	 *            the number of frames to look ahead
+	 * @return the first frame in which the areas overlap, or -1 if they do
+	 *         not overlap within the frames
+	 */
+	private int findHitFrame(int ordinal, int left, int right, int top, int bottom, int height, int backLimit,
+			int frontLimit, int frames) {
+		int start = this.areaStarts[ordinal];
+		int end = this.areaStarts[ordinal + 1];
+		if (start == end) {
+			return -1;
+		}
+
+		// the pushing starts in the frame after the bodies first touch
+		int step = this.stepStarts[ordinal];
+		int steps = Math.min(this.stepStarts[ordinal + 1] - step, frames);
+		int disturbed = steps;
+		for (int i = 0; i < steps; i++) {
+			int stepLeft = this.stepLefts[step + i];
+			int stepRight = this.stepRights[step + i];
+			if ((stepLeft <= right && stepRight >= left) || stepLeft < backLimit || stepRight > frontLimit) {
+				disturbed = i;
+				break;
+			}
+		}
+
+		for (int i = start; i < end && this.areaFrames[i] <= frames; i++) {
+			int frame = this.areaFrames[i];
+			int shift = frame > disturbed ? this.stepShifts[step + frame] - this.stepShifts[step + disturbed] : 0;
+			if (left <= this.areaRights[i] + shift && right >= this.areaLefts[i] - shift
+					&& top <= this.areaBottoms[i] && bottom >= this.areaTops[i] && this.areaDrops[i] < height) {
+				return frame;
+			}
+		}
+		return -1;
+	}
+}
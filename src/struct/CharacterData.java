@@ -143,10 +143,10 @@ public class CharacterData {
 	private Deque<Key> inputCommands;
 
 	/**
-	 * The list storing up to 30 keys that the character executed in the
-	 * simulator.
+	 * The history storing up to 30 keys that the character executed in the
+	 * simulator, each of which is represented as a bitmask.
 	 */
-	private Deque<Key> processedCommands;
+	private KeyHistory processedCommands;
 
 	/**
 	 * The class constructor that acquires information on the character from an
@@ -181,7 +181,37 @@ public class CharacterData {
 		this.hitCount = character.getHitCount();
 		this.lastHitFrame = character.getLastHitFrame();
 		this.inputCommands = character.getInputCommand();
-		this.processedCommands = character.getProcessedCommand();
+		this.processedCommands = new KeyHistory(character.getProcessedKeyHistory());
+	}
+
+	/**
+	 * The class constructor that creates an instance of the CharacterData
+	 * class with the values which have no setter.<br>
+	 * The other values are set with the setters afterwards.
+	 *
+	 * @param playerNumber
+	 *            the character's side flag
+	 * @param graphicSizeX
+	 *            the character's graphic width
+	 * @param graphicSizeY
+	 *            the character's graphic height
+	 * @param graphicAdjustX
+	 *            the amount of movement in the horizontal direction used to
+	 *            adjust the x coordinate when determining the direction of the
+	 *            character
+	 *
+	 * @see FrameSnapshot
+	 */
+	CharacterData(boolean playerNumber, int graphicSizeX, int graphicSizeY, int graphicAdjustX) {
+		this.playerNumber = playerNumber;
+		this.graphicSizeX = graphicSizeX;
+		this.graphicSizeY = graphicSizeY;
+		this.graphicAdjustX = graphicAdjustX;
+		this.state = State.STAND;
+		this.action = Action.NEUTRAL;
+		this.attackData = new AttackData();
+		this.inputCommands = new LinkedList<Key>();
+		this.processedCommands = new KeyHistory();
 	}
 
 	/**
@@ -216,7 +246,7 @@ public class CharacterData {
 		this.hitCount = characterData.getHitCount();
 		this.lastHitFrame = characterData.getLastHitFrame();
 		this.inputCommands = characterData.getInputCommand();
-		this.processedCommands = characterData.getProcessedCommand();
+		this.processedCommands = new KeyHistory(characterData.getProcessedKeyHistory());
 	}
 
 	/**
@@ -496,12 +526,22 @@ public class CharacterData {
 	 *         simulator
 	 */
 	public Deque<Key> getProcessedCommand() {
-		LinkedList<Key> temp = new LinkedList<Key>();
-		for (Key key : this.processedCommands) {
-			temp.add(key);
-		}
+		return this.processedCommands.toDeque();
+	}
 
-		return temp;
+	/**
+	 * Returns the history storing up to 30 keys that the character executed in
+	 * the simulator.<br>
+	 * The returned history is the one held by this instance, so it must not be
+	 * modified. This method is used by the engine and the simulator to copy the
+	 * history without converting it to keys, and is not meant for AI
+	 * development.
+	 *
+	 * @return the history storing up to 30 keys that the character executed in
+	 *         the simulator
+	 */
+	public KeyHistory getProcessedKeyHistory() {
+		return this.processedCommands;
 	}
 
 	/**
@@ -737,7 +777,20 @@ public class CharacterData {
 	 *            the simulator
 	 */
 	public void setProcessedCommand(Deque<Key> inputCommand) {
-		this.processedCommands = new LinkedList<Key>(inputCommand);
+		this.processedCommands = new KeyHistory(inputCommand);
+	}
+
+	/**
+	 * Sets a history storing up to 30 keys that the character executed in the
+	 * simulator. The history is copied.<br>
+	 * This method is used by the simulator and is not meant for AI development.
+	 *
+	 * @param history
+	 *            a history storing up to 30 keys that the character executed
+	 *            in the simulator
+	 */
+	public void setProcessedCommand(KeyHistory history) {
+		this.processedCommands = new KeyHistory(history);
 	}
 
 }
\ No newline at end of file
@@ -244,6 +244,19 @@ public class FrameData {
 		return this.emptyFlag;
 	}
 
+	/**
+	 * Returns all the information of this frame data packed into a byte array
+	 * of little-endian 32-bit integers.<br>
+	 * Python AIs can use this method to get the whole frame with a single call
+	 * through the py4j gateway, instead of calling a getter for every value.
+	 * The layout is described in {@link FrameSnapshot#toByteArray()}.
+	 *
+	 * @return the information of this frame data as a byte array
+	 */
+	public byte[] toByteArray() {
+		return new FrameSnapshot(this).toByteArray();
+	}
+
 	/**
 	 * Returns the horizontal distance between P1 and P2.
 	 *
@@ -0,0 +1,1135 @@
+package struct;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import enumerate.Action;
+import enumerate.State;
+import fighting.Character;
+import fighting.LoopEffect;
+import setting.GameSetting;
+
+/**
+ * The class holding the same information as {@link FrameData} packed into a
+ * single int array.<br>
+ * Both characters, their attacks, the projectiles and the input histories are
+ * stored as primitive values, so that copying a snapshot costs one array copy
+ * instead of copying every CharacterData, AttackData and Key instance. It is
+ * intended for search AIs which copy and restore a game state many times per
+ * frame, and can be passed to the simulator directly.
+ *
+ * @see FrameData
+ * @see simulator.Simulator#simulate(FrameSnapshot, boolean, Deque, Deque, int)
+ */
+public class FrameSnapshot {
+
+	/**
+	 * The index of the current frame number.
+	 */
+	private static final int FRAME_NUMBER = 0;
+
+	/**
+	 * The index of the current round number.
+	 */
+	private static final int ROUND = 1;
+
+	/**
+	 * The index of the flag showing whether the frame data is empty.
+	 */
+	private static final int EMPTY_FLAG = 2;
+
+	/**
+	 * The index of the number of projectiles.
+	 */
+	private static final int PROJECTILE_NUMBER = 3;
+
+	/**
+	 * The number of elements of the header.
+	 */
+	private static final int HEADER_SIZE = 4;
+
+	/**
+	 * The offsets of the values of an attack, relative to the beginning of the
+	 * attack.
+	 */
+	private static final int ATTACK_SETTING_HIT_AREA = 0, ATTACK_SETTING_SPEED_X = 4, ATTACK_SETTING_SPEED_Y = 5,
+			ATTACK_CURRENT_HIT_AREA = 6, ATTACK_CURRENT_FRAME = 10, ATTACK_FLAGS = 11, ATTACK_SPEED_X = 12,
+			ATTACK_SPEED_Y = 13, ATTACK_START_UP = 14, ATTACK_ACTIVE = 15, ATTACK_HIT_DAMAGE = 16,
+			ATTACK_GUARD_DAMAGE = 17, ATTACK_START_ADD_ENERGY = 18, ATTACK_HIT_ADD_ENERGY = 19,
+			ATTACK_GUARD_ADD_ENERGY = 20, ATTACK_GIVE_ENERGY = 21, ATTACK_IMPACT_X = 22, ATTACK_IMPACT_Y = 23,
+			ATTACK_GIVE_GUARD_RECOV = 24, ATTACK_TYPE = 25;
+
+	/**
+	 * The number of elements of an attack.
+	 */
+	private static final int ATTACK_SIZE = 26;
+
+	/**
+	 * The offsets of the values of a character, relative to the beginning of
+	 * the character.
+	 */
+	private static final int CHARACTER_FLAGS = 0, HP = 1, ENERGY = 2, X = 3, Y = 4, LEFT = 5, RIGHT = 6, TOP = 7,
+			BOTTOM = 8, SPEED_X = 9, SPEED_Y = 10, STATE = 11, ACTION = 12, REMAINING_FRAME = 13,
+			GRAPHIC_SIZE_X = 14, GRAPHIC_SIZE_Y = 15, GRAPHIC_ADJUST_X = 16, HIT_COUNT = 17, LAST_HIT_FRAME = 18,
+			CHARACTER_ATTACK = 19;
+
+	/**
+	 * The number of elements of a character including its attack.
+	 */
+	private static final int CHARACTER_SIZE = CHARACTER_ATTACK + ATTACK_SIZE;
+
+	/**
+	 * The bits of the flags of a character and an attack.
+	 */
+	private static final int PLAYER_NUMBER_BIT = 1, FRONT_BIT = 2, CONTROL_BIT = 4, HIT_CONFIRM_BIT = 8,
+			ATTACK_BIT = 16, DOWN_PROP_BIT = 2, PROJECTILE_BIT = 4;
+
+	/**
+	 * All the states, indexed by their ordinals. {@link State#values()} copies
+	 * the array on every call.
+	 */
+	private static final State[] STATES = State.values();
+
+	/**
+	 * All the actions, indexed by their ordinals. {@link Action#values()}
+	 * copies the array on every call.
+	 */
+	private static final Action[] ACTIONS = Action.values();
+
+	/**
+	 * The array storing all the values.<br>
+	 * The layout is the header, P1, P2, the projectiles, and then the input
+	 * commands and the processed commands of P1 and P2, each of which begins
+	 * with its number of keys.
+	 */
+	private int[] data;
+
+	/**
+	 * The class constructor that packs the information of the frame data
+	 * passed as the argument.
+	 *
+	 * @param frameData
+	 *            an instance of the FrameData class
+	 */
+	@SuppressWarnings("deprecation")
+	public FrameSnapshot(FrameData frameData) {
+		CharacterData[] characters = { frameData.getCharacter(true), frameData.getCharacter(false) };
+		Deque<AttackData> projectiles = frameData.getProjectiles();
+
+		if (characters[0] == null || characters[1] == null) {
+			this.data = new int[HEADER_SIZE];
+			writeHeader(frameData.getFramesNumber(), frameData.getRound(), 0);
+			this.data[EMPTY_FLAG] = 1;
+			return;
+		}
+
+		Deque<Key> p1Input = characters[0].getInputCommand();
+		KeyHistory p1Processed = characters[0].getProcessedKeyHistory();
+		Deque<Key> p2Input = characters[1].getInputCommand();
+		KeyHistory p2Processed = characters[1].getProcessedKeyHistory();
+
+		this.data = new int[HEADER_SIZE + CHARACTER_SIZE * 2 + ATTACK_SIZE * projectiles.size() + 4 + p1Input.size()
+				+ p1Processed.size() + p2Input.size() + p2Processed.size()];
+		writeHeader(frameData.getFramesNumber(), frameData.getRound(), projectiles.size());
+		this.data[EMPTY_FLAG] = frameData.getEmptyFlag() ? 1 : 0;
+
+		for (int i = 0; i < 2; i++) {
+			CharacterData character = characters[i];
+			int offset = getCharacterOffset(i == 0);
+
+			this.data[offset + CHARACTER_FLAGS] = toFlags(character.isPlayerNumber(), character.isFront(),
+					character.isControl(), character.isHitConfirm()) | ATTACK_BIT;
+			this.data[offset + HP] = character.getHp();
+			this.data[offset + ENERGY] = character.getEnergy();
+			this.data[offset + X] = character.getX();
+			this.data[offset + Y] = character.getY();
+			this.data[offset + LEFT] = character.getLeft();
+			this.data[offset + RIGHT] = character.getRight();
+			this.data[offset + TOP] = character.getTop();
+			this.data[offset + BOTTOM] = character.getBottom();
+			this.data[offset + SPEED_X] = character.getSpeedX();
+			this.data[offset + SPEED_Y] = character.getSpeedY();
+			this.data[offset + STATE] = character.getState().ordinal();
+			this.data[offset + ACTION] = character.getAction().ordinal();
+			this.data[offset + REMAINING_FRAME] = character.getRemainingFrame();
+			this.data[offset + GRAPHIC_SIZE_X] = character.getGraphicSizeX();
+			this.data[offset + GRAPHIC_SIZE_Y] = character.getGraphicSizeY();
+			this.data[offset + GRAPHIC_ADJUST_X] = character.getGraphicAdjustX();
+			this.data[offset + HIT_COUNT] = character.getHitCount();
+			this.data[offset + LAST_HIT_FRAME] = character.getLastHitFrame();
+			writeAttack(offset + CHARACTER_ATTACK, character.getAttack());
+		}
+
+		int offset = getCharacterOffset(false) + CHARACTER_SIZE;
+		for (AttackData projectile : projectiles) {
+			writeAttack(offset, projectile);
+			offset += ATTACK_SIZE;
+		}
+
+		offset = writeKeys(offset, p1Input);
+		offset = writeKeys(offset, p1Processed);
+		offset = writeKeys(offset, p2Input);
+		writeKeys(offset, p2Processed);
+	}
+
+	/**
+	 * The class constructor that packs the state of the characters and the
+	 * projectiles in the simulator.<br>
+	 * This constructor is used only for processing of the simulator.
+	 *
+	 * @param characters
+	 *            the characters of P1 and P2
+	 * @param processedCommands
+	 *            the histories storing the keys that P1 and P2 executed in the
+	 *            simulator
+	 * @param projectiles
+	 *            the projectiles of both characters
+	 * @param currentFrame
+	 *            the frame number of the current frame
+	 * @param currentRound
+	 *            the round number of the current round
+	 */
+	public FrameSnapshot(Character[] characters, List<KeyHistory> processedCommands, Deque<LoopEffect> projectiles,
+			int currentFrame, int currentRound) {
+		this.data = new int[HEADER_SIZE + CHARACTER_SIZE * 2 + ATTACK_SIZE * projectiles.size() + 4
+				+ characters[0].getInputCommandSize() + processedCommands.get(0).size()
+				+ characters[1].getInputCommandSize() + processedCommands.get(1).size()];
+		writeHeader(currentFrame, currentRound, projectiles.size());
+
+		for (int i = 0; i < 2; i++) {
+			Character character = characters[i];
+			int offset = getCharacterOffset(i == 0);
+
+			this.data[offset + CHARACTER_FLAGS] = toFlags(character.isPlayerNumber(), character.isFront(),
+					character.isControl(), character.isHitConfirm())
+					| (character.getAttack() != null ? ATTACK_BIT : 0);
+			this.data[offset + HP] = character.getHp();
+			this.data[offset + ENERGY] = character.getEnergy();
+			this.data[offset + X] = character.getX();
+			this.data[offset + Y] = character.getY();
+			this.data[offset + LEFT] = character.getHitAreaLeft();
+			this.data[offset + RIGHT] = character.getHitAreaRight();
+			this.data[offset + TOP] = character.getHitAreaTop();
+			this.data[offset + BOTTOM] = character.getHitAreaBottom();
+			this.data[offset + SPEED_X] = character.getSpeedX();
+			this.data[offset + SPEED_Y] = character.getSpeedY();
+			this.data[offset + STATE] = character.getState().ordinal();
+			this.data[offset + ACTION] = character.getAction().ordinal();
+			this.data[offset + REMAINING_FRAME] = character.getRemainingFrame();
+			this.data[offset + GRAPHIC_SIZE_X] = character.getGraphicSizeX();
+			this.data[offset + GRAPHIC_SIZE_Y] = character.getGraphicSizeY();
+			this.data[offset + GRAPHIC_ADJUST_X] = character.getGraphicAdjustX();
+			this.data[offset + HIT_COUNT] = character.getHitCount();
+			this.data[offset + LAST_HIT_FRAME] = character.getLastHitFrame();
+			writeAttack(offset + CHARACTER_ATTACK, new AttackData(character.getAttack()));
+		}
+
+		int offset = getCharacterOffset(false) + CHARACTER_SIZE;
+		for (LoopEffect projectile : projectiles) {
+			writeAttack(offset, new AttackData(projectile.getAttack()));
+			offset += ATTACK_SIZE;
+		}
+
+		offset = writeKeys(offset, characters[0]);
+		offset = writeKeys(offset, processedCommands.get(0));
+		offset = writeKeys(offset, characters[1]);
+		writeKeys(offset, processedCommands.get(1));
+	}
+
+	/**
+	 * The copy constructor that creates a copy of an instance of the
+	 * FrameSnapshot class with a single array copy.
+	 *
+	 * @param snapshot
+	 *            an instance of the FrameSnapshot class
+	 */
+	public FrameSnapshot(FrameSnapshot snapshot) {
+		this.data = snapshot.data.clone();
+	}
+
+	/**
+	 * The class constructor that reads a snapshot written by
+	 * {@link #write(DataOutput)} from the current position of the buffer.
+	 *
+	 * @param buffer
+	 *            the buffer holding the values of the snapshot
+	 * @param size
+	 *            the number of the values, which is the value returned by
+	 *            {@link #getSize()} when the snapshot was written
+	 */
+	public FrameSnapshot(IntBuffer buffer, int size) {
+		this.data = new int[size];
+		buffer.get(this.data);
+	}
+
+	/**
+	 * Writes all the values of this snapshot to the output.<br>
+	 * The snapshot can be read again with
+	 * {@link #FrameSnapshot(IntBuffer, int)}.
+	 *
+	 * @param output
+	 *            the output to which the values are written
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(DataOutput output) throws IOException {
+		for (int value : this.data) {
+			output.writeInt(value);
+		}
+	}
+
+	/**
+	 * Returns all the values of this snapshot as little-endian 32-bit integers.
+	 * <br>
+	 * Python AIs can fetch the whole frame with a single call through the py4j
+	 * gateway and decode it with
+	 * {@code numpy.frombuffer(data, dtype='<i4')}. The layout of the integers
+	 * is as follows, where the offsets of a character and an attack are
+	 * relative to their beginning:
+	 *
+	 * <pre>
+	 * header      0: frame number, 1: round, 2: empty flag (1 if empty),
+	 *             3: number of projectiles
+	 *             (an empty snapshot consists of the header only)
+	 * P1          4 ..  48 (character)
+	 * P2         49 ..  93 (character)
+	 * projectiles 94 .. (attack x number of projectiles)
+	 * keys        input commands of P1, processed commands of P1,
+	 *             input commands of P2, processed commands of P2,
+	 *             each of which is the number of keys followed by the keys
+	 *             (bits 1: A, 2: B, 4: C, 8: D, 16: L, 32: R, 64: U)
+	 *
+	 * character   0: flags (bits 1: P1, 2: front, 4: control,
+	 *                8: hit confirm, 16: has attack), 1: hp, 2: energy,
+	 *             3: x, 4: y, 5: left, 6: right, 7: top, 8: bottom,
+	 *             9: speed x, 10: speed y, 11: state ordinal,
+	 *             12: action ordinal, 13: remaining frame,
+	 *             14: graphic size x, 15: graphic size y,
+	 *             16: graphic adjust x, 17: hit count, 18: last hit frame,
+	 *             19 .. 44: attack
+	 * attack      0 .. 3: setting hit area (left, right, top, bottom),
+	 *             4: setting speed x, 5: setting speed y,
+	 *             6 .. 9: current hit area (left, right, top, bottom),
+	 *             10: current frame, 11: flags (bits 1: P1, 2: down,
+	 *             4: projectile), 12: speed x, 13: speed y, 14: start up,
+	 *             15: active, 16: hit damage, 17: guard damage,
+	 *             18: start add energy, 19: hit add energy,
+	 *             20: guard add energy, 21: give energy, 22: impact x,
+	 *             23: impact y, 24: give guard recov, 25: attack type
+	 * </pre>
+	 *
+	 * @return the values of this snapshot as little-endian 32-bit integers
+	 * @see FrameData#toByteArray()
+	 */
+	public byte[] toByteArray() {
+		ByteBuffer buffer = ByteBuffer.allocate(this.data.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.asIntBuffer().put(this.data);
+		return buffer.array();
+	}
+
+	/**
+	 * Returns the number of the values of this snapshot.
+	 *
+	 * @return the number of the values of this snapshot
+	 */
+	public int getSize() {
+		return this.data.length;
+	}
+
+	/**
+	 * Overwrites this snapshot with the values of the snapshot passed as the
+	 * argument.<br>
+	 * The array of this snapshot is reused if it has the same length, so
+	 * restoring a state saved earlier does not allocate in most cases.
+	 *
+	 * @param snapshot
+	 *            the snapshot to be copied
+	 */
+	public void copyFrom(FrameSnapshot snapshot) {
+		if (this.data.length != snapshot.data.length) {
+			this.data = new int[snapshot.data.length];
+		}
+		System.arraycopy(snapshot.data, 0, this.data, 0, this.data.length);
+	}
+
+	/**
+	 * Creates a new instance of the FrameData class holding the same
+	 * information as this snapshot.
+	 *
+	 * @return an instance of the FrameData class
+	 */
+	public FrameData toFrameData() {
+		if (getCharacterNumber() == 0) {
+			return new FrameData();
+		}
+
+		Deque<AttackData> projectiles = new LinkedList<AttackData>();
+		for (int i = 0; i < getProjectileNumber(); i++) {
+			projectiles.add(getProjectile(i));
+		}
+
+		return new FrameData(new CharacterData[] { getCharacter(true), getCharacter(false) }, this.data[FRAME_NUMBER],
+				this.data[ROUND], projectiles);
+	}
+
+	/**
+	 * Returns an instance of the CharacterData class of the player specified by
+	 * an argument.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return an instance of the CharacterData class of the player, or null if
+	 *         this snapshot is empty
+	 */
+	@SuppressWarnings("deprecation")
+	public CharacterData getCharacter(boolean playerNumber) {
+		if (getCharacterNumber() == 0) {
+			return null;
+		}
+
+		int offset = getCharacterOffset(playerNumber);
+		CharacterData character = new CharacterData(isPlayerNumber(playerNumber),
+				this.data[offset + GRAPHIC_SIZE_X], this.data[offset + GRAPHIC_SIZE_Y],
+				this.data[offset + GRAPHIC_ADJUST_X]);
+		character.setHp(getHp(playerNumber));
+		character.setEnergy(getEnergy(playerNumber));
+		character.setX(getX(playerNumber));
+		character.setY(getY(playerNumber));
+		character.setLeft(getLeft(playerNumber));
+		character.setRight(getRight(playerNumber));
+		character.setTop(getTop(playerNumber));
+		character.setBottom(getBottom(playerNumber));
+		character.setSpeedX(getSpeedX(playerNumber));
+		character.setSpeedY(getSpeedY(playerNumber));
+		character.setState(getState(playerNumber));
+		character.setAction(getAction(playerNumber));
+		character.setFront(isFront(playerNumber));
+		character.setControl(isControl(playerNumber));
+		character.setAttack(getAttack(playerNumber));
+		character.setRemainingFrame(getRemainingFrame(playerNumber));
+		character.setHitConfirm(isHitConfirm(playerNumber));
+		character.setHitCount(getHitCount(playerNumber));
+		character.setLastHitFrame(getLastHitFrame(playerNumber));
+		character.setInputCommand(getInputCommand(playerNumber));
+		character.setProcessedCommand(getProcessedKeyHistory(playerNumber));
+
+		return character;
+	}
+
+	/**
+	 * Returns the attack of the player specified by the argument.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the attack data of the player
+	 */
+	public AttackData getAttack(boolean playerNumber) {
+		return readAttack(getCharacterOffset(playerNumber) + CHARACTER_ATTACK);
+	}
+
+	/**
+	 * Returns the projectile at the index specified by the argument.
+	 *
+	 * @param index
+	 *            the index of the projectile
+	 * @return the attack data of the projectile
+	 */
+	public AttackData getProjectile(int index) {
+		return readAttack(getCharacterOffset(false) + CHARACTER_SIZE + ATTACK_SIZE * index);
+	}
+
+	/**
+	 * Returns a list storing keys of the action that the character will be
+	 * executing in the simulator.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return a list storing keys of the action that the character will be
+	 *         executing in the simulator
+	 */
+	public Deque<Key> getInputCommand(boolean playerNumber) {
+		return readKeys(getKeysOffset(playerNumber ? 0 : 2));
+	}
+
+	/**
+	 * Replaces the keys of the action that the character will be executing in
+	 * the simulator with the keys stored in this snapshot, without creating
+	 * any objects.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @param character
+	 *            the character into which the keys are read
+	 */
+	public void readInputCommand(boolean playerNumber, Character character) {
+		int offset = getKeysOffset(playerNumber ? 0 : 2);
+		int size = this.data[offset];
+
+		character.clearInputCommand();
+		for (int i = 1; i <= size; i++) {
+			character.addInputCommand(this.data[offset + i]);
+		}
+	}
+
+	/**
+	 * Returns a list storing up to 30 keys that the character executed in the
+	 * simulator.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return a list storing up to 30 keys that the character executed in the
+	 *         simulator
+	 */
+	public Deque<Key> getProcessedCommand(boolean playerNumber) {
+		return readKeys(getKeysOffset(playerNumber ? 1 : 3));
+	}
+
+	/**
+	 * Returns a history storing up to 30 keys that the character executed in
+	 * the simulator.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return a history storing up to 30 keys that the character executed in
+	 *         the simulator
+	 */
+	public KeyHistory getProcessedKeyHistory(boolean playerNumber) {
+		int offset = getKeysOffset(playerNumber ? 1 : 3);
+		KeyHistory history = new KeyHistory(Math.max(GameSetting.INPUT_LIMIT, this.data[offset]));
+		readKeys(offset, history);
+		return history;
+	}
+
+	/**
+	 * Replaces the keys of the specified history with the keys that the
+	 * character executed, without creating any objects.<br>
+	 * If the history is shorter than the stored keys, the oldest keys are
+	 * discarded.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @param history
+	 *            the history into which the keys are read
+	 */
+	public void readProcessedCommand(boolean playerNumber, KeyHistory history) {
+		history.clear();
+		readKeys(getKeysOffset(playerNumber ? 1 : 3), history);
+	}
+
+	/**
+	 * Returns the number of frames since the beginning of the round.
+	 *
+	 * @return the number of frames since the beginning of the round
+	 */
+	public int getFramesNumber() {
+		return this.data[FRAME_NUMBER];
+	}
+
+	/**
+	 * Returns the current round number.
+	 *
+	 * @return the current round number
+	 */
+	public int getRound() {
+		return this.data[ROUND];
+	}
+
+	/**
+	 * Returns true if this snapshot holds no data or dummy data.
+	 *
+	 * @return {@code true} if this snapshot holds no data or dummy data,
+	 *         {@code false} otherwise
+	 */
+	public boolean getEmptyFlag() {
+		return this.data[EMPTY_FLAG] != 0;
+	}
+
+	/**
+	 * Returns the number of projectiles.
+	 *
+	 * @return the number of projectiles
+	 */
+	public int getProjectileNumber() {
+		return this.data[PROJECTILE_NUMBER];
+	}
+
+	/**
+	 * Returns the character's side flag.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return {@code true} if the character is P1, or {@code false} if P2
+	 */
+	public boolean isPlayerNumber(boolean playerNumber) {
+		return getFlag(playerNumber, PLAYER_NUMBER_BIT);
+	}
+
+	/**
+	 * Returns the character's facing direction.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return {@code true} if the character is facing right, {@code false}
+	 *         otherwise
+	 */
+	public boolean isFront(boolean playerNumber) {
+		return getFlag(playerNumber, FRONT_BIT);
+	}
+
+	/**
+	 * Returns the flag whether this character can run a new motion with the
+	 * motion's command.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return {@code true} if the character can run a new motion,
+	 *         {@code false} otherwise
+	 */
+	public boolean isControl(boolean playerNumber) {
+		return getFlag(playerNumber, CONTROL_BIT);
+	}
+
+	/**
+	 * Returns the flag whether the motion hits the opponent or not.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return {@code true} if the motion hits the opponent, {@code false}
+	 *         otherwise
+	 */
+	public boolean isHitConfirm(boolean playerNumber) {
+		return getFlag(playerNumber, HIT_CONFIRM_BIT);
+	}
+
+	/**
+	 * Returns whether the character had an attack instance when this snapshot
+	 * was packed.<br>
+	 * A snapshot packed from FrameData always returns {@code true}, because
+	 * FrameData does not distinguish a character without an attack.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return {@code true} if the character had an attack instance,
+	 *         {@code false} otherwise
+	 */
+	public boolean hasAttack(boolean playerNumber) {
+		return getFlag(playerNumber, ATTACK_BIT);
+	}
+
+	/**
+	 * Returns the character's HP.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's HP
+	 */
+	public int getHp(boolean playerNumber) {
+		return getValue(playerNumber, HP);
+	}
+
+	/**
+	 * Returns the character's energy.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's energy
+	 */
+	public int getEnergy(boolean playerNumber) {
+		return getValue(playerNumber, ENERGY);
+	}
+
+	/**
+	 * Returns the character graphic's most top-left x-coordinate.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character graphic's most top-left x-coordinate
+	 */
+	public int getX(boolean playerNumber) {
+		return getValue(playerNumber, X);
+	}
+
+	/**
+	 * Returns the character graphic's most top-left y-coordinate.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character graphic's most top-left y-coordinate
+	 */
+	public int getY(boolean playerNumber) {
+		return getValue(playerNumber, Y);
+	}
+
+	/**
+	 * Returns the character's hit box's most-left x-coordinate.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's hit box's most-left x-coordinate
+	 */
+	public int getLeft(boolean playerNumber) {
+		return getValue(playerNumber, LEFT);
+	}
+
+	/**
+	 * Returns the character's hit box's most-right x-coordinate.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's hit box's most-right x-coordinate
+	 */
+	public int getRight(boolean playerNumber) {
+		return getValue(playerNumber, RIGHT);
+	}
+
+	/**
+	 * Returns the character's hit box's most-top y-coordinate.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's hit box's most-top y-coordinate
+	 */
+	public int getTop(boolean playerNumber) {
+		return getValue(playerNumber, TOP);
+	}
+
+	/**
+	 * Returns the character's hit box's most-bottom y-coordinate.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's hit box's most-bottom y-coordinate
+	 */
+	public int getBottom(boolean playerNumber) {
+		return getValue(playerNumber, BOTTOM);
+	}
+
+	/**
+	 * Returns the character's horizontal speed.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's horizontal speed
+	 */
+	public int getSpeedX(boolean playerNumber) {
+		return getValue(playerNumber, SPEED_X);
+	}
+
+	/**
+	 * Returns the character's vertical speed.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's vertical speed
+	 */
+	public int getSpeedY(boolean playerNumber) {
+		return getValue(playerNumber, SPEED_Y);
+	}
+
+	/**
+	 * Returns the character's state: stand / crouch/ in air / down.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's state
+	 */
+	public State getState(boolean playerNumber) {
+		return STATES[getValue(playerNumber, STATE)];
+	}
+
+	/**
+	 * Returns the character's action.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's action
+	 */
+	public Action getAction(boolean playerNumber) {
+		return ACTIONS[getValue(playerNumber, ACTION)];
+	}
+
+	/**
+	 * Returns the number of frames that the character needs to resume to its
+	 * normal status.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the number of frames that the character needs to resume to its
+	 *         normal status
+	 */
+	public int getRemainingFrame(boolean playerNumber) {
+		return getValue(playerNumber, REMAINING_FRAME);
+	}
+
+	/**
+	 * Returns the character's graphic width.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's graphic width
+	 */
+	public int getGraphicSizeX(boolean playerNumber) {
+		return getValue(playerNumber, GRAPHIC_SIZE_X);
+	}
+
+	/**
+	 * Returns the character's graphic height.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the character's graphic height
+	 */
+	public int getGraphicSizeY(boolean playerNumber) {
+		return getValue(playerNumber, GRAPHIC_SIZE_Y);
+	}
+
+	/**
+	 * Returns the amount of movement in the horizontal direction used to
+	 * adjust the x coordinate when determining the direction of the character.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the amount of movement in the horizontal direction used to
+	 *         adjust the x coordinate
+	 */
+	public int getGraphicAdjustX(boolean playerNumber) {
+		return getValue(playerNumber, GRAPHIC_ADJUST_X);
+	}
+
+	/**
+	 * Returns the number of hit count.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the number of hit count
+	 */
+	public int getHitCount(boolean playerNumber) {
+		return getValue(playerNumber, HIT_COUNT);
+	}
+
+	/**
+	 * Returns the frame number of the last frame that an attack hit the
+	 * opponent.
+	 *
+	 * @param playerNumber
+	 *            the number of the player. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the frame number of the last frame that an attack hit the
+	 *         opponent
+	 */
+	public int getLastHitFrame(boolean playerNumber) {
+		return getValue(playerNumber, LAST_HIT_FRAME);
+	}
+
+	/**
+	 * Returns the number of characters stored in this snapshot.
+	 *
+	 * @return 2 if this snapshot has the data of both characters, or 0 if it
+	 *         is empty
+	 */
+	private int getCharacterNumber() {
+		return this.data.length > HEADER_SIZE ? 2 : 0;
+	}
+
+	/**
+	 * Returns the index where the data of the specified character begins.
+	 *
+	 * @param playerNumber
+	 *            the number of the player
+	 * @return the index where the data of the character begins
+	 */
+	private int getCharacterOffset(boolean playerNumber) {
+		return HEADER_SIZE + (playerNumber ? 0 : CHARACTER_SIZE);
+	}
+
+	/**
+	 * Returns the value of the specified character at the specified offset.
+	 *
+	 * @param playerNumber
+	 *            the number of the player
+	 * @param field
+	 *            the offset of the value relative to the character
+	 * @return the value
+	 */
+	private int getValue(boolean playerNumber, int field) {
+		return this.data[getCharacterOffset(playerNumber) + field];
+	}
+
+	/**
+	 * Returns the specified flag of the specified character.
+	 *
+	 * @param playerNumber
+	 *            the number of the player
+	 * @param bit
+	 *            the bit of the flag
+	 * @return the value of the flag
+	 */
+	private boolean getFlag(boolean playerNumber, int bit) {
+		return (getValue(playerNumber, CHARACTER_FLAGS) & bit) != 0;
+	}
+
+	/**
+	 * Returns the index of the number of keys of the specified key list.
+	 *
+	 * @param list
+	 *            the index of the key list. 0: P1's input commands, 1: P1's
+	 *            processed commands, 2: P2's input commands, 3: P2's processed
+	 *            commands
+	 * @return the index of the number of keys of the key list
+	 */
+	private int getKeysOffset(int list) {
+		int offset = getCharacterOffset(false) + CHARACTER_SIZE + ATTACK_SIZE * getProjectileNumber();
+		for (int i = 0; i < list; i++) {
+			offset += this.data[offset] + 1;
+		}
+		return offset;
+	}
+
+	/**
+	 * Writes the header.
+	 *
+	 * @param currentFrame
+	 *            the frame number of the current frame
+	 * @param currentRound
+	 *            the round number of the current round
+	 * @param projectileNumber
+	 *            the number of projectiles
+	 */
+	private void writeHeader(int currentFrame, int currentRound, int projectileNumber) {
+		this.data[FRAME_NUMBER] = currentFrame;
+		this.data[ROUND] = currentRound;
+		this.data[EMPTY_FLAG] = 0;
+		this.data[PROJECTILE_NUMBER] = projectileNumber;
+	}
+
+	/**
+	 * Writes the attack data at the specified index.
+	 *
+	 * @param offset
+	 *            the index where the attack begins
+	 * @param attack
+	 *            the attack data
+	 */
+	private void writeAttack(int offset, AttackData attack) {
+		writeHitArea(offset + ATTACK_SETTING_HIT_AREA, attack.getSettingHitArea());
+		this.data[offset + ATTACK_SETTING_SPEED_X] = attack.getSettingSpeedX();
+		this.data[offset + ATTACK_SETTING_SPEED_Y] = attack.getSettingSpeedY();
+		writeHitArea(offset + ATTACK_CURRENT_HIT_AREA, attack.getCurrentHitArea());
+		this.data[offset + ATTACK_CURRENT_FRAME] = attack.getCurrentFrame();
+		this.data[offset + ATTACK_FLAGS] = (attack.isPlayerNumber() ? PLAYER_NUMBER_BIT : 0)
+				| (attack.isDownProp() ? DOWN_PROP_BIT : 0) | (attack.isProjectile() ? PROJECTILE_BIT : 0);
+		this.data[offset + ATTACK_SPEED_X] = attack.getSpeedX();
+		this.data[offset + ATTACK_SPEED_Y] = attack.getSpeedY();
+		this.data[offset + ATTACK_START_UP] = attack.getStartUp();
+		this.data[offset + ATTACK_ACTIVE] = attack.getActive();
+		this.data[offset + ATTACK_HIT_DAMAGE] = attack.getHitDamage();
+		this.data[offset + ATTACK_GUARD_DAMAGE] = attack.getGuardDamage();
+		this.data[offset + ATTACK_START_ADD_ENERGY] = attack.getStartAddEnergy();
+		this.data[offset + ATTACK_HIT_ADD_ENERGY] = attack.getHitAddEnergy();
+		this.data[offset + ATTACK_GUARD_ADD_ENERGY] = attack.getGuardAddEnergy();
+		this.data[offset + ATTACK_GIVE_ENERGY] = attack.getGiveEnergy();
+		this.data[offset + ATTACK_IMPACT_X] = attack.getImpactX();
+		this.data[offset + ATTACK_IMPACT_Y] = attack.getImpactY();
+		this.data[offset + ATTACK_GIVE_GUARD_RECOV] = attack.getGiveGuardRecov();
+		this.data[offset + ATTACK_TYPE] = attack.getAttackType();
+	}
+
+	/**
+	 * Reads the attack data at the specified index.
+	 *
+	 * @param offset
+	 *            the index where the attack begins
+	 * @return the attack data
+	 */
+	private AttackData readAttack(int offset) {
+		AttackData attack = new AttackData();
+		attack.setSettingHitArea(readHitArea(offset + ATTACK_SETTING_HIT_AREA));
+		attack.setSettingSpeedX(this.data[offset + ATTACK_SETTING_SPEED_X]);
+		attack.setSettingSpeedY(this.data[offset + ATTACK_SETTING_SPEED_Y]);
+		attack.setCurrentHitArea(readHitArea(offset + ATTACK_CURRENT_HIT_AREA));
+		attack.setCurrentFrame(this.data[offset + ATTACK_CURRENT_FRAME]);
+		attack.setPlayerNumber((this.data[offset + ATTACK_FLAGS] & PLAYER_NUMBER_BIT) != 0);
+		attack.setDownProp((this.data[offset + ATTACK_FLAGS] & DOWN_PROP_BIT) != 0);
+		attack.setIsProjectile((this.data[offset + ATTACK_FLAGS] & PROJECTILE_BIT) != 0);
+		attack.setSpeedX(this.data[offset + ATTACK_SPEED_X]);
+		attack.setSpeedY(this.data[offset + ATTACK_SPEED_Y]);
+		attack.setStartUp(this.data[offset + ATTACK_START_UP]);
+		attack.setActive(this.data[offset + ATTACK_ACTIVE]);
+		attack.setHitDamage(this.data[offset + ATTACK_HIT_DAMAGE]);
+		attack.setGuardDamage(this.data[offset + ATTACK_GUARD_DAMAGE]);
+		attack.setStartAddEnergy(this.data[offset + ATTACK_START_ADD_ENERGY]);
+		attack.setHitAddEnergy(this.data[offset + ATTACK_HIT_ADD_ENERGY]);
+		attack.setGuardAddEnergy(this.data[offset + ATTACK_GUARD_ADD_ENERGY]);
+		attack.setGiveEnergy(this.data[offset + ATTACK_GIVE_ENERGY]);
+		attack.setImpactX(this.data[offset + ATTACK_IMPACT_X]);
+		attack.setImpactY(this.data[offset + ATTACK_IMPACT_Y]);
+		attack.setGiveGuardRecov(this.data[offset + ATTACK_GIVE_GUARD_RECOV]);
+		attack.setAttackType(this.data[offset + ATTACK_TYPE]);
+
+		return attack;
+	}
+
+	/**
+	 * Writes the hit area at the specified index.
+	 *
+	 * @param offset
+	 *            the index where the hit area begins
+	 * @param hitArea
+	 *            the hit area
+	 */
+	private void writeHitArea(int offset, HitArea hitArea) {
+		this.data[offset] = hitArea.getLeft();
+		this.data[offset + 1] = hitArea.getRight();
+		this.data[offset + 2] = hitArea.getTop();
+		this.data[offset + 3] = hitArea.getBottom();
+	}
+
+	/**
+	 * Reads the hit area at the specified index.
+	 *
+	 * @param offset
+	 *            the index where the hit area begins
+	 * @return the hit area
+	 */
+	private HitArea readHitArea(int offset) {
+		return new HitArea(this.data[offset], this.data[offset + 1], this.data[offset + 2], this.data[offset + 3]);
+	}
+
+	/**
+	 * Writes the number of keys and the keys packed into bits at the specified
+	 * index.
+	 *
+	 * @param offset
+	 *            the index where the key list begins
+	 * @param keys
+	 *            the key list
+	 * @return the index next to the written key list
+	 */
+	private int writeKeys(int offset, Deque<Key> keys) {
+		this.data[offset++] = keys.size();
+		for (Key key : keys) {
+			this.data[offset++] = key.toBits();
+		}
+		return offset;
+	}
+
+	/**
+	 * Writes the number of keys and the keys of the history at the specified
+	 * index.
+	 *
+	 * @param offset
+	 *            the index where the key list begins
+	 * @param keys
+	 *            the key history
+	 * @return the index next to the written key list
+	 */
+	private int writeKeys(int offset, KeyHistory keys) {
+		this.data[offset++] = keys.size();
+		for (int i = 0; i < keys.size(); i++) {
+			this.data[offset++] = keys.get(i);
+		}
+		return offset;
+	}
+
+	/**
+	 * Writes the number of keys and the keys of the action that the character
+	 * will be executing in the simulator at the specified index.
+	 *
+	 * @param offset
+	 *            the index where the key list begins
+	 * @param character
+	 *            the character whose keys are written
+	 * @return the index next to the written key list
+	 */
+	private int writeKeys(int offset, Character character) {
+		this.data[offset++] = character.getInputCommandSize();
+		for (int i = 0; i < character.getInputCommandSize(); i++) {
+			this.data[offset++] = character.getInputCommandKey(i);
+		}
+		return offset;
+	}
+
+	/**
+	 * Reads the key list at the specified index.
+	 *
+	 * @param offset
+	 *            the index where the key list begins
+	 * @return the key list
+	 */
+	private Deque<Key> readKeys(int offset) {
+		Deque<Key> keys = new LinkedList<Key>();
+		int size = this.data[offset];
+		for (int i = 1; i <= size; i++) {
+			keys.add(new Key(this.data[offset + i]));
+		}
+		return keys;
+	}
+
+	/**
+	 * Adds the keys of the key list at the specified index to the history.
+	 *
+	 * @param offset
+	 *            the index where the key list begins
+	 * @param history
+	 *            the history to which the keys are added
+	 */
+	private void readKeys(int offset, KeyHistory history) {
+		int size = this.data[offset];
+		for (int i = 1; i <= size; i++) {
+			history.add(this.data[offset + i]);
+		}
+	}
+
+	/**
+	 * Packs the flags of a character into bits.
+	 *
+	 * @param playerNumber
+	 *            the character's side flag
+	 * @param front
+	 *            the character's facing direction
+	 * @param control
+	 *            the flag whether the character can run a new motion
+	 * @param hitConfirm
+	 *            the flag whether the motion hits the opponent
+	 * @return the packed flags
+	 */
+	private static int toFlags(boolean playerNumber, boolean front, boolean control, boolean hitConfirm) {
+		return (playerNumber ? PLAYER_NUMBER_BIT : 0) | (front ? FRONT_BIT : 0) | (control ? CONTROL_BIT : 0)
+				| (hitConfirm ? HIT_CONFIRM_BIT : 0);
+	}
+}
@@ -1,7 +1,10 @@
 package struct;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 
+import enumerate.Action;
 import fighting.Character;
 import fighting.Motion;
 import setting.GameSetting;
@@ -14,6 +17,12 @@ import simulator.Simulator;
  */
 public class GameData {
 
+	/**
+	 * The number of 32-bit integers of a motion in the byte array returned by
+	 * {@link #getMotionDataAsBytes(boolean)}.
+	 */
+	public static final int MOTION_DATA_SIZE = 33;
+
 	/**
 	 * The horizontal size of the game stage.
 	 */
@@ -42,6 +51,18 @@ public class GameData {
 	 */
 	private ArrayList<ArrayList<MotionData>> characterMotions;
 
+	/**
+	 * The tables of the executable actions of both characters.<br>
+	 * Index 0 is P1, index 1 is P2.
+	 */
+	private LegalActionTable[] legalActionTables;
+
+	/**
+	 * The tables of the reach of the attacks of both characters.<br>
+	 * Index 0 is P1, index 1 is P2.
+	 */
+	private AttackReachTable[] attackReachTables;
+
 	/**
 	 * The both characters' names.<br>
 	 * Index 0 is P1, index 1 is P2.
@@ -70,6 +91,8 @@ public class GameData {
 		this.maxHPs = new int[2];
 		this.maxEnergies = new int[2];
 		this.characterMotions = new ArrayList<ArrayList<MotionData>>(2);
+		this.legalActionTables = new LegalActionTable[2];
+		this.attackReachTables = new AttackReachTable[2];
 		this.characterNames = new String[2];
 		this.aiNames = new String[2];
 	}
@@ -84,6 +107,23 @@ public class GameData {
 	 * @see Character
 	 */
 	public GameData(Character[] players) {
+		this(players, LaunchSetting.characterNames, LaunchSetting.aiNames);
+	}
+
+	/**
+	 * The class constructor that creates an instance of the GameData class by
+	 * using character information and the specified character and AI names.
+	 *
+	 * @param players
+	 *            character information of P1 and P2
+	 * @param characterNames
+	 *            the both characters' names. Index 0 is P1, index 1 is P2.
+	 * @param aiNames
+	 *            the both AIs' names. Index 0 is P1, index 1 is P2.
+	 *
+	 * @see Character
+	 */
+	public GameData(Character[] players, String[] characterNames, String[] aiNames) {
 		this();
 
 		for (int i = 0; i < 2; i++) {
@@ -94,14 +134,16 @@ public class GameData {
 			}
 
 			this.characterMotions.add(motionDataList);
+			this.legalActionTables[i] = new LegalActionTable(motionDataList);
+			this.attackReachTables[i] = new AttackReachTable(motionDataList);
 		}
 
 		this.stageWidth = GameSetting.STAGE_WIDTH;
 		this.stageHeight = GameSetting.STAGE_HEIGHT;
 		this.maxHPs = LaunchSetting.maxHp.clone();
 		this.maxEnergies = LaunchSetting.maxEnergy.clone();
-		this.characterNames = LaunchSetting.characterNames.clone();
-		this.aiNames = LaunchSetting.aiNames.clone();
+		this.characterNames = characterNames.clone();
+		this.aiNames = aiNames.clone();
 
 		this.simulator = new Simulator(this);
 	}
@@ -125,6 +167,88 @@ public class GameData {
 		return temp;
 	}
 
+	/**
+	 * Returns the motion data of the player specified by the argument packed
+	 * into a byte array of little-endian 32-bit integers.<br>
+	 * Python AIs can use this method to get the whole motion table with a
+	 * single call through the py4j gateway and decode it with
+	 * {@code numpy.frombuffer(data, dtype='<i4').reshape(-1, 33)}. Each motion
+	 * consists of {@link #MOTION_DATA_SIZE} integers in the order of
+	 * {@link #getMotionData(boolean)}, laid out as follows:
+	 *
+	 * <pre>
+	 * 0: action ordinal, 1: frame number, 2: speed x, 3: speed y,
+	 * 4 .. 7: character hit area (left, right, top, bottom), 8: state ordinal,
+	 * 9 .. 12: attack hit area (left, right, top, bottom), 13: attack speed x,
+	 * 14: attack speed y, 15: attack start up, 16: attack active,
+	 * 17: attack hit damage, 18: attack guard damage,
+	 * 19: attack start add energy, 20: attack hit add energy,
+	 * 21: attack guard add energy, 22: attack give energy, 23: attack impact x,
+	 * 24: attack impact y, 25: attack give guard recov, 26: attack type,
+	 * 27: attack down prop (0 or 1), 28: cancel able frame,
+	 * 29: cancel able motion level, 30: motion level, 31: control (0 or 1),
+	 * 32: landing flag (0 or 1)
+	 * </pre>
+	 *
+	 * @param playerNumber
+	 *            the player side's flag. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the motion data of the player as a byte array
+	 * @see MotionData
+	 */
+	public byte[] getMotionDataAsBytes(boolean playerNumber) {
+		ArrayList<MotionData> motions = this.characterMotions.get(playerNumber ? 0 : 1);
+		ByteBuffer buffer = ByteBuffer.allocate(motions.size() * MOTION_DATA_SIZE * 4)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		for (MotionData motion : motions) {
+			buffer.putInt(Action.valueOf(motion.getActionName()).ordinal());
+			buffer.putInt(motion.getFrameNumber());
+			buffer.putInt(motion.getSpeedX());
+			buffer.putInt(motion.getSpeedY());
+			putHitArea(buffer, motion.getCharacterHitArea());
+			buffer.putInt(motion.getState().ordinal());
+			putHitArea(buffer, motion.getAttackHitArea());
+			buffer.putInt(motion.getAttackSpeedX());
+			buffer.putInt(motion.getAttackSpeedY());
+			buffer.putInt(motion.getAttackStartUp());
+			buffer.putInt(motion.getAttackActive());
+			buffer.putInt(motion.getAttackHitDamage());
+			buffer.putInt(motion.getAttackGuardDamage());
+			buffer.putInt(motion.getAttackStartAddEnergy());
+			buffer.putInt(motion.getAttackHitAddEnergy());
+			buffer.putInt(motion.getAttackGuardAddEnergy());
+			buffer.putInt(motion.getAttackGiveEnergy());
+			buffer.putInt(motion.getAttackImpactX());
+			buffer.putInt(motion.getAttackImpactY());
+			buffer.putInt(motion.getAttackGiveGuardRecov());
+			buffer.putInt(motion.getAttackType());
+			buffer.putInt(motion.isAttackDownProp() ? 1 : 0);
+			buffer.putInt(motion.getCancelAbleFrame());
+			buffer.putInt(motion.getCancelAbleMotionLevel());
+			buffer.putInt(motion.getMotionLevel());
+			buffer.putInt(motion.isControl() ? 1 : 0);
+			buffer.putInt(motion.isLandingFlag() ? 1 : 0);
+		}
+
+		return buffer.array();
+	}
+
+	/**
+	 * Writes the left, right, top and bottom of the hit area to the buffer.
+	 *
+	 * @param buffer
+	 *            the buffer to which the hit area is written
+	 * @param hitArea
+	 *            the hit area
+	 */
+	private void putHitArea(ByteBuffer buffer, HitArea hitArea) {
+		buffer.putInt(hitArea.getLeft());
+		buffer.putInt(hitArea.getRight());
+		buffer.putInt(hitArea.getTop());
+		buffer.putInt(hitArea.getBottom());
+	}
+
 	/**
 	 * Returns the motion of the player specified by the argument.<br>
 	 *
@@ -214,6 +338,38 @@ public class GameData {
 		return playerNumber ? this.aiNames[0] : this.aiNames[1];
 	}
 
+	/**
+	 * Returns the table telling which actions the player specified by the
+	 * argument can execute in a given state.<br>
+	 * Search AIs can use it to skip the actions that would not be executed
+	 * instead of simulating them.
+	 *
+	 * @param playerNumber
+	 *            the player side's flag. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the table of the executable actions of the specified player
+	 * @see LegalActionTable
+	 */
+	public LegalActionTable getLegalActionTable(boolean playerNumber) {
+		return this.legalActionTables[playerNumber ? 0 : 1];
+	}
+
+	/**
+	 * Returns the table telling whether an action of the player specified by
+	 * the argument can hit the opponent from the current distance.<br>
+	 * Search AIs can use it to skip the attacks which cannot reach the
+	 * opponent instead of simulating them.
+	 *
+	 * @param playerNumber
+	 *            the player side's flag. {@code true} if the player is P1, or
+	 *            {@code false} if P2.
+	 * @return the table of the reach of the attacks of the specified player
+	 * @see AttackReachTable
+	 */
+	public AttackReachTable getAttackReachTable(boolean playerNumber) {
+		return this.attackReachTables[playerNumber ? 0 : 1];
+	}
+
 	/**
 	 * Returns the simulator.
 	 *
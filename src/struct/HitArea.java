@@ -77,6 +77,25 @@ public class HitArea {
 		this.bottom = bottom;
 	}
 
+	/**
+	 * Sets the hit determination area's coordinates to the specified values.
+	 *
+	 * @param left
+	 *            the most left x coordinate of the hit box
+	 * @param right
+	 *            the most right x coordinate of the hit box
+	 * @param top
+	 *            the most top y coordinate of the hit box
+	 * @param bottom
+	 *            the most bottom y coordinate of the hit box
+	 */
+	public void set(int left, int right, int top, int bottom) {
+		this.left = left;
+		this.right = right;
+		this.top = top;
+		this.bottom = bottom;
+	}
+
 	/**
 	 * Updates the hit determination area's coordinates using the specified
 	 * speed.
@@ -4,6 +4,35 @@ package struct;
  * The class dealing with all possible keys used in the game.
  */
 public class Key {
+	/**
+	 * The bit of the "A" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_A = 1;
+	/**
+	 * The bit of the "B" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_B = 2;
+	/**
+	 * The bit of the "C" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_C = 4;
+	/**
+	 * The bit of the "Down" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_D = 8;
+	/**
+	 * The bit of the "Left" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_L = 16;
+	/**
+	 * The bit of the "Right" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_R = 32;
+	/**
+	 * The bit of the "Up" button in the bitmask representation of the keys.
+	 */
+	public static final int BIT_U = 64;
+
 	/**
 	 * If the value is set to true, then the "A" button will be pressed.
 	 */
@@ -73,6 +102,45 @@ public class Key {
 		this.L = false;
 	}
 
+	/**
+	 * This constructor sets the keys from their bitmask representation.
+	 *
+	 * @param bits
+	 *            the bitmask of the pressed keys
+	 * @see #toBits()
+	 */
+	public Key(int bits) {
+		this.setBits(bits);
+	}
+
+	/**
+	 * Returns the bitmask representation of the keys, which is the same as the
+	 * one in the replay files and in {@link FrameSnapshot}.
+	 *
+	 * @return the bitmask of the pressed keys
+	 */
+	public int toBits() {
+		return (this.A ? BIT_A : 0) | (this.B ? BIT_B : 0) | (this.C ? BIT_C : 0) | (this.D ? BIT_D : 0)
+				| (this.L ? BIT_L : 0) | (this.R ? BIT_R : 0) | (this.U ? BIT_U : 0);
+	}
+
+	/**
+	 * Sets the keys from their bitmask representation.
+	 *
+	 * @param bits
+	 *            the bitmask of the pressed keys
+	 * @see #toBits()
+	 */
+	public void setBits(int bits) {
+		this.A = (bits & BIT_A) != 0;
+		this.B = (bits & BIT_B) != 0;
+		this.C = (bits & BIT_C) != 0;
+		this.D = (bits & BIT_D) != 0;
+		this.L = (bits & BIT_L) != 0;
+		this.R = (bits & BIT_R) != 0;
+		this.U = (bits & BIT_U) != 0;
+	}
+
 	/**
 	 * Returns the value indicating the direction key input by the player using
 	 * the numeric keypad.
@@ -82,18 +150,32 @@ public class Key {
 	 * @return the direction value from the numeric keypad
 	 */
 	public int getLever(boolean isFront) {
+		return getLever(toBits(), isFront);
+	}
+
+	/**
+	 * Returns the value indicating the direction key of the keys in their
+	 * bitmask representation using the numeric keypad.
+	 *
+	 * @param bits
+	 *            the bitmask of the pressed keys
+	 * @param isFront
+	 *            the boolean value representing the player's orientation
+	 * @return the direction value from the numeric keypad
+	 */
+	public static int getLever(int bits, boolean isFront) {
 		int lever = 5;
 
-		if (this.U) {
+		if ((bits & BIT_U) != 0) {
 			lever += 3;
 		}
-		if (this.D) {
+		if ((bits & BIT_D) != 0) {
 			lever -= 3;
 		}
-		if (this.L) {
+		if ((bits & BIT_L) != 0) {
 			lever += isFront ? -1 : 1;
 		}
-		if (this.R) {
+		if ((bits & BIT_R) != 0) {
 			lever += isFront ? 1 : -1;
 		}
 
@@ -0,0 +1,292 @@
+package struct;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+import setting.GameSetting;
+
+/**
+ * The class dealing with the history of the keys input by one player.<br>
+ * Each input is stored as the bitmask returned by {@link Key#toBits()} in a
+ * fixed-capacity ring buffer of bytes, so recording the input of a frame
+ * creates no objects. When the buffer is full, adding an input discards the
+ * oldest one.<br>
+ * The history also keeps the runs of consecutive inputs with the same
+ * direction key, updated as each input is added or discarded, so that the
+ * recent direction sequence can be read without rescanning every input.
+ */
+public class KeyHistory {
+
+	/**
+	 * The ring buffer storing the bitmasks of the inputs.
+	 */
+	private byte[] keys;
+
+	/**
+	 * The index of the oldest input in the ring buffer.
+	 */
+	private int first;
+
+	/**
+	 * The number of the stored inputs.
+	 */
+	private int size;
+
+	/**
+	 * The ring buffer storing the direction key of each run, seen from a
+	 * character facing right.
+	 *
+	 * @see Key#getLever(int, boolean)
+	 */
+	private byte[] runLevers;
+
+	/**
+	 * The ring buffer storing the number of the inputs of each run.
+	 */
+	private int[] runLengths;
+
+	/**
+	 * The index of the oldest run in the ring buffers.
+	 */
+	private int runFirst;
+
+	/**
+	 * The number of the runs.
+	 */
+	private int runCount;
+
+	/**
+	 * The class constructor that creates an empty history holding up to
+	 * {@link GameSetting#INPUT_LIMIT} inputs.
+	 */
+	public KeyHistory() {
+		this(GameSetting.INPUT_LIMIT);
+	}
+
+	/**
+	 * The class constructor that creates an empty history holding up to the
+	 * specified number of inputs.
+	 *
+	 * @param capacity
+	 *            the maximum number of the inputs
+	 */
+	public KeyHistory(int capacity) {
+		this.keys = new byte[capacity];
+		this.runLevers = new byte[capacity];
+		this.runLengths = new int[capacity];
+		clear();
+	}
+
+	/**
+	 * The copy constructor that creates a history with the same capacity and
+	 * inputs as the specified history.
+	 *
+	 * @param history
+	 *            the history to be copied
+	 */
+	public KeyHistory(KeyHistory history) {
+		this.keys = history.keys.clone();
+		this.first = history.first;
+		this.size = history.size;
+		this.runLevers = history.runLevers.clone();
+		this.runLengths = history.runLengths.clone();
+		this.runFirst = history.runFirst;
+		this.runCount = history.runCount;
+	}
+
+	/**
+	 * The class constructor that creates a history holding up to
+	 * {@link GameSetting#INPUT_LIMIT} inputs from a list of keys.<br>
+	 * If the list is longer than the capacity, only the newest keys are kept.
+	 *
+	 * @param keys
+	 *            the list of keys from the oldest one
+	 */
+	public KeyHistory(Deque<Key> keys) {
+		this(Math.max(GameSetting.INPUT_LIMIT, keys.size()));
+		for (Key key : keys) {
+			add(key != null ? key.toBits() : 0);
+		}
+	}
+
+	/**
+	 * Adds an input as the newest one, discarding the oldest input if the
+	 * history is full.
+	 *
+	 * @param bits
+	 *            the bitmask of the input
+	 */
+	public void add(int bits) {
+		if (this.size == this.keys.length) {
+			removeFirst();
+		}
+
+		int index = this.first + this.size;
+		if (index >= this.keys.length) {
+			index -= this.keys.length;
+		}
+		this.keys[index] = (byte) bits;
+		this.size++;
+
+		int lever = Key.getLever(bits, true);
+		if (this.runCount > 0 && this.runLevers[runIndex(this.runCount - 1)] == lever) {
+			this.runLengths[runIndex(this.runCount - 1)]++;
+		} else {
+			int run = runIndex(this.runCount);
+			this.runLevers[run] = (byte) lever;
+			this.runLengths[run] = 1;
+			this.runCount++;
+		}
+	}
+
+	/**
+	 * Adds all the inputs of the specified history in order from the oldest
+	 * one.
+	 *
+	 * @param history
+	 *            the history whose inputs are added
+	 */
+	public void addAll(KeyHistory history) {
+		for (int i = 0; i < history.size; i++) {
+			add(history.get(i));
+		}
+	}
+
+	/**
+	 * Removes the oldest input. Nothing happens if the history is empty.
+	 */
+	public void removeFirst() {
+		if (this.size > 0) {
+			if (++this.first == this.keys.length) {
+				this.first = 0;
+			}
+			this.size--;
+
+			if (--this.runLengths[this.runFirst] == 0) {
+				if (++this.runFirst == this.runLevers.length) {
+					this.runFirst = 0;
+				}
+				this.runCount--;
+			}
+		}
+	}
+
+	/**
+	 * Removes all the inputs.
+	 */
+	public void clear() {
+		this.first = 0;
+		this.size = 0;
+		this.runFirst = 0;
+		this.runCount = 0;
+	}
+
+	/**
+	 * Returns the bitmask of the input at the specified position.
+	 *
+	 * @param index
+	 *            the position of the input, where 0 is the oldest one
+	 * @return the bitmask of the input
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of range
+	 */
+	public int get(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+
+		int position = this.first + index;
+		if (position >= this.keys.length) {
+			position -= this.keys.length;
+		}
+		return this.keys[position];
+	}
+
+	/**
+	 * Returns the bitmask of the newest input.
+	 *
+	 * @return the bitmask of the newest input
+	 * @throws IndexOutOfBoundsException
+	 *             if the history is empty
+	 */
+	public int getLast() {
+		return get(this.size - 1);
+	}
+
+	/**
+	 * Returns the number of the stored inputs.
+	 *
+	 * @return the number of the stored inputs
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of the runs of consecutive inputs with the same
+	 * direction key.
+	 *
+	 * @return the number of the runs
+	 */
+	public int getLeverRunCount() {
+		return this.runCount;
+	}
+
+	/**
+	 * Returns the direction key of the specified run, seen from a character
+	 * facing right.
+	 *
+	 * @param index
+	 *            the position of the run, where 0 is the newest one
+	 * @return the direction value from the numeric keypad
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is out of range
+	 *
+	 * @see Key#getLever(int, boolean)
+	 */
+	public int getLeverRun(int index) {
+		if (index < 0 || index >= this.runCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.runCount);
+		}
+
+		return this.runLevers[runIndex(this.runCount - 1 - index)];
+	}
+
+	/**
+	 * Returns whether the history has no inputs.
+	 *
+	 * @return {@code true} if the history has no inputs
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the inputs as a new list of keys from the oldest one.<br>
+	 * This method exists for compatibility with the APIs using
+	 * {@code Deque<Key>} and creates a Key instance for each input.
+	 *
+	 * @return the list of the keys
+	 */
+	public Deque<Key> toDeque() {
+		Deque<Key> deque = new LinkedList<Key>();
+		for (int i = 0; i < this.size; i++) {
+			deque.add(new Key(get(i)));
+		}
+
+		return deque;
+	}
+
+	/**
+	 * Converts the position of a run counted from the oldest one into the
+	 * index of the ring buffers.
+	 *
+	 * @param position
+	 *            the position of the run, where 0 is the oldest one
+	 * @return the index of the ring buffers
+	 */
+	private int runIndex(int position) {
+		int index = this.runFirst + position;
+		return index >= this.runLevers.length ? index - this.runLevers.length : index;
+	}
+}
@@ -0,0 +1,233 @@
+package struct;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import command.CommandTable;
+import enumerate.Action;
+import enumerate.State;
+
+/**
+ * The class that tells which actions a character can execute in a given
+ * state, without running the simulator.<br>
+ * The rules are the same as the ones the game uses when it executes an action
+ * converted from the input: the action must be one that the input can be
+ * converted into in the character's current ground or air state, the
+ * character must have enough energy for it, and if the character is not under
+ * control, the current motion must be cancelable at the current frame by a
+ * motion of the action's level.<br>
+ * The motion tables of the character are turned into bitmasks once when the
+ * instance is created, so a query only combines a few precomputed masks. Each
+ * action is represented by the bit at the position of {@link Action#ordinal()}
+ * in a {@code long} value.
+ *
+ * @see GameData#getLegalActionTable(boolean)
+ */
+public class LegalActionTable {
+
+	/**
+	 * The actions that the input can be converted into on the ground and in
+	 * the air.<br>
+	 * Index 0 is the ground, index 1 is the air.
+	 */
+	private long[] commandActions;
+
+	/**
+	 * The energy costs of the actions in ascending order without duplicates.
+	 */
+	private int[] energyCosts;
+
+	/**
+	 * The actions whose energy cost is less than or equal to the cost at the
+	 * same index of {@link #energyCosts}.
+	 */
+	private long[] energyMasks;
+
+	/**
+	 * The lowest motion level of the actions.
+	 */
+	private int minLevel;
+
+	/**
+	 * The actions whose motion level is less than or equal to the index plus
+	 * {@link #minLevel}.
+	 */
+	private long[] levelMasks;
+
+	/**
+	 * The cancelable frame of the motion of each action, indexed by the
+	 * ordinal of the action.
+	 */
+	private int[] cancelAbleFrames;
+
+	/**
+	 * The number of frames of the motion of each action, indexed by the ordinal
+	 * of the action.
+	 */
+	private int[] frameNumbers;
+
+	/**
+	 * The maximum motion level that the motion of each action can be canceled
+	 * by, indexed by the ordinal of the action.
+	 */
+	private int[] cancelAbleMotionLevels;
+
+	/**
+	 * The class constructor that creates the table of a character from the
+	 * motion data of the character.
+	 *
+	 * @param motions
+	 *            the motion data of the character in the order of
+	 *            {@link Action#values()}
+	 *
+	 * @see GameData#getMotionData(boolean)
+	 */
+	public LegalActionTable(List<MotionData> motions) {
+		int size = motions.size();
+		this.commandActions = new long[] { CommandTable.getCommandActions(false), CommandTable.getCommandActions(true) };
+		this.cancelAbleFrames = new int[size];
+		this.frameNumbers = new int[size];
+		this.cancelAbleMotionLevels = new int[size];
+
+		int[] costs = new int[size];
+		int minLevel = Integer.MAX_VALUE;
+		int maxLevel = Integer.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			MotionData motion = motions.get(i);
+			this.cancelAbleFrames[i] = motion.getCancelAbleFrame();
+			this.frameNumbers[i] = motion.getFrameNumber();
+			this.cancelAbleMotionLevels[i] = motion.getCancelAbleMotionLevel();
+			costs[i] = -motion.getAttackStartAddEnergy();
+			minLevel = Math.min(minLevel, motion.getMotionLevel());
+			maxLevel = Math.max(maxLevel, motion.getMotionLevel());
+		}
+
+		int[] sortedCosts = costs.clone();
+		Arrays.sort(sortedCosts);
+		int costNumber = 0;
+		for (int i = 0; i < size; i++) {
+			if (costNumber == 0 || sortedCosts[costNumber - 1] != sortedCosts[i]) {
+				sortedCosts[costNumber++] = sortedCosts[i];
+			}
+		}
+		this.energyCosts = Arrays.copyOf(sortedCosts, costNumber);
+		this.energyMasks = new long[costNumber];
+		for (int i = 0; i < size; i++) {
+			for (int j = Arrays.binarySearch(this.energyCosts, costs[i]); j < costNumber; j++) {
+				this.energyMasks[j] |= 1L << i;
+			}
+		}
+
+		this.minLevel = size > 0 ? minLevel : 0;
+		this.levelMasks = new long[size > 0 ? maxLevel - minLevel + 1 : 1];
+		for (int i = 0; i < size; i++) {
+			for (int level = motions.get(i).getMotionLevel(); level <= maxLevel; level++) {
+				this.levelMasks[level - minLevel] |= 1L << i;
+			}
+		}
+	}
+
+	/**
+	 * Returns the set of the actions that the character can execute in the
+	 * specified state as a bitmask.<br>
+	 * The action represented by the bit at position {@code i} is
+	 * {@code Action.values()[i]}.
+	 *
+	 * @param character
+	 *            the state of the character
+	 * @return the bitmask of the executable actions
+	 */
+	public long getLegalActions(CharacterData character) {
+		long actions = this.commandActions[character.getState() == State.AIR ? 1 : 0]
+				& getEnergyMask(character.getEnergy());
+
+		if (character.isControl()) {
+			return actions;
+		} else if (!character.isHitConfirm()) {
+			return 0;
+		}
+
+		int now = character.getAction().ordinal();
+		if (this.cancelAbleFrames[now] > this.frameNumbers[now] - character.getRemainingFrame()) {
+			return 0;
+		}
+
+		int level = this.cancelAbleMotionLevels[now] - this.minLevel;
+		if (level < 0) {
+			return 0;
+		}
+		return actions & this.levelMasks[Math.min(level, this.levelMasks.length - 1)];
+	}
+
+	/**
+	 * Returns the set of the actions that the character can execute in the
+	 * specified state.
+	 *
+	 * @param character
+	 *            the state of the character
+	 * @return the set of the executable actions
+	 */
+	public EnumSet<Action> getLegalActionSet(CharacterData character) {
+		return toActionSet(getLegalActions(character));
+	}
+
+	/**
+	 * Returns whether the character can execute the action in the specified
+	 * state.
+	 *
+	 * @param character
+	 *            the state of the character
+	 * @param action
+	 *            the action
+	 * @return {@code true} if the character can execute the action,
+	 *         {@code false} otherwise
+	 */
+	public boolean isLegal(CharacterData character, Action action) {
+		return (getLegalActions(character) & toMask(action)) != 0;
+	}
+
+	/**
+	 * Returns the bitmask representing the specified action.
+	 *
+	 * @param action
+	 *            the action
+	 * @return the bitmask whose bit at the position of the action's ordinal is
+	 *         set
+	 */
+	public static long toMask(Action action) {
+		return 1L << action.ordinal();
+	}
+
+	/**
+	 * Converts a bitmask of actions into a set of actions.
+	 *
+	 * @param actions
+	 *            the bitmask of actions
+	 * @return the set of the actions
+	 */
+	public static EnumSet<Action> toActionSet(long actions) {
+		EnumSet<Action> set = EnumSet.noneOf(Action.class);
+		Action[] values = Action.values();
+		for (long rest = actions; rest != 0; rest &= rest - 1) {
+			set.add(values[Long.numberOfTrailingZeros(rest)]);
+		}
+		return set;
+	}
+
+	/**
+	 * Returns the actions whose energy cost the character can pay.
+	 *
+	 * @param energy
+	 *            the energy of the character
+	 * @return the bitmask of the actions
+	 */
+	private long getEnergyMask(int energy) {
+		int index = Arrays.binarySearch(this.energyCosts, energy);
+		if (index < 0) {
+			// the insertion point minus 1 is the largest cost below the energy
+			index = -index - 2;
+		}
+		return index >= 0 ? this.energyMasks[index] : 0;
+	}
+}
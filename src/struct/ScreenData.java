@@ -1,19 +1,17 @@
 package struct;
 
-import static org.lwjgl.opengl.GL11.*;
-
-import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
 
 import org.lwjgl.BufferUtils;
 
 import manager.GraphicManager;
+import setting.FlagSetting;
 import setting.GameSetting;
+import setting.LaunchSetting;
 
 /**
  * The class dealing with the screen information such as the game screen's image
@@ -32,10 +30,81 @@ public class ScreenData {
 	private BufferedImage displayBufferedImage;
 
 	/**
-	 * The class constructor.
+	 * The number of frames by which the pixel data lag behind the frame data.
+	 */
+	private int latency;
+
+	/**
+	 * The scaled images of the screen computed in this frame, keyed by the size
+	 * and whether they are grayScale. It is shared with the copied instances.
+	 */
+	private HashMap<Long, byte[]> scaledImages;
+
+	/**
+	 * The black buffer shared by all instances in headless mode, where no
+	 * OpenGL context exists to read pixels from, and by the instances created
+	 * without reading the screen.
+	 */
+	private static ByteBuffer headlessByteBuffer;
+
+	/**
+	 * The number of the direct buffers that are reused for reading the screen.
+	 * <br>
+	 * The pixels of an instance remain valid until this number of instances
+	 * have been created after it. Copy them, for example with
+	 * {@link #getDisplayByteBufferAsBytes()}, to keep them longer.
+	 */
+	public static final int BUFFER_POOL_SIZE = 8;
+
+	/**
+	 * The direct buffers that are reused in turn for reading the screen.
+	 */
+	private static ByteBuffer[] displayBufferPool;
+
+	/**
+	 * The index of the buffer in the pool to be used next.
+	 */
+	private static int nextBufferIndex;
+
+	/**
+	 * The direct buffer reused for reading the observation rendered at
+	 * {@link LaunchSetting#observationSize}.
+	 */
+	private static ByteBuffer observationByteBuffer;
+
+	/**
+	 * The class constructor that reads the pixels of the current game screen.
 	 */
 	public ScreenData() {
-		this.displayByteBuffer = createDisplayByteBuffer();
+		this(true);
+	}
+
+	/**
+	 * The class constructor that reads the pixels of the current game screen
+	 * only if specified.<br>
+	 * Reading the screen stalls the rendering pipeline, so the game reads it
+	 * only while an AI requires the pixels.<br>
+	 * If an observation size is specified with the {@code --observation-size}
+	 * option, only the screen rendered at that size on the GPU is read instead
+	 * of the whole screen. It is returned by
+	 * {@link #getDisplayByteBufferAsBytes(int, int, boolean)} for that size,
+	 * and {@link #getDisplayByteBuffer()} returns a black buffer.
+	 *
+	 * @param capture
+	 *            {@code true} to read the pixels of the screen, or
+	 *            {@code false} to use a black buffer
+	 * @see aiinterface.AIInterface#requiresScreenData()
+	 */
+	public ScreenData(boolean capture) {
+		this.scaledImages = new HashMap<Long, byte[]>();
+		if (FlagSetting.headlessFlag || !capture) {
+			this.displayByteBuffer = getHeadlessByteBuffer();
+		} else if (LaunchSetting.observationSize[0] > 0 && LaunchSetting.observationSize[1] > 0) {
+			this.displayByteBuffer = getHeadlessByteBuffer();
+			readObservation(LaunchSetting.observationSize[0], LaunchSetting.observationSize[1]);
+		} else {
+			this.displayByteBuffer = createDisplayByteBuffer();
+		}
 		this.displayBufferedImage =  GraphicManager.getInstance().getScreenImage();
 
 		//You can check the displayBufferedImage.
@@ -49,6 +118,29 @@ public class ScreenData {
 
 	}
 
+	/**
+	 * The class constructor that uses the screen rendered on the CPU at the
+	 * observation size instead of reading the screen from OpenGL.<br>
+	 * The pixels are returned by
+	 * {@link #getDisplayByteBufferAsBytes(int, int, boolean)} for that size,
+	 * and {@link #getDisplayByteBuffer()} returns a black buffer.
+	 *
+	 * @param observation
+	 *            the RGB data of the rendered screen, 3 bytes per pixel from
+	 *            the top row
+	 * @param width
+	 *            the width of the rendered screen
+	 * @param height
+	 *            the height of the rendered screen
+	 * @see render.SoftwareRenderer
+	 */
+	public ScreenData(byte[] observation, int width, int height) {
+		this.scaledImages = new HashMap<Long, byte[]>();
+		this.scaledImages.put(getScaledImageKey(width, height, false), observation);
+		this.displayByteBuffer = getHeadlessByteBuffer();
+		this.displayBufferedImage = GraphicManager.getInstance().getScreenImage();
+	}
+
 	/**
 	 * The class constructor that creates pixel information of the game screen
 	 * by using the specified data.
@@ -57,8 +149,12 @@ public class ScreenData {
 	 *            an instance of ScreenData class
 	 */
 	public ScreenData(ScreenData screenData) {
-		this.displayByteBuffer = screenData.getDisplayByteBuffer();
+		this.latency = screenData.getLatency();
+		// share the pixels but not the position, so that each copy can be read
+		ByteBuffer buffer = screenData.getDisplayByteBuffer();
+		this.displayByteBuffer = buffer == null ? null : buffer.duplicate();
 		this.displayBufferedImage = screenData.getDisplayBufferedImage();
+		this.scaledImages = screenData.scaledImages;
 	}
 
 	/**
@@ -75,6 +171,23 @@ public class ScreenData {
 		return this.displayBufferedImage;
 	}
 
+	/**
+	 * Returns the number of frames by which the pixel data lag behind the frame
+	 * data of the same frame.<br>
+	 * The game reads the screen asynchronously, so the pixel data show the
+	 * screen rendered this number of frames before. It can be configured with
+	 * the {@code --screen-latency} option, and is 0 when the screen is read
+	 * synchronously or the pixel data are a black buffer, which the game
+	 * returns until the first asynchronously read screen is available. The
+	 * observation rendered at the size of the {@code --observation-size} option
+	 * lags behind by 1 frame once it has been rendered.
+	 *
+	 * @return the number of frames by which the pixel data lag behind
+	 */
+	public int getLatency() {
+		return this.latency;
+	}
+
 	/**
 	 * Obtains RGB data of the screen in the form of byte[].<br>
 	 * Warning: If the window is disabled, will just return a black buffer.
@@ -103,50 +216,149 @@ public class ScreenData {
 	 *            instead of 3 bytes per pixel with RGB)
 	 * @return the RGB data or the grayScale data of the screen in the form of
 	 *         byte[]
+	 * @see #getDisplayByteBufferAsBytes(int, int, boolean, byte[])
 	 */
 	public byte[] getDisplayByteBufferAsBytes(int newWidth, int newHeight, boolean grayScale) {
-
-
 		if (this.displayByteBuffer != null) {
+			byte[] scaled = getScaledImage(newWidth, newHeight, grayScale);
+			return scaled.clone();
+		} else {
+			return null;
+		}
+	}
 
-			// Resizes the image
-			AffineTransformOp xform = new AffineTransformOp(AffineTransform
-					.getScaleInstance((double) newWidth / displayBufferedImage.getWidth(), (double) newHeight / displayBufferedImage.getHeight()),
-					AffineTransformOp.TYPE_BILINEAR);
-			BufferedImage resize = new BufferedImage(newWidth, newHeight, displayBufferedImage.getType());
-			xform.filter(displayBufferedImage, resize);
-
-			// Converts it back to array of bytes
-			byte[] dst;
-
-			if (grayScale) {
-				BufferedImage temp = new BufferedImage(resize.getWidth(), resize.getHeight(),
-						BufferedImage.TYPE_BYTE_GRAY);
-				Graphics2D g = temp.createGraphics();
-				g.drawImage(resize, 0, 0, newWidth, newHeight, null);
-				g.dispose();
-
-				dst = ((DataBufferByte) temp.getData().getDataBuffer()).getData();
-			} else {
-				dst = new byte[newWidth * newHeight * 3];
-
-				int[] array = ((DataBufferInt) resize.getRaster().getDataBuffer()).getData();
-				for (int x = 0; x < newWidth; x++) {
-					for (int y = 0; y < newHeight; y++) {
-						int idx = x + y * newWidth;
-						dst[idx * 3] = (byte) ((array[idx] >> 16) & 0xFF); // R
-						dst[idx * 3 + 1] = (byte) ((array[idx] >> 8) & 0xFF); // G
-						dst[idx * 3 + 2] = (byte) ((array[idx]) & 0xFF); // B
-					}
-				}
+	/**
+	 * Writes RGB data or the grayScale data of the screen into the specified
+	 * array, without allocating a new array.<br>
+	 * The image is scaled row by row with bilinear interpolation by using
+	 * resampling tables precomputed for each size. Each size is scaled at most
+	 * once per frame, and the instances copied from the same instance share the
+	 * result, so several AIs requesting the same size do not scale it again.
+	 *
+	 * @param newWidth
+	 *            the width in pixel for the scaled image
+	 * @param newHeight
+	 *            the height in pixel for the scaled image
+	 * @param grayScale
+	 *            true to use grayScale for the scaled image (1 byte per pixel
+	 *            instead of 3 bytes per pixel with RGB)
+	 * @param dst
+	 *            the array to write the data in, whose length must be at least
+	 *            {@code newWidth * newHeight} for grayScale and
+	 *            {@code newWidth * newHeight * 3} for RGB
+	 * @return the specified array, or null if the screen has no pixel data
+	 */
+	public byte[] getDisplayByteBufferAsBytes(int newWidth, int newHeight, boolean grayScale, byte[] dst) {
+		if (this.displayByteBuffer != null) {
+			byte[] scaled = getScaledImage(newWidth, newHeight, grayScale);
+			if (dst.length < scaled.length) {
+				throw new IllegalArgumentException(
+						"The array length " + dst.length + " is shorter than " + scaled.length);
 			}
-
+			System.arraycopy(scaled, 0, dst, 0, scaled.length);
 			return dst;
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Obtains the scaled image of the specified size, scaling the screen image
+	 * if it has not been scaled to the size in this frame yet.<br>
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @param newWidth
+	 *            the width in pixel for the scaled image
+	 * @param newHeight
+	 *            the height in pixel for the scaled image
+	 * @param grayScale
+	 *            true to use grayScale for the scaled image
+	 * @return the scaled image
+	 */
+	private byte[] getScaledImage(int newWidth, int newHeight, boolean grayScale) {
+		if (newWidth <= 0 || newHeight <= 0) {
+			throw new IllegalArgumentException("Invalid size: " + newWidth + "x" + newHeight);
+		}
+
+		synchronized (this.scaledImages) {
+			byte[] scaled = this.scaledImages.get(getScaledImageKey(newWidth, newHeight, grayScale));
+			byte[] rgb = grayScale ? this.scaledImages.get(getScaledImageKey(newWidth, newHeight, false)) : null;
+			if (scaled == null && rgb != null) {
+				// the RGB image of the same size, such as the observation, is already available
+				scaled = new byte[newWidth * newHeight];
+				ScreenResampler.toGrayScale(rgb, scaled);
+				this.scaledImages.put(getScaledImageKey(newWidth, newHeight, true), scaled);
+			} else if (scaled == null) {
+				ScreenResampler resampler = ScreenResampler.getResampler(this.displayBufferedImage.getWidth(),
+						this.displayBufferedImage.getHeight(), newWidth, newHeight);
+				int[] pixels = ((DataBufferInt) this.displayBufferedImage.getRaster().getDataBuffer()).getData();
+
+				scaled = new byte[resampler.getSize(grayScale)];
+				resampler.resample(pixels, scaled, grayScale);
+				this.scaledImages.put(getScaledImageKey(newWidth, newHeight, grayScale), scaled);
+			}
+
+			return scaled;
+		}
+	}
+
+	/**
+	 * Returns the key of the scaled image of the specified size in the cache.
+	 *
+	 * @param newWidth
+	 *            the width in pixel for the scaled image
+	 * @param newHeight
+	 *            the height in pixel for the scaled image
+	 * @param grayScale
+	 *            true to use grayScale for the scaled image
+	 * @return the key of the scaled image
+	 */
+	private static Long getScaledImageKey(int newWidth, int newHeight, boolean grayScale) {
+		return ((long) newWidth << 32) | ((long) newHeight << 1) | (grayScale ? 1 : 0);
+	}
+
+	/**
+	 * Reads the RGB data of the screen rendered at the specified size on the GPU
+	 * and stores them as the scaled image of that size, with the rows in the
+	 * same top-down order as the other scaled images.
+	 *
+	 * @param width
+	 *            the width of the observation
+	 * @param height
+	 *            the height of the observation
+	 */
+	private void readObservation(int width, int height) {
+		int rowSize = width * 3;
+		ByteBuffer pixels = getObservationByteBuffer(rowSize * height);
+		pixels.clear();
+		this.latency = GraphicManager.getInstance().readObservationPixels(pixels);
+
+		// OpenGL returns the rows from the bottom
+		byte[] rgb = new byte[rowSize * height];
+		for (int y = 0; y < height; y++) {
+			pixels.position((height - 1 - y) * rowSize);
+			pixels.get(rgb, y * rowSize, rowSize);
+		}
+
+		this.scaledImages.put(getScaledImageKey(width, height, false), rgb);
+	}
+
+	/**
+	 * Obtains the direct buffer for reading the observation, allocating it on
+	 * the first use or when the size has changed.
+	 *
+	 * @param size
+	 *            the number of bytes of the observation
+	 * @return a direct buffer of the specified size
+	 */
+	private static synchronized ByteBuffer getObservationByteBuffer(int size) {
+		if (observationByteBuffer == null || observationByteBuffer.capacity() != size) {
+			observationByteBuffer = BufferUtils.createByteBuffer(size);
+		}
+
+		return observationByteBuffer;
+	}
+
 	/**
 	 * Obtains RGB data of the screen in the form of ByteBuffer<br>
 	 * Warning: If the window is disabled, will just returns a black buffer.
@@ -154,16 +366,51 @@ public class ScreenData {
 	 * @return RGB data of the screen in the form of ByteBuffer
 	 */
 	private ByteBuffer createDisplayByteBuffer() {
-		// Allocate memory for the RGB data of the screen
-		ByteBuffer pixels = BufferUtils.createByteBuffer(3 * GameSetting.STAGE_WIDTH * GameSetting.STAGE_HEIGHT);
+		// Reuse a buffer of the pool for the RGB data of the screen
+		ByteBuffer pixels = getPooledByteBuffer();
 		pixels.clear();
 
 		// Assign the RGB data of the screen to pixels, a ByteBuffer
 		// variable
-		glReadPixels(0, 0, GameSetting.STAGE_WIDTH, GameSetting.STAGE_HEIGHT, GL_RGB, GL_UNSIGNED_BYTE, pixels);
+		this.latency = GraphicManager.getInstance().readScreenPixels(pixels);
 		pixels.rewind();
 
-		return pixels;
+		return pixels.duplicate();
+	}
+
+	/**
+	 * Obtains the next buffer of the pool, allocating it on the first use.
+	 *
+	 * @return a direct buffer of the screen size
+	 */
+	private static synchronized ByteBuffer getPooledByteBuffer() {
+		if (displayBufferPool == null) {
+			displayBufferPool = new ByteBuffer[BUFFER_POOL_SIZE];
+		}
+		if (displayBufferPool[nextBufferIndex] == null) {
+			displayBufferPool[nextBufferIndex] = BufferUtils
+					.createByteBuffer(3 * GameSetting.STAGE_WIDTH * GameSetting.STAGE_HEIGHT);
+		}
+
+		ByteBuffer buffer = displayBufferPool[nextBufferIndex];
+		nextBufferIndex = (nextBufferIndex + 1) % BUFFER_POOL_SIZE;
+		return buffer;
+	}
+
+	/**
+	 * Obtains a black buffer of the screen size without calling OpenGL.<br>
+	 * The buffer is allocated only once and every caller receives its own view
+	 * of it so that reading does not affect the position of the others.
+	 *
+	 * @return a black buffer of the screen size
+	 */
+	private static synchronized ByteBuffer getHeadlessByteBuffer() {
+		if (headlessByteBuffer == null) {
+			headlessByteBuffer = ByteBuffer.allocateDirect(3 * GameSetting.STAGE_WIDTH * GameSetting.STAGE_HEIGHT)
+					.order(ByteOrder.nativeOrder());
+		}
+
+		return headlessByteBuffer.duplicate();
 	}
 
 //	private BufferedImage createDisplayBufferedImage(){
@@ -0,0 +1,262 @@
+package struct;
+
+import java.util.HashMap;
+
+/**
+ * The class that scales the screen image with bilinear interpolation by using
+ * precomputed resampling tables.<br>
+ * The source columns, the source rows and the interpolation weights of each
+ * destination pixel depend only on the source and destination sizes, so they
+ * are computed once per pair of sizes and shared by all frames.
+ */
+final class ScreenResampler {
+
+	/**
+	 * The number of bits of the fixed-point interpolation weights.
+	 */
+	private static final int WEIGHT_BITS = 8;
+
+	/**
+	 * The fixed-point value of the weight 1.0.
+	 */
+	private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+
+	/**
+	 * The resamplers created so far, keyed by the source and destination sizes.
+	 */
+	private static final HashMap<Long, ScreenResampler> resamplers = new HashMap<Long, ScreenResampler>();
+
+	/**
+	 * The width of the scaled image.
+	 */
+	private final int dstWidth;
+
+	/**
+	 * The height of the scaled image.
+	 */
+	private final int dstHeight;
+
+	/**
+	 * The left source column of each destination column.
+	 */
+	private final int[] leftColumns;
+
+	/**
+	 * The right source column of each destination column.
+	 */
+	private final int[] rightColumns;
+
+	/**
+	 * The weight of the right source column of each destination column.
+	 */
+	private final int[] columnWeights;
+
+	/**
+	 * The index of the first pixel of the upper source row of each destination
+	 * row.
+	 */
+	private final int[] upperRows;
+
+	/**
+	 * The index of the first pixel of the lower source row of each destination
+	 * row.
+	 */
+	private final int[] lowerRows;
+
+	/**
+	 * The weight of the lower source row of each destination row.
+	 */
+	private final int[] rowWeights;
+
+	/**
+	 * The class constructor that computes the resampling tables.
+	 *
+	 * @param srcWidth
+	 *            the width of the source image
+	 * @param srcHeight
+	 *            the height of the source image
+	 * @param dstWidth
+	 *            the width of the scaled image
+	 * @param dstHeight
+	 *            the height of the scaled image
+	 */
+	private ScreenResampler(int srcWidth, int srcHeight, int dstWidth, int dstHeight) {
+		this.dstWidth = dstWidth;
+		this.dstHeight = dstHeight;
+
+		this.leftColumns = new int[dstWidth];
+		this.rightColumns = new int[dstWidth];
+		this.columnWeights = new int[dstWidth];
+		computeTable(srcWidth, dstWidth, 1, this.leftColumns, this.rightColumns, this.columnWeights);
+
+		this.upperRows = new int[dstHeight];
+		this.lowerRows = new int[dstHeight];
+		this.rowWeights = new int[dstHeight];
+		computeTable(srcHeight, dstHeight, srcWidth, this.upperRows, this.lowerRows, this.rowWeights);
+	}
+
+	/**
+	 * Obtains the resampler for the specified sizes, creating it on the first
+	 * use.
+	 *
+	 * @param srcWidth
+	 *            the width of the source image
+	 * @param srcHeight
+	 *            the height of the source image
+	 * @param dstWidth
+	 *            the width of the scaled image
+	 * @param dstHeight
+	 *            the height of the scaled image
+	 * @return the resampler for the specified sizes
+	 */
+	static synchronized ScreenResampler getResampler(int srcWidth, int srcHeight, int dstWidth, int dstHeight) {
+		Long key = ((long) srcWidth << 48) | ((long) srcHeight << 32) | ((long) dstWidth << 16) | dstHeight;
+
+		ScreenResampler resampler = resamplers.get(key);
+		if (resampler == null) {
+			resampler = new ScreenResampler(srcWidth, srcHeight, dstWidth, dstHeight);
+			resamplers.put(key, resampler);
+		}
+
+		return resampler;
+	}
+
+	/**
+	 * Computes the two source positions and the weight of the second one for
+	 * each destination position along one axis.<br>
+	 * The center of each destination pixel is mapped to the source image and
+	 * the positions are clamped at the edges.
+	 *
+	 * @param srcSize
+	 *            the size of the source image along the axis
+	 * @param dstSize
+	 *            the size of the scaled image along the axis
+	 * @param stride
+	 *            the number of source pixels between two adjacent positions
+	 * @param first
+	 *            the array to store the first source positions in
+	 * @param second
+	 *            the array to store the second source positions in
+	 * @param weights
+	 *            the array to store the weights of the second positions in
+	 */
+	private static void computeTable(int srcSize, int dstSize, int stride, int[] first, int[] second,
+			int[] weights) {
+		double scale = (double) srcSize / dstSize;
+
+		for (int i = 0; i < dstSize; i++) {
+			double position = Math.max((i + 0.5) * scale - 0.5, 0.0);
+			int index = Math.min((int) position, srcSize - 1);
+			int weight = (int) Math.round((position - index) * WEIGHT_ONE);
+
+			first[i] = index * stride;
+			second[i] = Math.min(index + 1, srcSize - 1) * stride;
+			weights[i] = Math.min(weight, WEIGHT_ONE);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of the scaled image.
+	 *
+	 * @param grayScale
+	 *            true for 1 byte per pixel, false for 3 bytes per pixel with RGB
+	 * @return the number of bytes of the scaled image
+	 */
+	int getSize(boolean grayScale) {
+		return this.dstWidth * this.dstHeight * (grayScale ? 1 : 3);
+	}
+
+	/**
+	 * Scales the source pixels and writes the result into the specified array
+	 * row by row.<br>
+	 * The gray value is computed from the interpolated RGB values with the same
+	 * weights as the conversion of Java2D to {@code TYPE_BYTE_GRAY}.
+	 *
+	 * @param src
+	 *            the pixels of the source image in the form of
+	 *            {@code TYPE_INT_RGB}
+	 * @param dst
+	 *            the array to write the scaled image in
+	 * @param grayScale
+	 *            true to write 1 gray byte per pixel, false to write 3 bytes
+	 *            per pixel in the order of RGB
+	 */
+	void resample(int[] src, byte[] dst, boolean grayScale) {
+		int[] left = this.leftColumns;
+		int[] right = this.rightColumns;
+		int[] columnWeight = this.columnWeights;
+		int index = 0;
+
+		for (int y = 0; y < this.dstHeight; y++) {
+			int upper = this.upperRows[y];
+			int lower = this.lowerRows[y];
+			int wy = this.rowWeights[y];
+			int vy = WEIGHT_ONE - wy;
+
+			for (int x = 0; x < this.dstWidth; x++) {
+				int wx = columnWeight[x];
+				int vx = WEIGHT_ONE - wx;
+				int p00 = src[upper + left[x]];
+				int p01 = src[upper + right[x]];
+				int p10 = src[lower + left[x]];
+				int p11 = src[lower + right[x]];
+
+				int r = interpolate((p00 >> 16) & 0xFF, (p01 >> 16) & 0xFF, (p10 >> 16) & 0xFF,
+						(p11 >> 16) & 0xFF, vx, wx, vy, wy);
+				int g = interpolate((p00 >> 8) & 0xFF, (p01 >> 8) & 0xFF, (p10 >> 8) & 0xFF, (p11 >> 8) & 0xFF, vx,
+						wx, vy, wy);
+				int b = interpolate(p00 & 0xFF, p01 & 0xFF, p10 & 0xFF, p11 & 0xFF, vx, wx, vy, wy);
+
+				if (grayScale) {
+					dst[index++] = (byte) ((77 * r + 150 * g + 29 * b + 128) >> 8);
+				} else {
+					dst[index++] = (byte) r;
+					dst[index++] = (byte) g;
+					dst[index++] = (byte) b;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts RGB data into grayScale data with the same weights as
+	 * {@link #resample(int[], byte[], boolean)}.
+	 *
+	 * @param rgb
+	 *            the RGB data, 3 bytes per pixel
+	 * @param gray
+	 *            the array to write the grayScale data in, 1 byte per pixel
+	 */
+	static void toGrayScale(byte[] rgb, byte[] gray) {
+		for (int i = 0, j = 0; i < gray.length; i++, j += 3) {
+			gray[i] = (byte) ((77 * (rgb[j] & 0xFF) + 150 * (rgb[j + 1] & 0xFF) + 29 * (rgb[j + 2] & 0xFF) + 128) >> 8);
+		}
+	}
+
+	/**
+	 * Interpolates one channel of four adjacent source pixels.
+	 *
+	 * @param c00
+	 *            the value of the upper left pixel
+	 * @param c01
+	 *            the value of the upper right pixel
+	 * @param c10
+	 *            the value of the lower left pixel
+	 * @param c11
+	 *            the value of the lower right pixel
+	 * @param vx
+	 *            the weight of the left pixels
+	 * @param wx
+	 *            the weight of the right pixels
+	 * @param vy
+	 *            the weight of the upper pixels
+	 * @param wy
+	 *            the weight of the lower pixels
+	 * @return the interpolated value from 0 to 255
+	 */
+	private static int interpolate(int c00, int c01, int c10, int c11, int vx, int wx, int vy, int wy) {
+		int upper = c00 * vx + c01 * wx;
+		int lower = c10 * vx + c11 * wx;
+		return (upper * vy + lower * wy + (1 << (2 * WEIGHT_BITS - 1))) >> (2 * WEIGHT_BITS);
+	}
+}
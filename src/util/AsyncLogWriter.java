@@ -0,0 +1,168 @@
+package util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ログの直列化及びファイルへの書き込みを, ゲームループとは別のスレッドで行うクラス．<br>
+ * 出力先ごとにインスタンスを作成する．ゲームループから渡された処理はインスタンスごとの容量が{@link #QUEUE_CAPACITY}の
+ * 固定長のリングバッファに格納され, 全てのインスタンスで共有するスレッドプールの書き込みスレッドが渡された順に実行する．
+ * 1つのインスタンスの処理が同時に複数のスレッドで実行されることはない．<br>
+ * リングバッファが一杯の場合は空きができるまで呼び出し元を待機させるため, ログが失われることはなく,
+ * 書き込み待ちのデータの量も上限を超えない．
+ * 並列に実行される試合はそれぞれ別のインスタンスを用いるため, 他の試合の書き込みを待つことはない．
+ *
+ * @see AsyncOutputStream
+ */
+public class AsyncLogWriter {
+
+	/**
+	 * 書き込みスレッドに渡すことのできる, インスタンスごとの未処理の処理の最大数．
+	 */
+	public static final int QUEUE_CAPACITY = 1024;
+
+	/**
+	 * 全てのインスタンスの処理を実行するスレッドプール．
+	 * 処理が渡されているインスタンスごとに1つのスレッドを用い, 使われなくなったスレッドは一定時間後に終了する．
+	 */
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "AsyncLogWriter");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * 書き込みスレッドに渡された未処理の処理を格納するリングバッファ．
+	 */
+	private ArrayBlockingQueue<Runnable> queue;
+
+	/**
+	 * リングバッファの処理を実行するタスクがスレッドプールに登録されているかどうか．
+	 */
+	private AtomicBoolean scheduled;
+
+	/**
+	 * リングバッファの処理を実行するタスク．
+	 */
+	private Runnable drain;
+
+	/**
+	 * クラスコンストラクタ．
+	 */
+	public AsyncLogWriter() {
+		this.queue = new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY);
+		this.scheduled = new AtomicBoolean(false);
+		this.drain = new Runnable() {
+			@Override
+			public void run() {
+				processTasks();
+			}
+		};
+	}
+
+	/**
+	 * 引数の処理を書き込みスレッドに渡す．<br>
+	 * リングバッファが一杯の場合は, 空きができるまで待機する．
+	 *
+	 * @param task
+	 *            書き込みスレッドで実行する処理
+	 */
+	public void submit(Runnable task) {
+		boolean interrupted = false;
+
+		while (true) {
+			try {
+				this.queue.put(task);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		schedule();
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * このインスタンスにこれまでに渡された全ての処理が終わるまで待機する．
+	 */
+	public void await() {
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		submit(new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		});
+		await(latch);
+	}
+
+	/**
+	 * 引数のラッチのカウントが0になるまで待機する．<br>
+	 * 待機中に割り込まれても待機を続け, 待機後に割り込み状態を復元する．
+	 *
+	 * @param latch
+	 *            書き込みスレッドの処理の完了を通知するラッチ
+	 */
+	void await(CountDownLatch latch) {
+		boolean interrupted = false;
+
+		while (true) {
+			try {
+				latch.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * リングバッファの処理を実行するタスクが登録されていない場合に, スレッドプールに登録する．
+	 */
+	private void schedule() {
+		if (this.scheduled.compareAndSet(false, true)) {
+			EXECUTOR.execute(this.drain);
+		}
+	}
+
+	/**
+	 * リングバッファが空になるまで, 渡された処理を順に実行する．書き込みスレッドで実行される．
+	 */
+	private void processTasks() {
+		while (true) {
+			Runnable task = this.queue.poll();
+			if (task == null) {
+				this.scheduled.set(false);
+
+				// 登録の解除と同時に渡された処理があれば, 引き続き実行する
+				if (this.queue.isEmpty() || !this.scheduled.compareAndSet(false, true)) {
+					return;
+				}
+				continue;
+			}
+
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				Logger.getAnonymousLogger().log(Level.WARNING, "Fail to write the log: " + e.getMessage(), e);
+			}
+		}
+	}
+}
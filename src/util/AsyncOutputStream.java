@@ -0,0 +1,187 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 書き込まれたバイト列を{@link #BLOCK_SIZE}バイトのブロック単位でまとめ,
+ * ストリームごとの{@link AsyncLogWriter}の書き込みスレッドで出力先のストリームに書き込む出力ストリーム．<br>
+ * 呼び出し元のスレッドはブロックへのコピーのみを行うため, ディスクへの書き込みを待つことはない．<br>
+ * 書き込みスレッドで発生した例外は, 以降の{@link #write}, {@link #flush()}又は{@link #close()}の呼び出しで通知される．
+ */
+public class AsyncOutputStream extends OutputStream {
+
+	/**
+	 * 1回の書き込みでまとめて出力するブロックのバイト数．
+	 */
+	public static final int BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * 書き込みスレッドから書き込まれる出力先のストリーム．
+	 */
+	private final OutputStream out;
+
+	/**
+	 * このストリームのブロックを書き込むAsyncLogWriter．
+	 */
+	private final AsyncLogWriter writer;
+
+	/**
+	 * 書き込み中のブロック．
+	 */
+	private byte[] block;
+
+	/**
+	 * 書き込み中のブロックに格納されたバイト数．
+	 */
+	private int count;
+
+	/**
+	 * ストリームが閉じられたかどうか．
+	 */
+	private boolean closed;
+
+	/**
+	 * 書き込みスレッドで発生した例外．発生していない場合はnull．
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * 引数のストリームに非同期に書き込む出力ストリームを作成するクラスコンストラクタ．
+	 *
+	 * @param out
+	 *            出力先のストリーム
+	 */
+	public AsyncOutputStream(OutputStream out) {
+		this.out = out;
+		this.writer = new AsyncLogWriter();
+		this.block = new byte[BLOCK_SIZE];
+		this.count = 0;
+		this.closed = false;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (this.count == this.block.length) {
+			handOff();
+		}
+		this.block[this.count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		while (len > 0) {
+			if (this.count == this.block.length) {
+				handOff();
+			}
+
+			int length = Math.min(len, this.block.length - this.count);
+			System.arraycopy(b, off, this.block, this.count, length);
+			this.count += length;
+			off += length;
+			len -= length;
+		}
+	}
+
+	/**
+	 * 書き込み中のブロックを書き込みスレッドに渡す．<br>
+	 * 書き込みの完了は待たない．
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (this.count > 0) {
+			handOff();
+		} else {
+			checkFailure();
+		}
+	}
+
+	/**
+	 * 書き込み中のブロックを書き込みスレッドに渡し, 全てのブロックが書き込まれて出力先のストリームが閉じられるまで待機する．
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		if (this.count > 0) {
+			handOff();
+		}
+		// 以降の書き込みではhandOff()が呼ばれ, 例外が投げられる
+		this.closed = true;
+		this.block = new byte[0];
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		this.writer.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					out.close();
+				} catch (IOException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				} finally {
+					latch.countDown();
+				}
+			}
+		});
+		this.writer.await(latch);
+
+		if (this.failure != null) {
+			throw new IOException("Fail to write asynchronously", this.failure);
+		}
+	}
+
+	/**
+	 * 書き込み中のブロックを書き込みスレッドに渡し, 新しいブロックに切り替える．
+	 *
+	 * @throws IOException
+	 *             ストリームが閉じられている場合, 又は書き込みスレッドで例外が発生していた場合
+	 */
+	private void handOff() throws IOException {
+		checkFailure();
+
+		final byte[] data = this.block;
+		final int length = this.count;
+		this.block = new byte[BLOCK_SIZE];
+		this.count = 0;
+
+		this.writer.submit(new Runnable() {
+			@Override
+			public void run() {
+				if (failure != null) {
+					return;
+				}
+
+				try {
+					out.write(data, 0, length);
+					out.flush();
+				} catch (IOException e) {
+					failure = e;
+				}
+			}
+		});
+	}
+
+	/**
+	 * ストリームが閉じられているか, 書き込みスレッドで例外が発生していた場合に例外を投げる．
+	 *
+	 * @throws IOException
+	 *             ストリームが閉じられている場合, 又は書き込みスレッドで例外が発生していた場合
+	 */
+	private void checkFailure() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+		if (this.failure != null) {
+			throw new IOException("Fail to write asynchronously", this.failure);
+		}
+	}
+}
@@ -0,0 +1,465 @@
+package util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Deque;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+import enumerate.Action;
+import enumerate.State;
+import input.KeyData;
+import setting.GameSetting;
+import setting.LaunchSetting;
+import struct.AttackData;
+import struct.CharacterData;
+import struct.FrameData;
+import struct.HitArea;
+import struct.Key;
+
+/**
+ * {@link LogWriter#updateJson(FrameData, KeyData)}と同じ試合のデータを, 列指向の形式でファイルに出力するクラス．<br>
+ * 各項目は1フレームにつき1要素のリトルエンディアンの32ビット整数の配列(列)として格納され, 1ラウンド分の列はラウンドの終了時に
+ * 続けて書き込まれるため, ファイルをメモリマップするだけでテンソルとして読み込める．ファイルの構成は以下の通りである．
+ *
+ * <pre>
+ * int32  マジックナンバー "FICL" (ビッグエンディアン, 0x4649434C)
+ * int32  バージョン
+ * int32  ヘッダのバイト数
+ * UTF-8  ヘッダのJSON (8バイトの倍数になるよう空白で埋める):
+ *        {"byte_order": "little", "dtype": "int32",
+ *         "max_hp": {"P1": 400, "P2": 400},
+ *         "character_names": {"P1": "ZEN", "P2": "ZEN"},
+ *         "stage_size": {"x": 960, "y": 640},
+ *         "actions": [...], "states": [...], "attack_types": [...]}
+ * int32[] ラウンド1, ラウンド2, ...の列
+ * UTF-8  フッタのJSON:
+ *        {"rounds": [{"round": 1, "frames": 3600,
+ *                     "columns": {"current_frame": {"offset": 64, "length": 3600}, ...}}, ...]}
+ * int32  フッタのバイト数 (ビッグエンディアン)
+ * int32  マジックナンバー (ビッグエンディアン)
+ * </pre>
+ *
+ * フレームごとの列は{@code current_frame}, {@code remaining_frames}と, {@code P1}及び{@code P2}のそれぞれについて
+ * JSONのログのキャラクターの項目の名前にプレイヤーを付けたもの({@code P1.hp}など)である．
+ * 真偽値は0か1で, アクション, 状態及び攻撃の種類はヘッダの名前の表の添え字で格納する．
+ * {@code P1.has_attack}はJSONのログに{@code attack}が含まれる場合に1となり, その場合は{@code P1.attack.*}の列にその項目を,
+ * それ以外の場合は0を格納する．<br>
+ * 波動拳の数はフレームごとに異なるため, {@code P1.projectile_count}に各フレームの波動拳の数を格納し,
+ * {@code P1.projectiles.*}の列にはラウンド中の全ての波動拳の項目をフレーム順に格納する．
+ * あるフレームの波動拳は, それより前のフレームの波動拳の数の合計の位置から始まる．
+ *
+ * @see LogWriter#initJson(String)
+ */
+public class ColumnarLogWriter {
+
+	/**
+	 * ファイルの先頭及び末尾に書き込まれるマジックナンバー("FICL")．
+	 */
+	public static final int MAGIC = 0x4649434C;
+
+	/**
+	 * ファイルの形式のバージョン．
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * フレームごとの列の名前．
+	 */
+	private static final String[] FRAME_COLUMNS = { "current_frame", "remaining_frames" };
+
+	/**
+	 * キャラクターごとの列の, プレイヤーを付ける前の名前．
+	 */
+	private static final String[] CHARACTER_COLUMNS = { "front", "remaining_frames", "action_id", "state_id", "hp",
+			"energy", "x", "y", "left", "right", "top", "bottom", "speed_x", "speed_y", "key_a", "key_b", "key_c",
+			"key_up", "key_down", "key_left", "key_right", "has_attack", "projectile_count" };
+
+	/**
+	 * 攻撃の列の, プレイヤー及び攻撃の接頭辞を付ける前の名前．
+	 */
+	private static final String[] ATTACK_COLUMNS = { "speed_x", "speed_y", "hit_damage", "guard_damage",
+			"start_add_energy", "hit_add_energy", "guard_add_energy", "give_energy", "give_guard_recov",
+			"attack_type_id", "impact_x", "impact_y", "hit_area.bottom", "hit_area.top", "hit_area.left",
+			"hit_area.right" };
+
+	/**
+	 * 攻撃の種類の名前．添え字が攻撃の種類の値に対応する．
+	 */
+	private static final String[] ATTACK_TYPES = { "NONE", "HIGH", "MIDDLE", "LOW", "THROW" };
+
+	/**
+	 * フレームごとの列の数．
+	 */
+	private static final int COLUMN_NUMBER = FRAME_COLUMNS.length
+			+ 2 * (CHARACTER_COLUMNS.length + ATTACK_COLUMNS.length);
+
+	/**
+	 * 出力先のファイルのチャネル．
+	 */
+	private FileChannel channel;
+
+	/**
+	 * 格納中のラウンド．最初のフレームの前は0．
+	 */
+	private int currentRound;
+
+	/**
+	 * 格納中のラウンドのフレーム数．
+	 */
+	private int frameNumber;
+
+	/**
+	 * 格納中のラウンドのフレームごとの列．
+	 */
+	private int[][] columns;
+
+	/**
+	 * 格納中のラウンドのP1, P2の波動拳の列．
+	 */
+	private int[][][] projectileColumns;
+
+	/**
+	 * 格納中のラウンドのP1, P2の波動拳の数．
+	 */
+	private int[] projectileNumbers;
+
+	/**
+	 * 書き込み済みのラウンドのフッタの項目．
+	 */
+	private JsonArrayBuilder rounds;
+
+	/**
+	 * 列をリトルエンディアンのバイト列に変換するためのバッファ．
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * 出力先のファイルを作成し, ヘッダを書き込むクラスコンストラクタ．
+	 *
+	 * @param fileName
+	 *            出力先のファイル名
+	 * @param characterNames
+	 *            P1, P2のキャラクター名
+	 * @throws IOException
+	 *             ファイルを作成できなかった場合, 又は書き込めなかった場合
+	 */
+	@SuppressWarnings("resource")
+	public ColumnarLogWriter(String fileName, String[] characterNames) throws IOException {
+		this.channel = new FileOutputStream(fileName, false).getChannel();
+		this.currentRound = 0;
+		this.frameNumber = 0;
+		this.columns = new int[COLUMN_NUMBER][4096];
+		this.projectileColumns = new int[2][ATTACK_COLUMNS.length][256];
+		this.projectileNumbers = new int[2];
+		this.rounds = Json.createArrayBuilder();
+		this.buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+		writeHeader(characterNames);
+	}
+
+	/**
+	 * 1フレーム分のデータを格納する．<br>
+	 * 1ラウンド分の列は, 次のラウンドの最初のフレームが渡されたとき, 又は{@link #close()}が呼ばれたときに書き込まれる．
+	 *
+	 * @param frameData
+	 *            フレームデータ
+	 * @param keyData
+	 *            このフレームのキー入力
+	 * @throws IOException
+	 *             前のラウンドの列を書き込めなかった場合
+	 */
+	public void update(FrameData frameData, KeyData keyData) throws IOException {
+		if (frameData.getRound() != this.currentRound) {
+			writeRound();
+			this.currentRound = frameData.getRound();
+		}
+
+		if (this.frameNumber == this.columns[0].length) {
+			for (int i = 0; i < this.columns.length; i++) {
+				this.columns[i] = Arrays.copyOf(this.columns[i], this.frameNumber * 2);
+			}
+		}
+
+		int column = 0;
+		this.columns[column++][this.frameNumber] = frameData.getFramesNumber();
+		this.columns[column++][this.frameNumber] = frameData.getRemainingFramesNumber();
+		column = putCharacter(column, 0, frameData.getCharacter(true), keyData.getKeys()[0],
+				frameData.getProjectilesByP1());
+		putCharacter(column, 1, frameData.getCharacter(false), keyData.getKeys()[1], frameData.getProjectilesByP2());
+
+		this.frameNumber++;
+	}
+
+	/**
+	 * 残りの列及びフッタを書き込み, ファイルを閉じる．
+	 *
+	 * @throws IOException
+	 *             入出力エラーが発生した場合
+	 */
+	public void close() throws IOException {
+		try {
+			writeRound();
+
+			byte[] footer = Json.createObjectBuilder().add("rounds", this.rounds).build().toString()
+					.getBytes(StandardCharsets.UTF_8);
+			ByteBuffer trailer = ByteBuffer.allocate(8);
+			trailer.putInt(footer.length).putInt(MAGIC).flip();
+
+			writeFully(ByteBuffer.wrap(footer));
+			writeFully(trailer);
+		} finally {
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * 現在のフレームのキャラクターの列を格納する．
+	 *
+	 * @param column
+	 *            キャラクターの最初の列の添え字
+	 * @param player
+	 *            P1の場合は0, P2の場合は1
+	 * @param cd
+	 *            キャラクターのデータ
+	 * @param keys
+	 *            キャラクターのキー入力
+	 * @param projectiles
+	 *            このプレイヤーが出した, 現在有効な波動拳
+	 * @return キャラクターの列の次の列の添え字
+	 */
+	private int putCharacter(int column, int player, CharacterData cd, Key keys, Deque<AttackData> projectiles) {
+		int frame = this.frameNumber;
+		AttackData attack = cd.getAttack();
+		boolean hasAttack = attack != null && attack.getAttackType() != 0;
+
+		// 画像の座標は非推奨だが, JSONのログの"x"及び"y"と一致させるために出力する
+		@SuppressWarnings("deprecation")
+		int x = cd.getX();
+		@SuppressWarnings("deprecation")
+		int y = cd.getY();
+
+		this.columns[column++][frame] = cd.isFront() ? 1 : 0;
+		this.columns[column++][frame] = cd.getRemainingFrame();
+		this.columns[column++][frame] = cd.getAction().ordinal();
+		this.columns[column++][frame] = cd.getState().ordinal();
+		this.columns[column++][frame] = cd.getHp();
+		this.columns[column++][frame] = cd.getEnergy();
+		this.columns[column++][frame] = x;
+		this.columns[column++][frame] = y;
+		this.columns[column++][frame] = cd.getLeft();
+		this.columns[column++][frame] = cd.getRight();
+		this.columns[column++][frame] = cd.getTop();
+		this.columns[column++][frame] = cd.getBottom();
+		this.columns[column++][frame] = cd.getSpeedX();
+		this.columns[column++][frame] = cd.getSpeedY();
+		this.columns[column++][frame] = keys.A ? 1 : 0;
+		this.columns[column++][frame] = keys.B ? 1 : 0;
+		this.columns[column++][frame] = keys.C ? 1 : 0;
+		this.columns[column++][frame] = keys.U ? 1 : 0;
+		this.columns[column++][frame] = keys.D ? 1 : 0;
+		this.columns[column++][frame] = keys.L ? 1 : 0;
+		this.columns[column++][frame] = keys.R ? 1 : 0;
+		this.columns[column++][frame] = hasAttack ? 1 : 0;
+		this.columns[column++][frame] = projectiles.size();
+
+		for (int i = 0; i < ATTACK_COLUMNS.length; i++) {
+			this.columns[column + i][frame] = 0;
+		}
+		if (hasAttack) {
+			putAttack(this.columns, column, frame, attack);
+		}
+		column += ATTACK_COLUMNS.length;
+
+		int[][] projectileColumns = this.projectileColumns[player];
+		for (AttackData projectile : projectiles) {
+			int index = this.projectileNumbers[player]++;
+			if (index == projectileColumns[0].length) {
+				for (int i = 0; i < projectileColumns.length; i++) {
+					projectileColumns[i] = Arrays.copyOf(projectileColumns[i], index * 2);
+				}
+			}
+			putAttack(projectileColumns, 0, index, projectile);
+		}
+
+		return column;
+	}
+
+	/**
+	 * 攻撃の項目を格納する．
+	 *
+	 * @param columns
+	 *            項目を格納する列
+	 * @param column
+	 *            攻撃の最初の列の添え字
+	 * @param row
+	 *            各列の要素の添え字
+	 * @param attack
+	 *            攻撃のデータ
+	 */
+	private void putAttack(int[][] columns, int column, int row, AttackData attack) {
+		HitArea hitArea = attack.getCurrentHitArea();
+
+		columns[column++][row] = attack.getSpeedX();
+		columns[column++][row] = attack.getSpeedY();
+		columns[column++][row] = attack.getHitDamage();
+		columns[column++][row] = attack.getGuardDamage();
+		columns[column++][row] = attack.getStartAddEnergy();
+		columns[column++][row] = attack.getHitAddEnergy();
+		columns[column++][row] = attack.getGuardAddEnergy();
+		columns[column++][row] = attack.getGiveEnergy();
+		columns[column++][row] = attack.getGiveGuardRecov();
+		columns[column++][row] = attack.getAttackType();
+		columns[column++][row] = attack.getImpactX();
+		columns[column++][row] = attack.getImpactY();
+		columns[column++][row] = hitArea.getBottom();
+		columns[column++][row] = hitArea.getTop();
+		columns[column++][row] = hitArea.getLeft();
+		columns[column][row] = hitArea.getRight();
+	}
+
+	/**
+	 * マジックナンバー, バージョン及びヘッダのJSONを書き込む．
+	 *
+	 * @param characterNames
+	 *            P1, P2のキャラクター名
+	 * @throws IOException
+	 *             入出力エラーが発生した場合
+	 */
+	private void writeHeader(String[] characterNames) throws IOException {
+		JsonArrayBuilder actions = Json.createArrayBuilder();
+		for (Action action : Action.values()) {
+			actions.add(action.name());
+		}
+		JsonArrayBuilder states = Json.createArrayBuilder();
+		for (State state : State.values()) {
+			states.add(state.name());
+		}
+		JsonArrayBuilder attackTypes = Json.createArrayBuilder();
+		for (String attackType : ATTACK_TYPES) {
+			attackTypes.add(attackType);
+		}
+
+		JsonObjectBuilder maxHp = Json.createObjectBuilder();
+		maxHp.add("P1", LaunchSetting.maxHp[0]);
+		maxHp.add("P2", LaunchSetting.maxHp[1]);
+		JsonObjectBuilder names = Json.createObjectBuilder();
+		names.add("P1", characterNames[0]);
+		names.add("P2", characterNames[1]);
+		JsonObjectBuilder stageSize = Json.createObjectBuilder();
+		stageSize.add("x", GameSetting.STAGE_WIDTH);
+		stageSize.add("y", GameSetting.STAGE_HEIGHT);
+
+		JsonObjectBuilder builder = Json.createObjectBuilder();
+		builder.add("byte_order", "little");
+		builder.add("dtype", "int32");
+		builder.add("max_hp", maxHp);
+		builder.add("character_names", names);
+		builder.add("stage_size", stageSize);
+		builder.add("actions", actions);
+		builder.add("states", states);
+		builder.add("attack_types", attackTypes);
+		JsonObject header = builder.build();
+
+		// 列が8バイトの倍数の位置から始まるよう, ヘッダを空白で埋める
+		StringBuilder text = new StringBuilder(header.toString());
+		while ((12 + text.toString().getBytes(StandardCharsets.UTF_8).length) % 8 != 0) {
+			text.append(' ');
+		}
+		byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer prefix = ByteBuffer.allocate(12);
+		prefix.putInt(MAGIC).putInt(VERSION).putInt(bytes.length).flip();
+		writeFully(prefix);
+		writeFully(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * 格納中のラウンドの列を書き込み, そのラウンドの項目をフッタに追加する．
+	 *
+	 * @throws IOException
+	 *             入出力エラーが発生した場合
+	 */
+	private void writeRound() throws IOException {
+		if (this.currentRound == 0) {
+			return;
+		}
+
+		JsonObjectBuilder columnEntries = Json.createObjectBuilder();
+		int column = 0;
+		for (String name : FRAME_COLUMNS) {
+			columnEntries.add(name, writeColumn(this.columns[column++], this.frameNumber));
+		}
+		for (int player = 0; player < 2; player++) {
+			String prefix = player == 0 ? "P1." : "P2.";
+			for (String name : CHARACTER_COLUMNS) {
+				columnEntries.add(prefix + name, writeColumn(this.columns[column++], this.frameNumber));
+			}
+			for (String name : ATTACK_COLUMNS) {
+				columnEntries.add(prefix + "attack." + name, writeColumn(this.columns[column++], this.frameNumber));
+			}
+		}
+		for (int player = 0; player < 2; player++) {
+			String prefix = player == 0 ? "P1.projectiles." : "P2.projectiles.";
+			for (int i = 0; i < ATTACK_COLUMNS.length; i++) {
+				columnEntries.add(prefix + ATTACK_COLUMNS[i],
+						writeColumn(this.projectileColumns[player][i], this.projectileNumbers[player]));
+			}
+		}
+
+		this.rounds.add(Json.createObjectBuilder().add("round", this.currentRound).add("frames", this.frameNumber)
+				.add("columns", columnEntries));
+
+		this.frameNumber = 0;
+		this.projectileNumbers[0] = 0;
+		this.projectileNumbers[1] = 0;
+	}
+
+	/**
+	 * 列の先頭から指定した数の要素を, リトルエンディアンで書き込む．
+	 *
+	 * @param column
+	 *            書き込む列
+	 * @param length
+	 *            書き込む要素の数
+	 * @return 列の位置及び長さを格納したフッタの項目
+	 * @throws IOException
+	 *             入出力エラーが発生した場合
+	 */
+	private JsonObjectBuilder writeColumn(int[] column, int length) throws IOException {
+		long offset = this.channel.position();
+
+		for (int start = 0; start < length;) {
+			int count = Math.min(length - start, this.buffer.capacity() / 4);
+			this.buffer.clear();
+			this.buffer.asIntBuffer().put(column, start, count);
+			this.buffer.limit(count * 4);
+			writeFully(this.buffer);
+			start += count;
+		}
+
+		return Json.createObjectBuilder().add("offset", offset).add("length", length);
+	}
+
+	/**
+	 * バッファの残りのバイトを全てファイルに書き込む．
+	 *
+	 * @param source
+	 *            書き込むバッファ
+	 * @throws IOException
+	 *             入出力エラーが発生した場合
+	 */
+	private void writeFully(ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			this.channel.write(source);
+		}
+	}
+}
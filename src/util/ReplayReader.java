@@ -0,0 +1,563 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import input.KeyData;
+import setting.GameSetting;
+import struct.FrameSnapshot;
+import struct.Key;
+
+/**
+ * リプレイファイルをメモリマップして読み込むクラス．<br>
+ * {@link ReplayWriter}が出力したバージョン3のファイルは, インデックスを用いて任意のラウンドの任意のフレームの記録及び
+ * その直前のキーフレームを一定時間で読み込める．<br>
+ * 試合が途中で終了してインデックスが書き込まれなかったファイルは, 本体を先頭から読んでインデックスを作り直し,
+ * ファイルの末尾までに記録されているフレームを同様に読み込む．<br>
+ * インデックスを持たない旧形式のファイルは, 先頭からの通し番号でフレームの記録を読み込む．
+ *
+ * @see ReplayWriter
+ */
+public class ReplayReader {
+
+	/**
+	 * 1フレーム分の記録における, 1キャラクター分の記録のバイト数．
+	 */
+	private static final int PLAYER_RECORD_SIZE = ReplayWriter.RECORD_SIZE / 2;
+
+	/**
+	 * 1キャラクター分の記録における, キー入力の位置．
+	 */
+	private static final int KEY_OFFSET = PLAYER_RECORD_SIZE - 1;
+
+	/**
+	 * インデックス付きのファイルのヘッダのバイト数．
+	 */
+	private static final int HEADER_SIZE = 32;
+
+	/**
+	 * リプレイファイル全体をマップしたバッファ．
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * リプレイファイルのバージョン．旧形式の場合は1．
+	 */
+	private int version;
+
+	/**
+	 * HPモードかどうか．
+	 */
+	private boolean limitHp;
+
+	/**
+	 * P1, P2の最大HP．
+	 */
+	private int[] maxHp;
+
+	/**
+	 * P1, P2のキャラクター名．
+	 */
+	private String[] characterNames;
+
+	/**
+	 * キーフレームの間隔(フレーム数)．
+	 */
+	private int keyFrameInterval;
+
+	/**
+	 * インデックスが書き込まれておらず, 本体から作り直したかどうか．
+	 */
+	private boolean truncated;
+
+	/**
+	 * 各ラウンドのフレーム数．
+	 */
+	private int[] frameNumbers;
+
+	/**
+	 * 各ラウンドの, 区間ごとのキーフレームの位置．キーフレームが無い区間は-1．
+	 */
+	private int[][] keyFrameOffsets;
+
+	/**
+	 * 各ラウンドの, 区間ごとのフレームの記録の開始位置．
+	 */
+	private int[][] recordOffsets;
+
+	/**
+	 * 旧形式のファイルにおける, 最初のフレームの記録の位置．
+	 */
+	private int recordStart;
+
+	/**
+	 * 旧形式のファイルにおける, フレームの記録の数．
+	 */
+	private int recordNumber;
+
+	/**
+	 * 引数で指定したリプレイファイルをメモリマップし, ヘッダ及びインデックスを読み込むクラスコンストラクタ．
+	 *
+	 * @param path
+	 *            リプレイファイルのパス
+	 * @throws IOException
+	 *             ファイルを読み込めなかった場合, またはファイルの形式が正しくない場合
+	 */
+	public ReplayReader(String path) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		try {
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+
+		this.maxHp = new int[2];
+		this.characterNames = new String[2];
+
+		if (this.buffer.limit() >= 4 && this.buffer.getInt(0) == ReplayWriter.MAGIC) {
+			readIndexedFile();
+		} else {
+			readLegacyFile();
+		}
+	}
+
+	/**
+	 * インデックス付きのファイルのヘッダ及びインデックスを読み込む．
+	 *
+	 * @throws IOException
+	 *             ファイルの形式が正しくない場合
+	 */
+	private void readIndexedFile() throws IOException {
+		int limit = this.buffer.limit();
+		this.version = this.buffer.getInt(4);
+		if (this.version != ReplayWriter.VERSION) {
+			throw new IOException("Unsupported replay version: " + this.version);
+		}
+		if (limit < HEADER_SIZE) {
+			throw new IOException("The replay file has no header.");
+		}
+
+		this.keyFrameInterval = this.buffer.getInt(8);
+		this.limitHp = this.buffer.getInt(12) != 0;
+		for (int i = 0; i < 2; i++) {
+			this.maxHp[i] = this.buffer.getInt(16 + i * 8);
+			this.characterNames[i] = GameSetting.CHARACTERS[this.buffer.getInt(20 + i * 8)];
+		}
+
+		if (this.buffer.getInt(limit - 4) != ReplayWriter.MAGIC) {
+			Logger.getAnonymousLogger().log(Level.WARNING,
+					"The replay file has no index. The frames recorded before the end of the file are read.");
+			scanRecords();
+			return;
+		}
+
+		int offset = this.buffer.getInt(limit - 8);
+		int roundNumber = this.buffer.getInt(offset);
+		offset += 4;
+
+		this.frameNumbers = new int[roundNumber];
+		this.keyFrameOffsets = new int[roundNumber][];
+		this.recordOffsets = new int[roundNumber][];
+		for (int i = 0; i < roundNumber; i++) {
+			this.frameNumbers[i] = this.buffer.getInt(offset);
+			int segmentNumber = this.buffer.getInt(offset + 4);
+			offset += 8;
+
+			this.keyFrameOffsets[i] = new int[segmentNumber];
+			this.recordOffsets[i] = new int[segmentNumber];
+			for (int j = 0; j < segmentNumber; j++) {
+				this.keyFrameOffsets[i][j] = this.buffer.getInt(offset);
+				this.recordOffsets[i][j] = this.buffer.getInt(offset + 4);
+				offset += 8;
+			}
+		}
+	}
+
+	/**
+	 * インデックスが書き込まれていないファイルの本体を先頭から読み, インデックスを作り直す．<br>
+	 * ファイルの末尾で途切れているフレームの記録及びキーフレームは読み込まない．
+	 */
+	private void scanRecords() {
+		int limit = this.buffer.limit();
+		ArrayList<Integer> frameNumbers = new ArrayList<Integer>();
+		ArrayList<ArrayList<Integer>> keyFrameOffsets = new ArrayList<ArrayList<Integer>>();
+		ArrayList<ArrayList<Integer>> recordOffsets = new ArrayList<ArrayList<Integer>>();
+
+		int offset = HEADER_SIZE;
+		int frameNumber = 0;
+		boolean keyFrameFollows = false;
+		while (true) {
+			if (keyFrameFollows) {
+				// 区間の最後のフレームの後には, ラウンドの最後であってもキーフレームが書き込まれる
+				int size = limit - offset >= 4 ? this.buffer.getInt(offset) : -1;
+				if (size < 0 || limit - offset - 4 < size * 4L) {
+					break;
+				}
+				ByteBuffer view = this.buffer.duplicate();
+				view.position(offset + 4);
+				FrameSnapshot snapshot = new FrameSnapshot(view.asIntBuffer(), size);
+				int end = offset + 4 + (snapshot.getSize() + snapshot.getProjectileNumber()) * 4;
+				if (end > limit) {
+					break;
+				}
+
+				keyFrameOffsets.get(keyFrameOffsets.size() - 1).add(offset);
+				recordOffsets.get(recordOffsets.size() - 1).add(end);
+				offset = end;
+				keyFrameFollows = false;
+
+			} else if (limit - offset >= 8 && this.buffer.getInt(offset) == ReplayWriter.MAGIC) {
+				// 0はインデックスの開始を表す
+				if (this.buffer.getInt(offset + 4) == 0) {
+					break;
+				}
+				offset += 8;
+				frameNumber = 0;
+				frameNumbers.add(0);
+				keyFrameOffsets.add(new ArrayList<Integer>());
+				recordOffsets.add(new ArrayList<Integer>());
+				keyFrameOffsets.get(keyFrameOffsets.size() - 1).add(-1);
+				recordOffsets.get(recordOffsets.size() - 1).add(offset);
+
+			} else if (!frameNumbers.isEmpty() && limit - offset >= ReplayWriter.RECORD_SIZE) {
+				offset += ReplayWriter.RECORD_SIZE;
+				frameNumber++;
+				frameNumbers.set(frameNumbers.size() - 1, frameNumber);
+				keyFrameFollows = frameNumber % this.keyFrameInterval == 0;
+
+			} else {
+				break;
+			}
+		}
+
+		this.truncated = true;
+		this.frameNumbers = new int[frameNumbers.size()];
+		this.keyFrameOffsets = new int[frameNumbers.size()][];
+		this.recordOffsets = new int[frameNumbers.size()][];
+		for (int i = 0; i < frameNumbers.size(); i++) {
+			this.frameNumbers[i] = frameNumbers.get(i);
+			this.keyFrameOffsets[i] = new int[keyFrameOffsets.get(i).size()];
+			this.recordOffsets[i] = new int[recordOffsets.get(i).size()];
+			for (int j = 0; j < this.keyFrameOffsets[i].length; j++) {
+				this.keyFrameOffsets[i][j] = keyFrameOffsets.get(i).get(j);
+				this.recordOffsets[i][j] = recordOffsets.get(i).get(j);
+			}
+		}
+	}
+
+	/**
+	 * インデックスを持たない旧形式のファイルのヘッダを読み込む．
+	 */
+	private void readLegacyFile() {
+		this.version = 1;
+
+		int offset = 0;
+		for (int i = 0; i < 2; i++) {
+			int checkMode = this.buffer.getInt(offset);
+			offset += 4;
+
+			// Checks whether fighting mode is limited HP mode or not
+			// If it is HP mode, checkMode is less than 0 (e.g. -1)
+			if (checkMode < 0) {
+				this.maxHp[i] = this.buffer.getInt(offset);
+				this.characterNames[i] = GameSetting.CHARACTERS[this.buffer.getInt(offset + 4)];
+				this.limitHp = true;
+				offset += 8;
+			} else {
+				this.characterNames[i] = GameSetting.CHARACTERS[checkMode];
+				this.limitHp = false;
+			}
+		}
+
+		this.recordStart = offset;
+		this.recordNumber = (this.buffer.limit() - offset) / ReplayWriter.RECORD_SIZE;
+	}
+
+	/**
+	 * リプレイファイルのバージョンを返す．
+	 *
+	 * @return リプレイファイルのバージョン．旧形式の場合は1
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * リプレイファイルがインデックスを持ち, ラウンドとフレームを指定して読み込めるかどうかを返す．
+	 *
+	 * @return {@code true} インデックスを持つ場合, {@code false} otherwise
+	 */
+	public boolean isIndexed() {
+		return this.version == ReplayWriter.VERSION;
+	}
+
+	/**
+	 * インデックスが書き込まれておらず, 本体から作り直したかどうかを返す．<br>
+	 * この場合, 最後のラウンドは途中までしか記録されていない可能性がある．
+	 *
+	 * @return {@code true} インデックスを作り直した場合, {@code false} otherwise
+	 */
+	public boolean isTruncated() {
+		return this.truncated;
+	}
+
+	/**
+	 * HPモードかどうかを返す．
+	 *
+	 * @return {@code true} HPモードの場合, {@code false} otherwise
+	 */
+	public boolean isLimitHp() {
+		return this.limitHp;
+	}
+
+	/**
+	 * P1, P2の最大HPを返す．
+	 *
+	 * @return P1, P2の最大HP
+	 */
+	public int[] getMaxHp() {
+		return this.maxHp.clone();
+	}
+
+	/**
+	 * P1, P2のキャラクター名を返す．
+	 *
+	 * @return P1, P2のキャラクター名
+	 */
+	public String[] getCharacterNames() {
+		return this.characterNames.clone();
+	}
+
+	/**
+	 * キーフレームの間隔を返す．
+	 *
+	 * @return キーフレームの間隔(フレーム数)
+	 */
+	public int getKeyFrameInterval() {
+		return this.keyFrameInterval;
+	}
+
+	/**
+	 * 記録されているラウンド数を返す．
+	 *
+	 * @return 記録されているラウンド数
+	 */
+	public int getRoundNumber() {
+		checkIndexed();
+		return this.frameNumbers.length;
+	}
+
+	/**
+	 * 引数で指定したラウンドに記録されているフレーム数を返す．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @return 記録されているフレーム数
+	 */
+	public int getFrameNumber(int round) {
+		checkIndexed();
+		return this.frameNumbers[round - 1];
+	}
+
+	/**
+	 * 引数で指定したラウンド及びフレームの対戦処理に用いたP1, P2のキー入力を返す．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 * @return P1, P2のキー入力
+	 */
+	public KeyData getKeyData(int round, int frame) {
+		checkFrame(round, frame);
+		int segment = frame / this.keyFrameInterval;
+		return readKeyData(
+				this.recordOffsets[round - 1][segment] + (frame % this.keyFrameInterval) * ReplayWriter.RECORD_SIZE);
+	}
+
+	/**
+	 * 引数で指定したフレームの直前のキーフレームが復元する, 次に対戦処理を行うフレームを返す．<br>
+	 * 0の場合はキーフレームが無く, ラウンドの開始時から対戦処理を行う必要がある．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 * @return キーフレームの次に対戦処理を行うフレーム
+	 */
+	public int getKeyFrameStart(int round, int frame) {
+		checkFrame(round, frame);
+		return (frame / this.keyFrameInterval) * this.keyFrameInterval;
+	}
+
+	/**
+	 * 引数で指定したフレームの直前のキーフレームに記録された対戦の状態を返す．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 * @return 対戦の状態を格納したスナップショット．キーフレームが無い場合はnull
+	 * @see #getKeyFrameStart(int, int)
+	 */
+	public FrameSnapshot getKeyFrame(int round, int frame) {
+		int offset = getKeyFrameOffset(round, frame);
+		if (offset < 0) {
+			return null;
+		}
+
+		ByteBuffer view = this.buffer.duplicate();
+		view.position(offset + 4);
+		return new FrameSnapshot(view.asIntBuffer(), this.buffer.getInt(offset));
+	}
+
+	/**
+	 * 引数で指定したフレームの直前のキーフレームに記録された, 波動拳のエフェクトの状態を返す．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 * @return 波動拳のエフェクトの状態．キーフレームが無い場合は空の配列
+	 * @see fighting.Fighting#getProjectileStates()
+	 */
+	public int[] getProjectileStates(int round, int frame) {
+		int offset = getKeyFrameOffset(round, frame);
+		if (offset < 0) {
+			return new int[0];
+		}
+
+		FrameSnapshot snapshot = getKeyFrame(round, frame);
+		ByteBuffer view = this.buffer.duplicate();
+		view.position(offset + 4 + snapshot.getSize() * 4);
+
+		int[] states = new int[snapshot.getProjectileNumber()];
+		IntBuffer intView = view.asIntBuffer();
+		intView.get(states);
+		return states;
+	}
+
+	/**
+	 * 引数で指定したフレームより前のP1, P2のキー入力を, 対戦処理が保持する上限の数まで古い順に返す．<br>
+	 * キーフレームから対戦処理を再開する際の入力履歴の復元に用いる．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 * @return 引数のフレームの直前までのキー入力
+	 */
+	public Deque<KeyData> getInputHistory(int round, int frame) {
+		Deque<KeyData> history = new ArrayDeque<KeyData>(GameSetting.INPUT_LIMIT);
+		for (int i = Math.max(frame - GameSetting.INPUT_LIMIT, 0); i < frame; i++) {
+			history.addLast(getKeyData(round, i));
+		}
+
+		return history;
+	}
+
+	/**
+	 * 旧形式のファイルに記録されているフレーム数を返す．
+	 *
+	 * @return 記録されているフレーム数
+	 */
+	public int getRecordNumber() {
+		checkLegacy();
+		return this.recordNumber;
+	}
+
+	/**
+	 * 旧形式のファイルの, 先頭から引数で指定した番号のフレームの対戦処理に用いたP1, P2のキー入力を返す．
+	 *
+	 * @param record
+	 *            フレームの通し番号(0から始まる)
+	 * @return P1, P2のキー入力
+	 */
+	public KeyData getKeyData(int record) {
+		checkLegacy();
+		if (record < 0 || record >= this.recordNumber) {
+			throw new IndexOutOfBoundsException("Record " + record + " is out of range: " + this.recordNumber);
+		}
+
+		return readKeyData(this.recordStart + record * ReplayWriter.RECORD_SIZE);
+	}
+
+	/**
+	 * 引数で指定したフレームの直前のキーフレームの位置を返す．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 * @return キーフレームの位置．キーフレームが無い場合は-1
+	 */
+	private int getKeyFrameOffset(int round, int frame) {
+		checkFrame(round, frame);
+		return this.keyFrameOffsets[round - 1][frame / this.keyFrameInterval];
+	}
+
+	/**
+	 * 引数の位置から始まる1フレーム分の記録から, P1, P2のキー入力を読み込む．
+	 *
+	 * @param offset
+	 *            フレームの記録の位置
+	 * @return P1, P2のキー入力
+	 */
+	private KeyData readKeyData(int offset) {
+		Key[] keys = new Key[2];
+		for (int i = 0; i < 2; i++) {
+			byte input = this.buffer.get(offset + i * PLAYER_RECORD_SIZE + KEY_OFFSET);
+
+			keys[i] = new Key(input);
+		}
+
+		return new KeyData(keys);
+	}
+
+	/**
+	 * 引数のラウンド及びフレームが記録されている範囲内かどうかを確認する．
+	 *
+	 * @param round
+	 *            ラウンド(1から始まる)
+	 * @param frame
+	 *            フレーム(0から始まる)
+	 */
+	private void checkFrame(int round, int frame) {
+		checkIndexed();
+		if (round < 1 || round > this.frameNumbers.length) {
+			throw new IndexOutOfBoundsException("Round " + round + " is out of range: " + this.frameNumbers.length);
+		}
+		if (frame < 0 || frame >= this.frameNumbers[round - 1]) {
+			throw new IndexOutOfBoundsException(
+					"Frame " + frame + " is out of range: " + this.frameNumbers[round - 1]);
+		}
+	}
+
+	/**
+	 * インデックスを持つファイルかどうかを確認する．
+	 */
+	private void checkIndexed() {
+		if (!isIndexed()) {
+			throw new IllegalStateException("The replay file of version " + this.version + " has no index");
+		}
+	}
+
+	/**
+	 * 旧形式のファイルかどうかを確認する．
+	 */
+	private void checkLegacy() {
+		if (isIndexed()) {
+			throw new IllegalStateException(
+					"Use getKeyData(round, frame) for the replay file of version " + this.version);
+		}
+	}
+}
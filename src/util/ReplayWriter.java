@@ -0,0 +1,227 @@
+package util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fighting.Character;
+import fighting.Fighting;
+import input.KeyData;
+import setting.FlagSetting;
+import setting.GameSetting;
+import setting.LaunchSetting;
+import struct.FrameSnapshot;
+
+/**
+ * インデックス付きのリプレイファイル(バージョン3)を出力するクラス．<br>
+ * ファイルの構成は以下の通りである．全ての値はビッグエンディアンで書き込まれる．<br>
+ * <ol>
+ * <li>ヘッダ: マジックナンバー, バージョン, キーフレームの間隔, HPモードかどうか, P1, P2の最大HP及びキャラクターのインデックス</li>
+ * <li>本体: ラウンドごとに, マジックナンバー及びラウンドの後に, {@link #KEYFRAME_INTERVAL}フレームを1区間としたフレームの記録を並べる．
+ * 各フレームの記録は{@link LogWriter#outputLog}と同じ{@link #RECORD_SIZE}バイトの固定長である．
+ * 2番目以降の区間の先頭には, その区間の直前のフレームを処理した後の対戦の状態(キーフレーム)を置く</li>
+ * <li>インデックス: マジックナンバー及び0の後に, ラウンド数と, ラウンドごとのフレーム数及び各区間のキーフレームとフレームの記録の位置</li>
+ * <li>末尾: インデックスの位置とマジックナンバー</li>
+ * </ol>
+ * 任意のフレームの記録はインデックスから区間の位置を求めるだけで読み込め,
+ * 任意のフレームの対戦の状態は直前のキーフレームから高々{@link #KEYFRAME_INTERVAL}フレームの対戦処理で復元できる．<br>
+ * インデックスは{@link #close()}で書き込まれる．試合が途中で終了してインデックスが無い場合でも,
+ * 本体はラウンドの区切りが分かる形式であるため, {@link ReplayReader}は本体を先頭から読んでインデックスを作り直せる．
+ * フレームの記録の先頭の値(向き)は0か1であり, マジックナンバーの先頭のバイトと区別できる．
+ *
+ * @see ReplayReader
+ */
+public class ReplayWriter {
+
+	/**
+	 * インデックス付きのリプレイファイルの先頭及び末尾, 各ラウンド及びインデックスの先頭に書き込まれるマジックナンバー("FICE")．<br>
+	 * 旧形式のリプレイファイルの先頭の値は-1以上のキャラクターのインデックスであるため, この値と区別できる．
+	 */
+	public static final int MAGIC = 0x46494345;
+
+	/**
+	 * このクラスが出力するリプレイファイルのバージョン．
+	 */
+	public static final int VERSION = 3;
+
+	/**
+	 * キーフレームを書き込む間隔(フレーム数)．
+	 */
+	public static final int KEYFRAME_INTERVAL = 60;
+
+	/**
+	 * 1フレーム分の記録のバイト数．
+	 */
+	public static final int RECORD_SIZE = 40;
+
+	/**
+	 * リプレイファイルに書き込みを行うためのデータ出力ストリーム．
+	 */
+	private DataOutputStream dos;
+
+	/**
+	 * 1フレーム分の記録をまとめるためのバッファ．フレームごとに使い回す．
+	 */
+	private ByteBuffer record;
+
+	/**
+	 * 書き込み中のラウンドのP1, P2のキャラクター．<br>
+	 * ラウンド中にキャラクターのインスタンスは変わらないため, ラウンドの開始時に取得したものを用いる．
+	 */
+	private Character[] characters;
+
+	/**
+	 * 書き込み中のラウンド．まだ書き込んでいない場合は0．
+	 */
+	private int currentRound;
+
+	/**
+	 * 書き込み中のラウンドで書き込んだフレーム数．
+	 */
+	private int frameNumber;
+
+	/**
+	 * 各ラウンドのフレーム数を格納したリスト．
+	 */
+	private ArrayList<Integer> frameNumbers;
+
+	/**
+	 * 各ラウンドの, 区間ごとのキーフレームの位置を格納したリスト．キーフレームが無い区間は-1．
+	 */
+	private ArrayList<ArrayList<Integer>> keyFrameOffsets;
+
+	/**
+	 * 各ラウンドの, 区間ごとのフレームの記録の開始位置を格納したリスト．
+	 */
+	private ArrayList<ArrayList<Integer>> recordOffsets;
+
+	/**
+	 * 引数のストリームにリプレイファイルのヘッダを書き込むクラスコンストラクタ．
+	 *
+	 * @param dos
+	 *            リプレイファイルに書き込みを行うためのデータ出力ストリーム
+	 * @param characterNames
+	 *            P1, P2のキャラクター名
+	 */
+	public ReplayWriter(DataOutputStream dos, String[] characterNames) {
+		this.dos = dos;
+		this.record = ByteBuffer.allocate(RECORD_SIZE);
+		this.currentRound = 0;
+		this.frameNumber = 0;
+		this.frameNumbers = new ArrayList<Integer>();
+		this.keyFrameOffsets = new ArrayList<ArrayList<Integer>>();
+		this.recordOffsets = new ArrayList<ArrayList<Integer>>();
+
+		try {
+			this.dos.writeInt(MAGIC);
+			this.dos.writeInt(VERSION);
+			this.dos.writeInt(KEYFRAME_INTERVAL);
+			this.dos.writeInt(FlagSetting.limitHpFlag ? 1 : 0);
+			for (int i = 0; i < 2; i++) {
+				this.dos.writeInt(LaunchSetting.maxHp[i]);
+				this.dos.writeInt(Arrays.asList(GameSetting.CHARACTERS).indexOf(characterNames[i]));
+			}
+		} catch (IOException e) {
+			Logger.getAnonymousLogger().log(Level.WARNING, "Fail to write the replay header: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 対戦処理後の1フレーム分の記録を書き込む．<br>
+	 * 区間の最後のフレームの場合は, 続けて次の区間のキーフレームを書き込む．
+	 *
+	 * @param round
+	 *            現在のラウンド
+	 * @param keyData
+	 *            このフレームの対戦処理に用いたP1, P2のキー入力
+	 * @param fighting
+	 *            このフレームの対戦処理を行った後の対戦処理クラスのインスタンス
+	 */
+	public void outputFrame(int round, KeyData keyData, Fighting fighting) {
+		if (round != this.currentRound) {
+			try {
+				this.dos.writeInt(MAGIC);
+				this.dos.writeInt(round);
+			} catch (IOException e) {
+				Logger.getAnonymousLogger().log(Level.WARNING, "Fail to write the round header: " + e.getMessage());
+			}
+
+			this.currentRound = round;
+			this.characters = fighting.getCharacters();
+			this.frameNumber = 0;
+			this.frameNumbers.add(0);
+			this.keyFrameOffsets.add(new ArrayList<Integer>());
+			this.recordOffsets.add(new ArrayList<Integer>());
+			addSegment(-1);
+		}
+
+		LogWriter.getInstance().outputLog(this.dos, keyData, this.characters, this.record);
+		this.frameNumber++;
+		this.frameNumbers.set(this.frameNumbers.size() - 1, this.frameNumber);
+
+		if (this.frameNumber % KEYFRAME_INTERVAL == 0) {
+			try {
+				int offset = this.dos.size();
+				FrameSnapshot snapshot = fighting.createSnapshot(this.frameNumber - 1, round);
+				int[] projectileStates = fighting.getProjectileStates();
+
+				this.dos.writeInt(snapshot.getSize());
+				snapshot.write(this.dos);
+				for (int state : projectileStates) {
+					this.dos.writeInt(state);
+				}
+				addSegment(offset);
+			} catch (IOException e) {
+				Logger.getAnonymousLogger().log(Level.WARNING, "Fail to write the key frame: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 書き込み中のラウンドに新たな区間を追加する．<br>
+	 * 区間のフレームの記録は現在の書き込み位置から始まる．
+	 *
+	 * @param keyFrameOffset
+	 *            区間のキーフレームの位置．キーフレームが無い場合は-1
+	 */
+	private void addSegment(int keyFrameOffset) {
+		this.keyFrameOffsets.get(this.keyFrameOffsets.size() - 1).add(keyFrameOffset);
+		this.recordOffsets.get(this.recordOffsets.size() - 1).add(this.dos.size());
+	}
+
+	/**
+	 * インデックス及び末尾の情報を書き込み, リプレイファイルを閉じる．
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void close() throws IOException {
+		try {
+			this.dos.writeInt(MAGIC);
+			this.dos.writeInt(0);
+			int indexOffset = this.dos.size();
+
+			this.dos.writeInt(this.frameNumbers.size());
+			for (int i = 0; i < this.frameNumbers.size(); i++) {
+				ArrayList<Integer> keyFrames = this.keyFrameOffsets.get(i);
+				ArrayList<Integer> records = this.recordOffsets.get(i);
+
+				this.dos.writeInt(this.frameNumbers.get(i));
+				this.dos.writeInt(keyFrames.size());
+				for (int j = 0; j < keyFrames.size(); j++) {
+					this.dos.writeInt(keyFrames.get(j));
+					this.dos.writeInt(records.get(j));
+				}
+			}
+
+			this.dos.writeInt(indexOffset);
+			this.dos.writeInt(MAGIC);
+		} finally {
+			this.dos.close();
+		}
+	}
+}